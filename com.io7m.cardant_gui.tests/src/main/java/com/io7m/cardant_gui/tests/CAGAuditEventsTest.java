@@ -0,0 +1,367 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CAAuditEvent;
+import com.io7m.cardant.model.CAAuditSearchParameters;
+import com.io7m.cardant.model.CATimeRange;
+import com.io7m.cardant.model.CAUserID;
+import com.io7m.cardant.model.comparisons.CAComparisonExactType;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorService;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventPage;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsPutType;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsSearchType;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsWatermarkType;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseConfiguration;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseFactory;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
+import com.io7m.darco.api.DDatabaseCreate;
+import com.io7m.darco.api.DDatabaseTelemetryNoOp;
+import com.io7m.darco.api.DDatabaseUpgrade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Timeout(30L)
+public final class CAGAuditEventsTest
+{
+  private static final String SERVER_0 =
+    "server0.example.com";
+  private static final String SERVER_1 =
+    "server1.example.com";
+
+  private static final CAUserID OWNER_0 =
+    CAUserID.of("5a8a3ad0-0b8e-4d2b-9a0b-41e1a1b1f0a0");
+  private static final CAUserID OWNER_1 =
+    CAUserID.of("0d8c3e48-2b39-4c36-a0f1-0e0de0c0a6b1");
+
+  private static final OffsetDateTime TIME_BASE =
+    OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  private CAGDatabaseType database;
+  private CAGDatabaseExecutorService executor;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.database =
+      new CAGDatabaseFactory()
+        .open(
+          new CAGDatabaseConfiguration(
+            DDatabaseTelemetryNoOp.get(),
+            DDatabaseCreate.CREATE_DATABASE,
+            DDatabaseUpgrade.UPGRADE_DATABASE,
+            directory.resolve("database.db")
+          ),
+          event -> {
+
+          }
+        );
+
+    this.executor =
+      CAGDatabaseExecutorService.create(
+        this.database,
+        2,
+        Duration.ofMillis(100L)
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.executor.close();
+    this.database.close();
+  }
+
+  private static CAAuditEvent event(
+    final long id,
+    final long minutes,
+    final CAUserID owner,
+    final String type)
+  {
+    return new CAAuditEvent(
+      id,
+      TIME_BASE.plusMinutes(minutes),
+      owner,
+      type,
+      Map.of("id", Long.toString(id), "type", type)
+    );
+  }
+
+  private static CAAuditSearchParameters search(
+    final Optional<CAUserID> owner,
+    final CAComparisonExactType<String> type,
+    final long pageSize)
+  {
+    return new CAAuditSearchParameters(
+      owner,
+      type,
+      new CATimeRange(TIME_BASE, TIME_BASE.plusDays(1L)),
+      pageSize
+    );
+  }
+
+  private static CAAuditSearchParameters searchAll(
+    final long pageSize)
+  {
+    return search(
+      Optional.empty(),
+      new CAComparisonExactType.Anything<>(),
+      pageSize
+    );
+  }
+
+  private void put(
+    final String server,
+    final List<CAAuditEvent> events)
+    throws Exception
+  {
+    this.executor.write(t -> {
+      return t.query(CAGAuditEventsPutType.class)
+        .execute(new CAGAuditEventsPutType.Parameters(server, events));
+    }).get();
+  }
+
+  private CAGAuditEventPage page(
+    final String server,
+    final CAAuditSearchParameters search,
+    final long pageIndex)
+    throws Exception
+  {
+    return this.executor.read(t -> {
+      return t.query(CAGAuditEventsSearchType.class)
+        .execute(new CAGAuditEventsSearchType.Parameters(
+          server,
+          search,
+          pageIndex
+        ));
+    }).get();
+  }
+
+  private Optional<OffsetDateTime> watermark(
+    final String server)
+    throws Exception
+  {
+    return this.executor.read(t -> {
+      return t.query(CAGAuditEventsWatermarkType.class).execute(server);
+    }).get();
+  }
+
+  private static List<Long> ids(
+    final CAGAuditEventPage page)
+  {
+    return page.items()
+      .stream()
+      .map(e -> Long.valueOf(e.id()))
+      .toList();
+  }
+
+  /**
+   * Inserting events that are already present changes nothing, even if
+   * the inserted copies differ.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutIdempotent()
+    throws Exception
+  {
+    final var events = new ArrayList<CAAuditEvent>();
+    for (long index = 0L; index < 3L; ++index) {
+      events.add(event(index, index, OWNER_0, "A"));
+    }
+
+    this.put(SERVER_0, events);
+    this.put(SERVER_0, events);
+    this.put(SERVER_0, List.of(
+      event(2L, 2L, OWNER_0, "A"),
+      new CAAuditEvent(
+        1L,
+        TIME_BASE.plusMinutes(1L),
+        OWNER_1,
+        "B",
+        Map.of("id", "changed", "other", "x")
+      ),
+      event(3L, 3L, OWNER_0, "A")
+    ));
+
+    final var page = this.page(SERVER_0, searchAll(10L), 1L);
+    assertEquals(List.of(0L, 1L, 2L, 3L), ids(page));
+    assertEquals(1L, page.pageCount());
+
+    final var retained = page.items().get(1);
+    assertEquals(OWNER_0, retained.owner());
+    assertEquals("A", retained.type());
+    assertEquals(Map.of("id", "1", "type", "A"), retained.data());
+    assertEquals(TIME_BASE.plusMinutes(1L), retained.time());
+  }
+
+  /**
+   * Events are returned in time order in pages of the requested size, and
+   * out-of-range page indices are clamped.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPaging()
+    throws Exception
+  {
+    /*
+     * Events are inserted out of time order, and two events share a time
+     * so that the order falls back to the event ID.
+     */
+
+    this.put(SERVER_0, List.of(
+      event(6L, 60L, OWNER_0, "A"),
+      event(0L, 0L, OWNER_0, "A"),
+      event(5L, 50L, OWNER_0, "A"),
+      event(3L, 30L, OWNER_0, "A"),
+      event(2L, 30L, OWNER_0, "A"),
+      event(1L, 10L, OWNER_0, "A"),
+      event(4L, 40L, OWNER_0, "A")
+    ));
+
+    final var search = searchAll(3L);
+
+    final var page1 = this.page(SERVER_0, search, 1L);
+    assertEquals(List.of(0L, 1L, 2L), ids(page1));
+    assertEquals(1L, page1.pageIndex());
+    assertEquals(3L, page1.pageCount());
+
+    final var page2 = this.page(SERVER_0, search, 2L);
+    assertEquals(List.of(3L, 4L, 5L), ids(page2));
+    assertEquals(2L, page2.pageIndex());
+
+    final var page3 = this.page(SERVER_0, search, 3L);
+    assertEquals(List.of(6L), ids(page3));
+    assertEquals(3L, page3.pageIndex());
+
+    assertEquals(page3, this.page(SERVER_0, search, 9L));
+    assertEquals(page1, this.page(SERVER_0, search, 0L));
+
+    final var empty = this.page(SERVER_1, search, 1L);
+    assertEquals(List.of(), empty.items());
+    assertEquals(1L, empty.pageIndex());
+    assertEquals(1L, empty.pageCount());
+  }
+
+  /**
+   * Searches filter by server, owner, type and time range.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFilters()
+    throws Exception
+  {
+    this.put(SERVER_0, List.of(
+      event(0L, 0L, OWNER_0, "A"),
+      event(1L, 1L, OWNER_1, "A"),
+      event(2L, 2L, OWNER_0, "B"),
+      event(3L, 3L, OWNER_1, "B"),
+      event(4L, 60L * 48L, OWNER_0, "A")
+    ));
+    this.put(SERVER_1, List.of(
+      event(5L, 5L, OWNER_0, "A")
+    ));
+
+    assertEquals(
+      List.of(0L, 1L, 2L, 3L),
+      ids(this.page(SERVER_0, searchAll(10L), 1L))
+    );
+    assertEquals(
+      List.of(5L),
+      ids(this.page(SERVER_1, searchAll(10L), 1L))
+    );
+
+    assertEquals(
+      List.of(0L, 2L),
+      ids(this.page(SERVER_0, search(
+        Optional.of(OWNER_0),
+        new CAComparisonExactType.Anything<>(),
+        10L
+      ), 1L))
+    );
+    assertEquals(
+      List.of(2L, 3L),
+      ids(this.page(SERVER_0, search(
+        Optional.empty(),
+        new CAComparisonExactType.IsEqualTo<>("B"),
+        10L
+      ), 1L))
+    );
+    assertEquals(
+      List.of(1L),
+      ids(this.page(SERVER_0, search(
+        Optional.of(OWNER_1),
+        new CAComparisonExactType.IsNotEqualTo<>("B"),
+        10L
+      ), 1L))
+    );
+  }
+
+  /**
+   * The watermark is the time of the most recent event held for the
+   * server.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWatermark()
+    throws Exception
+  {
+    assertEquals(Optional.empty(), this.watermark(SERVER_0));
+
+    this.put(SERVER_0, List.of(
+      event(0L, 20L, OWNER_0, "A"),
+      event(1L, 10L, OWNER_0, "A")
+    ));
+    this.put(SERVER_1, List.of(
+      event(2L, 30L, OWNER_0, "A")
+    ));
+
+    assertEquals(
+      Optional.of(TIME_BASE.plusMinutes(20L)),
+      this.watermark(SERVER_0)
+    );
+    assertEquals(
+      Optional.of(TIME_BASE.plusMinutes(30L)),
+      this.watermark(SERVER_1)
+    );
+  }
+}
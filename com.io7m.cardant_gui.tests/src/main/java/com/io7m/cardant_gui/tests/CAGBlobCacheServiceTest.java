@@ -0,0 +1,386 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGBlobCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGBlobCacheServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGBlobFetcherType;
+import com.io7m.cardant_gui.ui.internal.CAGBlobType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGBlobCacheServiceTest
+{
+  private static final String ALGORITHM = "SHA-256";
+
+  private Path directory;
+  private int fetches;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+  {
+    this.directory = inDirectory;
+    this.fetches = 0;
+  }
+
+  private static byte[] content(
+    final int size,
+    final int seed)
+  {
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) (index * 31 + seed);
+    }
+    return data;
+  }
+
+  private static String hashOf(
+    final byte[] data)
+    throws Exception
+  {
+    return HexFormat.of()
+      .formatHex(MessageDigest.getInstance(ALGORITHM).digest(data));
+  }
+
+  private CAGBlobFetcherType fetcherOf(
+    final byte[] data)
+  {
+    return (file, fileTmp) -> {
+      ++this.fetches;
+      Files.write(file, data);
+    };
+  }
+
+  private CAGBlobType get(
+    final CAGBlobCacheServiceType cache,
+    final byte[] data)
+    throws Exception
+  {
+    return cache.get(
+      ALGORITHM,
+      hashOf(data),
+      data.length,
+      this.fetcherOf(data)
+    );
+  }
+
+  private boolean isCached(
+    final CAGBlobCacheServiceType cache,
+    final byte[] data)
+    throws Exception
+  {
+    final var blob = cache.find(ALGORITHM, hashOf(data), data.length);
+    blob.ifPresent(CAGBlobType::close);
+    return blob.isPresent();
+  }
+
+  private List<Path> temporaryFiles()
+    throws IOException
+  {
+    try (var stream = Files.list(this.directory.resolve("tmp"))) {
+      return stream.toList();
+    }
+  }
+
+  /**
+   * Blobs are evicted in order of least recent use, keeping the total size
+   * of the cache within the maximum.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEvictBytes()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 300L);
+    final var data0 = content(100, 0);
+    final var data1 = content(100, 1);
+    final var data2 = content(100, 2);
+    final var data3 = content(100, 3);
+
+    this.get(cache, data0).close();
+    this.get(cache, data1).close();
+    this.get(cache, data2).close();
+    assertTrue(this.isCached(cache, data0));
+
+    this.get(cache, data3).close();
+    assertTrue(this.isCached(cache, data0));
+    assertFalse(this.isCached(cache, data1));
+    assertTrue(this.isCached(cache, data2));
+    assertTrue(this.isCached(cache, data3));
+
+    final var statistics = cache.statistics().get();
+    assertEquals(300L, statistics.bytes());
+    assertEquals(3L, statistics.size());
+    assertEquals(1L, statistics.evictions());
+  }
+
+  /**
+   * A blob that is open is not evicted, and so its file can still be read.
+   * The cache evicts it once it is closed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOpenBlobNotEvicted()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 100L);
+    final var data0 = content(100, 0);
+    final var data1 = content(100, 1);
+
+    final var blob0 = this.get(cache, data0);
+    final var blob1 = this.get(cache, data1);
+    assertArrayEquals(data0, Files.readAllBytes(blob0.file()));
+    assertEquals(200L, cache.statistics().get().bytes());
+
+    blob0.close();
+    blob0.close();
+    assertFalse(Files.exists(blob0.file()));
+    assertEquals(100L, cache.statistics().get().bytes());
+
+    assertArrayEquals(data1, Files.readAllBytes(blob1.file()));
+    blob1.close();
+    assertTrue(this.isCached(cache, data1));
+  }
+
+  /**
+   * A blob that is open more than once stays pinned until every holder has
+   * closed it.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOpenTwice()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 100L);
+    final var data0 = content(100, 0);
+    final var data1 = content(100, 1);
+
+    final var blob0 = this.get(cache, data0);
+    final var blob1 = this.get(cache, data0);
+    assertEquals(1, this.fetches);
+
+    blob0.close();
+    this.get(cache, data1).close();
+    assertArrayEquals(data0, Files.readAllBytes(blob1.file()));
+    assertFalse(this.isCached(cache, data1));
+
+    blob1.close();
+    assertTrue(this.isCached(cache, data0));
+  }
+
+  /**
+   * A blob whose content no longer matches its hash is discarded when it
+   * is next read, and is fetched again.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHashMismatchRefetched()
+    throws Exception
+  {
+    final var data0 = content(100, 0);
+
+    final Path file;
+    final var cache0 =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    try (var blob = this.get(cache0, data0)) {
+      file = blob.file();
+    }
+    Files.write(file, content(100, 1));
+
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    assertFalse(this.isCached(cache, data0));
+
+    try (var blob = this.get(cache, data0)) {
+      assertArrayEquals(data0, Files.readAllBytes(blob.file()));
+    }
+    assertEquals(2, this.fetches);
+    assertTrue(this.isCached(cache, data0));
+  }
+
+  /**
+   * A blob whose size no longer matches is discarded when it is next read,
+   * even if its hash has already been checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSizeMismatchRefetched()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    final var data0 = content(100, 0);
+
+    final Path file;
+    try (var blob = this.get(cache, data0)) {
+      file = blob.file();
+    }
+    Files.write(file, content(50, 0));
+
+    try (var blob = this.get(cache, data0)) {
+      assertArrayEquals(data0, Files.readAllBytes(blob.file()));
+    }
+    assertEquals(2, this.fetches);
+    assertEquals(100L, cache.statistics().get().bytes());
+  }
+
+  /**
+   * Reopening the cache indexes the blobs already present, and deletes the
+   * partial files left behind by an earlier run.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReopen()
+    throws Exception
+  {
+    final var data0 = content(100, 0);
+    final var data1 = content(50, 1);
+
+    final var cache0 =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    this.get(cache0, data0).close();
+    this.get(cache0, data1).close();
+
+    final var part =
+      this.directory.resolve("tmp").resolve("leftover.part");
+    final var tmp =
+      this.directory.resolve("tmp").resolve("leftover.tmp");
+    Files.write(part, content(10, 2));
+    Files.write(tmp, content(10, 3));
+
+    final var cache1 =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    assertFalse(Files.exists(part));
+    assertFalse(Files.exists(tmp));
+
+    final var statistics = cache1.statistics().get();
+    assertEquals(2L, statistics.size());
+    assertEquals(150L, statistics.bytes());
+
+    assertTrue(this.isCached(cache1, data0));
+    assertTrue(this.isCached(cache1, data1));
+    assertEquals(2, this.fetches);
+  }
+
+  /**
+   * Content that is already cached is served without being fetched again.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCachedNotFetched()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    final var data0 = content(100, 0);
+
+    this.get(cache, data0).close();
+    try (var blob = this.get(cache, data0)) {
+      assertArrayEquals(data0, Files.readAllBytes(blob.file()));
+    }
+
+    assertEquals(1, this.fetches);
+    final var statistics = cache.statistics().get();
+    assertEquals(1L, statistics.hits());
+    assertEquals(1L, statistics.misses());
+  }
+
+  /**
+   * Fetched content that does not match the expected hash is rejected and
+   * is not cached.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchedMismatchRejected()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    final var data0 = content(100, 0);
+    final var hash0 = hashOf(data0);
+
+    assertThrows(IOException.class, () -> {
+      cache.get(ALGORITHM, hash0, 100L, this.fetcherOf(content(100, 1)));
+    });
+
+    assertFalse(this.isCached(cache, data0));
+    assertEquals(0L, cache.statistics().get().bytes());
+    assertEquals(List.of(), this.temporaryFiles());
+  }
+
+  /**
+   * A fetch that fails leaves no temporary files behind.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchFailureCleanedUp()
+    throws Exception
+  {
+    final var cache =
+      CAGBlobCacheService.create(this.directory, 1000L);
+    final var data0 = content(100, 0);
+    final var hash0 = hashOf(data0);
+
+    assertThrows(IOException.class, () -> {
+      cache.get(ALGORITHM, hash0, 100L, (file, fileTmp) -> {
+        Files.write(file, content(10, 0));
+        Files.write(fileTmp, content(10, 0));
+        throw new IOException("Connection lost.");
+      });
+    });
+
+    assertFalse(this.isCached(cache, data0));
+    assertEquals(List.of(), this.temporaryFiles());
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.client.api.CAClientTransferStatistics;
+import com.io7m.cardant.model.CAFileID;
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandType;
+import com.io7m.cardant.protocol.inventory.CAIResponseType;
+import com.io7m.cardant_gui.ui.internal.CAGCacheStatistics;
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandLaneKind;
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority;
+import com.io7m.cardant_gui.ui.internal.CAGClientMetricsSnapshot;
+import com.io7m.cardant_gui.ui.internal.CAGClientPipelineContextType;
+import com.io7m.cardant_gui.ui.internal.CAGClientPipelineType;
+import com.io7m.cardant_gui.ui.internal.CAGClientServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGClientSingleFlightStatistics;
+import com.io7m.cardant_gui.ui.internal.CAGClientStatus;
+import com.io7m.cardant_gui.ui.internal.CAGLatencySnapshot;
+import com.io7m.cardant_gui.ui.internal.CAGServerBookmark;
+import com.io7m.jattribute.core.AttributeReadableType;
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGClientBatchTest
+{
+  private static final CAICommandItemGet COMMAND_0 =
+    new CAICommandItemGet(CAItemID.random());
+  private static final CAICommandItemGet COMMAND_1 =
+    new CAICommandItemGet(CAItemID.random());
+  private static final CAICommandItemGet COMMAND_2 =
+    new CAICommandItemGet(CAItemID.random());
+
+  private PipelineClients clients;
+  private List<String> log;
+
+  /**
+   * A client service that holds each pipeline until it is explicitly run,
+   * and runs it against a context that records the commands it is given.
+   * Commands are answered with no response, or fail if they are listed in
+   * {@link #failing}.
+   */
+
+  private static final class PipelineClients
+    implements CAGClientServiceType
+  {
+    private final List<Runnable> pipelines;
+    private final List<CAICommandType<?>> failing;
+    private final List<String> log;
+    private final List<CAICommandType<?>> commands;
+
+    PipelineClients(
+      final List<String> inLog,
+      final List<CAICommandType<?>> inCommands)
+    {
+      this.pipelines = new ArrayList<>();
+      this.failing = new ArrayList<>();
+      this.log = inLog;
+      this.commands = inCommands;
+    }
+
+    void runPipelines()
+    {
+      final var pending = List.copyOf(this.pipelines);
+      this.pipelines.clear();
+      pending.forEach(Runnable::run);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executePipeline(
+      final CAGClientPipelineType<T> pipeline)
+    {
+      final var future = new CompletableFuture<T>();
+      this.pipelines.add(() -> {
+        try {
+          future.complete(pipeline.execute(new RecordingContext()));
+        } catch (final Exception e) {
+          future.completeExceptionally(e);
+        }
+      });
+      return future;
+    }
+
+    private final class RecordingContext
+      implements CAGClientPipelineContextType
+    {
+      @Override
+      public <R extends CAIResponseType> R execute(
+        final CAICommandType<R> command)
+      {
+        final var index = PipelineClients.this.commands.indexOf(command);
+        PipelineClients.this.log.add("execute " + index);
+        if (PipelineClients.this.failing.contains(command)) {
+          throw new IllegalStateException("Failed " + index);
+        }
+        return null;
+      }
+    }
+
+    @Override
+    public AttributeReadableType<CAGClientStatus> status()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<CAGServerBookmark> sessionServer()
+    {
+      return Optional.empty();
+    }
+
+    @Override
+    public AttributeReadableType<Integer> commandQueueDepth(
+      final CAGClientCommandLaneKind lane)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AttributeReadableType<CAGClientSingleFlightStatistics> singleFlightStatistics()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CAGLatencySnapshot commandLatency(
+      final CAGClientCommandPriority priority)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AttributeReadableType<CAGClientMetricsSnapshot> metrics()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AttributeReadableType<CAGCacheStatistics> imageCacheStatistics()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CAGClientMetricsSnapshot metricsNow()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void login(
+      final CAGServerBookmark server)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <R extends CAIResponseType> CompletableFuture<R> execute(
+      final CAICommandType<R> command,
+      final CAGClientCommandPriority priority)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<Void> fileUpload(
+      final CAFileID fileID,
+      final Path file,
+      final String contentType,
+      final String description,
+      final Consumer<CAClientTransferStatistics> statistics)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<Void> fileDownload(
+      final CAFileID fileID,
+      final Path file,
+      final Path fileTmp,
+      final long size,
+      final String hashAlgorithm,
+      final String hashValue,
+      final Consumer<CAClientTransferStatistics> statistics)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<Image> imageGet(
+      final CAFileID fileID,
+      final long size,
+      final String hashAlgorithm,
+      final String hashValue,
+      final int width,
+      final int height)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String description()
+    {
+      return "Pipeline clients.";
+    }
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.log = new ArrayList<>();
+    this.clients = new PipelineClients(
+      this.log,
+      List.of(COMMAND_0, COMMAND_1, COMMAND_2)
+    );
+  }
+
+  private List<CompletableFuture<CAIResponseType>> batch()
+  {
+    final var futures =
+      this.clients.executeBatch(List.of(COMMAND_0, COMMAND_1, COMMAND_2));
+
+    for (int index = 0; index < futures.size(); ++index) {
+      final var name = "complete " + index;
+      futures.get(index).whenComplete((r, e) -> this.log.add(name));
+    }
+    return futures;
+  }
+
+  /**
+   * A batch runs as a single pipeline, executing its commands in order,
+   * and each command's future completes before the next command starts.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInOrder()
+    throws Exception
+  {
+    final var futures = this.batch();
+    assertEquals(1, this.clients.pipelines.size());
+    assertEquals(List.of(), this.log);
+
+    this.clients.runPipelines();
+    assertEquals(
+      List.of(
+        "execute 0", "complete 0",
+        "execute 1", "complete 1",
+        "execute 2", "complete 2"
+      ),
+      this.log
+    );
+
+    for (final var future : futures) {
+      assertTrue(future.isDone());
+      future.get();
+    }
+  }
+
+  /**
+   * A failing command fails its own future and the futures of every
+   * command after it with the same exception, and the commands after it
+   * are never executed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFailureCancelsRest()
+    throws Exception
+  {
+    this.clients.failing.add(COMMAND_1);
+
+    final var futures = this.batch();
+    this.clients.runPipelines();
+
+    assertEquals(
+      List.of(
+        "execute 0", "complete 0",
+        "execute 1", "complete 1", "complete 2"
+      ),
+      this.log
+    );
+
+    futures.get(0).get();
+
+    final var ex1 =
+      assertThrows(ExecutionException.class, futures.get(1)::get);
+    final var ex2 =
+      assertThrows(ExecutionException.class, futures.get(2)::get);
+    assertEquals("Failed 1", ex1.getCause().getMessage());
+    assertSame(ex1.getCause(), ex2.getCause());
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandLane;
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandLaneKind;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGClientCommandLaneTest
+{
+  private LinkedList<Runnable> workers;
+  private List<String> ran;
+  private Attributes attributes;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.workers =
+      new LinkedList<>();
+    this.ran =
+      new ArrayList<>();
+    this.attributes =
+      Attributes.create(throwable -> {
+        throw new IllegalStateException(throwable);
+      });
+  }
+
+  private CAGClientCommandLane lane(
+    final boolean ordered)
+  {
+    return new CAGClientCommandLane(
+      this.attributes,
+      this.workers::add,
+      CAGClientCommandLaneKind.READ,
+      1,
+      ordered,
+      Duration.ofHours(1L)
+    );
+  }
+
+  private Runnable record(
+    final String name)
+  {
+    return () -> this.ran.add(name);
+  }
+
+  private void runWorkers()
+  {
+    while (!this.workers.isEmpty()) {
+      this.workers.removeFirst().run();
+    }
+  }
+
+  /**
+   * Interactive tasks start ahead of background tasks.
+   */
+
+  @Test
+  public void testInteractiveFirst()
+  {
+    final var lane = this.lane(false);
+    lane.submit(BACKGROUND, this.record("b0"));
+    lane.submit(INTERACTIVE, this.record("i0"));
+    lane.submit(BACKGROUND, this.record("b1"));
+    this.runWorkers();
+
+    assertEquals(List.of("i0", "b0", "b1"), this.ran);
+    assertEquals(Integer.valueOf(0), lane.queueDepth().get());
+  }
+
+  /**
+   * A promoted background task starts ahead of other background tasks,
+   * and runs exactly once.
+   */
+
+  @Test
+  public void testPromote()
+  {
+    final var lane = this.lane(false);
+    lane.submit(BACKGROUND, this.record("b0"));
+    final var b1 = lane.submit(BACKGROUND, this.record("b1"));
+    b1.promote();
+    b1.promote();
+    this.runWorkers();
+
+    assertEquals(List.of("b1", "b0"), this.ran);
+    assertEquals(Integer.valueOf(0), lane.queueDepth().get());
+  }
+
+  /**
+   * Promoting a task that has already run does nothing.
+   */
+
+  @Test
+  public void testPromoteStarted()
+  {
+    final var lane = this.lane(false);
+    final var b0 = lane.submit(BACKGROUND, this.record("b0"));
+    this.runWorkers();
+    b0.promote();
+    this.runWorkers();
+
+    assertEquals(List.of("b0"), this.ran);
+  }
+
+  /**
+   * An ordered lane ignores priorities and promotions.
+   */
+
+  @Test
+  public void testOrdered()
+  {
+    final var lane = this.lane(true);
+    lane.submit(BACKGROUND, this.record("b0"));
+    final var b1 = lane.submit(BACKGROUND, this.record("b1"));
+    lane.submit(INTERACTIVE, this.record("i0"));
+    b1.promote();
+    this.runWorkers();
+
+    assertEquals(List.of("b0", "b1", "i0"), this.ran);
+  }
+
+  /**
+   * The published queue depth settles at zero when tasks are submitted
+   * and run concurrently.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testQueueDepthConcurrent()
+    throws Exception
+  {
+    final var executor = Executors.newFixedThreadPool(4);
+    try {
+      final var lane =
+        new CAGClientCommandLane(
+          this.attributes,
+          executor,
+          CAGClientCommandLaneKind.READ,
+          4,
+          false,
+          Duration.ofHours(1L)
+        );
+
+      final var submitters = 4;
+      final var tasks = 2000;
+      final var done = new CountDownLatch(submitters * tasks);
+      final var threads = new ArrayList<Thread>();
+      for (int index = 0; index < submitters; ++index) {
+        final var priority = index % 2 == 0 ? BACKGROUND : INTERACTIVE;
+        threads.add(new Thread(() -> {
+          for (int task = 0; task < tasks; ++task) {
+            lane.submit(priority, done::countDown);
+          }
+        }));
+      }
+      for (final var thread : threads) {
+        thread.start();
+      }
+      for (final var thread : threads) {
+        thread.join();
+      }
+
+      assertTrue(done.await(30L, TimeUnit.SECONDS));
+      assertEquals(Integer.valueOf(0), lane.queueDepth().get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
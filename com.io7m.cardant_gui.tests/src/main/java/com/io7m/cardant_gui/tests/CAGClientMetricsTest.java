@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGClientMetrics;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CAGClientMetricsTest
+{
+  private static long count(
+    final CAGClientMetrics metrics)
+  {
+    final var operation =
+      metrics.snapshot().get().operations().get("op");
+    return operation == null ? 0L : operation.latency().count();
+  }
+
+  private static void record(
+    final CAGClientMetrics metrics)
+  {
+    final var operation = metrics.operation("op");
+    operation.finished(operation.started(System.nanoTime()), true);
+  }
+
+  /**
+   * A publication that falls within the publication interval is not made
+   * immediately, but is made at the end of the interval.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testTrailingPublish()
+    throws Exception
+  {
+    final var metrics =
+      new CAGClientMetrics(
+        Attributes.create(throwable -> {
+          throw new IllegalStateException(throwable);
+        }),
+        Duration.ofMillis(200L)
+      );
+
+    record(metrics);
+    metrics.publish();
+    assertEquals(1L, count(metrics));
+
+    record(metrics);
+    metrics.publish();
+    record(metrics);
+    metrics.publish();
+    assertEquals(1L, count(metrics));
+
+    final var timeEnd = System.nanoTime() + Duration.ofSeconds(5L).toNanos();
+    while (count(metrics) != 3L && System.nanoTime() < timeEnd) {
+      Thread.sleep(10L);
+    }
+    assertEquals(3L, count(metrics));
+  }
+}
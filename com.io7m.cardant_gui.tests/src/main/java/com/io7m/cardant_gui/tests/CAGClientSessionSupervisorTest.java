@@ -0,0 +1,298 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGClientReconnectPolicy;
+import com.io7m.cardant_gui.ui.internal.CAGClientSessionSupervisor;
+import com.io7m.cardant_gui.ui.internal.CAGClientStatus;
+import com.io7m.cardant_gui.ui.internal.CAGServerBookmark;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.CONNECTED;
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.NOT_CONNECTED;
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.RECONNECTING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(30L)
+public final class CAGClientSessionSupervisorTest
+{
+  private static final CAGServerBookmark SERVER =
+    new CAGServerBookmark(
+      "example.com",
+      "example.com",
+      30000,
+      false,
+      Duration.ofSeconds(30L),
+      Duration.ofSeconds(30L),
+      "someone",
+      "password"
+    );
+
+  private ExecutorService executor;
+  private AttributeType<CAGClientStatus> status;
+  private AtomicLong time;
+  private AtomicBoolean connectable;
+  private Semaphore sleeps;
+  private List<Duration> delays;
+  private List<String> events;
+  private CountDownLatch finished;
+  private CAGClientSessionSupervisor session;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.executor =
+      Executors.newSingleThreadExecutor();
+    this.status =
+      Attributes.create(throwable -> {
+        throw new IllegalStateException(throwable);
+      }).withValue(NOT_CONNECTED);
+
+    this.time =
+      new AtomicLong();
+    this.connectable =
+      new AtomicBoolean(true);
+    this.sleeps =
+      new Semaphore(Integer.MAX_VALUE);
+    this.delays =
+      Collections.synchronizedList(new ArrayList<>());
+    this.events =
+      Collections.synchronizedList(new ArrayList<>());
+    this.finished =
+      new CountDownLatch(1);
+
+    this.session =
+      new CAGClientSessionSupervisor(
+        this.status,
+        this.executor,
+        new CAGClientReconnectPolicy(
+          Duration.ofMillis(100L),
+          Duration.ofMillis(400L),
+          Duration.ofSeconds(1L)
+        ),
+        server -> {
+          if (!this.connectable.get()) {
+            throw new IOException("Connection refused.");
+          }
+        },
+        delay -> {
+          this.sleeps.acquire();
+          this.delays.add(delay);
+          this.time.addAndGet(delay.toNanos());
+        },
+        this.time::get,
+        new Listener()
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.executor.shutdownNow();
+    assertTrue(this.executor.awaitTermination(10L, TimeUnit.SECONDS));
+  }
+
+  private void login()
+    throws Exception
+  {
+    this.session.loginBegin();
+    this.session.loginConnect(SERVER);
+    this.status.set(CONNECTED);
+  }
+
+  /**
+   * Reconnection attempts back off exponentially up to the maximum delay,
+   * and are abandoned once the policy gives up.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBackoff()
+    throws Exception
+  {
+    this.login();
+    this.connectable.set(false);
+    this.session.onConnectionLost();
+    this.finished.await();
+
+    assertEquals(
+      List.of(
+        Duration.ofMillis(100L),
+        Duration.ofMillis(200L),
+        Duration.ofMillis(400L),
+        Duration.ofMillis(400L)
+      ),
+      this.delays
+    );
+    assertEquals(
+      List.of("attempt 1", "attempt 2", "attempt 3", "attempt 4", "failed"),
+      this.events
+    );
+    assertEquals(NOT_CONNECTED, this.status.get());
+    assertEquals(Optional.empty(), this.session.server());
+  }
+
+  /**
+   * Commands submitted while the session is being recovered are held, and
+   * are replayed once the session is connected again.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHeldReplayedAfterConnected()
+    throws Exception
+  {
+    this.login();
+    this.sleeps.drainPermits();
+    this.session.onConnectionLost();
+    assertEquals(RECONNECTING, this.status.get());
+
+    final var seen =
+      Collections.synchronizedList(new ArrayList<CAGClientStatus>());
+
+    assertTrue(this.session.holdIfReconnecting(() -> {
+      seen.add(this.status.get());
+    }));
+    assertTrue(this.session.holdIfReconnecting(() -> {
+      seen.add(this.status.get());
+    }));
+    assertEquals(List.of(), seen);
+
+    this.sleeps.release();
+    this.finished.await();
+
+    assertEquals(List.of(CONNECTED, CONNECTED), seen);
+    assertEquals(List.of("attempt 1", "connected"), this.events);
+    assertEquals(CONNECTED, this.status.get());
+    assertEquals(SERVER, this.session.server().orElseThrow());
+    assertFalse(this.session.holdIfReconnecting(() -> seen.add(null)));
+  }
+
+  /**
+   * Commands held by a recovery that gives up are still replayed, so that
+   * they fail normally rather than waiting forever.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHeldReplayedAfterGivingUp()
+    throws Exception
+  {
+    this.login();
+    this.connectable.set(false);
+    this.sleeps.drainPermits();
+    this.session.onConnectionLost();
+
+    final var seen =
+      Collections.synchronizedList(new ArrayList<CAGClientStatus>());
+
+    assertTrue(this.session.holdIfReconnecting(() -> {
+      seen.add(this.status.get());
+    }));
+
+    this.sleeps.release(Integer.MAX_VALUE);
+    this.finished.await();
+
+    assertEquals(List.of(NOT_CONNECTED), seen);
+  }
+
+  /**
+   * A login abandons a recovery in progress, and takes over the commands
+   * that it held.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginAbandonsRecovery()
+    throws Exception
+  {
+    this.login();
+    this.sleeps.drainPermits();
+    this.session.onConnectionLost();
+
+    while (!this.sleeps.hasQueuedThreads()) {
+      Thread.onSpinWait();
+    }
+
+    final Runnable task = () -> { };
+    assertTrue(this.session.holdIfReconnecting(task));
+    assertEquals(List.of(task), this.session.loginBegin());
+    assertFalse(this.session.holdIfReconnecting(task));
+
+    this.executor.shutdown();
+    assertTrue(this.executor.awaitTermination(10L, TimeUnit.SECONDS));
+
+    assertEquals(List.of("attempt 1"), this.events);
+    assertEquals(List.of(), this.delays);
+    assertEquals(Optional.empty(), this.session.server());
+  }
+
+  private final class Listener
+    implements CAGClientSessionSupervisor.ListenerType
+  {
+    @Override
+    public void onReconnectAttempt(
+      final CAGServerBookmark server,
+      final int attempt)
+    {
+      CAGClientSessionSupervisorTest.this.events.add("attempt " + attempt);
+    }
+
+    @Override
+    public void onReconnected(
+      final CAGServerBookmark server)
+    {
+      CAGClientSessionSupervisorTest.this.events.add("connected");
+      CAGClientSessionSupervisorTest.this.finished.countDown();
+    }
+
+    @Override
+    public void onReconnectFailed(
+      final CAGServerBookmark server)
+    {
+      CAGClientSessionSupervisorTest.this.events.add("failed");
+      CAGClientSessionSupervisorTest.this.finished.countDown();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAIResponseItemGet;
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority;
+import com.io7m.cardant_gui.ui.internal.CAGClientSingleFlight;
+import com.io7m.cardant_gui.ui.internal.CAGClientSingleFlight.Flight;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGClientSingleFlightTest
+{
+  private CAGClientSingleFlight flights;
+  private List<CompletableFuture<CAIResponseItemGet>> started;
+  private int promotions;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.flights =
+      new CAGClientSingleFlight(
+        Attributes.create(throwable -> {
+          throw new IllegalStateException(throwable);
+        })
+      );
+    this.started =
+      new ArrayList<>();
+    this.promotions =
+      0;
+  }
+
+  private CompletableFuture<CAIResponseItemGet> execute(
+    final CAICommandItemGet command,
+    final CAGClientCommandPriority priority)
+  {
+    return this.flights.execute(command, priority, c -> {
+      final var future = new CompletableFuture<CAIResponseItemGet>();
+      this.started.add(future);
+      return new Flight<>(future, () -> ++this.promotions);
+    });
+  }
+
+  /**
+   * Equal commands share a single request and a single response.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testShared()
+    throws Exception
+  {
+    final var command = new CAICommandItemGet(CAItemID.random());
+    final var f0 = this.execute(command, INTERACTIVE);
+    final var f1 = this.execute(command, INTERACTIVE);
+    assertEquals(1, this.started.size());
+
+    assertFalse(f0.isDone());
+    assertFalse(f1.isDone());
+    this.started.get(0).complete(null);
+    assertTrue(f0.isDone());
+    assertTrue(f1.isDone());
+    assertNull(f0.get());
+    assertNull(f1.get());
+    assertEquals(1L, this.flights.statistics().get().hits());
+  }
+
+  /**
+   * Different commands do not share requests, and a command that has
+   * completed is no longer shared.
+   */
+
+  @Test
+  public void testNotShared()
+  {
+    final var command = new CAICommandItemGet(CAItemID.random());
+    this.execute(command, INTERACTIVE);
+    this.execute(new CAICommandItemGet(CAItemID.random()), INTERACTIVE);
+    assertEquals(2, this.started.size());
+
+    this.started.get(0).complete(null);
+    this.execute(command, INTERACTIVE);
+    assertEquals(3, this.started.size());
+  }
+
+  /**
+   * An interactive caller joining a background request promotes the
+   * request exactly once.
+   */
+
+  @Test
+  public void testPromoteOnInteractiveJoin()
+  {
+    final var command = new CAICommandItemGet(CAItemID.random());
+    this.execute(command, BACKGROUND);
+    this.execute(command, BACKGROUND);
+    assertEquals(0, this.promotions);
+
+    this.execute(command, INTERACTIVE);
+    assertEquals(1, this.promotions);
+    this.execute(command, INTERACTIVE);
+    assertEquals(1, this.promotions);
+    assertEquals(1, this.started.size());
+  }
+
+  /**
+   * A background caller joining an interactive request does not change
+   * the request.
+   */
+
+  @Test
+  public void testNoPromoteOnBackgroundJoin()
+  {
+    final var command = new CAICommandItemGet(CAItemID.random());
+    this.execute(command, INTERACTIVE);
+    this.execute(command, BACKGROUND);
+    assertEquals(0, this.promotions);
+  }
+
+  /**
+   * The request is cancelled only when every caller has cancelled.
+   */
+
+  @Test
+  public void testCancelAll()
+  {
+    final var command = new CAICommandItemGet(CAItemID.random());
+    final var f0 = this.execute(command, INTERACTIVE);
+    final var f1 = this.execute(command, INTERACTIVE);
+
+    f0.cancel(false);
+    assertFalse(this.started.get(0).isCancelled());
+    f1.cancel(false);
+    assertTrue(this.started.get(0).isCancelled());
+
+    this.execute(command, INTERACTIVE);
+    assertEquals(2, this.started.size());
+  }
+}
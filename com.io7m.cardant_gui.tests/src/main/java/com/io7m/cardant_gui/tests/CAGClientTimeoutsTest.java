@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageGetText;
+import com.io7m.cardant_gui.ui.internal.CAGClientTimeouts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CAGClientTimeoutsTest
+{
+  private static final Duration CEILING =
+    Duration.ofSeconds(60L);
+
+  private static void recordMany(
+    final CAGClientTimeouts timeouts,
+    final Class<?> commandClass,
+    final Duration time)
+  {
+    for (int index = 0; index < 64; ++index) {
+      timeouts.record(commandClass, time);
+    }
+  }
+
+  /**
+   * Commands are given the full timeout until enough samples exist.
+   */
+
+  @Test
+  public void testFewSamples()
+  {
+    final var timeouts = new CAGClientTimeouts(CEILING);
+    timeouts.record(CAICommandItemGet.class, Duration.ofMillis(1L));
+    assertEquals(CEILING, timeouts.timeoutFor(CAICommandItemGet.class));
+  }
+
+  /**
+   * Fast commands are never given less than the floor.
+   */
+
+  @Test
+  public void testFloor()
+  {
+    final var timeouts = new CAGClientTimeouts(CEILING);
+    recordMany(timeouts, CAICommandItemGet.class, Duration.ofMillis(1L));
+    assertEquals(
+      Duration.ofSeconds(10L),
+      timeouts.timeoutFor(CAICommandItemGet.class)
+    );
+  }
+
+  /**
+   * Slow commands are given a multiple of their latency, up to the
+   * ceiling.
+   */
+
+  @Test
+  public void testAdaptive()
+  {
+    final var timeouts = new CAGClientTimeouts(CEILING);
+    recordMany(timeouts, CAICommandItemGet.class, Duration.ofSeconds(5L));
+    assertEquals(
+      Duration.ofSeconds(20L),
+      timeouts.timeoutFor(CAICommandItemGet.class)
+    );
+
+    recordMany(timeouts, CAICommandItemGet.class, Duration.ofSeconds(30L));
+    assertEquals(CEILING, timeouts.timeoutFor(CAICommandItemGet.class));
+  }
+
+  /**
+   * Searches and type package texts always get the full timeout, however
+   * quickly they have completed before.
+   */
+
+  @Test
+  public void testVariableCost()
+  {
+    final var timeouts = new CAGClientTimeouts(CEILING);
+    recordMany(
+      timeouts,
+      CAICommandItemSearchBegin.class,
+      Duration.ofMillis(1L)
+    );
+    recordMany(
+      timeouts,
+      CAICommandTypePackageGetText.class,
+      Duration.ofMillis(1L)
+    );
+
+    assertEquals(
+      CEILING,
+      timeouts.timeoutFor(CAICommandItemSearchBegin.class)
+    );
+    assertEquals(
+      CEILING,
+      timeouts.timeoutFor(CAICommandTypePackageGetText.class)
+    );
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorService;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseConfiguration;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseFactory;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseTransactionType;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAddType;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileListType;
+import com.io7m.darco.api.DDatabaseCreate;
+import com.io7m.darco.api.DDatabaseTelemetryNoOp;
+import com.io7m.darco.api.DDatabaseUpgrade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.io7m.darco.api.DDatabaseUnit.UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(30L)
+public final class CAGDatabaseExecutorServiceTest
+{
+  private CAGDatabaseType database;
+  private CAGDatabaseExecutorService executor;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.database =
+      new CAGDatabaseFactory()
+        .open(
+          new CAGDatabaseConfiguration(
+            DDatabaseTelemetryNoOp.get(),
+            DDatabaseCreate.CREATE_DATABASE,
+            DDatabaseUpgrade.UPGRADE_DATABASE,
+            directory.resolve("database.db")
+          ),
+          event -> {
+
+          }
+        );
+
+    this.executor =
+      CAGDatabaseExecutorService.create(
+        this.database,
+        2,
+        Duration.ofMillis(100L)
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.executor.close();
+    this.database.close();
+  }
+
+  private List<Path> recentFiles()
+    throws Exception
+  {
+    return this.executor.read(t -> {
+      return t.query(CAGRecentFileListType.class).execute(UNIT);
+    }).get();
+  }
+
+  /**
+   * Writes are executed in the order in which they were submitted.
+   */
+
+  @Test
+  public void testWriteOrder()
+    throws Exception
+  {
+    final var order =
+      Collections.synchronizedList(new ArrayList<Integer>());
+    final var futures =
+      new ArrayList<CompletableFuture<Boolean>>();
+
+    for (int index = 0; index < 100; ++index) {
+      final var value = Integer.valueOf(index);
+      futures.add(this.executor.write(t -> order.add(value)));
+    }
+    for (final var future : futures) {
+      future.get();
+    }
+
+    for (int index = 0; index < 100; ++index) {
+      assertEquals(Integer.valueOf(index), order.get(index));
+    }
+  }
+
+  /**
+   * A read observes every write submitted before it, without waiting for
+   * the write to complete.
+   */
+
+  @Test
+  public void testReadAfterWrite()
+    throws Exception
+  {
+    final var file = Path.of("file.txt");
+    this.executor.write(t -> {
+      return t.query(CAGRecentFileAddType.class).execute(file);
+    });
+
+    assertTrue(this.recentFiles().contains(file.toAbsolutePath()));
+  }
+
+  /**
+   * Deferred writes are batched into a single transaction, and are
+   * committed.
+   */
+
+  @Test
+  public void testDeferredBatched()
+    throws Exception
+  {
+    final var file = Path.of("deferred.txt");
+    final var futures =
+      new ArrayList<CompletableFuture<CAGDatabaseTransactionType>>();
+
+    futures.add(this.executor.writeDeferred(t -> {
+      t.query(CAGRecentFileAddType.class).execute(file);
+      return t;
+    }));
+    for (int index = 0; index < 9; ++index) {
+      futures.add(this.executor.writeDeferred(t -> t));
+    }
+
+    final var transaction = futures.get(0).get();
+    for (final var future : futures) {
+      assertSame(transaction, future.get());
+    }
+
+    final var other = this.executor.write(t -> t).get();
+    assertNotSame(transaction, other);
+    assertTrue(this.recentFiles().contains(file.toAbsolutePath()));
+  }
+
+  /**
+   * A deferred write that fails fails every write in its batch.
+   */
+
+  @Test
+  public void testDeferredFailure()
+    throws Exception
+  {
+    final var succeeding =
+      this.executor.writeDeferred(t -> UNIT);
+    final var failing =
+      this.executor.<Object>writeDeferred(t -> {
+        throw new IllegalStateException("Failed!");
+      });
+
+    final var ex0 =
+      assertThrows(ExecutionException.class, succeeding::get);
+    final var ex1 =
+      assertThrows(ExecutionException.class, failing::get);
+
+    assertInstanceOf(IllegalStateException.class, ex0.getCause());
+    assertInstanceOf(IllegalStateException.class, ex1.getCause());
+
+    /*
+     * The executor continues to accept deferred writes after a failure.
+     */
+
+    assertEquals(UNIT, this.executor.writeDeferred(t -> UNIT).get());
+  }
+
+  /**
+   * A deferred write that is submitted just before the executor is closed
+   * is committed by the close.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeferredCommittedOnClose()
+    throws Exception
+  {
+    final var file = Path.of("closing.txt");
+    final var future =
+      this.executor.writeDeferred(t -> {
+        return t.query(CAGRecentFileAddType.class).execute(file);
+      });
+
+    this.executor.close();
+    assertTrue(future.isDone());
+    assertEquals(UNIT, future.get());
+
+    this.executor =
+      CAGDatabaseExecutorService.create(
+        this.database,
+        2,
+        Duration.ofMillis(100L)
+      );
+    assertTrue(this.recentFiles().contains(file.toAbsolutePath()));
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseOperationType;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseResultCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseResultCacheServiceType;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAdd;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAddType;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileList;
+import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileListType;
+import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkDelete;
+import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkDeleteType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.io7m.darco.api.DDatabaseUnit.UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CAGDatabaseResultCacheServiceTest
+{
+  private static final List<Path> FILES =
+    List.of(Path.of("file.txt"));
+
+  private FakeExecutor executor;
+  private CAGDatabaseResultCacheServiceType cache;
+
+  /**
+   * An executor that never touches a database. Reads are completed by the
+   * test, and writes complete immediately.
+   */
+
+  private static final class FakeExecutor
+    implements CAGDatabaseExecutorServiceType
+  {
+    private final List<CompletableFuture<Object>> reads =
+      new ArrayList<>();
+    private int writes;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> read(
+      final CAGDatabaseOperationType<T> operation)
+    {
+      final var future = new CompletableFuture<Object>();
+      this.reads.add(future);
+      return (CompletableFuture<T>) future;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> write(
+      final CAGDatabaseOperationType<T> operation)
+    {
+      ++this.writes;
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> writeDeferred(
+      final CAGDatabaseOperationType<T> operation)
+    {
+      return this.write(operation);
+    }
+
+    @Override
+    public String description()
+    {
+      return "Fake database executor.";
+    }
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.executor =
+      new FakeExecutor();
+    this.cache =
+      CAGDatabaseResultCacheService.create(
+        this.executor,
+        List.of(
+          CAGRecentFileAdd.provider(),
+          CAGRecentFileList.provider(),
+          CAGServerBookmarkDelete.provider()
+        ),
+        16
+      );
+  }
+
+  private CompletableFuture<List<Path>> listFiles()
+  {
+    return this.cache.execute(CAGRecentFileListType.class, UNIT);
+  }
+
+  private void completeLastRead()
+  {
+    this.executor.reads.get(this.executor.reads.size() - 1)
+      .complete(FILES);
+  }
+
+  /**
+   * Repeated reads are answered from the cache.
+   */
+
+  @Test
+  public void testReadCached()
+    throws Exception
+  {
+    this.listFiles();
+    this.completeLastRead();
+    assertEquals(FILES, this.listFiles().get());
+    assertEquals(1, this.executor.reads.size());
+  }
+
+  /**
+   * A write to a table discards the cached results of queries that read
+   * the table.
+   */
+
+  @Test
+  public void testWriteInvalidates()
+    throws Exception
+  {
+    this.listFiles();
+    this.completeLastRead();
+
+    this.cache.execute(CAGRecentFileAddType.class, Path.of("other.txt")).get();
+    assertEquals(1, this.executor.writes);
+
+    this.listFiles();
+    assertEquals(2, this.executor.reads.size());
+  }
+
+  /**
+   * A deferred write invalidates in the same way as a write.
+   */
+
+  @Test
+  public void testWriteDeferredInvalidates()
+    throws Exception
+  {
+    this.listFiles();
+    this.completeLastRead();
+
+    this.cache.executeDeferred(CAGRecentFileAddType.class, Path.of("x"))
+      .get();
+
+    this.listFiles();
+    assertEquals(2, this.executor.reads.size());
+  }
+
+  /**
+   * A write to an unrelated table leaves the cached results alone.
+   */
+
+  @Test
+  public void testWriteUnrelated()
+    throws Exception
+  {
+    this.listFiles();
+    this.completeLastRead();
+
+    this.cache.execute(CAGServerBookmarkDeleteType.class, "server").get();
+    assertEquals(1, this.executor.writes);
+
+    this.listFiles();
+    assertEquals(1, this.executor.reads.size());
+  }
+
+  /**
+   * A result read while a write was completing is not cached, because the
+   * write might have changed the table after the read.
+   */
+
+  @Test
+  public void testWriteDuringRead()
+    throws Exception
+  {
+    final var pending = this.listFiles();
+    this.cache.execute(CAGRecentFileAddType.class, Path.of("other.txt")).get();
+    this.completeLastRead();
+    assertEquals(FILES, pending.get());
+
+    this.listFiles();
+    assertEquals(2, this.executor.reads.size());
+  }
+}
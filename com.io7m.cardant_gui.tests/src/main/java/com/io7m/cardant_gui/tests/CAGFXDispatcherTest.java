@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGFXDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CAGFXDispatcherTest
+{
+  private LinkedList<Runnable> posted;
+  private List<String> ran;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.posted =
+      new LinkedList<>();
+    this.ran =
+      new ArrayList<>();
+  }
+
+  private CAGFXDispatcher dispatcher(
+    final Duration budget)
+  {
+    return new CAGFXDispatcher(this.posted::add, budget);
+  }
+
+  private Runnable record(
+    final String name)
+  {
+    return () -> this.ran.add(name);
+  }
+
+  private void runPosted()
+  {
+    this.posted.removeFirst().run();
+  }
+
+  /**
+   * Tasks run in submission order, and a burst of tasks costs a single
+   * posted drain.
+   */
+
+  @Test
+  public void testOrdering()
+  {
+    final var dispatcher = this.dispatcher(Duration.ofHours(1L));
+    dispatcher.submit(this.record("a"));
+    dispatcher.submit(this.record("b"));
+    dispatcher.submit(this.record("c"));
+    assertEquals(1, this.posted.size());
+
+    this.runPosted();
+    assertEquals(List.of("a", "b", "c"), this.ran);
+    assertEquals(0, this.posted.size());
+    assertEquals(3L, dispatcher.statistics().dispatched());
+  }
+
+  /**
+   * Only the most recent task for a key runs, at the queue position of the
+   * first task submitted with that key.
+   */
+
+  @Test
+  public void testCoalescing()
+  {
+    final var dispatcher = this.dispatcher(Duration.ofHours(1L));
+    dispatcher.submitCoalesced("k", this.record("k0"));
+    dispatcher.submit(this.record("a"));
+    dispatcher.submitCoalesced("k", this.record("k1"));
+    dispatcher.submitCoalesced("k", this.record("k2"));
+    this.runPosted();
+
+    assertEquals(List.of("k2", "a"), this.ran);
+    assertEquals(2L, dispatcher.statistics().coalesced());
+
+    dispatcher.submitCoalesced("k", this.record("k3"));
+    this.runPosted();
+    assertEquals(List.of("k2", "a", "k3"), this.ran);
+  }
+
+  /**
+   * A drain that exhausts its budget yields and posts another drain for
+   * the remaining tasks.
+   */
+
+  @Test
+  public void testBudgetYield()
+  {
+    final var dispatcher = this.dispatcher(Duration.ZERO);
+    dispatcher.submit(this.record("a"));
+    dispatcher.submit(this.record("b"));
+    dispatcher.submit(this.record("c"));
+
+    this.runPosted();
+    assertEquals(List.of("a"), this.ran);
+    assertEquals(1, this.posted.size());
+
+    this.runPosted();
+    this.runPosted();
+    assertEquals(List.of("a", "b", "c"), this.ran);
+    assertEquals(0, this.posted.size());
+    assertEquals(2L, dispatcher.statistics().yields());
+  }
+
+  /**
+   * A task that raises an exception does not prevent later tasks from
+   * running.
+   */
+
+  @Test
+  public void testTaskException()
+  {
+    final var dispatcher = this.dispatcher(Duration.ofHours(1L));
+    dispatcher.submit(() -> {
+      throw new IllegalStateException();
+    });
+    dispatcher.submit(this.record("a"));
+    this.runPosted();
+
+    assertEquals(List.of("a"), this.ran);
+  }
+
+  /**
+   * An error raised by a task does not stop the dispatcher: the remaining
+   * tasks are posted again, and later tasks are still dispatched.
+   */
+
+  @Test
+  public void testTaskError()
+  {
+    final var dispatcher = this.dispatcher(Duration.ofHours(1L));
+    dispatcher.submit(() -> {
+      throw new StackOverflowError();
+    });
+    dispatcher.submit(this.record("a"));
+
+    assertThrows(StackOverflowError.class, this::runPosted);
+    assertEquals(1, this.posted.size());
+    this.runPosted();
+    assertEquals(List.of("a"), this.ran);
+
+    dispatcher.submit(this.record("b"));
+    assertEquals(1, this.posted.size());
+    this.runPosted();
+    assertEquals(List.of("a", "b"), this.ran);
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A minimal, strict JSON parser used to check the output of serializers.
+ * Objects are parsed to maps, arrays to lists, numbers to big decimals,
+ * and the literals to booleans and {@code null}.
+ */
+
+final class CAGJSONParser
+{
+  private final String text;
+  private int position;
+
+  private CAGJSONParser(
+    final String inText)
+  {
+    this.text = Objects.requireNonNull(inText, "text");
+  }
+
+  /**
+   * Parse a single JSON value, rejecting any trailing content.
+   *
+   * @param text The text
+   *
+   * @return The value
+   */
+
+  static Object parse(
+    final String text)
+  {
+    final var parser = new CAGJSONParser(text);
+    final var value = parser.value();
+    parser.whitespace();
+    if (parser.position != text.length()) {
+      throw parser.error("Trailing content");
+    }
+    return value;
+  }
+
+  private IllegalArgumentException error(
+    final String message)
+  {
+    return new IllegalArgumentException(
+      "%s at offset %d".formatted(message, Integer.valueOf(this.position))
+    );
+  }
+
+  private void whitespace()
+  {
+    while (this.position < this.text.length()) {
+      switch (this.text.charAt(this.position)) {
+        case ' ', '\t', '\r', '\n' -> ++this.position;
+        default -> {
+          return;
+        }
+      }
+    }
+  }
+
+  private char peek()
+  {
+    if (this.position >= this.text.length()) {
+      throw this.error("Unexpected end of input");
+    }
+    return this.text.charAt(this.position);
+  }
+
+  private void expect(
+    final char c)
+  {
+    if (this.peek() != c) {
+      throw this.error("Expected '%c'".formatted(Character.valueOf(c)));
+    }
+    ++this.position;
+  }
+
+  private void literal(
+    final String word)
+  {
+    if (!this.text.startsWith(word, this.position)) {
+      throw this.error("Expected '%s'".formatted(word));
+    }
+    this.position += word.length();
+  }
+
+  private Object value()
+  {
+    this.whitespace();
+    return switch (this.peek()) {
+      case '{' -> this.object();
+      case '[' -> this.array();
+      case '"' -> this.string();
+      case 't' -> {
+        this.literal("true");
+        yield Boolean.TRUE;
+      }
+      case 'f' -> {
+        this.literal("false");
+        yield Boolean.FALSE;
+      }
+      case 'n' -> {
+        this.literal("null");
+        yield null;
+      }
+      default -> this.number();
+    };
+  }
+
+  private Map<String, Object> object()
+  {
+    final var result = new LinkedHashMap<String, Object>();
+    this.expect('{');
+    this.whitespace();
+    if (this.peek() == '}') {
+      ++this.position;
+      return result;
+    }
+
+    while (true) {
+      this.whitespace();
+      final var key = this.string();
+      this.whitespace();
+      this.expect(':');
+      if (result.containsKey(key)) {
+        throw this.error("Duplicate key '%s'".formatted(key));
+      }
+      result.put(key, this.value());
+      this.whitespace();
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect('}');
+      return result;
+    }
+  }
+
+  private List<Object> array()
+  {
+    final var result = new ArrayList<>();
+    this.expect('[');
+    this.whitespace();
+    if (this.peek() == ']') {
+      ++this.position;
+      return result;
+    }
+
+    while (true) {
+      result.add(this.value());
+      this.whitespace();
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect(']');
+      return result;
+    }
+  }
+
+  private String string()
+  {
+    this.expect('"');
+    final var out = new StringBuilder();
+    while (true) {
+      final var c = this.peek();
+      ++this.position;
+      if (c == '"') {
+        return out.toString();
+      }
+      if (c < 0x20) {
+        throw this.error("Unescaped control character");
+      }
+      if (c != '\\') {
+        out.append(c);
+        continue;
+      }
+
+      final var e = this.peek();
+      ++this.position;
+      switch (e) {
+        case '"' -> out.append('"');
+        case '\\' -> out.append('\\');
+        case '/' -> out.append('/');
+        case 'b' -> out.append('\b');
+        case 'f' -> out.append('\f');
+        case 'n' -> out.append('\n');
+        case 'r' -> out.append('\r');
+        case 't' -> out.append('\t');
+        case 'u' -> {
+          if (this.position + 4 > this.text.length()) {
+            throw this.error("Truncated escape");
+          }
+          final var hex = this.text.substring(this.position, this.position + 4);
+          out.append((char) Integer.parseInt(hex, 16));
+          this.position += 4;
+        }
+        default -> throw this.error("Unrecognized escape");
+      }
+    }
+  }
+
+  private BigDecimal number()
+  {
+    final var start = this.position;
+    while (this.position < this.text.length()) {
+      final var c = this.text.charAt(this.position);
+      if ((c >= '0' && c <= '9') || "+-.eE".indexOf(c) >= 0) {
+        ++this.position;
+      } else {
+        break;
+      }
+    }
+
+    final var number = this.text.substring(start, this.position);
+    if (!number.matches("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?")) {
+      throw this.error("Malformed number '%s'".formatted(number));
+    }
+    return new BigDecimal(number);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGCacheStatistics;
+import com.io7m.cardant_gui.ui.internal.CAGLRUCache;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGLRUCacheTest
+{
+  private Attributes attributes;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.attributes =
+      Attributes.create(throwable -> {
+        throw new IllegalStateException(throwable);
+      });
+  }
+
+  /**
+   * The least recently used value is evicted when the capacity is exceeded.
+   */
+
+  @Test
+  public void testEvictCapacity()
+  {
+    final var cache = new CAGLRUCache<String, String>(this.attributes, 2);
+    cache.put("a", "A");
+    cache.put("b", "B");
+    assertEquals(Optional.of("A"), cache.get("a"));
+    cache.put("c", "C");
+
+    assertEquals(Optional.of("A"), cache.get("a"));
+    assertEquals(Optional.empty(), cache.get("b"));
+    assertEquals(Optional.of("C"), cache.get("c"));
+    assertEquals(
+      new CAGCacheStatistics(3L, 1L, 1L, 2L, 0L),
+      cache.statistics().get()
+    );
+  }
+
+  /**
+   * The least recently used values are evicted when the maximum weight is
+   * exceeded, and values heavier than the maximum weight are not cached.
+   */
+
+  @Test
+  public void testEvictWeight()
+  {
+    final var cache =
+      new CAGLRUCache<String, String>(
+        this.attributes, 100, 10L, value -> (long) value.length());
+
+    cache.put("a", "AAAA");
+    cache.put("b", "BBBB");
+    cache.put("c", "CCCC");
+
+    assertEquals(Optional.empty(), cache.get("a"));
+    assertEquals(Optional.of("BBBB"), cache.get("b"));
+    assertEquals(8L, cache.statistics().get().bytes());
+
+    cache.put("d", "DDDDDDDDDDDD");
+    assertEquals(Optional.empty(), cache.get("d"));
+    assertEquals(2L, cache.statistics().get().size());
+    assertEquals(8L, cache.statistics().get().bytes());
+  }
+
+  /**
+   * Replacing a value replaces its weight.
+   */
+
+  @Test
+  public void testReplaceWeight()
+  {
+    final var cache =
+      new CAGLRUCache<String, String>(
+        this.attributes, 100, 10L, value -> (long) value.length());
+
+    cache.put("a", "AAAA");
+    cache.put("a", "AA");
+    assertEquals(1L, cache.statistics().get().size());
+    assertEquals(2L, cache.statistics().get().bytes());
+    assertEquals(0L, cache.statistics().get().evictions());
+  }
+
+  /**
+   * Removed values are no longer cached, and do not count as evictions.
+   */
+
+  @Test
+  public void testRemove()
+  {
+    final var cache =
+      new CAGLRUCache<String, String>(
+        this.attributes, 100, 100L, value -> (long) value.length());
+
+    cache.put("a0", "A");
+    cache.put("a1", "A");
+    cache.put("b0", "BB");
+    cache.removeIf(key -> key.startsWith("a"));
+
+    assertEquals(Optional.empty(), cache.get("a0"));
+    assertEquals(Optional.of("BB"), cache.get("b0"));
+
+    cache.remove("b0");
+    assertEquals(Optional.empty(), cache.get("b0"));
+    assertEquals(
+      new CAGCacheStatistics(1L, 2L, 0L, 0L, 0L),
+      cache.statistics().get()
+    );
+
+    cache.put("c", "CCC");
+    assertFalse(cache.remove("c", value -> value.equals("DDD")));
+    assertTrue(cache.remove("c", value -> value.equals("CCC")));
+    assertFalse(cache.remove("c", value -> true));
+
+    cache.put("c", "CCC");
+    cache.clear();
+    assertEquals(0L, cache.statistics().get().size());
+    assertEquals(0L, cache.statistics().get().bytes());
+  }
+}
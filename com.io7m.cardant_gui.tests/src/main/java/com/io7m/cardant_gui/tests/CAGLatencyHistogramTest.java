@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGLatencyHistogram;
+import com.io7m.cardant_gui.ui.internal.CAGLatencySnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGLatencyHistogramTest
+{
+  /**
+   * An empty histogram yields an empty snapshot.
+   */
+
+  @Test
+  public void testEmpty()
+  {
+    final var h = new CAGLatencyHistogram();
+    assertEquals(CAGLatencySnapshot.empty(), h.snapshot());
+  }
+
+  /**
+   * Small values are recorded exactly.
+   */
+
+  @Test
+  public void testSmallExact()
+  {
+    final var h = new CAGLatencyHistogram();
+    for (int index = 0; index < 10; ++index) {
+      h.recordNanos(index);
+    }
+
+    final var s = h.snapshot();
+    assertEquals(10L, s.count());
+    assertEquals(Duration.ofNanos(4L), s.p50());
+    assertEquals(Duration.ofNanos(9L), s.p99());
+    assertEquals(Duration.ofNanos(9L), s.max());
+  }
+
+  /**
+   * Percentiles of a uniform distribution are within the histogram
+   * precision.
+   */
+
+  @Test
+  public void testUniformPrecision()
+  {
+    final var h = new CAGLatencyHistogram();
+    for (int index = 1; index <= 100_000; ++index) {
+      h.record(Duration.ofNanos(index * 1000L));
+    }
+
+    final var s = h.snapshot();
+    assertEquals(100_000L, s.count());
+    assertWithin(Duration.ofMillis(50L), s.p50());
+    assertWithin(Duration.ofMillis(99L), s.p99());
+    assertWithin(Duration.ofNanos(99_900_000L), s.p999());
+    assertEquals(Duration.ofMillis(100L), s.max());
+  }
+
+  /**
+   * Negative values are clamped to zero.
+   */
+
+  @Test
+  public void testNegative()
+  {
+    final var h = new CAGLatencyHistogram();
+    h.recordNanos(-1000L);
+
+    final var s = h.snapshot();
+    assertEquals(1L, s.count());
+    assertEquals(Duration.ZERO, s.max());
+  }
+
+  private static void assertWithin(
+    final Duration expected,
+    final Duration received)
+  {
+    final var e = (double) expected.toNanos();
+    final var r = (double) received.toNanos();
+    final var error = Math.abs(r - e) / e;
+    assertTrue(
+      error <= 0.07,
+      "Expected %s, received %s".formatted(expected, received)
+    );
+  }
+}
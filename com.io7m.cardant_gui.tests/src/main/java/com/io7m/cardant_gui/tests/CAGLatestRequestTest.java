@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGLatestRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGLatestRequestTest
+{
+  private List<Runnable> fxQueue;
+  private List<String> received;
+  private CAGLatestRequest<String> request;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.fxQueue = new ArrayList<>();
+    this.received = new ArrayList<>();
+    this.request = new CAGLatestRequest<>(this.fxQueue::add);
+  }
+
+  private void runFX()
+  {
+    final var tasks = List.copyOf(this.fxQueue);
+    this.fxQueue.clear();
+    tasks.forEach(Runnable::run);
+  }
+
+  private CompletableFuture<String> submit(
+    final CompletableFuture<String> response)
+  {
+    return this.request.submit(() -> response, this.received::add);
+  }
+
+  /**
+   * A response is delivered on the FX thread.
+   */
+
+  @Test
+  public void testDelivered()
+  {
+    final var response = new CompletableFuture<String>();
+    this.submit(response);
+
+    response.complete("A");
+    assertEquals(List.of(), this.received);
+
+    this.runFX();
+    assertEquals(List.of("A"), this.received);
+  }
+
+  /**
+   * Submitting a newer request cancels the older request, and the older
+   * response is never delivered.
+   */
+
+  @Test
+  public void testOlderCancelled()
+  {
+    final var older = new CompletableFuture<String>();
+    final var newer = new CompletableFuture<String>();
+    this.submit(older);
+    this.submit(newer);
+    assertTrue(older.isCancelled());
+
+    newer.complete("B");
+    older.complete("A");
+    this.runFX();
+    assertEquals(List.of("B"), this.received);
+  }
+
+  /**
+   * A response that arrived before a newer request was submitted, but that
+   * had not yet been delivered on the FX thread, is dropped.
+   */
+
+  @Test
+  public void testOlderDroppedWhileQueued()
+  {
+    final var older = new CompletableFuture<String>();
+    final var newer = new CompletableFuture<String>();
+    this.submit(older);
+    older.complete("A");
+
+    this.submit(newer);
+    assertFalse(older.isCancelled());
+    this.runFX();
+    assertEquals(List.of(), this.received);
+
+    newer.complete("B");
+    this.runFX();
+    assertEquals(List.of("B"), this.received);
+  }
+
+  /**
+   * A cancelled request delivers nothing.
+   */
+
+  @Test
+  public void testCancel()
+  {
+    final var response = new CompletableFuture<String>();
+    this.submit(response);
+    this.request.cancel();
+    assertTrue(response.isCancelled());
+
+    response.complete("A");
+    this.runFX();
+    assertEquals(List.of(), this.received);
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGLazyPagedList;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGLazyPagedListTest
+{
+  private static final int PAGE_SIZE = 4;
+  private static final int PAGE_COUNT = 8;
+
+  private LinkedList<Runnable> fxTasks;
+  private List<String> server;
+  private Map<Long, CompletableFuture<List<String>>> requests;
+  private List<String> changes;
+  private CAGLazyPagedList<String> list;
+  private boolean onFXThread;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.fxTasks =
+      new LinkedList<>();
+    this.server =
+      new ArrayList<>();
+    this.requests =
+      new HashMap<>();
+    this.changes =
+      new ArrayList<>();
+    this.onFXThread =
+      true;
+
+    for (int page = 1; page <= PAGE_COUNT; ++page) {
+      for (int index = 0; index < PAGE_SIZE; ++index) {
+        this.server.add("%d:%d".formatted(page, index));
+      }
+    }
+
+    this.list =
+      new CAGLazyPagedList<>(
+        this.fxTasks::add,
+        () -> this.onFXThread,
+        3,
+        CAGLazyPagedListTest::key
+      );
+    this.list.addListener((ListChangeListener<String>) this::onChanged);
+    this.list.reset(this::load, PAGE_COUNT, this.serverPage(1L));
+    this.changes.clear();
+  }
+
+  private void onChanged(
+    final ListChangeListener.Change<? extends String> change)
+  {
+    while (change.next()) {
+      if (change.wasReplaced()) {
+        this.changes.add(
+          "replace %d %d".formatted(change.getFrom(), change.getTo()));
+      } else if (change.wasRemoved()) {
+        this.changes.add(
+          "remove %d %d".formatted(change.getFrom(), change.getRemovedSize()));
+      } else if (change.wasAdded()) {
+        this.changes.add(
+          "add %d %d".formatted(change.getFrom(), change.getTo()));
+      }
+    }
+  }
+
+  private static String key(
+    final String element)
+  {
+    return element.substring(0, 3);
+  }
+
+  private List<String> serverPage(
+    final long pageIndex)
+  {
+    final var start = (int) (pageIndex - 1L) * PAGE_SIZE;
+    final var end = Math.min(start + PAGE_SIZE, this.server.size());
+    return List.copyOf(this.server.subList(start, end));
+  }
+
+  private CompletableFuture<List<String>> load(
+    final long pageIndex)
+  {
+    final var future = new CompletableFuture<List<String>>();
+    this.requests.put(Long.valueOf(pageIndex), future);
+    return future;
+  }
+
+  private void deliver(
+    final long pageIndex)
+  {
+    this.requests.remove(Long.valueOf(pageIndex))
+      .complete(this.serverPage(pageIndex));
+    while (!this.fxTasks.isEmpty()) {
+      this.fxTasks.removeFirst().run();
+    }
+  }
+
+  /**
+   * Reading an element of a page that is not held loads the page, and a
+   * change is announced when the page arrives.
+   */
+
+  @Test
+  public void testLazyLoad()
+  {
+    assertEquals(PAGE_COUNT * PAGE_SIZE, this.list.size());
+    assertEquals("1:0", this.list.get(0));
+    assertTrue(this.requests.isEmpty());
+
+    assertNull(this.list.get(9));
+    assertNull(this.list.get(10));
+    assertEquals(
+      List.of(Long.valueOf(3L)),
+      List.copyOf(this.requests.keySet())
+    );
+
+    this.deliver(3L);
+    assertEquals("3:1", this.list.get(9));
+    assertEquals(List.of("replace 8 12"), this.changes);
+  }
+
+  /**
+   * When too many pages are held, the page furthest from the most recently
+   * loaded page is discarded.
+   */
+
+  @Test
+  public void testEvictFarthest()
+  {
+    this.list.get(4);
+    this.deliver(2L);
+    this.list.get(8);
+    this.deliver(3L);
+    this.list.get(28);
+    this.deliver(8L);
+
+    assertNull(this.list.get(0));
+    assertTrue(this.requests.containsKey(Long.valueOf(1L)));
+    assertEquals("2:0", this.list.get(4));
+    assertEquals("3:0", this.list.get(8));
+    assertEquals("8:0", this.list.get(28));
+  }
+
+  /**
+   * A held element can be replaced by key.
+   */
+
+  @Test
+  public void testReplace()
+  {
+    assertTrue(this.list.replace("1:2"));
+    assertEquals(List.of(), this.changes);
+
+    assertTrue(this.list.replace("1:2 renamed"));
+    assertEquals("1:2 renamed", this.list.get(2));
+    assertEquals(List.of("replace 2 3"), this.changes);
+
+    assertFalse(this.list.replace("5:0 renamed"));
+  }
+
+  /**
+   * The index of held elements follows pages as they are evicted and
+   * elements as they move to other positions.
+   */
+
+  @Test
+  public void testReplaceIndexFollowsPages()
+  {
+    this.list.get(4);
+    this.deliver(2L);
+    this.list.get(8);
+    this.deliver(3L);
+    this.list.get(12);
+    this.deliver(4L);
+    this.changes.clear();
+
+    assertFalse(this.list.replace("1:2 renamed"));
+    assertTrue(this.list.replace("2:1 renamed"));
+    assertEquals(List.of("replace 5 6"), this.changes);
+
+    this.server.remove("2:0");
+    assertTrue(this.list.delete("2:0"));
+    this.changes.clear();
+
+    assertFalse(this.list.replace("3:0 renamed"));
+    assertTrue(this.list.replace("2:3 renamed"));
+    assertEquals("2:3 renamed", this.list.get(6));
+    assertEquals(List.of("replace 6 7"), this.changes);
+
+    this.deliver(2L);
+    this.changes.clear();
+
+    assertTrue(this.list.replace("3:0 renamed"));
+    assertEquals("3:0 renamed", this.list.get(7));
+    assertEquals(List.of("replace 7 8"), this.changes);
+  }
+
+  /**
+   * Deleting an item on page 1 removes it at once, moves every later
+   * element one position earlier, reloads page 1, and discards every
+   * later page.
+   */
+
+  @Test
+  public void testDeleteFirstPage()
+  {
+    this.list.get(4);
+    this.deliver(2L);
+    this.changes.clear();
+
+    this.server.remove("1:1");
+    assertTrue(this.list.delete("1:1"));
+
+    assertEquals(PAGE_COUNT * PAGE_SIZE - 1, this.list.size());
+    assertEquals("1:0", this.list.get(0));
+    assertEquals("1:2", this.list.get(1));
+    assertEquals("1:3", this.list.get(2));
+    assertFalse(this.list.contains("1:1"));
+    assertEquals(List.of("replace 4 8", "remove 1 1"), this.changes);
+    assertTrue(this.requests.containsKey(Long.valueOf(1L)));
+
+    this.deliver(1L);
+    assertEquals("2:0", this.list.get(3));
+    assertNull(this.list.get(4));
+    assertTrue(this.requests.containsKey(Long.valueOf(2L)));
+
+    this.deliver(2L);
+    assertEquals("2:1", this.list.get(4));
+    assertFalse(this.list.replace("1:1"));
+  }
+
+  /**
+   * Deleting an item that is not held reloads page 1 and discards every
+   * later page.
+   */
+
+  @Test
+  public void testDeleteNotHeld()
+  {
+    this.list.get(4);
+    this.deliver(2L);
+    this.changes.clear();
+
+    this.server.remove("6:0");
+    assertFalse(this.list.delete("6:0"));
+
+    assertEquals("1:0", this.list.get(0));
+    assertEquals(List.of("replace 4 8"), this.changes);
+    assertTrue(this.requests.containsKey(Long.valueOf(1L)));
+
+    this.deliver(1L);
+    assertEquals("1:0", this.list.get(0));
+    assertNull(this.list.get(4));
+  }
+
+  /**
+   * A page that arrives after the list has been reset is ignored.
+   */
+
+  @Test
+  public void testStalePageIgnored()
+  {
+    this.list.get(4);
+    this.list.resetStatic(List.of("9:0"));
+    this.changes.clear();
+
+    this.deliver(2L);
+    assertEquals(1, this.list.size());
+    assertEquals(List.of(), this.changes);
+  }
+
+  /**
+   * The list cannot be accessed from any thread other than the FX thread.
+   */
+
+  @Test
+  public void testNotFXThread()
+  {
+    this.onFXThread = false;
+
+    assertThrows(RuntimeException.class, () -> this.list.get(0));
+    assertThrows(RuntimeException.class, () -> this.list.replace("1:0"));
+    assertThrows(RuntimeException.class, () -> this.list.delete("1:0"));
+    assertThrows(RuntimeException.class, this.list::invalidate);
+    assertThrows(RuntimeException.class, this.list::discard);
+    assertEquals(PAGE_COUNT * PAGE_SIZE, this.list.size());
+  }
+}
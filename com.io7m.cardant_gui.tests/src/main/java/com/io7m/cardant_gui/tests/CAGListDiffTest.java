@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGListDiff;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CAGListDiffTest
+{
+  private record Element(
+    int id,
+    String value)
+  {
+
+  }
+
+  private static final Function<Element, Integer> KEY =
+    e -> Integer.valueOf(e.id());
+
+  /**
+   * Identical lists produce no changes.
+   */
+
+  @Test
+  public void testIdentical()
+  {
+    final var target =
+      FXCollections.observableArrayList(
+        new Element(0, "a"),
+        new Element(1, "b")
+      );
+
+    final var changes = new int[1];
+    target.addListener((ListChangeListener<Element>) c -> ++changes[0]);
+
+    CAGListDiff.apply(target, List.copyOf(target), KEY);
+    assertEquals(0, changes[0]);
+  }
+
+  /**
+   * A changed element is replaced in place, and nothing else changes.
+   */
+
+  @Test
+  public void testUpdate()
+  {
+    final var target =
+      FXCollections.observableArrayList(
+        new Element(0, "a"),
+        new Element(1, "b"),
+        new Element(2, "c")
+      );
+
+    final var changes = new ArrayList<String>();
+    target.addListener((ListChangeListener<Element>) c -> {
+      while (c.next()) {
+        changes.add(c.toString());
+      }
+    });
+
+    final var source = List.of(
+      new Element(0, "a"),
+      new Element(1, "x"),
+      new Element(2, "c")
+    );
+
+    CAGListDiff.apply(target, source, KEY);
+    assertEquals(source, target);
+    assertEquals(1, changes.size());
+  }
+
+  /**
+   * Moving one element to the front removes and reinserts only that
+   * element.
+   */
+
+  @Test
+  public void testMove()
+  {
+    final var target = FXCollections.<Element>observableArrayList();
+    for (int index = 0; index < 100; ++index) {
+      target.add(new Element(index, "v"));
+    }
+
+    final var source = new ArrayList<>(target);
+    source.addFirst(source.removeLast());
+
+    final var changed = new int[1];
+    target.addListener((ListChangeListener<Element>) c -> {
+      while (c.next()) {
+        changed[0] += c.getRemovedSize() + c.getAddedSize();
+      }
+    });
+
+    CAGListDiff.apply(target, source, KEY);
+    assertEquals(source, target);
+    assertEquals(2, changed[0]);
+  }
+
+  /**
+   * Applying the diff of arbitrary lists always produces the source list.
+   */
+
+  @Test
+  public void testRandom()
+  {
+    final var random = new Random(0x43414755L);
+
+    for (int iteration = 0; iteration < 1000; ++iteration) {
+      final var target =
+        FXCollections.observableArrayList(randomElements(random));
+      final var source =
+        randomElements(random);
+
+      CAGListDiff.apply(target, source, KEY);
+      assertEquals(source, target);
+    }
+  }
+
+  private static List<Element> randomElements(
+    final Random random)
+  {
+    final var ids = new ArrayList<Integer>();
+    for (int id = 0; id < 40; ++id) {
+      if (random.nextBoolean()) {
+        ids.add(Integer.valueOf(id));
+      }
+    }
+    Collections.shuffle(ids, random);
+
+    final var elements = new ArrayList<Element>();
+    for (final var id : ids) {
+      final var value = random.nextBoolean() ? "a" : "b";
+      elements.add(new Element(id.intValue(), value));
+    }
+    return elements;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.cardant.model.CALocationSummary;
+import com.io7m.cardant_gui.ui.internal.CAGLocationTree;
+import javafx.scene.control.TreeItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGLocationTreeTest
+{
+  private static final CALocationSummary ROOT =
+    new CALocationSummary(
+      CALocationID.of("00000000-0000-0000-0000-000000000000"),
+      Optional.empty(),
+      "Everywhere"
+    );
+
+  private CAGLocationTree tree;
+  private CALocationSummary a;
+  private CALocationSummary b;
+  private CALocationSummary c;
+
+  private static CALocationSummary location(
+    final String name,
+    final CALocationSummary parent)
+  {
+    return new CALocationSummary(
+      CALocationID.random(),
+      Optional.ofNullable(parent).map(CALocationSummary::id),
+      name
+    );
+  }
+
+  private static TreeItem<CALocationSummary> child(
+    final TreeItem<CALocationSummary> item,
+    final CALocationSummary location)
+  {
+    for (final var child : item.getChildren()) {
+      if (child.getValue().id().equals(location.id())) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.tree = new CAGLocationTree(ROOT);
+    this.a = location("A", null);
+    this.b = location("B", this.a);
+    this.c = location("C", null);
+    this.tree.reconcile(List.of(this.b, this.a, this.c));
+  }
+
+  /**
+   * The first list builds the tree, whatever the order of the locations.
+   */
+
+  @Test
+  public void testBuild()
+  {
+    final var root = this.tree.root();
+    assertEquals(ROOT, root.getValue());
+    assertEquals(2, root.getChildren().size());
+
+    final var itemA = child(root, this.a);
+    assertEquals(this.a, itemA.getValue());
+    assertEquals(this.b, child(itemA, this.b).getValue());
+    assertEquals(this.c, child(root, this.c).getValue());
+  }
+
+  /**
+   * Items for unchanged locations are left in place, and keep their state.
+   */
+
+  @Test
+  public void testUnchanged()
+  {
+    final var itemA = child(this.tree.root(), this.a);
+    final var itemB = child(itemA, this.b);
+    itemA.setExpanded(true);
+
+    final var d = location("D", this.c);
+    this.tree.reconcile(List.of(this.a, this.b, this.c, d));
+
+    assertSame(itemA, child(this.tree.root(), this.a));
+    assertSame(itemB, child(itemA, this.b));
+    assertTrue(itemA.isExpanded());
+    assertEquals(d, child(child(this.tree.root(), this.c), d).getValue());
+  }
+
+  /**
+   * Renamed locations keep their item, and the item shows the new name.
+   */
+
+  @Test
+  public void testRenamed()
+  {
+    final var itemB = child(child(this.tree.root(), this.a), this.b);
+    final var renamed =
+      new CALocationSummary(this.b.id(), this.b.parent(), "B2");
+
+    this.tree.reconcile(List.of(this.a, renamed, this.c));
+    assertSame(itemB, child(child(this.tree.root(), this.a), this.b));
+    assertEquals("B2", itemB.getValue().name());
+  }
+
+  /**
+   * Moved locations keep their item, and are attached to their new parent.
+   */
+
+  @Test
+  public void testMoved()
+  {
+    final var itemA = child(this.tree.root(), this.a);
+    final var itemB = child(itemA, this.b);
+    final var itemC = child(this.tree.root(), this.c);
+    final var moved =
+      new CALocationSummary(this.b.id(), Optional.of(this.c.id()), "B");
+
+    this.tree.reconcile(List.of(this.a, moved, this.c));
+    assertNull(child(itemA, this.b));
+    assertSame(itemB, child(itemC, this.b));
+    assertSame(itemC, itemB.getParent());
+  }
+
+  /**
+   * Locations that are no longer listed are removed from the tree.
+   */
+
+  @Test
+  public void testRemoved()
+  {
+    final var itemA = child(this.tree.root(), this.a);
+    this.tree.reconcile(List.of(this.a, this.c));
+    assertNull(child(itemA, this.b));
+
+    this.tree.remove(this.c.id());
+    assertNull(child(this.tree.root(), this.c));
+    assertEquals(1, this.tree.root().getChildren().size());
+  }
+
+  /**
+   * Removing an inner location removes its descendants, and the descendants
+   * are given new items if they reappear.
+   */
+
+  @Test
+  public void testRemovedInner()
+  {
+    final var d = location("D", this.b);
+    this.tree.reconcile(List.of(this.a, this.b, this.c, d));
+
+    final var itemA = child(this.tree.root(), this.a);
+    final var itemB = child(itemA, this.b);
+    final var itemD = child(itemB, d);
+    itemB.setExpanded(true);
+    itemD.setExpanded(true);
+
+    this.tree.remove(this.a.id());
+    assertNull(child(this.tree.root(), this.a));
+    assertEquals(1, this.tree.root().getChildren().size());
+
+    final var movedB =
+      new CALocationSummary(this.b.id(), Optional.of(this.c.id()), "B");
+    this.tree.reconcile(List.of(movedB, this.c, d));
+
+    final var newB = child(child(this.tree.root(), this.c), this.b);
+    final var newD = child(newB, d);
+    assertNotSame(itemB, newB);
+    assertNotSame(itemD, newD);
+    assertFalse(newB.isExpanded());
+    assertFalse(newD.isExpanded());
+    assertEquals(movedB, newB.getValue());
+    assertEquals(d, newD.getValue());
+  }
+
+  /**
+   * Locations with nonexistent parents are not shown.
+   */
+
+  @Test
+  public void testNonexistentParent()
+  {
+    final var orphan =
+      new CALocationSummary(
+        CALocationID.random(), Optional.of(CALocationID.random()), "O");
+
+    this.tree.reconcile(List.of(this.a, this.b, this.c, orphan));
+    assertEquals(2, this.tree.root().getChildren().size());
+    assertNull(child(this.tree.root(), orphan));
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CAItemSummary;
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorService;
+import com.io7m.cardant_gui.ui.internal.CAGEventService;
+import com.io7m.cardant_gui.ui.internal.CAGOfflineCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGServerBookmark;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseConfiguration;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseFactory;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageText;
+import com.io7m.darco.api.DDatabaseCreate;
+import com.io7m.darco.api.DDatabaseTelemetryNoOp;
+import com.io7m.darco.api.DDatabaseUpgrade;
+import com.io7m.lanark.core.RDottedName;
+import com.io7m.verona.core.VersionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Timeout(30L)
+public final class CAGOfflineCacheServiceTest
+{
+  private static final CAGServerBookmark SERVER_0 =
+    server("server0.example.com");
+  private static final CAGServerBookmark SERVER_1 =
+    server("server1.example.com");
+
+  private CAGDatabaseType database;
+  private CAGDatabaseExecutorService executor;
+  private CAGOfflineCacheService offline;
+  private Optional<CAGServerBookmark> session;
+
+  private static CAGServerBookmark server(
+    final String host)
+  {
+    return new CAGServerBookmark(
+      host,
+      host,
+      30000,
+      false,
+      Duration.ofSeconds(30L),
+      Duration.ofSeconds(30L),
+      "someone",
+      "password"
+    );
+  }
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.database =
+      new CAGDatabaseFactory()
+        .open(
+          new CAGDatabaseConfiguration(
+            DDatabaseTelemetryNoOp.get(),
+            DDatabaseCreate.CREATE_DATABASE,
+            DDatabaseUpgrade.UPGRADE_DATABASE,
+            directory.resolve("database.db")
+          ),
+          event -> {
+
+          }
+        );
+
+    this.executor =
+      CAGDatabaseExecutorService.create(
+        this.database,
+        2,
+        Duration.ofMillis(100L)
+      );
+    this.session =
+      Optional.of(SERVER_0);
+    this.offline =
+      CAGOfflineCacheService.create(
+        this.executor,
+        CAGEventService.create(),
+        () -> this.session
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.offline.close();
+    this.executor.close();
+    this.database.close();
+  }
+
+  private List<CAItemSummary> items()
+    throws Exception
+  {
+    return this.offline.items()
+      .get()
+      .stream()
+      .sorted(Comparator.comparing(CAItemSummary::name))
+      .toList();
+  }
+
+  private static CAItemSummary item(
+    final String name)
+  {
+    return new CAItemSummary(CAItemID.random(), name);
+  }
+
+  /**
+   * Saving the results of a filtered search does not remove the items
+   * that are already cached.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFilteredSearchDoesNotShrink()
+    throws Exception
+  {
+    final var a = item("a");
+    final var b = item("b");
+    final var c = item("c");
+
+    this.offline.itemsSave(List.of(a, b, c));
+    assertEquals(List.of(a, b, c), this.items());
+
+    this.offline.itemsSave(List.of(b));
+    assertEquals(List.of(a, b, c), this.items());
+  }
+
+  /**
+   * Saving an item that is already cached updates it.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSaveUpdates()
+    throws Exception
+  {
+    final var a = item("a");
+    final var b = item("b");
+    this.offline.itemsSave(List.of(a, b));
+
+    final var bRenamed = new CAItemSummary(b.id(), "b renamed");
+    this.offline.itemsSave(List.of(bRenamed));
+    assertEquals(List.of(a, bRenamed), this.items());
+  }
+
+  /**
+   * Items are cached separately for each server.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testServersSeparate()
+    throws Exception
+  {
+    final var a = item("a");
+    final var b = item("b");
+    this.offline.itemsSave(List.of(a));
+
+    this.session = Optional.of(SERVER_1);
+    assertEquals(List.of(), this.items());
+    this.offline.itemsSave(List.of(b));
+    assertEquals(List.of(b), this.items());
+
+    this.session = Optional.of(SERVER_0);
+    assertEquals(List.of(a), this.items());
+
+    this.session = Optional.empty();
+    assertEquals(List.of(), this.items());
+  }
+
+  /**
+   * Type package texts are stored by name and version, independently of
+   * the server, and a stored text is never replaced.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testTypePackageText()
+    throws Exception
+  {
+    final var id1 =
+      new CATypePackageIdentifier(
+        new RDottedName("com.example"),
+        VersionParser.parse("1.0.0")
+      );
+    final var id2 =
+      new CATypePackageIdentifier(
+        new RDottedName("com.example"),
+        VersionParser.parse("2.0.0")
+      );
+
+    final var text =
+      new CAGTypePackageText(id1, "<a/>", "<a>\n</a>");
+
+    assertEquals(Optional.empty(), this.offline.typePackageText(id1).get());
+
+    this.offline.typePackageTextSave(text);
+    this.offline.typePackageTextSave(
+      new CAGTypePackageText(id1, "<b/>", "<b>\n</b>"));
+
+    assertEquals(Optional.of(text), this.offline.typePackageText(id1).get());
+    assertEquals(Optional.empty(), this.offline.typePackageText(id2).get());
+
+    this.session = Optional.of(SERVER_1);
+    assertEquals(Optional.of(text), this.offline.typePackageText(id1).get());
+  }
+}
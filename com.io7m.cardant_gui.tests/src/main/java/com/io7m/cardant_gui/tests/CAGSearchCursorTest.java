@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandType;
+import com.io7m.cardant.protocol.inventory.CAIResponseItemGet;
+import com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority;
+import com.io7m.cardant_gui.ui.internal.CAGPageRange;
+import com.io7m.cardant_gui.ui.internal.CAGSearchCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CAGSearchCursorTest
+{
+  private static final CAICommandItemGet BEGIN =
+    new CAICommandItemGet(CAItemID.random());
+  private static final CAICommandItemGet NEXT =
+    new CAICommandItemGet(CAItemID.random());
+  private static final CAICommandItemGet PREVIOUS =
+    new CAICommandItemGet(CAItemID.random());
+
+  private List<String> commands;
+  private long serverPageIndex;
+  private long serverPageCount;
+  private boolean serverFails;
+  private CompletableFuture<Void> serverGate;
+  private CAGSearchCursor<String, CAIResponseItemGet> cursor;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.commands = new ArrayList<>();
+    this.serverPageIndex = 0L;
+    this.serverPageCount = 5L;
+    this.serverGate = CompletableFuture.completedFuture(null);
+    this.cursor =
+      new CAGSearchCursor<>(
+        this::execute,
+        parameters -> BEGIN,
+        () -> NEXT,
+        () -> PREVIOUS,
+        response -> this.serverRange()
+      );
+  }
+
+  private CAGPageRange serverRange()
+  {
+    return new CAGPageRange(this.serverPageIndex, this.serverPageCount);
+  }
+
+  /**
+   * A simulated server that holds a single search and clamps page indices,
+   * as the real server does. The commands that begin a search and move
+   * through it are stood in for by item retrievals with fixed IDs. Commands
+   * are not answered until the gate is open.
+   */
+
+  private CompletableFuture<CAIResponseItemGet> execute(
+    final CAICommandType<CAIResponseItemGet> command,
+    final CAGClientCommandPriority priority)
+  {
+    if (this.serverFails) {
+      this.commands.add("FAIL");
+      return CompletableFuture.failedFuture(new IllegalStateException());
+    }
+
+    return this.serverGate.thenApply(ignored -> this.answer(command));
+  }
+
+  private CAIResponseItemGet answer(
+    final CAICommandType<CAIResponseItemGet> command)
+  {
+    if (command.equals(BEGIN)) {
+      this.commands.add("BEGIN");
+      this.serverPageIndex = 1L;
+    } else if (command.equals(NEXT)) {
+      this.commands.add("NEXT");
+      this.serverPageIndex =
+        Math.min(this.serverPageIndex + 1L, this.serverPageCount);
+    } else if (command.equals(PREVIOUS)) {
+      this.commands.add("PREVIOUS");
+      this.serverPageIndex = Math.max(this.serverPageIndex - 1L, 1L);
+    }
+    return null;
+  }
+
+  private void fetch(
+    final String parameters,
+    final long pageIndex)
+    throws Exception
+  {
+    this.commands.clear();
+    this.cursor.fetch(parameters, pageIndex, INTERACTIVE).get();
+  }
+
+  /**
+   * The cursor moves the server to a requested page one step at a time.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStep()
+    throws Exception
+  {
+    this.fetch("a", 1L);
+    assertEquals(List.of("BEGIN"), this.commands);
+
+    this.fetch("a", 3L);
+    assertEquals(List.of("NEXT", "NEXT"), this.commands);
+    assertEquals(3L, this.serverPageIndex);
+
+    this.fetch("a", 2L);
+    assertEquals(List.of("PREVIOUS"), this.commands);
+    assertEquals(2L, this.serverPageIndex);
+  }
+
+  /**
+   * A search with new parameters begins a new search.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNewParameters()
+    throws Exception
+  {
+    this.fetch("a", 2L);
+    assertEquals(List.of("BEGIN", "NEXT"), this.commands);
+
+    this.fetch("b", 2L);
+    assertEquals(List.of("BEGIN", "NEXT"), this.commands);
+  }
+
+  /**
+   * Requesting the page the server is already on steps away and back.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSamePage()
+    throws Exception
+  {
+    this.fetch("a", 2L);
+    this.fetch("a", 2L);
+    assertEquals(List.of("PREVIOUS", "NEXT"), this.commands);
+
+    this.fetch("a", 1L);
+    this.fetch("a", 1L);
+    assertEquals(List.of("BEGIN"), this.commands);
+  }
+
+  /**
+   * Requesting a page beyond the last page stops at the last page.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClamp()
+    throws Exception
+  {
+    this.serverPageCount = 3L;
+    this.fetch("a", 10L);
+    assertEquals(List.of("BEGIN", "NEXT", "NEXT", "NEXT"), this.commands);
+    assertEquals(3L, this.serverPageIndex);
+
+    this.fetch("a", 3L);
+    assertEquals(List.of("PREVIOUS", "NEXT"), this.commands);
+  }
+
+  /**
+   * A reset, or a failed command, forgets the position of the server.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReset()
+    throws Exception
+  {
+    this.fetch("a", 2L);
+    this.cursor.reset();
+    this.fetch("a", 2L);
+    assertEquals(List.of("BEGIN", "NEXT"), this.commands);
+
+    this.serverFails = true;
+    assertThrows(ExecutionException.class, () -> this.fetch("a", 3L));
+    this.serverFails = false;
+
+    this.fetch("a", 3L);
+    assertEquals(List.of("BEGIN", "NEXT", "NEXT"), this.commands);
+  }
+
+  /**
+   * Prefetches that are queued behind an interactive fetch are abandoned
+   * rather than moving the server before the interactive fetch.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testQueuedPrefetchAbandoned()
+    throws Exception
+  {
+    this.fetch("a", 3L);
+    this.commands.clear();
+
+    final var gate = new CompletableFuture<Void>();
+    this.serverGate = gate;
+
+    final var first =
+      this.cursor.fetch("a", 4L, BACKGROUND);
+    final var prefetch0 =
+      this.cursor.fetch("a", 2L, BACKGROUND);
+    final var prefetch1 =
+      this.cursor.fetch("a", 5L, BACKGROUND);
+    final var interactive =
+      this.cursor.fetch("a", 1L, INTERACTIVE);
+
+    gate.complete(null);
+    interactive.get();
+
+    /*
+     * The prefetch already in progress completes its step. The queued
+     * prefetches issue no commands, and the interactive fetch steps
+     * straight from there to its page.
+     */
+
+    assertEquals(
+      List.of("NEXT", "PREVIOUS", "PREVIOUS", "PREVIOUS"),
+      this.commands
+    );
+    assertEquals(1L, this.serverPageIndex);
+    assertFalse(first.isCompletedExceptionally());
+
+    for (final var prefetch : List.of(prefetch0, prefetch1)) {
+      final var ex = assertThrows(ExecutionException.class, prefetch::get);
+      assertInstanceOf(CancellationException.class, ex.getCause());
+    }
+  }
+
+  /**
+   * A prefetch that is stepping across several pages gives way to an
+   * interactive fetch between steps.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSteppingPrefetchAbandoned()
+    throws Exception
+  {
+    this.fetch("a", 1L);
+    this.commands.clear();
+
+    final var gate = new CompletableFuture<Void>();
+    this.serverGate = gate;
+
+    final var prefetch =
+      this.cursor.fetch("a", 5L, BACKGROUND);
+    final var interactive =
+      this.cursor.fetch("a", 1L, INTERACTIVE);
+
+    gate.complete(null);
+    interactive.get();
+
+    assertEquals(List.of("NEXT", "PREVIOUS"), this.commands);
+    assertEquals(1L, this.serverPageIndex);
+    assertTrue(prefetch.isCompletedExceptionally());
+
+    /*
+     * The cursor still knows where the server is afterwards.
+     */
+
+    this.fetch("a", 2L);
+    assertEquals(List.of("NEXT"), this.commands);
+  }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant.model.CAIncludeDeleted;
+import com.io7m.cardant.model.CAItem;
+import com.io7m.cardant.model.CAItemColumn;
+import com.io7m.cardant.model.CAItemColumnOrdering;
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CAItemSearchParameters;
+import com.io7m.cardant.model.CALocation;
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.cardant.model.CALocationMatchType.CALocationsAll;
+import com.io7m.cardant.model.CAMetadataElementMatchType;
+import com.io7m.cardant.model.CAStockOccurrenceKind;
+import com.io7m.cardant.model.CAStockSearchParameters;
+import com.io7m.cardant.model.comparisons.CAComparisonExactType;
+import com.io7m.cardant.model.comparisons.CAComparisonFuzzyType;
+import com.io7m.cardant.model.comparisons.CAComparisonSetType;
+import com.io7m.cardant.model.type_package.CATypePackageSearchParameters;
+import com.io7m.cardant_gui.ui.internal.CAGClientStatus;
+import com.io7m.cardant_gui.ui.internal.CAGEventItemDeleted;
+import com.io7m.cardant_gui.ui.internal.CAGEventItemUpdated;
+import com.io7m.cardant_gui.ui.internal.CAGEventLocationDeleted;
+import com.io7m.cardant_gui.ui.internal.CAGEventLocationUpdated;
+import com.io7m.cardant_gui.ui.internal.CAGEventServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGEventType;
+import com.io7m.cardant_gui.ui.internal.CAGPrefetchStatistics;
+import com.io7m.cardant_gui.ui.internal.CAGSearchPageCacheService;
+import com.io7m.jattribute.core.Attributes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CAGSearchPageCacheServiceTest
+{
+  private static final CAItemSearchParameters ITEMS =
+    new CAItemSearchParameters(
+      new CAComparisonFuzzyType.Anything<>(),
+      new CAComparisonFuzzyType.Anything<>(),
+      new CAComparisonSetType.Anything<>(),
+      CAMetadataElementMatchType.ANYTHING,
+      CAIncludeDeleted.INCLUDE_ONLY_LIVE,
+      new CAItemColumnOrdering(CAItemColumn.BY_NAME, true),
+      100L
+    );
+
+  private static final CAStockSearchParameters STOCK =
+    new CAStockSearchParameters(
+      new CALocationsAll(),
+      new CAComparisonExactType.Anything<>(),
+      Set.of(CAStockOccurrenceKind.SERIAL, CAStockOccurrenceKind.SET),
+      CAIncludeDeleted.INCLUDE_ONLY_LIVE,
+      100L
+    );
+
+  private static final CATypePackageSearchParameters TYPE_PACKAGES =
+    new CATypePackageSearchParameters(
+      new CAComparisonFuzzyType.Anything<>(),
+      100L
+    );
+
+  private static final Duration TIME_TO_LIVE =
+    Duration.ofSeconds(10L);
+
+  private SynchronousEvents events;
+  private CAGSearchPageCacheService pages;
+  private List<Object> fetched;
+  private long timeNow;
+
+  /**
+   * An event service that delivers each event before the publishing call
+   * returns.
+   */
+
+  private static final class SynchronousEvents
+    implements CAGEventServiceType
+  {
+    private final SubmissionPublisher<CAGEventType> publisher =
+      new SubmissionPublisher<>(Runnable::run, Flow.defaultBufferSize());
+
+    @Override
+    public void publish(
+      final CAGEventType event)
+    {
+      this.publisher.submit(event);
+    }
+
+    @Override
+    public Flow.Publisher<CAGEventType> events()
+    {
+      return this.publisher;
+    }
+
+    @Override
+    public String description()
+    {
+      return "Synchronous events.";
+    }
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.events = new SynchronousEvents();
+    this.fetched = new ArrayList<>();
+    this.timeNow = 1_000L;
+
+    final var status =
+      Attributes.create(throwable -> { })
+        .withValue(CAGClientStatus.CONNECTED);
+
+    this.pages =
+      CAGSearchPageCacheService.create(
+        this.events,
+        status,
+        100,
+        TIME_TO_LIVE,
+        () -> this.timeNow
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.pages.close();
+    this.events.publisher.close();
+  }
+
+  private CompletableFuture<String> fetch(
+    final Object parameters,
+    final long pageIndex)
+  {
+    this.fetched.add(parameters);
+    return CompletableFuture.completedFuture(
+      "%s %d".formatted(parameters, Long.valueOf(pageIndex))
+    );
+  }
+
+  private String page(
+    final Object parameters,
+    final long pageIndex)
+    throws Exception
+  {
+    return this.pages.page(
+      parameters,
+      pageIndex,
+      () -> this.fetch(parameters, pageIndex)
+    ).get();
+  }
+
+  /**
+   * Request the first page of each kind of search, and return the kinds
+   * that had to be fetched.
+   */
+
+  private List<Object> pageAll()
+    throws Exception
+  {
+    this.fetched.clear();
+    this.page(ITEMS, 1L);
+    this.page(STOCK, 1L);
+    this.page(TYPE_PACKAGES, 1L);
+    return List.copyOf(this.fetched);
+  }
+
+  /**
+   * Build an item. The item model has many components that play no part
+   * in page invalidation, so each is given an empty value.
+   */
+
+  private static CAItem item()
+    throws Exception
+  {
+    final var components = CAItem.class.getRecordComponents();
+    final var types = new Class<?>[components.length];
+    final var values = new Object[components.length];
+    for (int index = 0; index < components.length; ++index) {
+      types[index] = components[index].getType();
+      values[index] = emptyValueOf(types[index]);
+    }
+    return CAItem.class.getConstructor(types).newInstance(values);
+  }
+
+  private static Object emptyValueOf(
+    final Class<?> type)
+  {
+    if (type == CAItemID.class) {
+      return CAItemID.random();
+    }
+    if (type == String.class) {
+      return "Item";
+    }
+    if (type == long.class) {
+      return Long.valueOf(0L);
+    }
+    if (type == int.class) {
+      return Integer.valueOf(0);
+    }
+    if (type == boolean.class) {
+      return Boolean.FALSE;
+    }
+    if (type == Optional.class) {
+      return Optional.empty();
+    }
+    if (type == SortedMap.class || type == Map.class) {
+      return new TreeMap<>();
+    }
+    if (type == SortedSet.class || type == Set.class) {
+      return new TreeSet<>();
+    }
+    if (type == List.class) {
+      return List.of();
+    }
+    if (type.isEnum()) {
+      return type.getEnumConstants()[0];
+    }
+    throw new IllegalStateException("No empty value for " + type);
+  }
+
+  private static CALocation location()
+  {
+    return new CALocation(
+      CALocationID.random(),
+      Optional.empty(),
+      "Location",
+      new TreeMap<>(),
+      new TreeMap<>(),
+      new TreeSet<>()
+    );
+  }
+
+  /**
+   * Pages are served from the cache until they expire.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testTimeToLive()
+    throws Exception
+  {
+    this.page(ITEMS, 1L);
+    assertEquals(1, this.fetched.size());
+
+    this.timeNow += TIME_TO_LIVE.toNanos() - 1L;
+    this.page(ITEMS, 1L);
+    assertEquals(1, this.fetched.size());
+
+    this.timeNow += 1L;
+    this.page(ITEMS, 1L);
+    assertEquals(2, this.fetched.size());
+
+    this.page(ITEMS, 1L);
+    assertEquals(2, this.fetched.size());
+  }
+
+  /**
+   * A prefetched page counts as a hit the first time it is requested, and
+   * only then.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchHits()
+    throws Exception
+  {
+    this.pages.prefetch(ITEMS, 2L, () -> this.fetch(ITEMS, 2L)).get();
+    this.pages.prefetch(ITEMS, 2L, () -> this.fetch(ITEMS, 2L)).get();
+    assertEquals(1, this.fetched.size());
+    assertEquals(
+      new CAGPrefetchStatistics(1L, 0L),
+      this.pages.prefetchStatistics().get()
+    );
+
+    assertEquals("%s 2".formatted(ITEMS), this.page(ITEMS, 2L));
+    assertEquals(1, this.fetched.size());
+    assertEquals(
+      new CAGPrefetchStatistics(1L, 1L),
+      this.pages.prefetchStatistics().get()
+    );
+
+    this.page(ITEMS, 2L);
+    this.page(ITEMS, 3L);
+    assertEquals(2, this.fetched.size());
+    assertEquals(
+      new CAGPrefetchStatistics(1L, 1L),
+      this.pages.prefetchStatistics().get()
+    );
+  }
+
+  /**
+   * An expired prefetched page is fetched again, and is not a hit.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchExpired()
+    throws Exception
+  {
+    this.pages.prefetch(ITEMS, 2L, () -> this.fetch(ITEMS, 2L)).get();
+    this.timeNow += TIME_TO_LIVE.toNanos();
+
+    this.page(ITEMS, 2L);
+    assertEquals(2, this.fetched.size());
+    assertEquals(
+      new CAGPrefetchStatistics(1L, 0L),
+      this.pages.prefetchStatistics().get()
+    );
+  }
+
+  /**
+   * Modifying or deleting an item discards item and stock pages. Merely
+   * reading an item discards nothing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testItemEvents()
+    throws Exception
+  {
+    final var item = item();
+
+    assertEquals(List.of(ITEMS, STOCK, TYPE_PACKAGES), this.pageAll());
+
+    this.events.publish(new CAGEventItemUpdated(item, false));
+    assertEquals(List.of(), this.pageAll());
+
+    this.events.publish(new CAGEventItemUpdated(item, true));
+    assertEquals(List.of(ITEMS, STOCK), this.pageAll());
+
+    this.events.publish(new CAGEventItemDeleted(item.id()));
+    assertEquals(List.of(ITEMS, STOCK), this.pageAll());
+  }
+
+  /**
+   * Modifying or deleting a location discards stock pages. Merely reading
+   * a location discards nothing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLocationEvents()
+    throws Exception
+  {
+    final var location = location();
+
+    assertEquals(List.of(ITEMS, STOCK, TYPE_PACKAGES), this.pageAll());
+
+    this.events.publish(new CAGEventLocationUpdated(location, false));
+    assertEquals(List.of(), this.pageAll());
+
+    this.events.publish(new CAGEventLocationUpdated(location, true));
+    assertEquals(List.of(STOCK), this.pageAll());
+
+    this.events.publish(new CAGEventLocationDeleted(location.id()));
+    assertEquals(List.of(STOCK), this.pageAll());
+  }
+}
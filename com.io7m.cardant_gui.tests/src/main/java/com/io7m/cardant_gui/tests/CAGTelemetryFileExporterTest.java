@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.tests;
+
+import com.io7m.cardant_gui.ui.internal.CAGTelemetryFileExporter;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public final class CAGTelemetryFileExporterTest
+{
+  private static final String AWKWARD =
+    "Quote \" backslash \\ slash / newline \n tab \t bell \u0007 é";
+
+  private Path file;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+  {
+    this.file = directory.resolve("trace.json");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> object(
+    final Object value)
+  {
+    return (Map<String, Object>) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> array(
+    final Object value)
+  {
+    return (List<Object>) value;
+  }
+
+  private static Map<String, Object> attributes(
+    final Object value)
+  {
+    final var result = new HashMap<String, Object>();
+    for (final var attribute : array(value)) {
+      final var entry = object(attribute);
+      result.put((String) entry.get("key"), entry.get("value"));
+    }
+    return result;
+  }
+
+  /**
+   * Parse every exported line, and return the spans in the order in which
+   * they were exported.
+   */
+
+  private List<Map<String, Object>> exportedSpans()
+    throws Exception
+  {
+    final var lines =
+      Files.readAllLines(this.file, StandardCharsets.UTF_8);
+    assertFalse(lines.isEmpty());
+
+    return lines.stream()
+      .map(CAGJSONParser::parse)
+      .flatMap(r -> array(object(r).get("resourceSpans")).stream())
+      .flatMap(r -> array(object(r).get("scopeSpans")).stream())
+      .flatMap(r -> array(object(r).get("spans")).stream())
+      .map(CAGTelemetryFileExporterTest::object)
+      .toList();
+  }
+
+  /**
+   * Spans survive a round trip through the exporter and a JSON parser,
+   * including escaped text, every attribute type, events, links, and the
+   * span status.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRoundTrip()
+    throws Exception
+  {
+    final var provider =
+      SdkTracerProvider.builder()
+        .addSpanProcessor(
+          SimpleSpanProcessor.create(CAGTelemetryFileExporter.open(this.file)))
+        .build();
+    final var tracer =
+      provider.get("com.io7m.cardant_gui.tests");
+
+    final var linked = tracer.spanBuilder("linked").startSpan();
+    linked.end();
+
+    final var span =
+      tracer.spanBuilder(AWKWARD)
+        .setSpanKind(SpanKind.CLIENT)
+        .addLink(
+          linked.getSpanContext(),
+          Attributes.of(AttributeKey.stringKey("link.text"), AWKWARD)
+        )
+        .setAttribute("string", AWKWARD)
+        .setAttribute("long", Long.MIN_VALUE)
+        .setAttribute("boolean", true)
+        .setAttribute("double", 2.5)
+        .setAttribute("nan", Double.NaN)
+        .setAttribute("infinity", Double.POSITIVE_INFINITY)
+        .setAttribute("negativeInfinity", Double.NEGATIVE_INFINITY)
+        .setAttribute(
+          AttributeKey.stringArrayKey("strings"),
+          List.of("x", AWKWARD))
+        .setAttribute(
+          AttributeKey.doubleArrayKey("doubles"),
+          List.of(Double.valueOf(1.5), Double.valueOf(Double.NaN)))
+        .startSpan();
+
+    span.addEvent(
+      AWKWARD,
+      Attributes.of(AttributeKey.longKey("event.count"), Long.valueOf(23L))
+    );
+    span.setStatus(StatusCode.ERROR, AWKWARD);
+    span.end();
+
+    provider.shutdown().join(10L, TimeUnit.SECONDS);
+
+    final var spans = this.exportedSpans();
+    assertEquals(2, spans.size());
+
+    final var linkedOut = spans.get(0);
+    assertEquals("linked", linkedOut.get("name"));
+    assertEquals(List.of(), linkedOut.get("links"));
+    assertEquals(
+      BigDecimal.ZERO,
+      object(linkedOut.get("status")).get("code")
+    );
+
+    final var spanOut = spans.get(1);
+    assertEquals(AWKWARD, spanOut.get("name"));
+    assertEquals(span.getSpanContext().getTraceId(), spanOut.get("traceId"));
+    assertEquals(span.getSpanContext().getSpanId(), spanOut.get("spanId"));
+    assertEquals(BigDecimal.valueOf(3L), spanOut.get("kind"));
+
+    final var attributes = attributes(spanOut.get("attributes"));
+    assertEquals(Map.of("stringValue", AWKWARD), attributes.get("string"));
+    assertEquals(
+      Map.of("intValue", Long.toString(Long.MIN_VALUE)),
+      attributes.get("long")
+    );
+    assertEquals(Map.of("boolValue", Boolean.TRUE), attributes.get("boolean"));
+    assertEquals(
+      Map.of("doubleValue", new BigDecimal("2.5")),
+      attributes.get("double")
+    );
+    assertEquals(Map.of("doubleValue", "NaN"), attributes.get("nan"));
+    assertEquals(
+      Map.of("doubleValue", "Infinity"),
+      attributes.get("infinity")
+    );
+    assertEquals(
+      Map.of("doubleValue", "-Infinity"),
+      attributes.get("negativeInfinity")
+    );
+    assertEquals(
+      Map.of("arrayValue", Map.of("values", List.of(
+        Map.of("stringValue", "x"),
+        Map.of("stringValue", AWKWARD)
+      ))),
+      attributes.get("strings")
+    );
+    assertEquals(
+      Map.of("arrayValue", Map.of("values", List.of(
+        Map.of("doubleValue", new BigDecimal("1.5")),
+        Map.of("doubleValue", "NaN")
+      ))),
+      attributes.get("doubles")
+    );
+
+    final var events = array(spanOut.get("events"));
+    assertEquals(1, events.size());
+    final var event = object(events.get(0));
+    assertEquals(AWKWARD, event.get("name"));
+    assertEquals(
+      Map.of("intValue", "23"),
+      attributes(event.get("attributes")).get("event.count")
+    );
+
+    final var links = array(spanOut.get("links"));
+    assertEquals(1, links.size());
+    final var link = object(links.get(0));
+    assertEquals(linked.getSpanContext().getTraceId(), link.get("traceId"));
+    assertEquals(linked.getSpanContext().getSpanId(), link.get("spanId"));
+    assertEquals(
+      Map.of("stringValue", AWKWARD),
+      attributes(link.get("attributes")).get("link.text")
+    );
+
+    final var status = object(spanOut.get("status"));
+    assertEquals(BigDecimal.valueOf(2L), status.get("code"));
+    assertEquals(AWKWARD, status.get("message"));
+  }
+
+  /**
+   * Every exported batch is written on its own line.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOneLinePerBatch()
+    throws Exception
+  {
+    final var exporter = CAGTelemetryFileExporter.open(this.file);
+    final var provider =
+      SdkTracerProvider.builder()
+        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+        .build();
+    final var tracer =
+      provider.get("com.io7m.cardant_gui.tests");
+
+    for (int index = 0; index < 3; ++index) {
+      tracer.spanBuilder("span" + index).startSpan().end();
+    }
+    provider.shutdown().join(10L, TimeUnit.SECONDS);
+
+    final var lines =
+      Files.readAllLines(this.file, StandardCharsets.UTF_8);
+    assertEquals(3, lines.size());
+    assertEquals(
+      List.of("span0", "span1", "span2"),
+      this.exportedSpans().stream().map(s -> s.get("name")).toList()
+    );
+  }
+}
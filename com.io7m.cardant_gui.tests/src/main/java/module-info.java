@@ -33,7 +33,14 @@ open module com.io7m.cardant_gui.tests
   requires com.io7m.cardant.client.preferences.vanilla;
   requires com.io7m.cardant.parsers;
 
+  requires com.io7m.darco.api;
+  requires com.io7m.jattribute.core;
+  requires com.io7m.lanark.core;
   requires com.io7m.repetoir.core;
+  requires com.io7m.verona.core;
+  requires io.opentelemetry.api;
+  requires io.opentelemetry.sdk.common;
+  requires io.opentelemetry.sdk.trace;
 
   requires com.io7m.xoanon.extension;
   requires com.io7m.xoanon.commander.api;
@@ -19,12 +19,24 @@ package com.io7m.cardant_gui.ui;
 
 import com.io7m.cardant_gui.ui.internal.CAGAuditSearchView;
 import com.io7m.cardant_gui.ui.internal.CAGAuditTableView;
+import com.io7m.cardant_gui.ui.internal.CAGAuditReplicaService;
+import com.io7m.cardant_gui.ui.internal.CAGAuditReplicaServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGBlobCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGBlobCacheServiceType;
 import com.io7m.cardant_gui.ui.internal.CAGCSS;
 import com.io7m.cardant_gui.ui.internal.CAGClientService;
+import com.io7m.cardant_gui.ui.internal.CAGClientServiceConfiguration;
 import com.io7m.cardant_gui.ui.internal.CAGClientServiceType;
 import com.io7m.cardant_gui.ui.internal.CAGControllerFactoryMapped;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorService;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseExecutorServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseResultCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGDatabaseResultCacheServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGEntityCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGEntityCacheServiceType;
 import com.io7m.cardant_gui.ui.internal.CAGEventService;
 import com.io7m.cardant_gui.ui.internal.CAGEventServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGFXThread;
 import com.io7m.cardant_gui.ui.internal.CAGFileChoosers;
 import com.io7m.cardant_gui.ui.internal.CAGFileChoosersType;
 import com.io7m.cardant_gui.ui.internal.CAGFileListView;
@@ -51,12 +63,18 @@ import com.io7m.cardant_gui.ui.internal.CAGMainLocationsView;
 import com.io7m.cardant_gui.ui.internal.CAGMainStockView;
 import com.io7m.cardant_gui.ui.internal.CAGMainTypePackagesView;
 import com.io7m.cardant_gui.ui.internal.CAGMainView;
+import com.io7m.cardant_gui.ui.internal.CAGOfflineCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGOfflineCacheServiceType;
+import com.io7m.cardant_gui.ui.internal.CAGSearchPageCacheService;
+import com.io7m.cardant_gui.ui.internal.CAGSearchPageCacheServiceType;
 import com.io7m.cardant_gui.ui.internal.CAGStatusService;
 import com.io7m.cardant_gui.ui.internal.CAGStockSearchView;
 import com.io7m.cardant_gui.ui.internal.CAGStockTableView;
 import com.io7m.cardant_gui.ui.internal.CAGStringConstants;
 import com.io7m.cardant_gui.ui.internal.CAGStrings;
 import com.io7m.cardant_gui.ui.internal.CAGStringsType;
+import com.io7m.cardant_gui.ui.internal.CAGTelemetryService;
+import com.io7m.cardant_gui.ui.internal.CAGTelemetryServiceType;
 import com.io7m.cardant_gui.ui.internal.CAGTypePackagesDetailsView;
 import com.io7m.cardant_gui.ui.internal.CAGTypePackagesSearchView;
 import com.io7m.cardant_gui.ui.internal.CAGTypePackagesTableView;
@@ -65,9 +83,10 @@ import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseConfiguration;
 import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseFactory;
 import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.darco.api.DDatabaseCreate;
-import com.io7m.darco.api.DDatabaseTelemetryNoOp;
 import com.io7m.darco.api.DDatabaseUpgrade;
 import com.io7m.jade.api.ApplicationDirectoriesType;
+import com.io7m.jmulticlose.core.CloseableCollection;
+import com.io7m.jmulticlose.core.CloseableCollectionType;
 import com.io7m.repetoir.core.RPServiceDirectory;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -77,9 +96,12 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The main application class responsible for starting up the "main" view.
@@ -90,7 +112,36 @@ public final class CAGApplication extends Application
   private static final Logger LOG =
     LoggerFactory.getLogger(CAGApplication.class);
 
+  private static final String TRACE_FILE_PROPERTY =
+    "com.io7m.cardant_gui.traceFile";
+
+  private static final long BLOB_CACHE_MAXIMUM_BYTES =
+    2L * 1024L * 1024L * 1024L;
+
+  private static final int SEARCH_PAGE_CACHE_CAPACITY =
+    64;
+
+  private static final int DATABASE_RESULT_CACHE_CAPACITY =
+    64;
+
+  private static final Duration SEARCH_PAGE_CACHE_TIME_TO_LIVE =
+    Duration.ofSeconds(30L);
+
+  private static final int DATABASE_READER_THREADS =
+    4;
+
+  private static final Duration DATABASE_DEFERRED_WRITE_DELAY =
+    Duration.ofMillis(250L);
+
   private final ApplicationDirectoriesType directories;
+  private final AtomicBoolean shutDown;
+  private final CloseableCollectionType<IllegalStateException>
+    databaseResources;
+  private CAGClientServiceType clientService;
+  private CAGEntityCacheServiceType entityCache;
+  private CAGSearchPageCacheServiceType searchPages;
+  private CAGDatabaseResultCacheServiceType databaseResults;
+  private CAGTelemetryServiceType telemetry;
 
   /**
    * The main application class responsible for starting up the "main" view.
@@ -103,6 +154,97 @@ public final class CAGApplication extends Application
   {
     this.directories =
       Objects.requireNonNull(inConfiguration, "configuration");
+    this.shutDown =
+      new AtomicBoolean(false);
+    this.databaseResources =
+      CloseableCollection.create(
+        () -> new IllegalStateException(
+          "One or more database resources could not be closed.")
+      );
+  }
+
+  @Override
+  public void stop()
+  {
+    this.shutDown();
+  }
+
+  /**
+   * Log the final statistics, close the database, and close the telemetry
+   * exporters. This is called both when the main window is hidden and when
+   * the application exits, but only takes effect once.
+   */
+
+  private void shutDown()
+  {
+    if (!this.shutDown.compareAndSet(false, true)) {
+      return;
+    }
+
+    final var client = this.clientService;
+    if (client != null && LOG.isDebugEnabled()) {
+      LOG.debug("Client metrics:\n{}", client.metricsNow().report());
+      LOG.debug("Image cache: {}", client.imageCacheStatistics().get());
+    }
+
+    final var cache = this.entityCache;
+    if (cache != null && LOG.isDebugEnabled()) {
+      LOG.debug("Item cache: {}", cache.itemStatistics().get());
+      LOG.debug("Location cache: {}", cache.locationStatistics().get());
+    }
+
+    final var pages = this.searchPages;
+    if (pages != null && LOG.isDebugEnabled()) {
+      LOG.debug("Search page cache: {}", pages.statistics().get());
+      LOG.debug(
+        "Search page prefetch: {} (hit ratio {})",
+        pages.prefetchStatistics().get(),
+        Double.valueOf(pages.prefetchStatistics().get().hitRatio())
+      );
+    }
+
+    final var results = this.databaseResults;
+    if (results != null && LOG.isDebugEnabled()) {
+      LOG.debug("Database result cache: {}", results.statistics().get());
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("FX dispatcher: {}", CAGFXThread.statistics());
+    }
+
+    /*
+     * The database resources are closed in the reverse order in which they
+     * were opened: the services that submit writes are closed before the
+     * executor, and closing the executor commits any pending deferred
+     * writes. The executor threads are daemon threads, and so any writes
+     * still pending at exit would otherwise be lost.
+     */
+
+    try {
+      this.databaseResources.close();
+    } catch (final IllegalStateException e) {
+      LOG.error("Unable to close the database: ", e);
+    }
+
+    final var telemetryNow = this.telemetry;
+    if (telemetryNow != null) {
+      telemetryNow.close();
+    }
+  }
+
+  private static CAGTelemetryServiceType createTelemetry()
+  {
+    final var traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+    if (traceFile == null) {
+      return CAGTelemetryService.createNoOp();
+    }
+
+    try {
+      return CAGTelemetryService.createFile(Path.of(traceFile));
+    } catch (final Exception e) {
+      LOG.error("Unable to open trace file {}: ", traceFile, e);
+      return CAGTelemetryService.createNoOp();
+    }
   }
 
   @Override
@@ -115,11 +257,14 @@ public final class CAGApplication extends Application
     final var services =
       new RPServiceDirectory();
 
+    this.telemetry = createTelemetry();
+    services.register(CAGTelemetryServiceType.class, this.telemetry);
+
     final var database =
       new CAGDatabaseFactory()
         .open(
           new CAGDatabaseConfiguration(
-            DDatabaseTelemetryNoOp.get(),
+            this.telemetry.databaseTelemetry(),
             DDatabaseCreate.CREATE_DATABASE,
             DDatabaseUpgrade.UPGRADE_DATABASE,
             this.directories.configurationDirectory()
@@ -129,11 +274,35 @@ public final class CAGApplication extends Application
 
           }
         );
+    this.databaseResources.add(database);
     services.register(
       CAGDatabaseType.class,
       database
     );
 
+    final var databaseExecutor =
+      CAGDatabaseExecutorService.create(
+        database,
+        DATABASE_READER_THREADS,
+        DATABASE_DEFERRED_WRITE_DELAY
+      );
+    this.databaseResources.add(databaseExecutor);
+    services.register(
+      CAGDatabaseExecutorServiceType.class,
+      databaseExecutor
+    );
+
+    this.databaseResults =
+      CAGDatabaseResultCacheService.create(
+        databaseExecutor,
+        CAGDatabaseFactory.queryProviders(),
+        DATABASE_RESULT_CACHE_CAPACITY
+      );
+    services.register(
+      CAGDatabaseResultCacheServiceType.class,
+      this.databaseResults
+    );
+
     final var events = CAGEventService.create();
     services.register(CAGEventServiceType.class, events);
 
@@ -177,12 +346,53 @@ public final class CAGApplication extends Application
     final var status = new CAGStatusService();
     services.register(CAGStatusService.class, status);
 
-    final var clientService = new CAGClientService(status, events, strings);
+    final var blobs =
+      CAGBlobCacheService.create(
+        this.directories.configurationDirectory().resolve("blobs"),
+        BLOB_CACHE_MAXIMUM_BYTES
+      );
+    services.register(CAGBlobCacheServiceType.class, blobs);
+
+    final var clientService =
+      new CAGClientService(
+        CAGClientServiceConfiguration.defaults(),
+        this.telemetry.tracer(),
+        status,
+        events,
+        strings,
+        blobs
+      );
     services.register(CAGClientServiceType.class, clientService);
+    this.clientService = clientService;
+
+    this.entityCache =
+      CAGEntityCacheService.create(events, clientService, 1000, 1000);
+    services.register(CAGEntityCacheServiceType.class, this.entityCache);
+    services.register(
+      CAGOfflineCacheServiceType.class,
+      this.databaseResources.add(
+        CAGOfflineCacheService.create(databaseExecutor, events, clientService)
+      )
+    );
+    services.register(
+      CAGAuditReplicaServiceType.class,
+      this.databaseResources.add(
+        CAGAuditReplicaService.create(databaseExecutor, clientService)
+      )
+    );
+
+    this.searchPages =
+      CAGSearchPageCacheService.create(
+        events,
+        clientService,
+        SEARCH_PAGE_CACHE_CAPACITY,
+        SEARCH_PAGE_CACHE_TIME_TO_LIVE
+      );
+    services.register(CAGSearchPageCacheServiceType.class, this.searchPages);
 
     services.register(
       CAGFileTransferControllerType.class,
-      CAGFileTransferController.create(clientService)
+      CAGFileTransferController.create(clientService, this.searchPages)
     );
     services.register(
       CAGItemCreateDialogs.class,
@@ -294,6 +504,7 @@ public final class CAGApplication extends Application
     CAGCSS.setCSS(pane);
     stage.setScene(new Scene(pane));
     stage.setTitle(strings.format(CAGStringConstants.CARDANT_TITLE));
+    stage.setOnHidden(event -> this.shutDown());
     stage.show();
   }
 }
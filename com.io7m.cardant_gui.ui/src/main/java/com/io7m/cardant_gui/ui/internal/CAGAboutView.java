@@ -17,7 +17,6 @@
 
 package com.io7m.cardant_gui.ui.internal;
 
-import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import org.slf4j.Logger;
@@ -70,7 +69,7 @@ public final class CAGAboutView
         LOG.error("I/O error: ", e);
       }
 
-      Platform.runLater(() -> {
+      CAGFXThread.runLater(() -> {
         this.version
           .setText(p.getProperty("version"));
         this.build
@@ -19,11 +19,7 @@ package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.model.CAAuditEvent;
 import com.io7m.cardant.model.CAAuditSearchParameters;
-import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchBegin;
-import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchNext;
-import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchPrevious;
-import com.io7m.cardant.protocol.inventory.CAIResponseAuditSearch;
-import javafx.application.Platform;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventPage;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -32,11 +28,13 @@ import javafx.collections.transformation.SortedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * The audit controller.
+ * The audit controller. Searches are answered by the local audit log
+ * replica, which is synchronized with the server on connection and at the
+ * start of each search.
  */
 
 public final class CAGAuditController implements CAGAuditControllerType
@@ -44,16 +42,31 @@ public final class CAGAuditController implements CAGAuditControllerType
   private static final Logger LOG =
     LoggerFactory.getLogger(CAGAuditController.class);
 
-  private final CAGClientServiceType clientService;
+  private final CAGAuditReplicaServiceType replica;
+  private final CAGSearchPageCacheServiceType pages;
+  private final CAGSearchPager<CAAuditSearchParameters, CAGAuditEventPage> pager;
   private final ObservableList<CAAuditEvent> auditEvents;
   private final SimpleObjectProperty<CAGPageRange> auditEventPages;
   private final SortedList<CAAuditEvent> auditEventsSorted;
+  private CAAuditSearchParameters searchParameters;
 
   private CAGAuditController(
-    final CAGClientServiceType inClientService)
+    final CAGAuditReplicaServiceType inReplica,
+    final CAGSearchPageCacheServiceType inPages)
   {
-    this.clientService =
-      Objects.requireNonNull(inClientService, "clientService");
+    this.replica =
+      Objects.requireNonNull(inReplica, "replica");
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
+
+    this.pager =
+      new CAGSearchPager<>(
+        this.pages,
+        (parameters, pageIndex, priority) -> {
+          return this.replica.search(parameters, pageIndex);
+        },
+        page -> new CAGPageRange(page.pageIndex(), page.pageCount())
+      );
 
     this.auditEventPages =
       new SimpleObjectProperty<>(CAGPageRange.zero());
@@ -67,35 +80,90 @@ public final class CAGAuditController implements CAGAuditControllerType
    * Create a controller.
    *
    * @param clients The client service
+   * @param replica The audit log replica
+   * @param pages   The search page cache
    *
    * @return A controller
    */
 
   public static CAGAuditControllerType create(
-    final CAGClientServiceType clients)
+    final CAGClientServiceType clients,
+    final CAGAuditReplicaServiceType replica,
+    final CAGSearchPageCacheServiceType pages)
   {
-    final var controller = new CAGAuditController(clients);
+    final var controller = new CAGAuditController(replica, pages);
     clients.status().subscribe((oldStatus, newStatus) -> {
-      controller.onClientStatusChanged();
+      controller.onClientStatusChanged(newStatus);
     });
     return controller;
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
   {
+    if (newStatus == CAGClientStatus.CONNECTED) {
+      this.synchronize();
+      return;
+    }
+
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.searchParameters = null;
+    this.auditEventPages.set(CAGPageRange.zero());
     this.auditEvents.clear();
   }
 
   @Override
   public void auditSearchBegin(
-    final CAAuditSearchParameters searchParameters)
+    final CAAuditSearchParameters parameters)
   {
-    final var future =
-      this.clientService.execute(
-        new CAICommandAuditSearchBegin(searchParameters)
-      );
+    this.searchParameters =
+      Objects.requireNonNull(parameters, "parameters");
+
+    /*
+     * Show whatever the replica already holds, and then show the page
+     * again if the synchronization brought in anything new.
+     */
+
+    this.auditSearchPage(1L);
+
+    this.synchronize().thenAccept(received -> {
+      if (received.longValue() > 0L) {
+        CAGFXThread.runLater(() -> {
+          this.auditSearchPage(this.auditEventPages.get().pageIndex());
+        });
+      }
+    });
+  }
+
+  /**
+   * Synchronize the replica, discarding any cached pages if the
+   * synchronization brought in anything new.
+   */
+
+  private CompletableFuture<Long> synchronize()
+  {
+    return this.replica.synchronize().thenApply(received -> {
+      if (received.longValue() > 0L) {
+        this.pages.invalidate(CAAuditSearchParameters.class);
+      }
+      return received;
+    });
+  }
+
+  @Override
+  public void auditSearchPage(
+    final long pageIndex)
+  {
+    final var parameters = this.searchParameters;
+    if (parameters == null) {
+      return;
+    }
 
-    future.thenAccept(this::receivePage);
+    this.pager.page(parameters, pageIndex)
+      .thenAccept(this::receivePage);
   }
 
   @Override
@@ -119,38 +187,24 @@ public final class CAGAuditController implements CAGAuditControllerType
   @Override
   public void auditSearchNext()
   {
-    final var future =
-      this.clientService.execute(new CAICommandAuditSearchNext());
-
-    future.thenAccept(this::receivePage);
+    this.auditSearchPage(this.auditEventPages.get().pageIndex() + 1L);
   }
 
   @Override
   public void auditSearchPrevious()
   {
-    final var future =
-      this.clientService.execute(new CAICommandAuditSearchPrevious());
-
-    future.thenAccept(this::receivePage);
+    this.auditSearchPage(this.auditEventPages.get().pageIndex() - 1L);
   }
 
   private void receivePage(
-    final CAIResponseAuditSearch response)
+    final CAGAuditEventPage page)
   {
-    Platform.runLater(() -> {
-      final var data = response.results();
-
-      final var newItemPage =
-        new ArrayList<>(data.items());
-
-      LOG.debug("Received {} audit events", newItemPage.size());
+    CAGFXThread.runLaterCoalesced(this.auditEventPages, () -> {
+      LOG.debug("Received {} audit events", page.items().size());
       this.auditEventPages.set(
-        new CAGPageRange(
-          (long) data.pageIndex(),
-          (long) data.pageCount()
-        )
+        new CAGPageRange(page.pageIndex(), page.pageCount())
       );
-      this.auditEvents.setAll(newItemPage);
+      CAGListDiff.apply(this.auditEvents, page.items(), CAAuditEvent::id);
     });
   }
 
@@ -56,6 +56,15 @@ public interface CAGAuditControllerType
 
   ObservableValue<CAGPageRange> auditEventsPages();
 
+  /**
+   * Go to the given page of audit records.
+   *
+   * @param pageIndex The page index (indexed from 1)
+   */
+
+  void auditSearchPage(
+    long pageIndex);
+
   /**
    * Go to the next page of audit records.
    */
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAAuditSearchParameters;
+import com.io7m.cardant.model.CATimeRange;
+import com.io7m.cardant.model.comparisons.CAComparisonExactType;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchNext;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventPage;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsPutType;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsSearchType;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsWatermarkType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+
+/**
+ * A local replica of the audit log of the current server.
+ */
+
+public final class CAGAuditReplicaService
+  extends CAGAbstractResourceHolder
+  implements CAGAuditReplicaServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGAuditReplicaService.class);
+
+  /**
+   * The number of events requested per page during synchronization. The
+   * server may return fewer.
+   */
+
+  private static final long SYNC_PAGE_SIZE = 1000L;
+
+  private static final OffsetDateTime SYNC_EARLIEST =
+    OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  private final CAGDatabaseExecutorServiceType database;
+  private final CAGClientServiceType clients;
+  private final ExecutorService syncExecutor;
+  private CompletableFuture<Long> syncInProgress;
+
+  private CAGAuditReplicaService(
+    final CAGDatabaseExecutorServiceType inDatabase,
+    final CAGClientServiceType inClients)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.clients =
+      Objects.requireNonNull(inClients, "clients");
+
+    /*
+     * The synchronization loop spends most of its time waiting for the
+     * server, and so executes on its own thread instead of holding the
+     * database executor.
+     */
+
+    this.syncExecutor =
+      this.trackResource(
+        Executors.newSingleThreadExecutor(
+          Thread.ofVirtual()
+            .name("com.io7m.cardant_gui.audit_replica.sync-", 0L)
+            .factory()
+        )
+      );
+
+    this.syncInProgress =
+      CompletableFuture.completedFuture(Long.valueOf(0L));
+  }
+
+  /**
+   * Create an audit log replica.
+   *
+   * @param database The database executor
+   * @param clients  The client service
+   *
+   * @return The replica service
+   */
+
+  public static CAGAuditReplicaService create(
+    final CAGDatabaseExecutorServiceType database,
+    final CAGClientServiceType clients)
+  {
+    return new CAGAuditReplicaService(database, clients);
+  }
+
+  private Optional<String> currentServerKey()
+  {
+    return this.clients.sessionServer()
+      .map(CAGOfflineCacheService::serverKey);
+  }
+
+  @Override
+  public synchronized CompletableFuture<Long> synchronize()
+  {
+    if (!this.syncInProgress.isDone()) {
+      return this.syncInProgress;
+    }
+
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return CompletableFuture.completedFuture(Long.valueOf(0L));
+    }
+
+    final var server = serverOpt.get();
+    final var future = new CompletableFuture<Long>();
+    this.syncExecutor.execute(() -> {
+      try {
+        future.complete(Long.valueOf(this.synchronizeRun(server)));
+      } catch (final Throwable e) {
+        LOG.warn("Unable to synchronize the audit log: ", e);
+        future.completeExceptionally(e);
+      }
+    });
+
+    this.syncInProgress = future;
+    return future;
+  }
+
+  private long synchronizeRun(
+    final String server)
+    throws Exception
+  {
+    final var timeThen = System.nanoTime();
+
+    /*
+     * The lower bound is inclusive, so events that share the time of the
+     * most recent event in the replica are received again. Those events
+     * are discarded on insertion.
+     */
+
+    final var lower =
+      this.database.read(t -> {
+        return t.query(CAGAuditEventsWatermarkType.class).execute(server);
+      }).get().orElse(SYNC_EARLIEST);
+
+    final var upper =
+      OffsetDateTime.now(ZoneOffset.UTC).plusDays(1L);
+
+    final var parameters =
+      new CAAuditSearchParameters(
+        Optional.empty(),
+        new CAComparisonExactType.Anything<>(),
+        new CATimeRange(lower, upper),
+        SYNC_PAGE_SIZE
+      );
+
+    var response =
+      this.clients.execute(
+        new CAICommandAuditSearchBegin(parameters),
+        BACKGROUND
+      ).get();
+
+    var received = 0L;
+    while (true) {
+      final var page = response.results();
+      final var events = page.items();
+      received += (long) events.size();
+
+      this.database.write(t -> {
+        return t.query(CAGAuditEventsPutType.class)
+          .execute(new CAGAuditEventsPutType.Parameters(server, events));
+      }).get();
+
+      if (page.pageIndex() >= page.pageCount()) {
+        break;
+      }
+
+      response =
+        this.clients.execute(new CAICommandAuditSearchNext(), BACKGROUND)
+          .get();
+    }
+
+    LOG.debug(
+      "Received {} audit events since {} in {} ms",
+      Long.valueOf(received),
+      lower,
+      Long.valueOf((System.nanoTime() - timeThen) / 1_000_000L)
+    );
+    return received;
+  }
+
+  @Override
+  public CompletableFuture<CAGAuditEventPage> search(
+    final CAAuditSearchParameters parameters,
+    final long pageIndex)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return CompletableFuture.completedFuture(CAGAuditEventPage.empty());
+    }
+
+    final var server = serverOpt.get();
+    return this.database.read(t -> {
+      return t.query(CAGAuditEventsSearchType.class)
+        .execute(new CAGAuditEventsSearchType.Parameters(
+          server,
+          parameters,
+          pageIndex
+        ));
+    }).exceptionally(e -> {
+      LOG.warn("Unable to search the audit log: ", e);
+      return CAGAuditEventPage.empty();
+    });
+  }
+
+  @Override
+  public String description()
+  {
+    return "Audit log replica service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGAuditReplicaService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
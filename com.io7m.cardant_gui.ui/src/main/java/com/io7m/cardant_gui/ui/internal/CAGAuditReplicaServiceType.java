@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAAuditSearchParameters;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventPage;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A local replica of the audit log of the current server. Audit events are
+ * copied incrementally from the server into the local database, and
+ * searches are answered from the local database.
+ */
+
+public interface CAGAuditReplicaServiceType extends RPServiceType
+{
+  /**
+   * Copy any audit events that are newer than the most recent event in the
+   * replica. If a synchronization is already in progress, the future for
+   * that synchronization is returned.
+   *
+   * @return The number of audit events received from the server
+   */
+
+  CompletableFuture<Long> synchronize();
+
+  /**
+   * Search the replica. The page index is clamped to the pages available.
+   *
+   * @param parameters The search parameters
+   * @param pageIndex  The page index (indexed from 1)
+   *
+   * @return The page of results
+   */
+
+  CompletableFuture<CAGAuditEventPage> search(
+    CAAuditSearchParameters parameters,
+    long pageIndex);
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A persistent, content-addressed cache of file content.
+ *
+ * A blob that is open is pinned: eviction passes over it, and a damaged
+ * blob that is open is dropped from the index but its file is left in
+ * place. The cache can therefore briefly hold more than the maximum
+ * number of bytes; eviction resumes as soon as blobs are closed.
+ */
+
+public final class CAGBlobCacheService
+  implements CAGBlobCacheServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGBlobCacheService.class);
+
+  private static final Pattern VALID_HASH =
+    Pattern.compile("[0-9a-fA-F]{2,512}");
+
+  private final Path directoryData;
+  private final Path directoryTmp;
+  private final long maximumBytes;
+  private final LinkedHashMap<Path, Long> entries;
+  private final HashMap<Path, Integer> pins;
+  private final Set<Path> verified;
+  private final AttributeType<CAGCacheStatistics> statistics;
+  private long bytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  private CAGBlobCacheService(
+    final Path inDirectory,
+    final long inMaximumBytes)
+  {
+    Objects.requireNonNull(inDirectory, "directory");
+
+    Preconditions.checkPreconditionV(
+      inMaximumBytes >= 1L,
+      "Maximum size %d must be positive",
+      Long.valueOf(inMaximumBytes)
+    );
+
+    this.directoryData =
+      inDirectory.resolve("data");
+    this.directoryTmp =
+      inDirectory.resolve("tmp");
+    this.maximumBytes =
+      inMaximumBytes;
+    this.entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+    this.pins =
+      new HashMap<>();
+    this.verified =
+      ConcurrentHashMap.newKeySet();
+    this.statistics =
+      Attributes.create(throwable -> LOG.error("Exception: ", throwable))
+        .withValue(CAGCacheStatistics.zero());
+  }
+
+  /**
+   * Open a blob cache. Files left in the temporary directory by a previous
+   * run are deleted, and existing blobs are indexed in order of their
+   * last use.
+   *
+   * @param directory    The cache directory
+   * @param maximumBytes The maximum total size of cached blobs
+   *
+   * @return The cache service
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CAGBlobCacheServiceType create(
+    final Path directory,
+    final long maximumBytes)
+    throws IOException
+  {
+    final var service = new CAGBlobCacheService(directory, maximumBytes);
+    service.open();
+    return service;
+  }
+
+  private record Found(
+    Path file,
+    long size,
+    FileTime time)
+  {
+
+  }
+
+  private void open()
+    throws IOException
+  {
+    Files.createDirectories(this.directoryData);
+    Files.createDirectories(this.directoryTmp);
+
+    try (var stream = Files.list(this.directoryTmp)) {
+      for (final var file : stream.toList()) {
+        Files.deleteIfExists(file);
+      }
+    }
+
+    final var found = new ArrayList<Found>();
+    try (var stream = Files.walk(this.directoryData)) {
+      for (final var file : stream.filter(Files::isRegularFile).toList()) {
+        found.add(
+          new Found(
+            file,
+            Files.size(file),
+            Files.getLastModifiedTime(file)
+          )
+        );
+      }
+    }
+
+    found.sort(Comparator.comparing(Found::time));
+
+    synchronized (this.entries) {
+      for (final var f : found) {
+        this.entries.put(f.file(), Long.valueOf(f.size()));
+        this.bytes += f.size();
+      }
+      this.evictLocked();
+    }
+
+    LOG.debug(
+      "Opened blob cache with {} blobs ({} bytes)",
+      Integer.valueOf(found.size()),
+      Long.valueOf(this.bytes)
+    );
+    this.publishStatistics();
+  }
+
+  private Path fileFor(
+    final String hashAlgorithm,
+    final String hashValue)
+    throws IOException
+  {
+    try {
+      MessageDigest.getInstance(hashAlgorithm);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    if (!VALID_HASH.matcher(hashValue).matches()) {
+      throw new IOException(
+        "Unusable hash value '%s'".formatted(hashValue)
+      );
+    }
+
+    final var algorithmName =
+      hashAlgorithm.toLowerCase(Locale.ROOT)
+        .replaceAll("[^a-z0-9]", "");
+    final var hash =
+      hashValue.toLowerCase(Locale.ROOT);
+
+    return this.directoryData
+      .resolve(algorithmName)
+      .resolve(hash.substring(0, 2))
+      .resolve(hash);
+  }
+
+  @Override
+  public Optional<CAGBlobType> find(
+    final String hashAlgorithm,
+    final String hashValue,
+    final long size)
+  {
+    Objects.requireNonNull(hashAlgorithm, "hashAlgorithm");
+    Objects.requireNonNull(hashValue, "hashValue");
+
+    final var result = this.findIntact(hashAlgorithm, hashValue, size);
+    synchronized (this.entries) {
+      if (result.isPresent()) {
+        ++this.hits;
+      } else {
+        ++this.misses;
+      }
+    }
+    this.publishStatistics();
+    return result;
+  }
+
+  private Optional<CAGBlobType> findIntact(
+    final String hashAlgorithm,
+    final String hashValue,
+    final long size)
+  {
+    try {
+      final var file = this.fileFor(hashAlgorithm, hashValue);
+
+      final Blob blob;
+      synchronized (this.entries) {
+        if (this.entries.get(file) == null) {
+          return Optional.empty();
+        }
+        blob = this.openLocked(file);
+      }
+
+      try {
+        if (this.isIntact(file, hashAlgorithm, hashValue, size)) {
+          final var now = FileTime.fromMillis(System.currentTimeMillis());
+          Files.setLastModifiedTime(file, now);
+          return Optional.of(blob);
+        }
+      } catch (final IOException e) {
+        blob.close();
+        throw e;
+      }
+
+      blob.close();
+      LOG.warn("Blob {} is damaged; discarding it", file);
+      this.remove(file);
+    } catch (final IOException e) {
+      LOG.debug("Blob lookup: ", e);
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public CAGBlobType get(
+    final String hashAlgorithm,
+    final String hashValue,
+    final long size,
+    final CAGBlobFetcherType fetcher)
+    throws Exception
+  {
+    Objects.requireNonNull(fetcher, "fetcher");
+
+    final var existing = this.find(hashAlgorithm, hashValue, size);
+    if (existing.isPresent()) {
+      return existing.get();
+    }
+
+    final var file =
+      this.fileFor(hashAlgorithm, hashValue);
+    final var name =
+      UUID.randomUUID().toString();
+    final var filePart =
+      this.directoryTmp.resolve(name + ".part");
+    final var fileTmp =
+      this.directoryTmp.resolve(name + ".tmp");
+
+    try {
+      fetcher.fetch(filePart, fileTmp);
+
+      if (!this.isIntact(filePart, hashAlgorithm, hashValue, size)) {
+        throw new IOException(
+          "Fetched content does not match the expected hash %s:%s"
+            .formatted(hashAlgorithm, hashValue)
+        );
+      }
+
+      Files.createDirectories(file.getParent());
+
+      /*
+       * The blob is moved into place under the lock, so that the move
+       * cannot be undone by a concurrent removal of a damaged copy.
+       */
+
+      synchronized (this.entries) {
+        Files.move(filePart, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        this.verified.add(file);
+
+        final var previous = this.entries.put(file, Long.valueOf(size));
+        if (previous != null) {
+          this.bytes -= previous.longValue();
+        }
+        this.bytes += size;
+
+        final var blob = this.openLocked(file);
+        this.evictLocked();
+        return blob;
+      }
+    } finally {
+      this.verified.remove(filePart);
+      Files.deleteIfExists(filePart);
+      Files.deleteIfExists(fileTmp);
+      this.publishStatistics();
+    }
+  }
+
+  /**
+   * Check that a file has the expected size and hash. The hash of each
+   * blob is checked once per run; later lookups only check the size.
+   */
+
+  private boolean isIntact(
+    final Path file,
+    final String hashAlgorithm,
+    final String hashValue,
+    final long size)
+    throws IOException
+  {
+    if (!Files.isRegularFile(file) || Files.size(file) != size) {
+      return false;
+    }
+    if (this.verified.contains(file)) {
+      return true;
+    }
+
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(hashAlgorithm);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    try (InputStream stream = Files.newInputStream(file)) {
+      final var buffer = new byte[8192];
+      while (true) {
+        final var r = stream.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        digest.update(buffer, 0, r);
+      }
+    }
+
+    final var received = HexFormat.of().formatHex(digest.digest());
+    if (received.equalsIgnoreCase(hashValue)) {
+      this.verified.add(file);
+      return true;
+    }
+    return false;
+  }
+
+  private void remove(
+    final Path file)
+    throws IOException
+  {
+    synchronized (this.entries) {
+      final var size = this.entries.remove(file);
+      if (size != null) {
+        this.bytes -= size.longValue();
+      }
+      this.verified.remove(file);
+      if (!this.pins.containsKey(file)) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private Blob openLocked(
+    final Path file)
+  {
+    final var count = this.pins.getOrDefault(file, Integer.valueOf(0));
+    this.pins.put(file, Integer.valueOf(count.intValue() + 1));
+    return new Blob(file);
+  }
+
+  private void close(
+    final Path file)
+  {
+    synchronized (this.entries) {
+      final var count = this.pins.get(file).intValue();
+      if (count == 1) {
+        this.pins.remove(file);
+      } else {
+        this.pins.put(file, Integer.valueOf(count - 1));
+      }
+      this.evictLocked();
+    }
+    this.publishStatistics();
+  }
+
+  private void evictLocked()
+  {
+    final var iterator = this.entries.entrySet().iterator();
+    while (this.bytes > this.maximumBytes && iterator.hasNext()) {
+      final var entry = iterator.next();
+      final var file = entry.getKey();
+      if (this.pins.containsKey(file)) {
+        continue;
+      }
+
+      iterator.remove();
+      this.bytes -= entry.getValue().longValue();
+      this.verified.remove(file);
+      ++this.evictions;
+
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        LOG.warn("Unable to delete evicted blob {}: ", file, e);
+      }
+    }
+  }
+
+  /**
+   * An open blob. Closing the blob more than once has no further effect.
+   */
+
+  private final class Blob implements CAGBlobType
+  {
+    private final Path file;
+    private final AtomicBoolean closed;
+
+    Blob(
+      final Path inFile)
+    {
+      this.file = inFile;
+      this.closed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public Path file()
+    {
+      return this.file;
+    }
+
+    @Override
+    public void close()
+    {
+      if (this.closed.compareAndSet(false, true)) {
+        CAGBlobCacheService.this.close(this.file);
+      }
+    }
+  }
+
+  private void publishStatistics()
+  {
+    /*
+     * The snapshot is published before the lock is released; a snapshot
+     * published after the lock could overwrite a newer one taken by
+     * another thread in the meantime.
+     */
+
+    synchronized (this.entries) {
+      this.statistics.set(new CAGCacheStatistics(
+        this.hits,
+        this.misses,
+        this.evictions,
+        this.entries.size(),
+        this.bytes
+      ));
+    }
+  }
+
+  @Override
+  public long maximumBytes()
+  {
+    return this.maximumBytes;
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> statistics()
+  {
+    return this.statistics;
+  }
+
+  @Override
+  public String description()
+  {
+    return "Blob cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGBlobCacheService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
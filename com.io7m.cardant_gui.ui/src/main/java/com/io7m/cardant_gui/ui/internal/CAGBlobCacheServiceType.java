@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.Optional;
+
+/**
+ * A persistent, content-addressed cache of file content. Blobs are keyed
+ * by the hash algorithm and hash value of their content, and are checked
+ * against that hash before being handed out. The cache is shared by
+ * thumbnails and file downloads. Blobs are handed out open, and are
+ * never deleted by the cache while they are open.
+ */
+
+public interface CAGBlobCacheServiceType extends RPServiceType
+{
+  /**
+   * Find a cached blob.
+   *
+   * @param hashAlgorithm The hash algorithm
+   * @param hashValue     The hash value
+   * @param size          The expected size of the blob
+   *
+   * @return The open blob, if it is cached and intact
+   */
+
+  Optional<CAGBlobType> find(
+    String hashAlgorithm,
+    String hashValue,
+    long size);
+
+  /**
+   * Find a cached blob, fetching it with {@code fetcher} and adding it to
+   * the cache if it is not present.
+   *
+   * @param hashAlgorithm The hash algorithm
+   * @param hashValue     The hash value
+   * @param size          The expected size of the blob
+   * @param fetcher       The function used to fetch the blob on a miss
+   *
+   * @return The open blob
+   *
+   * @throws Exception If the blob cannot be fetched, or the fetched content
+   *                   does not match the hash
+   */
+
+  CAGBlobType get(
+    String hashAlgorithm,
+    String hashValue,
+    long size,
+    CAGBlobFetcherType fetcher)
+    throws Exception;
+
+  /**
+   * @return The maximum total size of cached blobs; larger blobs are
+   * never cached
+   */
+
+  long maximumBytes();
+
+  /**
+   * @return The cache statistics
+   */
+
+  AttributeReadableType<CAGCacheStatistics> statistics();
+}
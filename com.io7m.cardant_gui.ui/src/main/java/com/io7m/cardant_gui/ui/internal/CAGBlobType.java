@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.nio.file.Path;
+
+/**
+ * A blob handed out by the blob cache. The cache does not delete the file
+ * holding the blob while the blob is open, so the file can be read safely
+ * until the blob is closed. The file must not be used after the blob is
+ * closed.
+ */
+
+public interface CAGBlobType extends AutoCloseable
+{
+  /**
+   * @return The file holding the blob
+   */
+
+  Path file();
+
+  /**
+   * Release the blob, allowing the cache to evict it.
+   */
+
+  @Override
+  void close();
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+/**
+ * Statistics for a cache.
+ *
+ * @param hits      The number of lookups that found a value
+ * @param misses    The number of lookups that did not find a value
+ * @param evictions The number of values evicted to stay within capacity
+ * @param size      The number of values currently cached
+ * @param bytes     The estimated number of bytes occupied by cached values,
+ *                  or zero if the cache does not track sizes
+ */
+
+public record CAGCacheStatistics(
+  long hits,
+  long misses,
+  long evictions,
+  long size,
+  long bytes)
+{
+  private static final CAGCacheStatistics ZERO =
+    new CAGCacheStatistics(0L, 0L, 0L, 0L, 0L);
+
+  /**
+   * @return The zero statistics
+   */
+
+  public static CAGCacheStatistics zero()
+  {
+    return ZERO;
+  }
+
+  /**
+   * @return The fraction of lookups that found a value
+   */
+
+  public double hitRatio()
+  {
+    final var total = this.hits + this.misses;
+    if (total == 0L) {
+      return 0.0;
+    }
+    return (double) this.hits / (double) total;
+  }
+}
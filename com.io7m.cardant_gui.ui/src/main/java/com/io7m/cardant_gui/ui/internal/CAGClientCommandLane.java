@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+
+/**
+ * A command lane. At most {@code parallelism} tasks run in a lane at any
+ * given time.
+ *
+ * In an ordered lane, tasks are started strictly in submission order and
+ * priorities are ignored. In an unordered lane, interactive tasks are
+ * started ahead of background tasks, unless the oldest background task has
+ * been waiting for longer than the starvation limit. A background task
+ * that has not yet started can be promoted to interactive priority.
+ */
+
+public final class CAGClientCommandLane
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGClientCommandLane.class);
+
+  private final CAGClientCommandLaneKind kind;
+  private final int parallelism;
+  private final boolean ordered;
+  private final long starvationLimitNanos;
+  private final Executor executor;
+  private final Queue<Task> queueInteractive;
+  private final Queue<Task> queueBackground;
+  private final AtomicInteger workers;
+  private final Object queuedLock;
+  private final AttributeType<Integer> queueDepth;
+  private int queued;
+
+  /**
+   * A task that has been submitted to a lane.
+   */
+
+  public interface SubmittedType
+  {
+    /**
+     * Raise the task to interactive priority. This has no effect if the
+     * task has already started, or if the lane is ordered.
+     */
+
+    void promote();
+  }
+
+  /**
+   * A queued task. A promoted task is queued twice; whichever entry is
+   * polled first starts the task, and the other entry is discarded.
+   */
+
+  private final class Task implements SubmittedType
+  {
+    private final long submitted;
+    private final Runnable runnable;
+    private final AtomicBoolean started;
+    private final AtomicBoolean promoted;
+
+    Task(
+      final long inSubmitted,
+      final Runnable inRunnable)
+    {
+      this.submitted = inSubmitted;
+      this.runnable = inRunnable;
+      this.started = new AtomicBoolean(false);
+      this.promoted = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void promote()
+    {
+      CAGClientCommandLane.this.promote(this);
+    }
+  }
+
+  /**
+   * Create a lane.
+   *
+   * @param attributes        The attribute factory
+   * @param inExecutor        The executor on which tasks run
+   * @param inKind            The lane kind
+   * @param inParallelism     The maximum number of concurrent tasks
+   * @param inOrdered         {@code true} if tasks start in submission order
+   * @param inStarvationLimit The longest time a background task waits
+   */
+
+  public CAGClientCommandLane(
+    final Attributes attributes,
+    final Executor inExecutor,
+    final CAGClientCommandLaneKind inKind,
+    final int inParallelism,
+    final boolean inOrdered,
+    final Duration inStarvationLimit)
+  {
+    Objects.requireNonNull(attributes, "attributes");
+
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.kind =
+      Objects.requireNonNull(inKind, "kind");
+    this.parallelism =
+      inParallelism;
+    this.ordered =
+      inOrdered;
+    this.starvationLimitNanos =
+      inStarvationLimit.toNanos();
+
+    this.queueInteractive =
+      new ConcurrentLinkedQueue<>();
+    this.queueBackground =
+      new ConcurrentLinkedQueue<>();
+    this.queuedLock =
+      new Object();
+    this.workers =
+      new AtomicInteger(0);
+    this.queueDepth =
+      attributes.withValue(Integer.valueOf(0));
+  }
+
+  /**
+   * @return The number of tasks waiting to start in this lane
+   */
+
+  public AttributeReadableType<Integer> queueDepth()
+  {
+    return this.queueDepth;
+  }
+
+  /**
+   * Submit a task to the lane.
+   *
+   * @param priority The task priority
+   * @param task     The task
+   *
+   * @return The submitted task
+   */
+
+  public SubmittedType submit(
+    final CAGClientCommandPriority priority,
+    final Runnable task)
+  {
+    Objects.requireNonNull(priority, "priority");
+    Objects.requireNonNull(task, "task");
+
+    final var entry = new Task(System.nanoTime(), task);
+    if (!this.ordered && priority == BACKGROUND) {
+      this.queueBackground.add(entry);
+    } else {
+      entry.promoted.set(true);
+      this.queueInteractive.add(entry);
+    }
+
+    this.queuedAdd(1);
+    this.startWorkerIfNecessary();
+    return entry;
+  }
+
+  private void queuedAdd(
+    final int delta)
+  {
+    /*
+     * Without the lock, a worker's decrement could be published before the
+     * increment of the submission that it ran, leaving the lane shown as
+     * busy after it has gone idle.
+     */
+
+    synchronized (this.queuedLock) {
+      this.queued += delta;
+      this.queueDepth.set(Integer.valueOf(this.queued));
+    }
+  }
+
+  private void promote(
+    final Task task)
+  {
+    if (this.ordered || task.started.get()) {
+      return;
+    }
+    if (!task.promoted.compareAndSet(false, true)) {
+      return;
+    }
+
+    LOG.debug("Lane {}: Promoted background task", this.kind);
+    this.queueInteractive.add(task);
+    this.startWorkerIfNecessary();
+  }
+
+  private void startWorkerIfNecessary()
+  {
+    while (true) {
+      final var running = this.workers.get();
+      if (running >= this.parallelism) {
+        return;
+      }
+      if (this.workers.compareAndSet(running, running + 1)) {
+        this.executor.execute(this::runWorker);
+        return;
+      }
+    }
+  }
+
+  private Task poll()
+  {
+    while (true) {
+      final var task = this.pollEntry();
+      if (task == null) {
+        return null;
+      }
+      if (task.started.compareAndSet(false, true)) {
+        return task;
+      }
+    }
+  }
+
+  private Task pollEntry()
+  {
+    final var oldestBackground = this.queueBackground.peek();
+    if (oldestBackground != null) {
+      final var waited = System.nanoTime() - oldestBackground.submitted;
+      if (waited >= this.starvationLimitNanos) {
+        final var task = this.queueBackground.poll();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+
+    final var task = this.queueInteractive.poll();
+    if (task != null) {
+      return task;
+    }
+    return this.queueBackground.poll();
+  }
+
+  private boolean isEmpty()
+  {
+    return this.queueInteractive.isEmpty() && this.queueBackground.isEmpty();
+  }
+
+  private void runWorker()
+  {
+    try {
+      while (true) {
+        final var task = this.poll();
+        if (task == null) {
+          return;
+        }
+
+        this.queuedAdd(-1);
+
+        try {
+          task.runnable.run();
+        } catch (final Exception e) {
+          LOG.error("Lane {}: Task raised exception: ", this.kind, e);
+        }
+      }
+    } finally {
+      this.workers.decrementAndGet();
+
+      /*
+       * A task might have been submitted after the queues were observed to
+       * be empty, but before the worker count was decremented.
+       */
+
+      if (!this.isEmpty()) {
+        this.startWorkerIfNecessary();
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGClientCommandLane %s %d]"
+      .formatted(this.kind, Integer.valueOf(this.parallelism));
+  }
+}
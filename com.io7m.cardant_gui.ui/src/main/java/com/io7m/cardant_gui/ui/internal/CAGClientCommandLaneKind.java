@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationGet;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationList;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandType;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageGetText;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageSearchBegin;
+
+import java.util.Objects;
+
+/**
+ * The command lanes used by the client service.
+ */
+
+public enum CAGClientCommandLaneKind
+{
+  /**
+   * The lane for read-only commands. Commands in this lane may execute
+   * concurrently with each other, and with the command in the
+   * {@link #WRITE} lane, over the single client held by the client
+   * service. The client has always been shared in this way: before the
+   * lanes existed, every command, upload, and download was sent from a
+   * virtual thread of its own. Each command is a separate request on the
+   * session, so a read is not ordered after a write that was submitted
+   * before it; a caller that must observe the effects of a write waits for
+   * the future of the write before submitting the read.
+   */
+
+  READ,
+
+  /**
+   * The lane for commands that modify the inventory. Commands in this lane
+   * execute one at a time, in submission order.
+   */
+
+  WRITE;
+
+  /**
+   * Determine the lane for the given command. Commands that are not
+   * known to be read-only are conservatively assigned to the
+   * {@link #WRITE} lane.
+   *
+   * Every command that moves through a search held on the server is
+   * read-only, and so is assigned to the {@link #READ} lane. The lane does
+   * not order the commands of a search; the commands that move through
+   * a single search are issued one at a time by {@link CAGSearchCursor}.
+   *
+   * @param command The command
+   *
+   * @return The lane
+   */
+
+  public static CAGClientCommandLaneKind forCommand(
+    final CAICommandType<?> command)
+  {
+    Objects.requireNonNull(command, "command");
+
+    return switch (command) {
+      case final CAICommandAuditSearchBegin c -> READ;
+      case final CAICommandAuditSearchNext c -> READ;
+      case final CAICommandAuditSearchPrevious c -> READ;
+      case final CAICommandFileSearchBegin c -> READ;
+      case final CAICommandFileSearchNext c -> READ;
+      case final CAICommandFileSearchPrevious c -> READ;
+      case final CAICommandItemGet c -> READ;
+      case final CAICommandItemSearchBegin c -> READ;
+      case final CAICommandItemSearchNext c -> READ;
+      case final CAICommandItemSearchPrevious c -> READ;
+      case final CAICommandLocationGet c -> READ;
+      case final CAICommandLocationList c -> READ;
+      case final CAICommandStockSearchBegin c -> READ;
+      case final CAICommandStockSearchNext c -> READ;
+      case final CAICommandStockSearchPrevious c -> READ;
+      case final CAICommandTypePackageGetText c -> READ;
+      case final CAICommandTypePackageSearchBegin c -> READ;
+      default -> WRITE;
+    };
+  }
+}
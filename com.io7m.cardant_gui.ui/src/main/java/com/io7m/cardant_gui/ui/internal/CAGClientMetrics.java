@@ -0,0 +1,230 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Per-operation latency, queue wait, in-flight and error metrics for the
+ * client service. Recording is lock-free; snapshots are published to an
+ * attribute at most once per publication interval so that a burst of
+ * commands does not flood observers. A publication that is skipped because
+ * it falls within the interval is made at the end of the interval, so the
+ * published snapshot never stays stale after a burst.
+ */
+
+public final class CAGClientMetrics
+{
+  private final ConcurrentHashMap<String, Operation> operations;
+  private final AttributeType<CAGClientMetricsSnapshot> snapshot;
+  private final long publishIntervalNanos;
+  private final AtomicLong publishedLast;
+  private final AtomicBoolean publishPending;
+
+  /**
+   * The metrics for a single kind of operation.
+   */
+
+  public static final class Operation
+  {
+    private final CAGLatencyHistogram latency;
+    private final CAGLatencyHistogram queueWait;
+    private final AtomicLong inFlight;
+    private final LongAdder succeeded;
+    private final LongAdder failed;
+
+    private Operation()
+    {
+      this.latency = new CAGLatencyHistogram();
+      this.queueWait = new CAGLatencyHistogram();
+      this.inFlight = new AtomicLong(0L);
+      this.succeeded = new LongAdder();
+      this.failed = new LongAdder();
+    }
+
+    /**
+     * Record that an operation that was submitted at {@code timeSubmitted}
+     * has started executing.
+     *
+     * @param timeSubmitted The submission time ({@link System#nanoTime()})
+     *
+     * @return The start time ({@link System#nanoTime()})
+     */
+
+    public long started(
+      final long timeSubmitted)
+    {
+      final var timeNow = System.nanoTime();
+      this.queueWait.recordNanos(timeNow - timeSubmitted);
+      this.inFlight.incrementAndGet();
+      return timeNow;
+    }
+
+    /**
+     * Record that an operation that started at {@code timeStarted} has
+     * finished.
+     *
+     * @param timeStarted The start time returned by {@link #started(long)}
+     * @param success     {@code true} if the operation succeeded
+     */
+
+    public void finished(
+      final long timeStarted,
+      final boolean success)
+    {
+      this.latency.recordNanos(System.nanoTime() - timeStarted);
+      this.inFlight.decrementAndGet();
+      if (success) {
+        this.succeeded.increment();
+      } else {
+        this.failed.increment();
+      }
+    }
+
+    private CAGClientOperationStatistics statistics()
+    {
+      return new CAGClientOperationStatistics(
+        this.inFlight.get(),
+        this.succeeded.sum(),
+        this.failed.sum(),
+        this.latency.snapshot(),
+        this.queueWait.snapshot()
+      );
+    }
+  }
+
+  /**
+   * Create client metrics.
+   *
+   * @param attributes      The attribute factory
+   * @param publishInterval The minimum interval between publications
+   */
+
+  public CAGClientMetrics(
+    final Attributes attributes,
+    final Duration publishInterval)
+  {
+    Objects.requireNonNull(attributes, "attributes");
+    Objects.requireNonNull(publishInterval, "publishInterval");
+
+    this.operations =
+      new ConcurrentHashMap<>();
+    this.snapshot =
+      attributes.withValue(CAGClientMetricsSnapshot.empty());
+    this.publishIntervalNanos =
+      publishInterval.toNanos();
+    this.publishedLast =
+      new AtomicLong(System.nanoTime() - this.publishIntervalNanos);
+    this.publishPending =
+      new AtomicBoolean(false);
+  }
+
+  /**
+   * @param name The operation name
+   *
+   * @return The metrics for the named operation
+   */
+
+  public Operation operation(
+    final String name)
+  {
+    return this.operations.computeIfAbsent(
+      Objects.requireNonNull(name, "name"),
+      k -> new Operation()
+    );
+  }
+
+  /**
+   * @return The most recently published snapshot
+   */
+
+  public AttributeReadableType<CAGClientMetricsSnapshot> snapshot()
+  {
+    return this.snapshot;
+  }
+
+  /**
+   * @return A snapshot of the current metrics
+   */
+
+  public CAGClientMetricsSnapshot snapshotNow()
+  {
+    final var results =
+      new TreeMap<String, CAGClientOperationStatistics>();
+    for (final var entry : this.operations.entrySet()) {
+      results.put(entry.getKey(), entry.getValue().statistics());
+    }
+    return new CAGClientMetricsSnapshot(results);
+  }
+
+  /**
+   * Publish a new snapshot if the publication interval has elapsed since
+   * the last publication. Otherwise, schedule a publication for the end of
+   * the interval.
+   */
+
+  public void publish()
+  {
+    final var timeNow = System.nanoTime();
+    final var timeLast = this.publishedLast.get();
+    final var elapsed = timeNow - timeLast;
+    if (elapsed < this.publishIntervalNanos) {
+      this.publishLater(this.publishIntervalNanos - elapsed);
+      return;
+    }
+    if (this.publishedLast.compareAndSet(timeLast, timeNow)) {
+      this.snapshot.set(this.snapshotNow());
+    } else {
+      this.publishLater(this.publishIntervalNanos);
+    }
+  }
+
+  private void publishLater(
+    final long delayNanos)
+  {
+    /*
+     * At most one trailing publication is pending at any one time; any
+     * number of skipped publications within an interval are covered by it.
+     */
+
+    if (!this.publishPending.compareAndSet(false, true)) {
+      return;
+    }
+
+    CompletableFuture.runAsync(
+      () -> {
+        this.publishPending.set(false);
+        this.publish();
+      },
+      CompletableFuture.delayedExecutor(delayNanos, NANOSECONDS)
+    );
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A snapshot of the client service metrics. Operations are keyed by the
+ * simple name of the command class (such as {@code CAICommandItemGet}), or
+ * by the name of the file operation ({@code fileUpload},
+ * {@code fileDownload}, {@code imageGet}).
+ *
+ * @param operations The statistics for each operation
+ */
+
+public record CAGClientMetricsSnapshot(
+  SortedMap<String, CAGClientOperationStatistics> operations)
+{
+  private static final CAGClientMetricsSnapshot EMPTY =
+    new CAGClientMetricsSnapshot(new TreeMap<>());
+
+  /**
+   * A snapshot of the client service metrics.
+   *
+   * @param operations The statistics for each operation
+   */
+
+  public CAGClientMetricsSnapshot
+  {
+    Objects.requireNonNull(operations, "operations");
+    operations = Collections.unmodifiableSortedMap(new TreeMap<>(operations));
+  }
+
+  /**
+   * @return An empty snapshot
+   */
+
+  public static CAGClientMetricsSnapshot empty()
+  {
+    return EMPTY;
+  }
+
+  /**
+   * Format the snapshot as a human-readable multi-line report, suitable for
+   * logging.
+   *
+   * @return The report
+   */
+
+  public String report()
+  {
+    final var text = new StringBuilder(128);
+    for (final Map.Entry<String, CAGClientOperationStatistics> entry :
+      this.operations.entrySet()) {
+      final var s = entry.getValue();
+      final var l = s.latency();
+      text.append(
+        "%-36s n=%d err=%.3f inflight=%d p50=%s p99=%s p999=%s wait.p99=%s%n"
+          .formatted(
+            entry.getKey(),
+            Long.valueOf(l.count()),
+            Double.valueOf(s.errorRate()),
+            Long.valueOf(s.inFlight()),
+            l.p50(),
+            l.p99(),
+            l.p999(),
+            s.queueWait().p99()
+          )
+      );
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.util.Objects;
+
+/**
+ * Statistics for a single kind of client operation.
+ *
+ * @param inFlight  The number of operations currently executing
+ * @param succeeded The number of operations that succeeded
+ * @param failed    The number of operations that failed
+ * @param latency   The time taken to execute operations
+ * @param queueWait The time operations spent waiting to be executed
+ */
+
+public record CAGClientOperationStatistics(
+  long inFlight,
+  long succeeded,
+  long failed,
+  CAGLatencySnapshot latency,
+  CAGLatencySnapshot queueWait)
+{
+  /**
+   * Statistics for a single kind of client operation.
+   *
+   * @param inFlight  The number of operations currently executing
+   * @param succeeded The number of operations that succeeded
+   * @param failed    The number of operations that failed
+   * @param latency   The time taken to execute operations
+   * @param queueWait The time operations spent waiting to be executed
+   */
+
+  public CAGClientOperationStatistics
+  {
+    Objects.requireNonNull(latency, "latency");
+    Objects.requireNonNull(queueWait, "queueWait");
+  }
+
+  /**
+   * @return The fraction of completed operations that failed
+   */
+
+  public double errorRate()
+  {
+    final var total = this.succeeded + this.failed;
+    if (total == 0L) {
+      return 0.0;
+    }
+    return (double) this.failed / (double) total;
+  }
+}
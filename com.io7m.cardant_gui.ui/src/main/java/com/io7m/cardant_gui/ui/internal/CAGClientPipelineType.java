@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+/**
+ * A pipeline of dependent commands. A pipeline occupies a single slot in
+ * the client's command dispatcher for its entire duration, so intermediate
+ * steps are never queued behind unrelated commands.
+ *
+ * @param <T> The type of values produced by the pipeline
+ */
+
+@FunctionalInterface
+public interface CAGClientPipelineType<T>
+{
+  /**
+   * Execute the pipeline.
+   *
+   * @param context The pipeline context
+   *
+   * @return The value produced by the pipeline
+   *
+   * @throws Exception On errors
+   */
+
+  T execute(CAGClientPipelineContextType context)
+    throws Exception;
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jaffirm.core.Preconditions;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The policy used to re-establish a session after the connection to the
+ * server is lost.
+ *
+ * @param initialDelay The delay before the first reconnection attempt
+ * @param maximumDelay The maximum delay between reconnection attempts; the
+ *                     delay doubles after each failed attempt
+ * @param giveUpAfter  The time after which reconnection is abandoned and
+ *                     the client is considered disconnected
+ */
+
+public record CAGClientReconnectPolicy(
+  Duration initialDelay,
+  Duration maximumDelay,
+  Duration giveUpAfter)
+{
+  /**
+   * The policy used to re-establish a session after the connection to the
+   * server is lost.
+   *
+   * @param initialDelay The delay before the first reconnection attempt
+   * @param maximumDelay The maximum delay between reconnection attempts; the
+   *                     delay doubles after each failed attempt
+   * @param giveUpAfter  The time after which reconnection is abandoned and
+   *                     the client is considered disconnected
+   */
+
+  public CAGClientReconnectPolicy
+  {
+    Objects.requireNonNull(initialDelay, "initialDelay");
+    Objects.requireNonNull(maximumDelay, "maximumDelay");
+    Objects.requireNonNull(giveUpAfter, "giveUpAfter");
+
+    Preconditions.checkPreconditionV(
+      !initialDelay.isNegative() && !initialDelay.isZero(),
+      "Initial delay %s must be positive",
+      initialDelay
+    );
+    Preconditions.checkPreconditionV(
+      maximumDelay.compareTo(initialDelay) >= 0,
+      "Maximum delay %s must be >= initial delay %s",
+      maximumDelay,
+      initialDelay
+    );
+  }
+
+  /**
+   * @return The default policy
+   */
+
+  public static CAGClientReconnectPolicy defaults()
+  {
+    return new CAGClientReconnectPolicy(
+      Duration.ofMillis(500L),
+      Duration.ofSeconds(8L),
+      Duration.ofMinutes(2L)
+    );
+  }
+
+  /**
+   * @param delay The current delay
+   *
+   * @return The delay to use after {@code delay}
+   */
+
+  public Duration nextDelay(
+    final Duration delay)
+  {
+    final var doubled = delay.multipliedBy(2L);
+    return doubled.compareTo(this.maximumDelay) > 0
+      ? this.maximumDelay
+      : doubled;
+  }
+}
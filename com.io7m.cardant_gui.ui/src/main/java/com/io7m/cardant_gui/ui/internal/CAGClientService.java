@@ -24,30 +24,45 @@ import com.io7m.cardant.client.api.CAClientTransferStatistics;
 import com.io7m.cardant.client.api.CAClientType;
 import com.io7m.cardant.client.basic.CAClients;
 import com.io7m.cardant.model.CAFileID;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationDelete;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationGet;
 import com.io7m.cardant.protocol.inventory.CAICommandType;
 import com.io7m.cardant.protocol.inventory.CAIResponseItemGet;
 import com.io7m.cardant.protocol.inventory.CAIResponseLocationGet;
 import com.io7m.cardant.protocol.inventory.CAIResponseType;
+import com.io7m.cardant_gui.ui.internal.CAGClientSingleFlight.Flight;
 import com.io7m.idstore.model.IdName;
 import com.io7m.jattribute.core.AttributeReadableType;
 import com.io7m.jattribute.core.AttributeType;
 import com.io7m.jattribute.core.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
 import javafx.scene.image.Image;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
 import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.CONNECTED;
 import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.CONNECTING;
 import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.NOT_CONNECTED;
@@ -57,6 +72,10 @@ import static com.io7m.cardant_gui.ui.internal.CAGStatusEvent.Kind.RUNNING;
 import static com.io7m.cardant_gui.ui.internal.CAGStatusEvent.Kind.RUNNING_LONG;
 import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_CONNECTED;
 import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_CONNECTING;
+import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_RECONNECTFAILED;
+import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_RECONNECTING;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  * The cardant client service.
@@ -68,40 +87,70 @@ public final class CAGClientService
   private static final Logger LOG =
     LoggerFactory.getLogger(CAGClientService.class);
 
+  private static final int IMAGE_CACHE_CAPACITY = 4096;
+
   private final AttributeType<CAGClientStatus> status;
   private final ExecutorService executor;
-  private final Semaphore commandSemaphore;
+  private final EnumMap<CAGClientCommandLaneKind, CAGClientCommandLane> lanes;
+  private final CAGClientSingleFlight singleFlight;
+  private final EnumMap<CAGClientCommandPriority, CAGLatencyHistogram> latency;
+  private final CAGClientMetrics metrics;
+  private final CAGClientTimeouts timeouts;
+  private final Tracer tracer;
+
+  /*
+   * The client is shared by both command lanes and by file transfers, and
+   * so is used from several threads at once. See CAGClientCommandLaneKind.
+   */
+
   private final CAClientType client;
   private final CAGStatusService statusService;
   private final CAGEventServiceType events;
   private final CAGStringsType strings;
+  private final CAGBlobCacheServiceType blobs;
   private final Semaphore transferSemaphore;
   private final Semaphore imageSemaphore;
+  private final CAGLRUCache<ImageKey, Image> images;
+  private final CAGClientSessionSupervisor session;
 
   /**
    * The cardant client service.
    *
+   * @param inConfiguration The configuration
+   * @param inTracer        The tracer
    * @param inStatusService The status service
    * @param inEvents        The event service
    * @param inStrings       The strings
+   * @param inBlobs         The blob cache
    */
 
   public CAGClientService(
+    final CAGClientServiceConfiguration inConfiguration,
+    final Tracer inTracer,
     final CAGStatusService inStatusService,
     final CAGEventServiceType inEvents,
-    final CAGStringsType inStrings)
+    final CAGStringsType inStrings,
+    final CAGBlobCacheServiceType inBlobs)
     throws CAClientException
   {
+    this.tracer =
+      Objects.requireNonNull(inTracer, "tracer");
     this.statusService =
       Objects.requireNonNull(inStatusService, "statusService");
     this.events =
       Objects.requireNonNull(inEvents, "inEvents");
     this.strings =
       Objects.requireNonNull(inStrings, "inStrings");
+    this.blobs =
+      Objects.requireNonNull(inBlobs, "inBlobs");
+
+    Objects.requireNonNull(inConfiguration, "configuration");
+
+    final var attributes =
+      Attributes.create(throwable -> LOG.error("Exception: ", throwable));
 
     this.status =
-      Attributes.create(throwable -> LOG.error("Exception: ", throwable))
-        .withValue(NOT_CONNECTED);
+      attributes.withValue(NOT_CONNECTED);
 
     this.executor =
       Executors.newThreadPerTaskExecutor(
@@ -110,12 +159,60 @@ public final class CAGClientService
           .factory()
       );
 
-    this.commandSemaphore =
-      new Semaphore(1);
+    this.lanes =
+      new EnumMap<>(CAGClientCommandLaneKind.class);
+    this.lanes.put(
+      CAGClientCommandLaneKind.READ,
+      new CAGClientCommandLane(
+        attributes,
+        this.executor,
+        CAGClientCommandLaneKind.READ,
+        inConfiguration.readParallelism(),
+        false,
+        inConfiguration.backgroundStarvationLimit()
+      )
+    );
+    this.lanes.put(
+      CAGClientCommandLaneKind.WRITE,
+      new CAGClientCommandLane(
+        attributes,
+        this.executor,
+        CAGClientCommandLaneKind.WRITE,
+        1,
+        true,
+        inConfiguration.backgroundStarvationLimit()
+      )
+    );
+
+    this.singleFlight =
+      new CAGClientSingleFlight(attributes);
+
+    this.latency =
+      new EnumMap<>(CAGClientCommandPriority.class);
+    for (final var priority : CAGClientCommandPriority.values()) {
+      this.latency.put(priority, new CAGLatencyHistogram());
+    }
+
+    this.metrics =
+      new CAGClientMetrics(
+        attributes,
+        inConfiguration.metricsPublishInterval()
+      );
+
+    this.timeouts =
+      new CAGClientTimeouts(Duration.ofSeconds(30L));
+
     this.transferSemaphore =
       new Semaphore(1);
     this.imageSemaphore =
       new Semaphore(1);
+    this.images =
+      new CAGLRUCache<>(
+        attributes,
+        IMAGE_CACHE_CAPACITY,
+        inConfiguration.imageCacheMaximumBytes(),
+        CAGClientService::imageWeight
+      );
 
     this.client =
       new CAClients()
@@ -123,6 +220,17 @@ public final class CAGClientService
           Locale.getDefault(),
           Clock.systemUTC()
         ));
+
+    this.session =
+      new CAGClientSessionSupervisor(
+        this.status,
+        this.executor,
+        inConfiguration.reconnectPolicy(),
+        server -> this.client.connectOrThrow(connectionParameters(server)),
+        Thread::sleep,
+        System::nanoTime,
+        new SessionListener(this.statusService, this.strings)
+      );
   }
 
   @Override
@@ -131,6 +239,51 @@ public final class CAGClientService
     return this.status;
   }
 
+  @Override
+  public Optional<CAGServerBookmark> sessionServer()
+  {
+    return this.session.server();
+  }
+
+  @Override
+  public AttributeReadableType<Integer> commandQueueDepth(
+    final CAGClientCommandLaneKind lane)
+  {
+    return this.lanes.get(Objects.requireNonNull(lane, "lane")).queueDepth();
+  }
+
+  @Override
+  public AttributeReadableType<CAGClientSingleFlightStatistics> singleFlightStatistics()
+  {
+    return this.singleFlight.statistics();
+  }
+
+  @Override
+  public CAGLatencySnapshot commandLatency(
+    final CAGClientCommandPriority priority)
+  {
+    return this.latency.get(Objects.requireNonNull(priority, "priority"))
+      .snapshot();
+  }
+
+  @Override
+  public AttributeReadableType<CAGClientMetricsSnapshot> metrics()
+  {
+    return this.metrics.snapshot();
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> imageCacheStatistics()
+  {
+    return this.images.statistics();
+  }
+
+  @Override
+  public CAGClientMetricsSnapshot metricsNow()
+  {
+    return this.metrics.snapshotNow();
+  }
+
   @Override
   public String toString()
   {
@@ -146,48 +299,25 @@ public final class CAGClientService
 
   @Override
   public void login(
-    final String host,
-    final int port,
-    final boolean https,
-    final String username,
-    final String password)
+    final CAGServerBookmark server)
   {
-    LOG.debug("Login: {}", host);
+    Objects.requireNonNull(server, "server");
 
-    Objects.requireNonNull(host, "host");
-    Objects.requireNonNull(username, "username");
-    Objects.requireNonNull(password, "password");
+    final var host = server.host();
+    LOG.debug("Login: {}", host);
 
-    this.executor.execute(() -> {
-      try {
-        this.commandSemaphore.acquire();
-      } catch (final InterruptedException e) {
-        Thread.currentThread().interrupt();
-        return;
-      }
+    this.lanes.get(CAGClientCommandLaneKind.WRITE).submit(INTERACTIVE, () -> {
+      final List<Runnable> held = this.session.loginBegin();
 
       try {
-        final var connectUsername =
-          new IdName(username);
-
         this.status.set(CONNECTING);
         this.statusService.publish(
           RUNNING_LONG,
           this.strings.format(CARDANT_LOGIN_CONNECTING, host)
         );
 
-        this.client.connectOrThrow(
-          new CAClientConnectionParameters(
-            host,
-            port,
-            https,
-            connectUsername,
-            password,
-            Map.of(),
-            Duration.ofSeconds(10L),
-            Duration.ofSeconds(10L)
-          )
-        );
+        this.timeouts.reset(server.commandTimeout());
+        this.session.loginConnect(server);
 
         this.status.set(CONNECTED);
         this.statusService.publish(
@@ -199,65 +329,335 @@ public final class CAGClientService
         LOG.debug("Login: Exception: ", e);
         this.status.set(NOT_CONNECTED);
         this.statusService.publish(ERROR, e.getMessage());
-      } finally {
-        this.commandSemaphore.release();
       }
+
+      /*
+       * Commands held by an abandoned session recovery are replayed
+       * against whatever session the login produced; if it failed, they
+       * will fail normally.
+       */
+
+      held.forEach(Runnable::run);
     });
   }
 
   @Override
   public <R extends CAIResponseType> CompletableFuture<R> execute(
-    final CAICommandType<R> command)
+    final CAICommandType<R> command,
+    final CAGClientCommandPriority priority)
   {
     Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(priority, "priority");
+
+    if (CAGClientSingleFlight.isDeduplicable(command)) {
+      return this.singleFlight.execute(
+        command,
+        priority,
+        c -> this.executeNow(c, priority)
+      );
+    }
+    return this.executeNow(command, priority).future();
+  }
 
+  private <R extends CAIResponseType> Flight<R> executeNow(
+    final CAICommandType<R> command,
+    final CAGClientCommandPriority priority)
+  {
     final var future = new CompletableFuture<R>();
-    LOG.debug("Execute: {}", command);
+    final var lane = CAGClientCommandLaneKind.forCommand(command);
+    final var latencyHistogram = this.latency.get(priority);
+    final var timeSubmitted = System.nanoTime();
+    LOG.debug("Execute: [{} {}] {}", lane, priority, command);
 
-    this.executor.execute(() -> {
-      try {
-        this.commandSemaphore.acquire();
-      } catch (final InterruptedException e) {
-        Thread.currentThread().interrupt();
-        future.cancel(true);
+    final var span =
+      this.tracer.spanBuilder(command.getClass().getSimpleName())
+        .setSpanKind(SpanKind.CLIENT)
+        .setAttribute("cardant.command.lane", lane.name())
+        .setAttribute("cardant.command.priority", priority.name())
+        .startSpan();
+
+    future.whenComplete((r, e) -> {
+      if (future.isCancelled()) {
+        span.setAttribute("cardant.command.cancelled", true);
+      } else {
+        latencyHistogram.recordNanos(System.nanoTime() - timeSubmitted);
+      }
+      span.end();
+    });
+
+    final var submitted =
+      this.lanes.get(lane).submit(priority, new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          CAGClientService.this.executeTask(
+            command, priority, lane, future, span, timeSubmitted, this);
+        }
+      });
+
+    return new Flight<>(future, () -> {
+      span.addEvent("Promoted");
+      submitted.promote();
+    });
+  }
+
+  private <R extends CAIResponseType> void executeTask(
+    final CAICommandType<R> command,
+    final CAGClientCommandPriority priority,
+    final CAGClientCommandLaneKind lane,
+    final CompletableFuture<R> future,
+    final Span span,
+    final long timeSubmitted,
+    final Runnable task)
+  {
+    /*
+     * The command might have been superseded while it was queued; if so,
+     * it never needs to reach the server.
+     */
+
+    if (future.isCancelled()) {
+      LOG.debug("Execute: Dropping cancelled command {}", command);
+      return;
+    }
+
+    /*
+     * If the session is being recovered, the command has not yet been
+     * sent, and so it can be held and replayed safely regardless of
+     * whether it is idempotent.
+     */
+
+    final Runnable retry = () -> this.lanes.get(lane).submit(priority, task);
+    if (this.session.holdIfReconnecting(retry)) {
+      span.addEvent("Held");
+      return;
+    }
+
+    span.addEvent("Dequeued");
+
+    /*
+     * The future is completed with the span current so that any
+     * continuations (such as the handoff to the FX thread) are recorded
+     * as children of the command.
+     */
+
+    try (var ignored = span.makeCurrent()) {
+      this.statusService.publish(RUNNING, "Executing command…");
+      future.complete(this.send(command, timeSubmitted));
+      this.statusService.publish(IDLE, "Executed command.");
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+    } catch (final Exception e) {
+      LOG.debug("Execute: Exception: ", e);
+
+      /*
+       * A command that failed because the connection was lost might or
+       * might not have reached the server. Only read-only commands can be
+       * replayed without risk of applying them twice.
+       */
+
+      if (isConnectionLost(e)
+          && lane == CAGClientCommandLaneKind.READ
+          && this.session.holdIfReconnecting(retry)) {
+        span.addEvent("Held");
         return;
       }
 
-      try {
-        this.statusService.publish(RUNNING, "Executing command…");
+      recordSpanException(span, e);
+      this.statusService.publish(ERROR, e.getMessage());
+      future.completeExceptionally(e);
+    }
+  }
+
+  private <R extends CAIResponseType> R send(
+    final CAICommandType<R> command,
+    final long timeSubmitted)
+    throws Exception
+  {
+    final var operation =
+      this.metrics.operation(command.getClass().getSimpleName());
+    final var timeStarted =
+      operation.started(timeSubmitted);
 
-        final var response =
-          this.client.sendAndWaitOrThrow(command, Duration.ofSeconds(30L));
+    final var commandClass =
+      command.getClass();
+    final var timeout =
+      this.timeouts.timeoutFor(commandClass);
 
-        switch (response) {
-          case final CAIResponseItemGet r -> {
-            this.events.publish(new CAGEventItemUpdated(r.data()));
-          }
-          case final CAIResponseLocationGet r -> {
-            this.events.publish(new CAGEventLocationUpdated(r.data()));
-          }
-          default -> {
-            // Nothing specific!
-          }
-        }
+    final R response;
+    try {
+      response = this.client.sendAndWaitOrThrow(command, timeout);
+      this.timeouts.record(
+        commandClass,
+        Duration.ofNanos(System.nanoTime() - timeStarted)
+      );
+      operation.finished(timeStarted, true);
+    } catch (final Exception e) {
+      final var elapsed = Duration.ofNanos(System.nanoTime() - timeStarted);
+      if (elapsed.compareTo(timeout) >= 0) {
+        LOG.debug("Send: {} timed out after {}", commandClass, timeout);
+        this.timeouts.record(commandClass, elapsed);
+      }
+      operation.finished(timeStarted, false);
+      if (isConnectionLost(e)) {
+        this.session.onConnectionLost();
+      }
+      throw e;
+    } finally {
+      this.metrics.publish();
+    }
 
-        future.complete(response);
-        this.statusService.publish(IDLE, "Executed command.");
-      } catch (final InterruptedException e) {
-        Thread.currentThread().interrupt();
-        future.cancel(true);
-      } catch (final Exception e) {
-        LOG.debug("Execute: Exception: ", e);
-        this.statusService.publish(ERROR, e.getMessage());
-        future.completeExceptionally(e);
-      } finally {
-        this.commandSemaphore.release();
+    switch (response) {
+      case final CAIResponseItemGet r -> {
+        this.events.publish(new CAGEventItemUpdated(
+          r.data(),
+          !(command instanceof CAICommandItemGet)
+        ));
+      }
+      case final CAIResponseLocationGet r -> {
+        this.events.publish(new CAGEventLocationUpdated(
+          r.data(),
+          !(command instanceof CAICommandLocationGet)
+        ));
+      }
+      default -> {
+        // Nothing specific!
+      }
+    }
+
+    if (command instanceof final CAICommandLocationDelete c) {
+      this.events.publish(new CAGEventLocationDeleted(c.location()));
+    }
+    return response;
+  }
+
+  private static CAClientConnectionParameters connectionParameters(
+    final CAGServerBookmark server)
+  {
+    return new CAClientConnectionParameters(
+      server.host(),
+      server.port(),
+      server.isHTTPs(),
+      new IdName(server.username()),
+      server.password(),
+      Map.of(),
+      server.loginTimeout(),
+      server.commandTimeout()
+    );
+  }
+
+  private static boolean isConnectionLost(
+    final Throwable e)
+  {
+    var cause = e;
+    while (cause != null) {
+      if (cause instanceof IOException) {
+        return true;
+      }
+      cause = cause.getCause();
+    }
+    return false;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> executePipeline(
+    final CAGClientPipelineType<T> pipeline)
+  {
+    Objects.requireNonNull(pipeline, "pipeline");
+
+    final var future = new CompletableFuture<T>();
+    final var timeSubmitted = System.nanoTime();
+    LOG.debug("Pipeline: {}", pipeline);
+
+    final var span =
+      this.tracer.spanBuilder("Pipeline")
+        .startSpan();
+
+    future.whenComplete((r, e) -> span.end());
+
+    final var lane = this.lanes.get(CAGClientCommandLaneKind.WRITE);
+    lane.submit(INTERACTIVE, new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        CAGClientService.this.executePipelineTask(
+          pipeline, future, span, timeSubmitted, this);
       }
     });
 
     return future;
   }
 
+  private <T> void executePipelineTask(
+    final CAGClientPipelineType<T> pipeline,
+    final CompletableFuture<T> future,
+    final Span span,
+    final long timeSubmitted,
+    final Runnable task)
+  {
+    if (future.isCancelled()) {
+      LOG.debug("Pipeline: Dropping cancelled pipeline {}", pipeline);
+      return;
+    }
+
+    final var lane = this.lanes.get(CAGClientCommandLaneKind.WRITE);
+    if (this.session.holdIfReconnecting(() -> lane.submit(INTERACTIVE, task))) {
+      span.addEvent("Held");
+      return;
+    }
+
+    span.addEvent("Dequeued");
+
+    try (var ignored = span.makeCurrent()) {
+      this.statusService.publish(RUNNING, "Executing commands…");
+      future.complete(
+        pipeline.execute(new CAGClientPipelineContextType()
+        {
+          private long timeReady = timeSubmitted;
+
+          @Override
+          public <R extends CAIResponseType> R execute(
+            final CAICommandType<R> command)
+            throws Exception
+          {
+            /*
+             * Only the first command in a pipeline waits in the queue;
+             * each subsequent command is ready as soon as the previous
+             * command completes.
+             */
+
+            final var step =
+              CAGClientService.this.tracer.spanBuilder(
+                  command.getClass().getSimpleName())
+                .setSpanKind(SpanKind.CLIENT)
+                .startSpan();
+
+            try (var ignored = step.makeCurrent()) {
+              return CAGClientService.this.send(command, this.timeReady);
+            } catch (final Exception e) {
+              recordSpanException(step, e);
+              throw e;
+            } finally {
+              step.end();
+              this.timeReady = System.nanoTime();
+            }
+          }
+        })
+      );
+      this.statusService.publish(IDLE, "Executed commands.");
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+    } catch (final Exception e) {
+      LOG.debug("Pipeline: Exception: ", e);
+      recordSpanException(span, e);
+      this.statusService.publish(ERROR, e.getMessage());
+      future.completeExceptionally(e);
+    }
+  }
+
   @Override
   public CompletableFuture<Void> fileUpload(
     final CAFileID fileID,
@@ -267,28 +667,45 @@ public final class CAGClientService
     final Consumer<CAClientTransferStatistics> statistics)
   {
     final var future = new CompletableFuture<Void>();
+    final var operation = this.metrics.operation("fileUpload");
+    final var timeSubmitted = System.nanoTime();
+    final var span =
+      this.tracer.spanBuilder("fileUpload")
+        .setSpanKind(SpanKind.CLIENT)
+        .setAttribute("cardant.file.id", fileID.id().toString())
+        .startSpan();
 
     this.executor.execute(() -> {
       try {
         this.transferSemaphore.acquire();
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
+        span.end();
         future.cancel(true);
         return;
       }
 
-      try {
+      final var timeStarted = operation.started(timeSubmitted);
+      var success = false;
+      span.addEvent("Dequeued");
+
+      try (var ignored = span.makeCurrent()) {
         this.client.fileUpload(
           fileID, file, contentType, description, statistics
         );
         future.complete(null);
+        success = true;
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
         future.cancel(true);
       } catch (final Exception e) {
+        recordSpanException(span, e);
         this.statusService.publish(ERROR, e.getMessage());
         future.completeExceptionally(e);
       } finally {
+        operation.finished(timeStarted, success);
+        this.metrics.publish();
+        span.end();
         this.transferSemaphore.release();
       }
     });
@@ -307,18 +724,31 @@ public final class CAGClientService
     final Consumer<CAClientTransferStatistics> statistics)
   {
     final var future = new CompletableFuture<Void>();
+    final var operation = this.metrics.operation("fileDownload");
+    final var timeSubmitted = System.nanoTime();
+    final var span =
+      this.tracer.spanBuilder("fileDownload")
+        .setSpanKind(SpanKind.CLIENT)
+        .setAttribute("cardant.file.id", fileID.id().toString())
+        .startSpan();
 
     this.executor.execute(() -> {
       try {
         this.transferSemaphore.acquire();
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
+        span.end();
         future.cancel(true);
         return;
       }
 
-      try {
-        this.client.fileDownload(
+      final var timeStarted = operation.started(timeSubmitted);
+      var success = false;
+      span.addEvent("Dequeued");
+
+      try (var ignored = span.makeCurrent()) {
+        this.fileDownloadViaBlobs(
+          span,
           fileID,
           file,
           fileTmp,
@@ -328,13 +758,18 @@ public final class CAGClientService
           statistics
         );
         future.complete(null);
+        success = true;
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
         future.cancel(true);
       } catch (final Exception e) {
+        recordSpanException(span, e);
         this.statusService.publish(ERROR, e.getMessage());
         future.completeExceptionally(e);
       } finally {
+        operation.finished(timeStarted, success);
+        this.metrics.publish();
+        span.end();
         this.transferSemaphore.release();
       }
     });
@@ -342,61 +777,291 @@ public final class CAGClientService
     return future;
   }
 
-  @Override
-  public CompletableFuture<Image> imageGet(
+  /**
+   * Download a file through the blob cache. Content that is already cached
+   * is copied out of the cache without any network traffic. Files too
+   * large for the cache are downloaded directly to their destination.
+   */
+
+  private void fileDownloadViaBlobs(
+    final Span span,
     final CAFileID fileID,
     final Path file,
     final Path fileTmp,
     final long size,
     final String hashAlgorithm,
     final String hashValue,
+    final Consumer<CAClientTransferStatistics> statistics)
+    throws Exception
+  {
+    if (size > this.blobs.maximumBytes()) {
+      span.setAttribute("cardant.blob.cached", false);
+      this.client.fileDownload(
+        fileID,
+        file,
+        fileTmp,
+        size,
+        hashAlgorithm,
+        hashValue,
+        statistics
+      );
+      return;
+    }
+
+    final var blob =
+      this.blobs.get(hashAlgorithm, hashValue, size, (output, tmp) -> {
+        span.addEvent("Cache miss");
+        this.client.fileDownload(
+          fileID,
+          output,
+          tmp,
+          size,
+          hashAlgorithm,
+          hashValue,
+          statistics
+        );
+      });
+
+    span.setAttribute("cardant.blob.cached", true);
+    try (blob) {
+      blobCopyOut(blob.file(), file, fileTmp);
+    }
+  }
+
+  /**
+   * Copy a blob to its destination. The copy is made next to the
+   * destination and then renamed, so a partially written destination is
+   * never visible. Files.copy uses the platform's copy offload where it
+   * exists (copy_file_range on Linux, clonefile on macOS), which shares
+   * extents instead of copying bytes on filesystems that support reflinks.
+   * Hard links are deliberately not used: a user editing the downloaded
+   * file in place would silently modify the cached blob.
+   */
+
+  private static void blobCopyOut(
+    final Path blob,
+    final Path file,
+    final Path fileTmp)
+    throws IOException
+  {
+    Files.copy(blob, fileTmp, REPLACE_EXISTING);
+    try {
+      Files.move(fileTmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(fileTmp, file, REPLACE_EXISTING);
+    }
+  }
+
+  @Override
+  public CompletableFuture<Image> imageGet(
+    final CAFileID fileID,
+    final long size,
+    final String hashAlgorithm,
+    final String hashValue,
     final int width,
     final int height)
   {
+    final var key =
+      new ImageKey(hashAlgorithm, hashValue, width, height);
+    final var existing =
+      this.images.get(key);
+
+    if (existing.isPresent()) {
+      return CompletableFuture.completedFuture(existing.get());
+    }
+
     final var future = new CompletableFuture<Image>();
+    final var operation = this.metrics.operation("imageGet");
+    final var timeSubmitted = System.nanoTime();
+    final var span =
+      this.tracer.spanBuilder("imageGet")
+        .setSpanKind(SpanKind.CLIENT)
+        .setAttribute("cardant.file.id", fileID.id().toString())
+        .startSpan();
 
     this.executor.execute(() -> {
       try {
         this.imageSemaphore.acquire();
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
+        span.end();
         future.cancel(true);
         return;
       }
 
-      try {
-        this.client.fileDownload(
-          fileID,
-          file,
-          fileTmp,
-          size,
-          hashAlgorithm,
-          hashValue,
-          statistics -> {
-            // Ignored
-          }
-        );
+      final var timeStarted = operation.started(timeSubmitted);
+      var success = false;
+      span.addEvent("Dequeued");
 
-        future.complete(
-          new Image(
-            file.toUri().toString(),
-            (double) width,
-            (double) height,
-            false,
-            true,
-            true)
-        );
+      try (var ignored = span.makeCurrent()) {
+        final var blob =
+          this.blobs.get(hashAlgorithm, hashValue, size, (output, tmp) -> {
+            span.addEvent("Cache miss");
+            this.client.fileDownload(
+              fileID,
+              output,
+              tmp,
+              size,
+              hashAlgorithm,
+              hashValue,
+              statistics -> {
+                // Ignored
+              }
+            );
+          });
+
+        final Image image;
+        try (blob) {
+          image = imageOf(blob.file(), width, height);
+        }
+        this.imageCache(key, image);
+        future.complete(image);
+        success = true;
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
         future.cancel(true);
       } catch (final Exception e) {
+        recordSpanException(span, e);
         this.statusService.publish(ERROR, e.getMessage());
         future.completeExceptionally(e);
       } finally {
+        operation.finished(timeStarted, success);
+        this.metrics.publish();
+        span.end();
         this.imageSemaphore.release();
       }
     });
 
     return future;
   }
+
+  /**
+   * The key of a decoded image. The same content decoded at different
+   * sizes yields different images.
+   */
+
+  private record ImageKey(
+    String hashAlgorithm,
+    String hashValue,
+    int width,
+    int height)
+  {
+
+  }
+
+  /**
+   * Publishes the progress of session recovery to the status bar.
+   */
+
+  private static final class SessionListener
+    implements CAGClientSessionSupervisor.ListenerType
+  {
+    private final CAGStatusService statusService;
+    private final CAGStringsType strings;
+
+    SessionListener(
+      final CAGStatusService inStatusService,
+      final CAGStringsType inStrings)
+    {
+      this.statusService =
+        Objects.requireNonNull(inStatusService, "statusService");
+      this.strings =
+        Objects.requireNonNull(inStrings, "strings");
+    }
+
+    @Override
+    public void onReconnectAttempt(
+      final CAGServerBookmark server,
+      final int attempt)
+    {
+      this.statusService.publish(
+        RUNNING_LONG,
+        this.strings.format(
+          CARDANT_LOGIN_RECONNECTING, server.host(), Integer.valueOf(attempt))
+      );
+    }
+
+    @Override
+    public void onReconnected(
+      final CAGServerBookmark server)
+    {
+      this.statusService.publish(
+        IDLE,
+        this.strings.format(CARDANT_LOGIN_CONNECTED, server.host())
+      );
+    }
+
+    @Override
+    public void onReconnectFailed(
+      final CAGServerBookmark server)
+    {
+      this.statusService.publish(
+        ERROR,
+        this.strings.format(CARDANT_LOGIN_RECONNECTFAILED, server.host())
+      );
+    }
+  }
+
+  /**
+   * Estimate the memory used by a decoded image. The estimate is based on
+   * the requested size (which never changes) at four bytes per pixel.
+   */
+
+  private static long imageWeight(
+    final Image image)
+  {
+    final var w = Math.max(1L, (long) image.getRequestedWidth());
+    final var h = Math.max(1L, (long) image.getRequestedHeight());
+    return w * h * 4L;
+  }
+
+  private void imageCache(
+    final ImageKey key,
+    final Image image)
+  {
+    this.images.put(key, image);
+
+    /*
+     * Images that fail to decode must not be served from the cache.
+     */
+
+    image.errorProperty().addListener((observable, oldValue, newValue) -> {
+      if (newValue.booleanValue()) {
+        this.images.remove(key);
+      }
+    });
+    if (image.isError()) {
+      this.images.remove(key);
+    }
+  }
+
+  /**
+   * Decode an image. The image is decoded synchronously on the calling
+   * thread, because the blob holding it may be evicted from the cache as
+   * soon as it is closed; an image loaded in the background would read
+   * the file at some later time.
+   */
+
+  private static Image imageOf(
+    final Path file,
+    final int width,
+    final int height)
+  {
+    return new Image(
+      file.toUri().toString(),
+      (double) width,
+      (double) height,
+      false,
+      true,
+      false
+    );
+  }
+
+  private static void recordSpanException(
+    final Span span,
+    final Exception e)
+  {
+    span.recordException(e);
+    span.setStatus(StatusCode.ERROR, String.valueOf(e.getMessage()));
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jaffirm.core.Preconditions;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The client service configuration.
+ *
+ * @param readParallelism           The maximum number of read-only commands
+ *                                  that may execute concurrently
+ * @param backgroundStarvationLimit The maximum time a background command
+ *                                  will wait behind interactive commands
+ * @param metricsPublishInterval    The minimum interval between published
+ *                                  metrics snapshots
+ * @param reconnectPolicy           The policy used to recover lost sessions
+ * @param imageCacheMaximumBytes    The maximum estimated size of the decoded
+ *                                  images held in memory
+ */
+
+public record CAGClientServiceConfiguration(
+  int readParallelism,
+  Duration backgroundStarvationLimit,
+  Duration metricsPublishInterval,
+  CAGClientReconnectPolicy reconnectPolicy,
+  long imageCacheMaximumBytes)
+{
+  /**
+   * The client service configuration.
+   *
+   * @param readParallelism           The maximum number of read-only commands
+   *                                  that may execute concurrently
+   * @param backgroundStarvationLimit The maximum time a background command
+   *                                  will wait behind interactive commands
+   * @param metricsPublishInterval    The minimum interval between published
+   *                                  metrics snapshots
+   * @param reconnectPolicy           The policy used to recover lost sessions
+   * @param imageCacheMaximumBytes    The maximum estimated size of the decoded
+   *                                  images held in memory
+   */
+
+  public CAGClientServiceConfiguration
+  {
+    Preconditions.checkPreconditionV(
+      readParallelism >= 1,
+      "Read parallelism %d must be positive",
+      Integer.valueOf(readParallelism)
+    );
+
+    Objects.requireNonNull(
+      backgroundStarvationLimit, "backgroundStarvationLimit");
+    Objects.requireNonNull(
+      metricsPublishInterval, "metricsPublishInterval");
+    Objects.requireNonNull(
+      reconnectPolicy, "reconnectPolicy");
+
+    Preconditions.checkPreconditionV(
+      imageCacheMaximumBytes >= 1L,
+      "Image cache size %d must be positive",
+      Long.valueOf(imageCacheMaximumBytes)
+    );
+  }
+
+  /**
+   * @return The default configuration
+   */
+
+  public static CAGClientServiceConfiguration defaults()
+  {
+    return new CAGClientServiceConfiguration(
+      4,
+      Duration.ofSeconds(2L),
+      Duration.ofSeconds(1L),
+      CAGClientReconnectPolicy.defaults(),
+      64L * 1024L * 1024L
+    );
+  }
+}
@@ -26,6 +26,9 @@ import com.io7m.repetoir.core.RPServiceType;
 import javafx.scene.image.Image;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -42,33 +45,148 @@ public interface CAGClientServiceType extends RPServiceType
   AttributeReadableType<CAGClientStatus> status();
 
   /**
-   * Asynchronously log in.
+   * @return The server to which the client is logged in, if any
+   */
+
+  Optional<CAGServerBookmark> sessionServer();
+
+  /**
+   * Execute a pipeline of dependent commands. The pipeline runs in the
+   * ordered command lane and occupies a single dispatcher slot for its
+   * entire duration.
+   *
+   * @param pipeline The pipeline
+   * @param <T>      The type of values produced by the pipeline
+   *
+   * @return A future representing the operation in progress
+   */
+
+  <T> CompletableFuture<T> executePipeline(
+    CAGClientPipelineType<T> pipeline);
+
+  /**
+   * Execute a sequence of commands in a single pipeline. If a command
+   * fails, the commands that follow it are not executed, and their futures
+   * fail with the same exception.
+   *
+   * @param commands The commands
+   *
+   * @return A future for each command, in the order of the commands
+   */
+
+  default List<CompletableFuture<CAIResponseType>> executeBatch(
+    final List<? extends CAICommandType<?>> commands)
+  {
+    final var futures =
+      new ArrayList<CompletableFuture<CAIResponseType>>(commands.size());
+    for (int index = 0; index < commands.size(); ++index) {
+      futures.add(new CompletableFuture<>());
+    }
+
+    this.executePipeline(context -> {
+      for (int index = 0; index < commands.size(); ++index) {
+        futures.get(index).complete(context.execute(commands.get(index)));
+      }
+      return null;
+    }).whenComplete((ignored, exception) -> {
+      if (exception != null) {
+        for (final var future : futures) {
+          future.completeExceptionally(exception);
+        }
+      }
+    });
+
+    return List.copyOf(futures);
+  }
+
+  /**
+   * @param lane The command lane
+   *
+   * @return The number of commands waiting to start in the given lane
+   */
+
+  AttributeReadableType<Integer> commandQueueDepth(
+    CAGClientCommandLaneKind lane);
+
+  /**
+   * @return The statistics for the deduplication of identical in-flight
+   * commands
+   */
+
+  AttributeReadableType<CAGClientSingleFlightStatistics> singleFlightStatistics();
+
+  /**
+   * @param priority The command priority
+   *
+   * @return The time taken from submission to completion for commands of
+   * the given priority
+   */
+
+  CAGLatencySnapshot commandLatency(
+    CAGClientCommandPriority priority);
+
+  /**
+   * The per-operation metrics. The snapshot is republished periodically as
+   * operations complete.
+   *
+   * @return The most recently published metrics snapshot
+   */
+
+  AttributeReadableType<CAGClientMetricsSnapshot> metrics();
+
+  /**
+   * @return The statistics for the in-memory cache of decoded images
+   */
+
+  AttributeReadableType<CAGCacheStatistics> imageCacheStatistics();
+
+  /**
+   * @return A snapshot of the per-operation metrics as of right now
+   */
+
+  CAGClientMetricsSnapshot metricsNow();
+
+  /**
+   * Asynchronously log in. The bookmark's login timeout bounds the login
+   * attempt, and its command timeout is the upper bound for the adaptive
+   * timeouts given to subsequent commands.
    *
-   * @param host     The host
-   * @param port     The port
-   * @param https    {@code true} if HTTPS is enabled
-   * @param username The username
-   * @param password The password
+   * @param server The server
    */
 
   void login(
-    String host,
-    int port,
-    boolean https,
-    String username,
-    String password);
+    CAGServerBookmark server);
 
   /**
    * Execute the given command.
    *
+   * @param command  The command
+   * @param priority The command priority
+   * @param <R>      The type of responses
+   *
+   * @return A future representing the operation in progress
+   */
+
+  <R extends CAIResponseType> CompletableFuture<R> execute(
+    CAICommandType<R> command,
+    CAGClientCommandPriority priority);
+
+  /**
+   * Execute the given command at interactive priority.
+   *
    * @param command The command
    * @param <R>     The type of responses
    *
    * @return A future representing the operation in progress
+   *
+   * @see CAGClientCommandPriority#INTERACTIVE
    */
 
-  <R extends CAIResponseType> CompletableFuture<R> execute(
-    CAICommandType<R> command);
+  default <R extends CAIResponseType> CompletableFuture<R> execute(
+    final CAICommandType<R> command)
+  {
+    return this.execute(command, CAGClientCommandPriority.INTERACTIVE);
+  }
 
   /**
    * Execute a file upload.
@@ -91,7 +209,9 @@ public interface CAGClientServiceType extends RPServiceType
   );
 
   /**
-   * Execute a file download.
+   * Execute a file download. If content with the same hash was downloaded
+   * before and is still in the blob cache, the cached copy is verified and
+   * copied to {@code file} without any network traffic.
    *
    * @param fileID        The file ID
    * @param file          The file
@@ -115,11 +235,12 @@ public interface CAGClientServiceType extends RPServiceType
   );
 
   /**
-   * Fetch a file as an image.
+   * Fetch a file as an image. The file content is held in the blob cache,
+   * so fetching the same content again does not use the network. Decoded
+   * images are additionally held in memory, keyed by content hash and
+   * size, so requesting the same image again returns the same instance.
    *
    * @param fileID        The file ID
-   * @param file          The file
-   * @param fileTmp       The temporary file
    * @param size          The expected size
    * @param hashAlgorithm The hash algorithm
    * @param hashValue     The hash value
@@ -131,8 +252,6 @@ public interface CAGClientServiceType extends RPServiceType
 
   CompletableFuture<Image> imageGet(
     CAFileID fileID,
-    Path file,
-    Path fileTmp,
     long size,
     String hashAlgorithm,
     String hashValue,
@@ -0,0 +1,384 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jattribute.core.AttributeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.CONNECTED;
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.NOT_CONNECTED;
+import static com.io7m.cardant_gui.ui.internal.CAGClientStatus.RECONNECTING;
+
+/**
+ * The supervisor of the client session. The supervisor remembers the
+ * server to which the client is logged in and, when the connection is
+ * lost, logs in again with exponential backoff according to the reconnect
+ * policy. Commands that are submitted while the session is being
+ * recovered are held, and are replayed once the recovery has either
+ * succeeded or been abandoned.
+ */
+
+public final class CAGClientSessionSupervisor
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGClientSessionSupervisor.class);
+
+  private final AttributeType<CAGClientStatus> status;
+  private final ExecutorService executor;
+  private final CAGClientReconnectPolicy policy;
+  private final ConnectorType connector;
+  private final SleeperType sleeper;
+  private final LongSupplier timeSource;
+  private final ListenerType listener;
+  private final Object sessionLock;
+  private final Object connectLock;
+  private CAGServerBookmark sessionServer;
+  private boolean sessionReconnecting;
+  private List<Runnable> sessionHeld;
+  private long sessionGeneration;
+  private Future<?> sessionReconnect;
+
+  /**
+   * A function that connects to a server.
+   */
+
+  @FunctionalInterface
+  public interface ConnectorType
+  {
+    /**
+     * Connect to the given server.
+     *
+     * @param server The server
+     *
+     * @throws Exception On errors
+     */
+
+    void connect(CAGServerBookmark server)
+      throws Exception;
+  }
+
+  /**
+   * A function that waits for a given time.
+   */
+
+  @FunctionalInterface
+  public interface SleeperType
+  {
+    /**
+     * Wait for the given time.
+     *
+     * @param delay The time
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+
+    void sleep(Duration delay)
+      throws InterruptedException;
+  }
+
+  /**
+   * A receiver of the progress of session recovery.
+   */
+
+  public interface ListenerType
+  {
+    /**
+     * A reconnection attempt is starting.
+     *
+     * @param server  The server
+     * @param attempt The attempt number (starting at 1)
+     */
+
+    void onReconnectAttempt(
+      CAGServerBookmark server,
+      int attempt);
+
+    /**
+     * The session was recovered.
+     *
+     * @param server The server
+     */
+
+    void onReconnected(
+      CAGServerBookmark server);
+
+    /**
+     * The session could not be recovered before the policy gave up.
+     *
+     * @param server The server
+     */
+
+    void onReconnectFailed(
+      CAGServerBookmark server);
+  }
+
+  /**
+   * The supervisor of the client session.
+   *
+   * @param inStatus     The client status
+   * @param inExecutor   The executor on which recovery runs
+   * @param inPolicy     The reconnect policy
+   * @param inConnector  A function that connects to a server
+   * @param inSleeper    A function that waits between attempts
+   * @param inTimeSource The source of monotonic time in nanoseconds, such
+   *                     as {@link System#nanoTime()}
+   * @param inListener   A receiver of the progress of session recovery
+   */
+
+  public CAGClientSessionSupervisor(
+    final AttributeType<CAGClientStatus> inStatus,
+    final ExecutorService inExecutor,
+    final CAGClientReconnectPolicy inPolicy,
+    final ConnectorType inConnector,
+    final SleeperType inSleeper,
+    final LongSupplier inTimeSource,
+    final ListenerType inListener)
+  {
+    this.status =
+      Objects.requireNonNull(inStatus, "status");
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.connector =
+      Objects.requireNonNull(inConnector, "connector");
+    this.sleeper =
+      Objects.requireNonNull(inSleeper, "sleeper");
+    this.timeSource =
+      Objects.requireNonNull(inTimeSource, "timeSource");
+    this.listener =
+      Objects.requireNonNull(inListener, "listener");
+    this.sessionLock =
+      new Object();
+    this.connectLock =
+      new Object();
+    this.sessionHeld =
+      new ArrayList<>();
+  }
+
+  /**
+   * @return The server to which the client is logged in, if any
+   */
+
+  public Optional<CAGServerBookmark> server()
+  {
+    synchronized (this.sessionLock) {
+      return Optional.ofNullable(this.sessionServer);
+    }
+  }
+
+  /**
+   * Start a new session. Any session recovery in progress is abandoned:
+   * the generation is advanced so that the recovery cannot install its
+   * session over the new one, and the recovery is interrupted if it is
+   * waiting to retry.
+   *
+   * @return The commands held by the abandoned recovery
+   */
+
+  public List<Runnable> loginBegin()
+  {
+    final List<Runnable> held;
+    final Future<?> reconnect;
+    synchronized (this.sessionLock) {
+      ++this.sessionGeneration;
+      this.sessionServer = null;
+      this.sessionReconnecting = false;
+      held = this.sessionHeld;
+      this.sessionHeld = new ArrayList<>();
+      reconnect = this.sessionReconnect;
+      this.sessionReconnect = null;
+    }
+
+    if (reconnect != null) {
+      LOG.debug("Login: Abandoning session recovery");
+      reconnect.cancel(true);
+    }
+    return held;
+  }
+
+  /**
+   * Connect to the given server and make it the server of the session.
+   *
+   * @param server The server
+   *
+   * @throws Exception On errors
+   */
+
+  public void loginConnect(
+    final CAGServerBookmark server)
+    throws Exception
+  {
+    Objects.requireNonNull(server, "server");
+
+    synchronized (this.connectLock) {
+      this.connector.connect(server);
+    }
+    synchronized (this.sessionLock) {
+      this.sessionServer = server;
+    }
+  }
+
+  /**
+   * Hold the given task for replay if the session is currently being
+   * recovered.
+   *
+   * @param task The task
+   *
+   * @return {@code true} if the task was held
+   */
+
+  public boolean holdIfReconnecting(
+    final Runnable task)
+  {
+    Objects.requireNonNull(task, "task");
+
+    synchronized (this.sessionLock) {
+      if (this.sessionReconnecting) {
+        this.sessionHeld.add(task);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Start recovering the session, if there is a session and it is not
+   * already being recovered.
+   */
+
+  public void onConnectionLost()
+  {
+    synchronized (this.sessionLock) {
+      if (this.sessionServer == null || this.sessionReconnecting) {
+        return;
+      }
+
+      final var server = this.sessionServer;
+      final var generation = this.sessionGeneration;
+      this.sessionReconnecting = true;
+      this.status.set(RECONNECTING);
+      LOG.debug("Connection to {} lost", server.host());
+
+      this.sessionReconnect =
+        this.executor.submit(() -> this.reconnect(server, generation));
+    }
+  }
+
+  private boolean isCurrentSession(
+    final long generation)
+  {
+    synchronized (this.sessionLock) {
+      return this.sessionGeneration == generation;
+    }
+  }
+
+  private void reconnect(
+    final CAGServerBookmark server,
+    final long generation)
+  {
+    final var timeStarted = this.timeSource.getAsLong();
+    final var giveUpAfter = this.policy.giveUpAfter().toNanos();
+
+    var delay = this.policy.initialDelay();
+    var attempt = 1;
+
+    while (true) {
+      this.listener.onReconnectAttempt(server, attempt);
+
+      try {
+        this.sleeper.sleep(delay);
+
+        /*
+         * Connections are made under the connection lock, and the session
+         * is checked to still be current under the same lock, so that a
+         * recovery can never replace a session started by a login.
+         */
+
+        synchronized (this.connectLock) {
+          if (!this.isCurrentSession(generation)) {
+            LOG.debug("Reconnect: Abandoned");
+            return;
+          }
+          this.connector.connect(server);
+        }
+
+        if (this.reconnectFinished(generation, true)) {
+          this.listener.onReconnected(server);
+        }
+        return;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (final Exception e) {
+        LOG.debug("Reconnect: Attempt {} failed: ", Integer.valueOf(attempt), e);
+      }
+
+      if (this.timeSource.getAsLong() - timeStarted >= giveUpAfter) {
+        break;
+      }
+
+      delay = this.policy.nextDelay(delay);
+      ++attempt;
+    }
+
+    if (this.reconnectFinished(generation, false)) {
+      this.listener.onReconnectFailed(server);
+    }
+  }
+
+  private boolean reconnectFinished(
+    final long generation,
+    final boolean succeeded)
+  {
+    final List<Runnable> held;
+    synchronized (this.sessionLock) {
+      if (this.sessionGeneration != generation) {
+        return false;
+      }
+
+      held = this.sessionHeld;
+      this.sessionHeld = new ArrayList<>();
+      this.sessionReconnecting = false;
+      this.sessionReconnect = null;
+      if (!succeeded) {
+        this.sessionServer = null;
+      }
+      this.status.set(succeeded ? CONNECTED : NOT_CONNECTED);
+    }
+
+    /*
+     * Held commands are resubmitted in either case. If the session could
+     * not be recovered, they will fail normally when they are executed.
+     */
+
+    LOG.debug("Reconnect: Replaying {} held commands", Integer.valueOf(held.size()));
+    held.forEach(Runnable::run);
+    return true;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationGet;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationList;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandType;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageGetText;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAIResponseType;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+
+/**
+ * A single-flight layer: concurrent executions of equal commands share a
+ * single request to the server. A shared request runs at the highest
+ * priority of any of the callers waiting for it.
+ */
+
+public final class CAGClientSingleFlight
+{
+  private final ConcurrentHashMap<CAICommandType<?>, Entry<?>> inFlight;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final AttributeType<CAGClientSingleFlightStatistics> statistics;
+
+  /**
+   * A request that has been started.
+   *
+   * @param future  The future representing the request
+   * @param promote A function that raises the request to interactive
+   *                priority
+   * @param <R>     The type of responses
+   */
+
+  public record Flight<R>(
+    CompletableFuture<R> future,
+    Runnable promote)
+  {
+    /**
+     * A request that has been started.
+     *
+     * @param future  The future representing the request
+     * @param promote A function that raises the request to interactive
+     *                priority
+     */
+
+    public Flight
+    {
+      Objects.requireNonNull(future, "future");
+      Objects.requireNonNull(promote, "promote");
+    }
+  }
+
+  private static final class Entry<R>
+  {
+    private final CompletableFuture<R> shared;
+    private Flight<R> underlying;
+    private CAGClientCommandPriority priority;
+    private int waiters;
+    private boolean abandoned;
+
+    Entry(
+      final CAGClientCommandPriority inPriority)
+    {
+      this.shared = new CompletableFuture<>();
+      this.priority = inPriority;
+    }
+  }
+
+  /**
+   * Create a single-flight layer.
+   *
+   * @param attributes The attribute factory
+   */
+
+  public CAGClientSingleFlight(
+    final Attributes attributes)
+  {
+    Objects.requireNonNull(attributes, "attributes");
+
+    this.inFlight =
+      new ConcurrentHashMap<>();
+    this.hits =
+      new AtomicLong(0L);
+    this.misses =
+      new AtomicLong(0L);
+    this.statistics =
+      attributes.withValue(CAGClientSingleFlightStatistics.zero());
+  }
+
+  /**
+   * Determine if a command may share a response with an equal command.
+   * Only commands that have no side effects, and whose responses do not
+   * depend on server-side cursor state, are eligible.
+   *
+   * @param command The command
+   *
+   * @return {@code true} if the command can be deduplicated
+   */
+
+  public static boolean isDeduplicable(
+    final CAICommandType<?> command)
+  {
+    return switch (command) {
+      case final CAICommandFileSearchBegin c -> true;
+      case final CAICommandItemGet c -> true;
+      case final CAICommandItemSearchBegin c -> true;
+      case final CAICommandLocationGet c -> true;
+      case final CAICommandLocationList c -> true;
+      case final CAICommandStockSearchBegin c -> true;
+      case final CAICommandTypePackageGetText c -> true;
+      case final CAICommandTypePackageSearchBegin c -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * @return The deduplication statistics
+   */
+
+  public AttributeReadableType<CAGClientSingleFlightStatistics> statistics()
+  {
+    return this.statistics;
+  }
+
+  /**
+   * Execute the given command, joining an equal in-flight command if one
+   * exists. Each caller receives its own future, so cancelling one caller's
+   * future does not affect the others. When every caller has cancelled its
+   * future, the underlying command is cancelled. When an interactive caller
+   * joins a background command, the command is promoted to interactive
+   * priority.
+   *
+   * @param command  The command
+   * @param priority The priority of the caller
+   * @param executor A function that actually executes the command
+   * @param <R>      The type of responses
+   *
+   * @return A future representing the operation in progress
+   */
+
+  @SuppressWarnings("unchecked")
+  public <R extends CAIResponseType> CompletableFuture<R> execute(
+    final CAICommandType<R> command,
+    final CAGClientCommandPriority priority,
+    final Function<CAICommandType<R>, Flight<R>> executor)
+  {
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(priority, "priority");
+    Objects.requireNonNull(executor, "executor");
+
+    while (true) {
+      final var created =
+        new Entry<R>(priority);
+      final var existing =
+        (Entry<R>) this.inFlight.putIfAbsent(command, created);
+
+      if (existing != null) {
+        final CompletableFuture<R> joined;
+        Runnable promote = null;
+        synchronized (existing) {
+          if (existing.abandoned) {
+            this.inFlight.remove(command, existing);
+            continue;
+          }
+          joined = this.join(command, existing);
+          if (priority == INTERACTIVE && existing.priority == BACKGROUND) {
+            existing.priority = INTERACTIVE;
+            if (existing.underlying != null) {
+              promote = existing.underlying.promote();
+            }
+          }
+        }
+        if (promote != null) {
+          promote.run();
+        }
+        this.hits.incrementAndGet();
+        this.publishStatistics();
+        return joined;
+      }
+
+      this.misses.incrementAndGet();
+      this.publishStatistics();
+
+      /*
+       * An interactive caller might have joined the entry before the
+       * command was started, in which case the command is promoted as soon
+       * as it exists.
+       */
+
+      final CompletableFuture<R> joined;
+      synchronized (created) {
+        joined = this.join(command, created);
+        created.underlying = executor.apply(command);
+        if (created.priority != priority) {
+          created.underlying.promote().run();
+        }
+      }
+
+      created.underlying.future().whenComplete((response, exception) -> {
+        this.inFlight.remove(command, created);
+        if (exception != null) {
+          created.shared.completeExceptionally(exception);
+        } else {
+          created.shared.complete(response);
+        }
+      });
+      return joined;
+    }
+  }
+
+  private <R extends CAIResponseType> CompletableFuture<R> join(
+    final CAICommandType<R> command,
+    final Entry<R> entry)
+  {
+    final var copy = entry.shared.copy();
+    ++entry.waiters;
+
+    copy.whenComplete((response, exception) -> {
+      if (!copy.isCancelled()) {
+        return;
+      }
+
+      final CompletableFuture<R> abandonedFuture;
+      synchronized (entry) {
+        --entry.waiters;
+        if (entry.waiters > 0) {
+          return;
+        }
+        entry.abandoned = true;
+        abandonedFuture =
+          entry.underlying != null ? entry.underlying.future() : null;
+      }
+
+      this.inFlight.remove(command, entry);
+      if (abandonedFuture != null) {
+        abandonedFuture.cancel(false);
+      }
+    });
+    return copy;
+  }
+
+  private void publishStatistics()
+  {
+    this.statistics.set(
+      new CAGClientSingleFlightStatistics(this.hits.get(), this.misses.get())
+    );
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+/**
+ * Statistics for the deduplication of in-flight commands.
+ *
+ * @param hits   The number of commands that joined an identical in-flight
+ *               command
+ * @param misses The number of commands that were sent to the server
+ */
+
+public record CAGClientSingleFlightStatistics(
+  long hits,
+  long misses)
+{
+  private static final CAGClientSingleFlightStatistics ZERO =
+    new CAGClientSingleFlightStatistics(0L, 0L);
+
+  /**
+   * @return The zero statistics
+   */
+
+  public static CAGClientSingleFlightStatistics zero()
+  {
+    return ZERO;
+  }
+}
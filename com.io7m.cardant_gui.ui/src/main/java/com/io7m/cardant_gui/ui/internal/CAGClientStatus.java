@@ -35,9 +35,29 @@ public enum CAGClientStatus
 
   CONNECTING,
 
+  /**
+   * The connection to the server was lost, and the client is trying to
+   * re-establish the session. Data fetched from the server remains valid.
+   */
+
+  RECONNECTING,
+
   /**
    * The client is connected.
    */
 
-  CONNECTED
+  CONNECTED;
+
+  /**
+   * @return {@code true} if data fetched from the server should be
+   * discarded when the client enters this state
+   */
+
+  public boolean discardsData()
+  {
+    return switch (this) {
+      case NOT_CONNECTED, CONNECTING -> true;
+      case RECONNECTING, CONNECTED -> false;
+    };
+  }
 }
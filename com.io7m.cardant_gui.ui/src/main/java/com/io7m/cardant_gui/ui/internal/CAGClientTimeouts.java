@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandAuditSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandLocationList;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchBegin;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageGetText;
+import com.io7m.cardant.protocol.inventory.CAICommandTypePackageSearchBegin;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Adaptive command timeouts. Each class of command keeps a rolling window
+ * of its most recent latencies, and is given a timeout that is a multiple
+ * of the 99th percentile of that window. The timeout is never shorter than
+ * a fixed floor, and never longer than the command timeout configured for
+ * the current server. Until enough samples have been observed, commands
+ * are given the full configured timeout.
+ *
+ * The time taken by searches, listings, and type package texts depends on
+ * the amount of data returned rather than on the class of command, so a
+ * run of small results says nothing about how long a large result may
+ * legitimately take. Those commands are always given the full configured
+ * timeout.
+ */
+
+public final class CAGClientTimeouts
+{
+  private static final int WINDOW_SIZE = 64;
+  private static final int SAMPLES_REQUIRED = 16;
+  private static final long MULTIPLIER = 4L;
+  private static final Duration FLOOR = Duration.ofSeconds(10L);
+
+  private static final Set<Class<?>> VARIABLE_COST = Set.of(
+      CAICommandAuditSearchBegin.class,
+      CAICommandAuditSearchNext.class,
+      CAICommandAuditSearchPrevious.class,
+      CAICommandFileSearchBegin.class,
+      CAICommandFileSearchNext.class,
+      CAICommandFileSearchPrevious.class,
+      CAICommandItemSearchBegin.class,
+      CAICommandItemSearchNext.class,
+      CAICommandItemSearchPrevious.class,
+      CAICommandLocationList.class,
+      CAICommandStockSearchBegin.class,
+      CAICommandStockSearchNext.class,
+      CAICommandStockSearchPrevious.class,
+      CAICommandTypePackageGetText.class,
+      CAICommandTypePackageSearchBegin.class
+  );
+
+  private final HashMap<Class<?>, Window> windows;
+  private Duration ceiling;
+
+  private static final class Window
+  {
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    Window()
+    {
+      this.samples = new long[WINDOW_SIZE];
+    }
+
+    void add(
+      final long nanos)
+    {
+      this.samples[this.next] = nanos;
+      this.next = (this.next + 1) % WINDOW_SIZE;
+      this.count = Math.min(this.count + 1, WINDOW_SIZE);
+    }
+
+    long p99()
+    {
+      final var sorted = Arrays.copyOf(this.samples, this.count);
+      Arrays.sort(sorted);
+      final var index = (int) Math.ceil(0.99 * (double) this.count) - 1;
+      return sorted[Math.max(0, index)];
+    }
+  }
+
+  /**
+   * Create adaptive timeouts.
+   *
+   * @param inCeiling The maximum timeout
+   */
+
+  public CAGClientTimeouts(
+    final Duration inCeiling)
+  {
+    this.ceiling = Objects.requireNonNull(inCeiling, "ceiling");
+    this.windows = new HashMap<>();
+  }
+
+  /**
+   * Discard all observations and set a new upper bound. This is called
+   * when connecting to a (possibly different) server.
+   *
+   * @param newCeiling The maximum timeout
+   */
+
+  public synchronized void reset(
+    final Duration newCeiling)
+  {
+    this.ceiling = Objects.requireNonNull(newCeiling, "ceiling");
+    this.windows.clear();
+  }
+
+  /**
+   * @param commandClass The command class
+   *
+   * @return The timeout for the next command of the given class
+   */
+
+  public synchronized Duration timeoutFor(
+    final Class<?> commandClass)
+  {
+    if (VARIABLE_COST.contains(commandClass)) {
+      return this.ceiling;
+    }
+
+    final var window = this.windows.get(commandClass);
+    if (window == null || window.count < SAMPLES_REQUIRED) {
+      return this.ceiling;
+    }
+
+    final var p99 =
+      window.p99();
+    final var adaptive =
+      Duration.ofNanos(
+        p99 > Long.MAX_VALUE / MULTIPLIER ? Long.MAX_VALUE : p99 * MULTIPLIER
+      );
+
+    if (adaptive.compareTo(FLOOR) < 0) {
+      return min(FLOOR, this.ceiling);
+    }
+    return min(adaptive, this.ceiling);
+  }
+
+  /**
+   * Record the time taken by a command. Commands that time out should be
+   * recorded with the time they were allowed, so that subsequent commands
+   * of the same class are given more time.
+   *
+   * @param commandClass The command class
+   * @param time         The time taken
+   */
+
+  public synchronized void record(
+    final Class<?> commandClass,
+    final Duration time)
+  {
+    this.windows.computeIfAbsent(commandClass, k -> new Window())
+      .add(time.toNanos());
+  }
+
+  private static Duration min(
+    final Duration x,
+    final Duration y)
+  {
+    return x.compareTo(y) <= 0 ? x : y;
+  }
+}
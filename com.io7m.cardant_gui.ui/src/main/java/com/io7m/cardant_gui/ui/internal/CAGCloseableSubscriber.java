@@ -73,6 +73,7 @@ public final class CAGCloseableSubscriber<T>
   {
     this.subscription =
       Objects.requireNonNull(inSubscription, "subscription");
+    this.subscription.request(Long.MAX_VALUE);
   }
 
   @Override
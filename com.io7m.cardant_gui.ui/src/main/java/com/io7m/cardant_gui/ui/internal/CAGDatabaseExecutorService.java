@@ -0,0 +1,260 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseTransactionType;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
+import com.io7m.darco.api.DDatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The executor through which all database work is performed.
+ */
+
+public final class CAGDatabaseExecutorService
+  extends CAGAbstractResourceHolder
+  implements CAGDatabaseExecutorServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGDatabaseExecutorService.class);
+
+  private final CAGDatabaseType database;
+  private final ScheduledExecutorService writer;
+  private final ExecutorService readers;
+  private final ConcurrentLinkedQueue<Deferred<?>> deferred;
+  private final AtomicBoolean deferredScheduled;
+  private final long deferredDelayNanos;
+
+  private CAGDatabaseExecutorService(
+    final CAGDatabaseType inDatabase,
+    final int readerCount,
+    final Duration deferredDelay)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.deferredDelayNanos =
+      deferredDelay.toNanos();
+    this.deferred =
+      new ConcurrentLinkedQueue<>();
+    this.deferredScheduled =
+      new AtomicBoolean(false);
+
+    /*
+     * The SQLite driver blocks in native code, and a virtual thread that
+     * blocks in native code cannot be unmounted from its carrier, so the
+     * database threads are platform threads.
+     */
+
+    this.readers =
+      this.trackResource(
+        Executors.newFixedThreadPool(
+          readerCount,
+          Thread.ofPlatform()
+            .daemon()
+            .name("com.io7m.cardant_gui.database.reader-", 0L)
+            .factory()
+        )
+      );
+
+    /*
+     * Resources are closed in the reverse order in which they are tracked,
+     * so the writer is closed first. Closing the writer executes any
+     * pending deferred writes, and dispatches any pending reads to the
+     * readers.
+     */
+
+    this.writer =
+      this.trackResource(
+        Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform()
+            .daemon()
+            .name("com.io7m.cardant_gui.database.writer-", 0L)
+            .factory()
+        )
+      );
+  }
+
+  /**
+   * Create a database executor.
+   *
+   * @param database      The database
+   * @param readerCount   The number of reader threads
+   * @param deferredDelay The time for which deferred writes are held
+   *                      before being written as a batch
+   *
+   * @return The executor service
+   */
+
+  public static CAGDatabaseExecutorService create(
+    final CAGDatabaseType database,
+    final int readerCount,
+    final Duration deferredDelay)
+  {
+    Objects.requireNonNull(deferredDelay, "deferredDelay");
+    return new CAGDatabaseExecutorService(database, readerCount, deferredDelay);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> read(
+    final CAGDatabaseOperationType<T> operation)
+  {
+    Objects.requireNonNull(operation, "operation");
+
+    /*
+     * The read is dispatched to the readers by way of the writer queue,
+     * so that it starts only after every write submitted before it has
+     * been committed.
+     */
+
+    final var future = new CompletableFuture<T>();
+    this.writer.execute(() -> {
+      this.readers.execute(() -> {
+        try (var t = this.database.openTransaction()) {
+          future.complete(operation.execute(t));
+        } catch (final Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    });
+    return future;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> write(
+    final CAGDatabaseOperationType<T> operation)
+  {
+    Objects.requireNonNull(operation, "operation");
+
+    final var future = new CompletableFuture<T>();
+    this.writer.execute(() -> {
+      try (var t = this.database.openTransaction()) {
+        final var result = operation.execute(t);
+        t.commit();
+        future.complete(result);
+      } catch (final Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> writeDeferred(
+    final CAGDatabaseOperationType<T> operation)
+  {
+    Objects.requireNonNull(operation, "operation");
+
+    final var item = new Deferred<>(operation);
+    this.deferred.add(item);
+
+    if (this.deferredScheduled.compareAndSet(false, true)) {
+      this.writer.schedule(
+        this::writeDeferredBatch,
+        this.deferredDelayNanos,
+        TimeUnit.NANOSECONDS
+      );
+    }
+    return item.future;
+  }
+
+  private void writeDeferredBatch()
+  {
+    this.deferredScheduled.set(false);
+
+    final var batch = new ArrayList<Deferred<?>>();
+    while (true) {
+      final var item = this.deferred.poll();
+      if (item == null) {
+        break;
+      }
+      batch.add(item);
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    try (var t = this.database.openTransaction()) {
+      for (final var item : batch) {
+        item.execute(t);
+      }
+      t.commit();
+    } catch (final Throwable e) {
+      LOG.warn("Unable to write {} deferred operations: ", batch.size(), e);
+      for (final var item : batch) {
+        item.future.completeExceptionally(e);
+      }
+      return;
+    }
+
+    for (final var item : batch) {
+      item.complete();
+    }
+  }
+
+  private static final class Deferred<T>
+  {
+    private final CAGDatabaseOperationType<T> operation;
+    private final CompletableFuture<T> future;
+    private T result;
+
+    Deferred(
+      final CAGDatabaseOperationType<T> inOperation)
+    {
+      this.operation = inOperation;
+      this.future = new CompletableFuture<>();
+    }
+
+    void execute(
+      final CAGDatabaseTransactionType transaction)
+      throws DDatabaseException
+    {
+      this.result = this.operation.execute(transaction);
+    }
+
+    void complete()
+    {
+      this.future.complete(this.result);
+    }
+  }
+
+  @Override
+  public String description()
+  {
+    return "Database executor service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGDatabaseExecutorService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
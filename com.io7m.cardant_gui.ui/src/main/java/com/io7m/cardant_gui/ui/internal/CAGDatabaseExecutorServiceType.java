@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The executor through which all database work is performed, so that no
+ * database work ever runs on the FX application thread. Writes execute in
+ * order on a single writer thread, and reads execute concurrently on a
+ * pool of reader threads.
+ */
+
+public interface CAGDatabaseExecutorServiceType extends RPServiceType
+{
+  /**
+   * Execute a read-only operation. The operation observes every write that
+   * was submitted (but not deferred) before it.
+   *
+   * @param operation The operation
+   * @param <T>       The type of results
+   *
+   * @return The operation in progress
+   */
+
+  <T> CompletableFuture<T> read(
+    CAGDatabaseOperationType<T> operation);
+
+  /**
+   * Execute an operation in its own transaction on the writer thread, and
+   * commit the transaction.
+   *
+   * @param operation The operation
+   * @param <T>       The type of results
+   *
+   * @return The operation in progress
+   */
+
+  <T> CompletableFuture<T> write(
+    CAGDatabaseOperationType<T> operation);
+
+  /**
+   * Execute an operation on the writer thread at some point in the near
+   * future, batched into a single transaction with any other deferred
+   * operations. This is intended for writes of low value, such as the
+   * recording of recently used files, where the cost of a transaction per
+   * write is not worth paying.
+   *
+   * @param operation The operation
+   * @param <T>       The type of results
+   *
+   * @return The operation in progress
+   */
+
+  <T> CompletableFuture<T> writeDeferred(
+    CAGDatabaseOperationType<T> operation);
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseQueryProviderType;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseQueryTags;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseQueryType;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.Attributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A cache of the results of database queries.
+ */
+
+public final class CAGDatabaseResultCacheService
+  implements CAGDatabaseResultCacheServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGDatabaseResultCacheService.class);
+
+  private final CAGDatabaseExecutorServiceType executor;
+  private final Map<Class<?>, CAGDatabaseQueryTags> tags;
+  private final CAGLRUCache<ResultKey, Object> results;
+  private final Object resultsLock;
+  private long generation;
+
+  private record ResultKey(
+    Class<?> query,
+    Object parameters)
+  {
+
+  }
+
+  private CAGDatabaseResultCacheService(
+    final CAGDatabaseExecutorServiceType inExecutor,
+    final Map<Class<?>, CAGDatabaseQueryTags> inTags,
+    final int capacity)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.tags =
+      Map.copyOf(inTags);
+
+    final var attributes =
+      Attributes.create(throwable -> LOG.error("Exception: ", throwable));
+
+    this.results =
+      new CAGLRUCache<>(attributes, capacity);
+    this.resultsLock =
+      new Object();
+  }
+
+  /**
+   * Create a result cache.
+   *
+   * @param executor  The database executor
+   * @param providers The query providers, from which the tags of each query
+   *                  are taken
+   * @param capacity  The maximum number of cached results
+   *
+   * @return The cache service
+   */
+
+  public static CAGDatabaseResultCacheServiceType create(
+    final CAGDatabaseExecutorServiceType executor,
+    final Collection<CAGDatabaseQueryProviderType<?, ?, ?>> providers,
+    final int capacity)
+  {
+    Objects.requireNonNull(providers, "providers");
+
+    final var tags = new HashMap<Class<?>, CAGDatabaseQueryTags>();
+    for (final var provider : providers) {
+      tags.put(provider.queryClass(), provider.tags());
+    }
+    return new CAGDatabaseResultCacheService(executor, tags, capacity);
+  }
+
+  private CAGDatabaseQueryTags tagsOf(
+    final Class<?> query)
+  {
+    return this.tags.getOrDefault(query, CAGDatabaseQueryTags.none());
+  }
+
+  @Override
+  public <P, R, Q extends CAGDatabaseQueryType<P, R>> CompletableFuture<R> execute(
+    final Class<Q> query,
+    final P parameters)
+  {
+    Objects.requireNonNull(query, "query");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var queryTags = this.tagsOf(query);
+    if (queryTags.isCacheable()) {
+      return this.executeRead(query, parameters);
+    }
+
+    return this.executor.write(t -> t.query(query).execute(parameters))
+      .thenApply(result -> {
+        this.invalidate(queryTags);
+        return result;
+      });
+  }
+
+  @Override
+  public <P, R, Q extends CAGDatabaseQueryType<P, R>> CompletableFuture<R> executeDeferred(
+    final Class<Q> query,
+    final P parameters)
+  {
+    Objects.requireNonNull(query, "query");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var queryTags = this.tagsOf(query);
+    return this.executor.writeDeferred(t -> t.query(query).execute(parameters))
+      .thenApply(result -> {
+        this.invalidate(queryTags);
+        return result;
+      });
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P, R, Q extends CAGDatabaseQueryType<P, R>> CompletableFuture<R> executeRead(
+    final Class<Q> query,
+    final P parameters)
+  {
+    final var key = new ResultKey(query, parameters);
+    final var cached = this.results.get(key);
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture((R) cached.get());
+    }
+
+    /*
+     * A write that completes while the query is executing might have
+     * changed the tables after the query read them, so the result is only
+     * cached if no write has completed in the meantime.
+     */
+
+    final long generationThen;
+    synchronized (this.resultsLock) {
+      generationThen = this.generation;
+    }
+
+    return this.executor.read(t -> t.query(query).execute(parameters))
+      .thenApply(result -> {
+        if (result != null) {
+          synchronized (this.resultsLock) {
+            if (this.generation == generationThen) {
+              this.results.put(key, result);
+            }
+          }
+        }
+        return result;
+      });
+  }
+
+  private void invalidate(
+    final CAGDatabaseQueryTags queryTags)
+  {
+    if (queryTags.writes().isEmpty()) {
+      return;
+    }
+
+    synchronized (this.resultsLock) {
+      ++this.generation;
+      this.results.removeIf(key -> {
+        return this.tagsOf(key.query()).isInvalidatedBy(queryTags);
+      });
+    }
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> statistics()
+  {
+    return this.results.statistics();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Database result cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGDatabaseResultCacheService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseQueryType;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A cache of the results of database queries. Queries that declare that
+ * they only read tables have their results cached, and the cached results
+ * are discarded when a query that writes one of those tables is executed
+ * through this service. A cached result is returned without opening a
+ * transaction. All queries are executed by a
+ * {@link CAGDatabaseExecutorServiceType}, and never on the calling thread.
+ */
+
+public interface CAGDatabaseResultCacheServiceType extends RPServiceType
+{
+  /**
+   * Execute a query in its own transaction, or return the cached result
+   * of an earlier execution with equal parameters. The transaction is
+   * committed if the query is not a read-only query.
+   *
+   * @param query      The query type
+   * @param parameters The query parameters
+   * @param <P>        The type of parameters
+   * @param <R>        The type of results
+   * @param <Q>        The type of queries
+   *
+   * @return The query in progress
+   */
+
+  <P, R, Q extends CAGDatabaseQueryType<P, R>> CompletableFuture<R> execute(
+    Class<Q> query,
+    P parameters);
+
+  /**
+   * Execute a writing query at some point in the near future, batched
+   * with other deferred writes into a single transaction.
+   *
+   * @param query      The query type
+   * @param parameters The query parameters
+   * @param <P>        The type of parameters
+   * @param <R>        The type of results
+   * @param <Q>        The type of queries
+   *
+   * @return The query in progress
+   *
+   * @see CAGDatabaseExecutorServiceType#writeDeferred(CAGDatabaseOperationType)
+   */
+
+  <P, R, Q extends CAGDatabaseQueryType<P, R>> CompletableFuture<R> executeDeferred(
+    Class<Q> query,
+    P parameters);
+
+  /**
+   * @return The result cache statistics
+   */
+
+  AttributeReadableType<CAGCacheStatistics> statistics();
+}
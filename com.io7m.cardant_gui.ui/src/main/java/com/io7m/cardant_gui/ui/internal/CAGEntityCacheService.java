@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAItem;
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CALocation;
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.Attributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A cache of the most recently fetched items and locations.
+ */
+
+public final class CAGEntityCacheService
+  extends CAGAbstractResourceHolder
+  implements CAGEntityCacheServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGEntityCacheService.class);
+
+  private final CAGLRUCache<CAItemID, CAItem> items;
+  private final CAGLRUCache<CALocationID, CALocation> locations;
+
+  private CAGEntityCacheService(
+    final int itemCapacity,
+    final int locationCapacity)
+  {
+    final var attributes =
+      Attributes.create(throwable -> LOG.error("Exception: ", throwable));
+
+    this.items =
+      new CAGLRUCache<>(attributes, itemCapacity);
+    this.locations =
+      new CAGLRUCache<>(attributes, locationCapacity);
+  }
+
+  /**
+   * Create an entity cache.
+   *
+   * @param events           The event service
+   * @param clients          The client service
+   * @param itemCapacity     The maximum number of cached items
+   * @param locationCapacity The maximum number of cached locations
+   *
+   * @return The cache service
+   */
+
+  public static CAGEntityCacheServiceType create(
+    final CAGEventServiceType events,
+    final CAGClientServiceType clients,
+    final int itemCapacity,
+    final int locationCapacity)
+  {
+    Objects.requireNonNull(events, "events");
+    Objects.requireNonNull(clients, "clients");
+
+    final var service =
+      new CAGEntityCacheService(itemCapacity, locationCapacity);
+
+    service.trackResource(
+      clients.status().subscribe((oldStatus, newStatus) -> {
+        service.onClientStatusChanged(newStatus);
+      })
+    );
+
+    final var subscriber =
+      service.trackResource(
+        CAGCloseableSubscriber.create(service::onEvent));
+
+    events.events().subscribe(subscriber);
+    return service;
+  }
+
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
+  {
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.items.clear();
+    this.locations.clear();
+  }
+
+  private void onEvent(
+    final CAGEventType event)
+  {
+    switch (event) {
+      case final CAGEventItemDeleted e -> {
+        this.items.remove(e.item());
+      }
+      case final CAGEventItemUpdated e -> {
+        this.items.put(e.item().id(), e.item());
+      }
+      case final CAGEventLocationDeleted e -> {
+        this.locations.remove(e.location());
+      }
+      case final CAGEventLocationUpdated e -> {
+        this.locations.put(e.location().id(), e.location());
+      }
+    }
+  }
+
+  @Override
+  public Optional<CAItem> item(
+    final CAItemID id)
+  {
+    return this.items.get(Objects.requireNonNull(id, "id"));
+  }
+
+  @Override
+  public Optional<CALocation> location(
+    final CALocationID id)
+  {
+    return this.locations.get(Objects.requireNonNull(id, "id"));
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> itemStatistics()
+  {
+    return this.items.statistics();
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> locationStatistics()
+  {
+    return this.locations.statistics();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Entity cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGEntityCacheService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
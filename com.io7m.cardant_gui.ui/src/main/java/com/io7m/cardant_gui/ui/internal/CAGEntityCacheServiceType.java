@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAItem;
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CALocation;
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.Optional;
+
+/**
+ * A cache of the most recently fetched items and locations. The cache is
+ * filled and invalidated by events, and so values may be stale; callers
+ * should treat cached values as a placeholder to display while fetching
+ * the current value from the server.
+ */
+
+public interface CAGEntityCacheServiceType extends RPServiceType
+{
+  /**
+   * @param id The item ID
+   *
+   * @return The cached item, if any
+   */
+
+  Optional<CAItem> item(CAItemID id);
+
+  /**
+   * @param id The location ID
+   *
+   * @return The cached location, if any
+   */
+
+  Optional<CALocation> location(CALocationID id);
+
+  /**
+   * @return The item cache statistics
+   */
+
+  AttributeReadableType<CAGCacheStatistics> itemStatistics();
+
+  /**
+   * @return The location cache statistics
+   */
+
+  AttributeReadableType<CAGCacheStatistics> locationStatistics();
+}
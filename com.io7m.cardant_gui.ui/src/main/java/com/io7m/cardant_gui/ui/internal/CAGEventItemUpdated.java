@@ -24,17 +24,22 @@ import java.util.Objects;
 /**
  * An item was updated.
  *
- * @param item The item
+ * @param item     The item
+ * @param modified {@code true} if the item was changed by the command that
+ *                 returned it, {@code false} if the item was only read
  */
 
 public record CAGEventItemUpdated(
-  CAItem item)
+  CAItem item,
+  boolean modified)
   implements CAGEventType
 {
   /**
    * An item was updated.
    *
-   * @param item The item
+   * @param item     The item
+   * @param modified {@code true} if the item was changed by the command that
+   *                 returned it, {@code false} if the item was only read
    */
 
   public CAGEventItemUpdated
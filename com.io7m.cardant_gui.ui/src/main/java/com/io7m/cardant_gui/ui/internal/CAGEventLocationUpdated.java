@@ -24,17 +24,22 @@ import java.util.Objects;
 /**
  * A location was updated.
  *
- * @param location The location
+ * @param location     The location
+ * @param modified {@code true} if the location was changed by the command that
+ *                 returned it, {@code false} if the location was only read
  */
 
 public record CAGEventLocationUpdated(
-  CALocation location)
+  CALocation location,
+  boolean modified)
   implements CAGEventType
 {
   /**
    * A location was updated.
    *
-   * @param location The location
+   * @param location     The location
+   * @param modified {@code true} if the location was changed by the command that
+   *                 returned it, {@code false} if the location was only read
    */
 
   public CAGEventLocationUpdated
@@ -22,7 +22,10 @@ package com.io7m.cardant_gui.ui.internal;
  */
 
 public sealed interface CAGEventType
-  permits CAGEventItemDeleted, CAGEventItemUpdated, CAGEventLocationUpdated
+  permits CAGEventItemDeleted,
+  CAGEventItemUpdated,
+  CAGEventLocationDeleted,
+  CAGEventLocationUpdated
 {
 
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.util.Objects;
+
+/**
+ * Statistics for the FX thread dispatcher.
+ *
+ * @param dispatched The number of tasks that have been run
+ * @param coalesced  The number of tasks that were superseded by a later
+ *                   task with the same key before they could run
+ * @param yields     The number of times the dispatcher yielded the FX
+ *                   thread with tasks still queued
+ * @param queueDelay The time tasks spent waiting for the FX thread
+ */
+
+public record CAGFXDispatchStatistics(
+  long dispatched,
+  long coalesced,
+  long yields,
+  CAGLatencySnapshot queueDelay)
+{
+  /**
+   * Statistics for the FX thread dispatcher.
+   *
+   * @param dispatched The number of tasks that have been run
+   * @param coalesced  The number of tasks that were superseded by a later
+   *                   task with the same key before they could run
+   * @param yields     The number of times the dispatcher yielded the FX
+   *                   thread with tasks still queued
+   * @param queueDelay The time tasks spent waiting for the FX thread
+   */
+
+  public CAGFXDispatchStatistics
+  {
+    Objects.requireNonNull(queueDelay, "queueDelay");
+  }
+}
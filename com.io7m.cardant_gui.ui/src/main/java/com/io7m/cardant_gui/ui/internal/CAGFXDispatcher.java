@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A dispatcher that hands tasks to the FX application thread in batches.
+ * Tasks are held in a single queue, and at most one request to drain the
+ * queue is posted to the FX thread at any one time, so a burst of tasks
+ * costs one FX event rather than one event per task. A drain runs tasks
+ * until the queue is empty or the time budget is exhausted, in which case
+ * it yields the FX thread (so that layout and rendering can proceed) and
+ * posts another drain for the remaining tasks.
+ *
+ * A task submitted with a key replaces any task with an equal key that has
+ * not yet run. The replacement runs at the queue position of the task it
+ * replaced, so only the most recent task for each key runs, and runs no
+ * later than the first would have.
+ */
+
+public final class CAGFXDispatcher
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGFXDispatcher.class);
+
+  private final Consumer<Runnable> post;
+  private final long budgetNanos;
+  private final ConcurrentLinkedQueue<Task> queue;
+  private final ConcurrentHashMap<Object, Runnable> keyed;
+  private final AtomicBoolean scheduled;
+  private final CAGLatencyHistogram queueDelay;
+  private final LongAdder dispatched;
+  private final LongAdder coalesced;
+  private final LongAdder yields;
+
+  /**
+   * A queued task. A keyed task has no runnable of its own; it runs
+   * whatever runnable is most recently associated with its key.
+   */
+
+  private record Task(
+    Object key,
+    Runnable runnable,
+    long timeSubmitted)
+  {
+
+  }
+
+  /**
+   * Create a dispatcher.
+   *
+   * @param inPost   A function that runs a task on the FX thread at some
+   *                 point in the future
+   * @param inBudget The maximum time to spend running tasks before yielding
+   */
+
+  public CAGFXDispatcher(
+    final Consumer<Runnable> inPost,
+    final Duration inBudget)
+  {
+    this.post =
+      Objects.requireNonNull(inPost, "post");
+    this.budgetNanos =
+      Objects.requireNonNull(inBudget, "budget").toNanos();
+    this.queue =
+      new ConcurrentLinkedQueue<>();
+    this.keyed =
+      new ConcurrentHashMap<>();
+    this.scheduled =
+      new AtomicBoolean(false);
+    this.queueDelay =
+      new CAGLatencyHistogram();
+    this.dispatched =
+      new LongAdder();
+    this.coalesced =
+      new LongAdder();
+    this.yields =
+      new LongAdder();
+  }
+
+  /**
+   * Run the given task on the FX thread at some point in the future.
+   *
+   * @param runnable The task
+   */
+
+  public void submit(
+    final Runnable runnable)
+  {
+    Objects.requireNonNull(runnable, "runnable");
+    this.queue.add(new Task(null, runnable, System.nanoTime()));
+    this.schedule();
+  }
+
+  /**
+   * Run the given task on the FX thread at some point in the future,
+   * replacing any task with an equal key that has not yet run.
+   *
+   * @param key      The key
+   * @param runnable The task
+   */
+
+  public void submitCoalesced(
+    final Object key,
+    final Runnable runnable)
+  {
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(runnable, "runnable");
+
+    if (this.keyed.put(key, runnable) != null) {
+      this.coalesced.increment();
+      return;
+    }
+    this.queue.add(new Task(key, null, System.nanoTime()));
+    this.schedule();
+  }
+
+  /**
+   * @return The dispatcher statistics
+   */
+
+  public CAGFXDispatchStatistics statistics()
+  {
+    return new CAGFXDispatchStatistics(
+      this.dispatched.sum(),
+      this.coalesced.sum(),
+      this.yields.sum(),
+      this.queueDelay.snapshot()
+    );
+  }
+
+  private void schedule()
+  {
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.post.accept(this::drain);
+    }
+  }
+
+  private void drain()
+  {
+    var yielded = false;
+    try {
+      yielded = this.drainWithinBudget();
+    } finally {
+
+      /*
+       * The flag is cleared even if a task raised an error, as otherwise
+       * no drain would ever be posted again. A task might also have been
+       * queued after the queue was found to be empty but before the flag
+       * was cleared; its submitter will have seen the flag set and so will
+       * not have posted a drain.
+       */
+
+      if (!yielded) {
+        this.scheduled.set(false);
+        if (!this.queue.isEmpty()) {
+          this.schedule();
+        }
+      }
+    }
+  }
+
+  /**
+   * Run tasks until the queue is empty or the budget is exhausted.
+   *
+   * @return {@code true} if another drain was posted for the remaining tasks
+   */
+
+  private boolean drainWithinBudget()
+  {
+    final var timeStarted = System.nanoTime();
+
+    while (true) {
+      final var task = this.queue.poll();
+      if (task == null) {
+        return false;
+      }
+
+      final var timeNow = System.nanoTime();
+      this.queueDelay.recordNanos(timeNow - task.timeSubmitted());
+      this.run(task);
+
+      if (System.nanoTime() - timeStarted >= this.budgetNanos
+          && !this.queue.isEmpty()) {
+        this.yields.increment();
+        this.post.accept(this::drain);
+        return true;
+      }
+    }
+  }
+
+  private void run(
+    final Task task)
+  {
+    final Runnable runnable;
+    if (task.key() != null) {
+      runnable = this.keyed.remove(task.key());
+    } else {
+      runnable = task.runnable();
+    }
+
+    this.dispatched.increment();
+    try {
+      runnable.run();
+    } catch (final RuntimeException e) {
+      LOG.error("Exception raised by FX task: ", e);
+    }
+  }
+}
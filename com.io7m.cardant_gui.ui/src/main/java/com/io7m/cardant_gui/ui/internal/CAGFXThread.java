@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import javafx.application.Platform;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Functions to hand work over to the FX application thread. All work is
+ * handed over through a single {@link CAGFXDispatcher}, so that the cost
+ * of applying updates to the UI is bounded per frame regardless of how
+ * quickly updates arrive.
+ */
+
+public final class CAGFXThread
+{
+  /**
+   * The maximum time to spend running tasks before allowing the FX thread
+   * to render a frame. This is half of a frame at 60 frames per second.
+   */
+
+  private static final Duration FRAME_BUDGET =
+    Duration.ofMillis(8L);
+
+  private static final CAGFXDispatcher DISPATCHER =
+    new CAGFXDispatcher(Platform::runLater, FRAME_BUDGET);
+
+  private CAGFXThread()
+  {
+
+  }
+
+  /**
+   * Run the given function on the FX application thread at some point in
+   * the future. If the caller is executing within a traced operation, the
+   * handoff is recorded as a child span covering both the time spent
+   * waiting for the FX thread and the time spent running the function.
+   *
+   * @param runnable The function
+   */
+
+  public static void runLater(
+    final Runnable runnable)
+  {
+    Objects.requireNonNull(runnable, "runnable");
+
+    DISPATCHER.submit(traced(runnable));
+  }
+
+  /**
+   * Run the given function on the FX application thread at some point in
+   * the future, replacing any function submitted with an equal key that
+   * has not yet run. This is intended for updates where only the most
+   * recent value matters, such as status messages, progress indicators,
+   * and the replacement of the contents of lists. Coalesced functions are
+   * not traced, as a function that is replaced would otherwise leave an
+   * unfinished span behind.
+   *
+   * @param key      The key
+   * @param runnable The function
+   */
+
+  public static void runLaterCoalesced(
+    final Object key,
+    final Runnable runnable)
+  {
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(runnable, "runnable");
+
+    DISPATCHER.submitCoalesced(key, runnable);
+  }
+
+  /**
+   * @return The current dispatcher statistics
+   */
+
+  public static CAGFXDispatchStatistics statistics()
+  {
+    return DISPATCHER.statistics();
+  }
+
+  private static Runnable traced(
+    final Runnable runnable)
+  {
+    final var context = Context.current();
+    if (!Span.fromContext(context).getSpanContext().isValid()) {
+      return runnable;
+    }
+
+    final var span =
+      GlobalOpenTelemetry.getTracer("com.io7m.cardant_gui")
+        .spanBuilder("Platform.runLater")
+        .setParent(context)
+        .startSpan();
+
+    return () -> {
+      span.addEvent("Started");
+      try (var ignored = span.makeCurrent()) {
+        runnable.run();
+      } finally {
+        span.end();
+      }
+    };
+  }
+}
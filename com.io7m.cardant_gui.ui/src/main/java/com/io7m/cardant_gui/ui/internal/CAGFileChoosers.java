@@ -17,7 +17,6 @@
 
 package com.io7m.cardant_gui.ui.internal;
 
-import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileListType;
 import com.io7m.jwheatsheaf.api.JWFileChooserConfiguration;
 import com.io7m.jwheatsheaf.api.JWFileChooserFilterType;
@@ -33,6 +32,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 
 import static com.io7m.darco.api.DDatabaseUnit.UNIT;
@@ -47,8 +47,9 @@ public final class CAGFileChoosers implements CAGFileChoosersType
     new JWOxygenIconSet();
 
   private final JWFileChoosersType choosers;
-  private final CAGDatabaseType database;
+  private final CAGDatabaseResultCacheServiceType queries;
   private Path mostRecentDirectory;
+  private volatile List<Path> recentFiles;
 
   /**
    * The file chooser service.
@@ -59,32 +60,48 @@ public final class CAGFileChoosers implements CAGFileChoosersType
   public CAGFileChoosers(
     final RPServiceDirectoryType services)
   {
-    this.database =
-      services.requireService(CAGDatabaseType.class);
+    this.queries =
+      services.requireService(CAGDatabaseResultCacheServiceType.class);
 
     this.choosers =
       JWFileChoosers.createWith(
         Executors.newVirtualThreadPerTaskExecutor(),
         Locale.getDefault()
       );
+
+    this.recentFiles = List.of();
+    this.refreshRecentFiles();
+  }
+
+  /**
+   * Fetch the list of recent files in the background. File choosers are
+   * created on the FX application thread, and so cannot wait for the
+   * database; a chooser is given the most recently fetched list.
+   */
+
+  private CompletableFuture<List<Path>> refreshRecentFiles()
+  {
+    return this.queries.execute(CAGRecentFileListType.class, UNIT)
+      .thenApply(files -> {
+        this.recentFiles = files;
+        return files;
+      })
+      .exceptionally(e -> this.recentFiles);
   }
 
   @Override
   public JWFileChooserType create(
     final JWFileChooserConfiguration configuration)
   {
-    List<Path> recentFiles;
-    try (var t = this.database.openTransaction()) {
-      recentFiles = t.query(CAGRecentFileListType.class).execute(UNIT);
-    } catch (final Exception e) {
-      recentFiles = List.of();
-    }
+    final var recentFilesNow =
+      this.refreshRecentFiles()
+        .getNow(this.recentFiles);
 
     final var builder =
       JWFileChooserConfiguration.builder()
         .from(configuration)
         .setFileImageSet(OXYGEN_ICON_SET)
-        .setRecentFiles(recentFiles);
+        .setRecentFiles(recentFilesNow);
 
     if (this.mostRecentDirectory != null) {
       builder.setInitialDirectory(this.mostRecentDirectory);
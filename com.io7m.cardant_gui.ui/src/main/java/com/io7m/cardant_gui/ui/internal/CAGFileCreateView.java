@@ -18,13 +18,10 @@
 package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.model.CAFileID;
-import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAddType;
-import com.io7m.darco.api.DDatabaseException;
 import com.io7m.jwheatsheaf.api.JWFileChooserAction;
 import com.io7m.jwheatsheaf.api.JWFileChooserConfiguration;
 import com.io7m.repetoir.core.RPServiceDirectoryType;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -59,7 +56,7 @@ public final class CAGFileCreateView
   private final Stage stage;
   private final ExecutorService executor;
   private final SimpleObjectProperty<FileDetails> fileDetails;
-  private final CAGDatabaseType database;
+  private final CAGDatabaseResultCacheServiceType queries;
   private final CAGFileTransferControllerType transfers;
 
   @FXML private TextField file;
@@ -83,8 +80,8 @@ public final class CAGFileCreateView
   {
     this.choosers =
       services.requireService(CAGFileChoosersType.class);
-    this.database =
-      services.requireService(CAGDatabaseType.class);
+    this.queries =
+      services.requireService(CAGDatabaseResultCacheServiceType.class);
     this.transfers =
       services.requireService(CAGFileTransferControllerType.class);
 
@@ -189,23 +186,23 @@ public final class CAGFileCreateView
       try {
         details = fileDetailsOf(chosen);
       } catch (final Exception e) {
-        Platform.runLater(() -> this.fileDetails.set(null));
+        CAGFXThread.runLater(() -> this.fileDetails.set(null));
         return;
       }
 
-      Platform.runLater(() -> this.fileDetails.set(details));
+      CAGFXThread.runLater(() -> this.fileDetails.set(details));
     });
   }
 
   private void addRecentFile(
     final Path newFile)
   {
-    try (var t = this.database.openTransaction()) {
-      t.query(CAGRecentFileAddType.class).execute(newFile);
-      t.commit();
-    } catch (final DDatabaseException e) {
-      // Nothing can be done.
-    }
+    /*
+     * Recording a recent file is not worth a transaction of its own, and
+     * nothing can be done if it fails.
+     */
+
+    this.queries.executeDeferred(CAGRecentFileAddType.class, newFile);
   }
 
   private record FileDetails(
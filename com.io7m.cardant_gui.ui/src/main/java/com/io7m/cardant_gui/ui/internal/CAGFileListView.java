@@ -22,9 +22,7 @@ import com.io7m.cardant.model.CAFileType.CAFileWithoutData;
 import com.io7m.cardant_gui.ui.internal.CAGTransferStatusType.Downloading;
 import com.io7m.cardant_gui.ui.internal.CAGTransferStatusType.Idle;
 import com.io7m.cardant_gui.ui.internal.CAGTransferStatusType.Uploading;
-import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAddType;
-import com.io7m.darco.api.DDatabaseException;
 import com.io7m.jwheatsheaf.api.JWFileChooserAction;
 import com.io7m.jwheatsheaf.api.JWFileChooserConfiguration;
 import com.io7m.repetoir.core.RPServiceDirectoryType;
@@ -60,11 +58,13 @@ public final class CAGFileListView
   private final CAGStringsType strings;
   private final CAGFileViewDialogs dialogs;
   private final CAGFileChoosersType choosers;
-  private final CAGDatabaseType database;
+  private final CAGDatabaseResultCacheServiceType queries;
   private final CAGFileTransferControllerType transfers;
   private CAGFileSearchControllerType search;
 
   @FXML private Label resultsLabel;
+  @FXML private Button pageNext;
+  @FXML private Button pagePrevious;
   @FXML private Button fileDownload;
   @FXML private Button fileAdd;
   @FXML private Button fileRemove;
@@ -91,8 +91,8 @@ public final class CAGFileListView
       services.requireService(CAGFileChoosersType.class);
     this.transfers =
       services.requireService(CAGFileTransferControllerType.class);
-    this.database =
-      services.requireService(CAGDatabaseType.class);
+    this.queries =
+      services.requireService(CAGDatabaseResultCacheServiceType.class);
   }
 
   /**
@@ -156,6 +156,11 @@ public final class CAGFileListView
           Long.valueOf(range.pageCount())
         )
       );
+
+      this.pagePrevious
+        .setDisable(!range.hasPrevious());
+      this.pageNext
+        .setDisable(!range.hasNext());
     } else {
       this.resultsLabel.setText("");
     }
@@ -302,23 +307,23 @@ public final class CAGFileListView
   private void addRecentFile(
     final Path file)
   {
-    try (var t = this.database.openTransaction()) {
-      t.query(CAGRecentFileAddType.class).execute(file);
-      t.commit();
-    } catch (final DDatabaseException e) {
-      // Nothing can be done.
-    }
+    /*
+     * Recording a recent file is not worth a transaction of its own, and
+     * nothing can be done if it fails.
+     */
+
+    this.queries.executeDeferred(CAGRecentFileAddType.class, file);
   }
 
   @FXML
   private void onPageNextSelected()
   {
-
+    this.search.fileSearchNext();
   }
 
   @FXML
   private void onPagePreviousSelected()
   {
-
+    this.search.fileSearchPrevious();
   }
 }
@@ -20,7 +20,9 @@ package com.io7m.cardant_gui.ui.internal;
 import com.io7m.cardant.model.CAFileSearchParameters;
 import com.io7m.cardant.model.CAFileType.CAFileWithoutData;
 import com.io7m.cardant.protocol.inventory.CAICommandFileSearchBegin;
-import javafx.application.Platform;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandFileSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAIResponseFileSearch;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -40,13 +42,34 @@ public final class CAGFileSearchController
   private final ObservableList<CAFileWithoutData> filesRead;
   private final SimpleObjectProperty<CAGPageRange> pages;
   private final CAGClientServiceType client;
+  private final CAGSearchCursor<CAFileSearchParameters, CAIResponseFileSearch> cursor;
+  private final CAGSearchPager<CAFileSearchParameters, CAIResponseFileSearch> pager;
   private final SimpleObjectProperty<Optional<CAFileWithoutData>> fileSelected;
+  private CAFileSearchParameters searchParameters;
 
   private CAGFileSearchController(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGSearchPageCacheServiceType inPageCache)
   {
     this.client =
       Objects.requireNonNull(inClient, "client");
+    this.cursor =
+      inPageCache.cursor(
+        CAFileSearchParameters.class,
+        () -> new CAGSearchCursor<>(
+          this.client::execute,
+          CAICommandFileSearchBegin::new,
+          CAICommandFileSearchNext::new,
+          CAICommandFileSearchPrevious::new,
+          CAGFileSearchController::rangeOf
+        )
+      );
+    this.pager =
+      new CAGSearchPager<>(
+        inPageCache,
+        this.cursor,
+        CAGFileSearchController::rangeOf
+      );
     this.files =
       FXCollections.observableArrayList();
     this.filesRead =
@@ -58,42 +81,83 @@ public final class CAGFileSearchController
   }
 
   /**
-   * @param client The client
+   * @param client    The client
+   * @param pageCache The search page cache
    *
    * @return A file search controller.
    */
 
   public static CAGFileSearchControllerType create(
-    final CAGClientServiceType client)
+    final CAGClientServiceType client,
+    final CAGSearchPageCacheServiceType pageCache)
   {
-    final var controller = new CAGFileSearchController(client);
+    final var controller = new CAGFileSearchController(client, pageCache);
     client.status().subscribe((oldStatus, newStatus) -> {
-      controller.onClientStatusChanged();
+      controller.onClientStatusChanged(newStatus);
     });
     return controller;
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
   {
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.searchParameters = null;
     this.files.clear();
     this.pages.set(CAGPageRange.zero());
   }
 
+  private static CAGPageRange rangeOf(
+    final CAIResponseFileSearch response)
+  {
+    final var data = response.data();
+    return new CAGPageRange((long) data.pageIndex(), (long) data.pageCount());
+  }
+
   @Override
   public void fileSearchBegin(
-    final CAFileSearchParameters searchParameters)
+    final CAFileSearchParameters parameters)
+  {
+    this.searchParameters =
+      Objects.requireNonNull(parameters, "parameters");
+
+    this.fileSearchPage(1L);
+  }
+
+  @Override
+  public void fileSearchPage(
+    final long pageIndex)
   {
-    this.client.execute(new CAICommandFileSearchBegin(searchParameters))
-      .thenAccept(response -> {
-        Platform.runLater(() -> {
-          final var data = response.data();
-          this.files.setAll(data.items());
-          this.pages.set(new CAGPageRange(
-            (long) data.pageIndex(),
-            (long) data.pageCount()
-          ));
-        });
+    final var parameters = this.searchParameters;
+    if (parameters == null) {
+      return;
+    }
+
+    this.pager.page(parameters, pageIndex).thenAccept(response -> {
+      CAGFXThread.runLaterCoalesced(this.pages, () -> {
+        CAGListDiff.apply(
+          this.files,
+          response.data().items(),
+          CAFileWithoutData::id
+        );
+        this.pages.set(rangeOf(response));
       });
+    });
+  }
+
+  @Override
+  public void fileSearchNext()
+  {
+    this.fileSearchPage(this.pages.get().pageIndex() + 1L);
+  }
+
+  @Override
+  public void fileSearchPrevious()
+  {
+    this.fileSearchPage(this.pages.get().pageIndex() - 1L);
   }
 
   @Override
@@ -39,6 +39,27 @@ public interface CAGFileSearchControllerType
   void fileSearchBegin(
     CAFileSearchParameters searchParameters);
 
+  /**
+   * Show the given page of the current search.
+   *
+   * @param pageIndex The page index (indexed from 1)
+   */
+
+  void fileSearchPage(
+    long pageIndex);
+
+  /**
+   * Show the next page of the current search.
+   */
+
+  void fileSearchNext();
+
+  /**
+   * Show the previous page of the current search.
+   */
+
+  void fileSearchPrevious();
+
   /**
    * @return The files for the current search query
    */
@@ -19,7 +19,7 @@ package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.client.api.CAClientTransferStatistics;
 import com.io7m.cardant.model.CAFileID;
-import javafx.application.Platform;
+import com.io7m.cardant.model.CAFileSearchParameters;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 
@@ -36,27 +36,33 @@ public final class CAGFileTransferController
   implements CAGFileTransferControllerType
 {
   private final CAGClientServiceType client;
+  private final CAGSearchPageCacheServiceType pages;
   private final SimpleObjectProperty<CAGTransferStatusType> transferStatus;
 
   /**
    * A file transfer controller.
    *
    * @param inClient The client
+   * @param inPages  The search page cache
    *
    * @return The controller
    */
 
   public static CAGFileTransferControllerType create(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGSearchPageCacheServiceType inPages)
   {
-    return new CAGFileTransferController(inClient);
+    return new CAGFileTransferController(inClient, inPages);
   }
 
   private CAGFileTransferController(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGSearchPageCacheServiceType inPages)
   {
     this.client =
       Objects.requireNonNull(inClient, "client");
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
     this.transferStatus =
       new SimpleObjectProperty<>(IDLE);
   }
@@ -75,12 +81,19 @@ public final class CAGFileTransferController
         contentType,
         description,
         statistics -> {
-          Platform.runLater(() -> this.onUploadStatisticsChanged(statistics));
+          CAGFXThread.runLaterCoalesced(
+            this.transferStatus,
+            () -> this.onUploadStatisticsChanged(statistics)
+          );
         }
       );
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> this.transferStatus.set(IDLE));
+      this.pages.invalidate(CAFileSearchParameters.class);
+      CAGFXThread.runLaterCoalesced(
+        this.transferStatus,
+        () -> this.transferStatus.set(IDLE)
+      );
     });
   }
 
@@ -102,12 +115,18 @@ public final class CAGFileTransferController
         hashAlgorithm,
         hashValue,
         statistics -> {
-          Platform.runLater(() -> this.onDownloadStatisticsChanged(statistics));
+          CAGFXThread.runLaterCoalesced(
+            this.transferStatus,
+            () -> this.onDownloadStatisticsChanged(statistics)
+          );
         }
       );
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> this.transferStatus.set(IDLE));
+      CAGFXThread.runLaterCoalesced(
+        this.transferStatus,
+        () -> this.transferStatus.set(IDLE)
+      );
     });
   }
 
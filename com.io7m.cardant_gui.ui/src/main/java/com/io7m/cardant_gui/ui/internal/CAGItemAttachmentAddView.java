@@ -78,7 +78,10 @@ public final class CAGItemAttachmentAddView
       services.requireService(CAGClientServiceType.class);
 
     this.fileSearchController =
-      CAGFileSearchController.create(this.client);
+      CAGFileSearchController.create(
+        this.client,
+        services.requireService(CAGSearchPageCacheServiceType.class)
+      );
     this.itemController =
       arguments.detailsController();
     this.itemId =
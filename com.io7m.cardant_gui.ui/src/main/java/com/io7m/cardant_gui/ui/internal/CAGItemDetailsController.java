@@ -23,13 +23,16 @@ import com.io7m.cardant.protocol.inventory.CAICommandItemAttachmentAdd;
 import com.io7m.cardant.protocol.inventory.CAICommandItemCreate;
 import com.io7m.cardant.protocol.inventory.CAICommandItemDelete;
 import com.io7m.cardant.protocol.inventory.CAICommandItemGet;
-import javafx.application.Platform;
+import com.io7m.cardant.protocol.inventory.CAIResponseItemGet;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
 
 import java.util.Objects;
 
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+
 /**
  * An item details controller.
  */
@@ -40,30 +43,34 @@ public final class CAGItemDetailsController
 {
   private final CAGClientServiceType client;
   private final CAGEventServiceType events;
+  private final CAGEntityCacheServiceType cache;
   private final CAGItemModelType itemSelected;
   private final ObservableList<CAItemSummary> items;
   private final SortedList<CAItemSummary> itemsSorted;
   private final ObservableList<CAItemSummary> itemsRead;
+  private final CAGLatestRequest<CAIResponseItemGet> itemSelectRequest;
 
   /**
    * Create a controller.
    *
    * @param events  The event service
    * @param clients The client service
+   * @param cache   The entity cache
    *
    * @return A controller
    */
 
   public static CAGItemDetailsControllerType create(
     final CAGEventServiceType events,
-    final CAGClientServiceType clients)
+    final CAGClientServiceType clients,
+    final CAGEntityCacheServiceType cache)
   {
     final var controller =
-      new CAGItemDetailsController(clients, events);
+      new CAGItemDetailsController(clients, events, cache);
 
     controller.trackResource(
       clients.status().subscribe((oldStatus, newStatus) -> {
-        controller.onClientStatusChanged();
+        controller.onClientStatusChanged(newStatus);
       })
     );
 
@@ -80,10 +87,13 @@ public final class CAGItemDetailsController
   {
     switch (event) {
       case final CAGEventItemDeleted e -> {
-        Platform.runLater(() -> this.itemSelected.clearIfMatchingID(e.item()));
+        CAGFXThread.runLater(() -> this.itemSelected.clearIfMatchingID(e.item()));
       }
       case final CAGEventItemUpdated e -> {
-        Platform.runLater(() -> this.itemSelected.updateIfMatchingID(e.item()));
+        CAGFXThread.runLater(() -> this.itemSelected.updateIfMatchingID(e.item()));
+      }
+      case final CAGEventLocationDeleted e -> {
+        // Nothing to do
       }
       case final CAGEventLocationUpdated e -> {
         // Nothing to do
@@ -91,20 +101,28 @@ public final class CAGItemDetailsController
     }
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
   {
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
     this.items.clear();
     this.itemSelected.clear();
   }
 
   private CAGItemDetailsController(
     final CAGClientServiceType inClientService,
-    final CAGEventServiceType inEvents)
+    final CAGEventServiceType inEvents,
+    final CAGEntityCacheServiceType inCache)
   {
     this.client =
       Objects.requireNonNull(inClientService, "inClientService");
     this.events =
       Objects.requireNonNull(inEvents, "events");
+    this.cache =
+      Objects.requireNonNull(inCache, "cache");
 
     this.itemSelected =
       CAGItemModel.create();
@@ -114,6 +132,8 @@ public final class CAGItemDetailsController
       new SortedList<>(this.items);
     this.itemsRead =
       FXCollections.unmodifiableObservableList(this.items);
+    this.itemSelectRequest =
+      new CAGLatestRequest<>();
   }
 
   @Override
@@ -132,19 +152,28 @@ public final class CAGItemDetailsController
   public void itemSelect(
     final CAItemID id)
   {
-    final var future =
-      this.client.execute(new CAICommandItemGet(id));
+    /*
+     * Show the cached item (if any) immediately, and then revalidate it
+     * against the server. The user is not waiting for the revalidation of
+     * a cached item, so it yields to interactive commands.
+     */
 
-    future.thenAccept(response -> {
-      Platform.runLater(() -> {
-        this.itemSelected.update(response.data());
-      });
-    });
+    final var cached = this.cache.item(id);
+    cached.ifPresent(this.itemSelected::update);
+
+    final var priority =
+      cached.isPresent() ? BACKGROUND : INTERACTIVE;
+
+    this.itemSelectRequest.submit(
+      () -> this.client.execute(new CAICommandItemGet(id), priority),
+      response -> this.itemSelected.update(response.data())
+    );
   }
 
   @Override
   public void itemSelectNothing()
   {
+    this.itemSelectRequest.cancel();
     this.itemSelected.clear();
   }
 
@@ -152,8 +181,14 @@ public final class CAGItemDetailsController
   public void itemAttachmentAdd(
     final CAICommandItemAttachmentAdd command)
   {
-    this.client.execute(command);
-    this.itemSelect(command.item());
+    this.itemSelectRequest.cancel();
+
+    this.client.executePipeline(context -> {
+      context.execute(command);
+      return context.execute(new CAICommandItemGet(command.item()));
+    }).thenAccept(response -> {
+      CAGFXThread.runLater(() -> this.itemSelected.update(response.data()));
+    });
   }
 
   @Override
@@ -167,8 +202,14 @@ public final class CAGItemDetailsController
     final CAItemID id,
     final String name)
   {
-    this.client.execute(new CAICommandItemCreate(id, name));
-    this.itemSelect(id);
+    this.itemSelectRequest.cancel();
+
+    this.client.executePipeline(context -> {
+      context.execute(new CAICommandItemCreate(id, name));
+      return context.execute(new CAICommandItemGet(id));
+    }).thenAccept(response -> {
+      CAGFXThread.runLater(() -> this.itemSelected.update(response.data()));
+    });
   }
 
   @Override
@@ -179,7 +220,7 @@ public final class CAGItemDetailsController
       this.client.execute(new CAICommandItemDelete(id));
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> {
+      CAGFXThread.runLater(() -> {
         this.itemSelected.clearIfMatchingID(id);
       });
       this.events.publish(new CAGEventItemDeleted(id));
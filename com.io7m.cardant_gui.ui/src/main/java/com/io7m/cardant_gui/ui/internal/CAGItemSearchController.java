@@ -20,14 +20,17 @@ package com.io7m.cardant_gui.ui.internal;
 import com.io7m.cardant.model.CAItemSearchParameters;
 import com.io7m.cardant.model.CAItemSummary;
 import com.io7m.cardant.protocol.inventory.CAICommandItemSearchBegin;
-import javafx.application.Platform;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandItemSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAIResponseItemSearch;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.SortedList;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An item search controller.
@@ -37,40 +40,81 @@ public final class CAGItemSearchController
   extends CAGAbstractResourceHolder
   implements CAGItemSearchControllerType
 {
-  private final ObservableList<CAItemSummary> itemsView;
-  private final SortedList<CAItemSummary> itemsViewSorted;
+  /**
+   * The maximum number of pages of results held in memory at any one time.
+   */
+
+  private static final int ITEM_PAGES_HELD = 16;
+
+  private final CAGLazyPagedList<CAItemSummary> itemsView;
+  private final ObservableList<CAItemSummary> itemsViewRead;
   private final SimpleObjectProperty<CAGPageRange> itemPages;
   private final CAGClientServiceType client;
+  private final CAGOfflineCacheServiceType offline;
+  private final CAGSearchPageCacheServiceType pages;
+  private final CAGSearchCursor<CAItemSearchParameters, CAIResponseItemSearch> cursor;
+  private final CAGSearchPager<CAItemSearchParameters, CAIResponseItemSearch> pager;
+  private volatile boolean itemsReceived;
 
   private CAGItemSearchController(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGOfflineCacheServiceType inOffline,
+    final CAGSearchPageCacheServiceType inPages)
   {
     this.client =
       Objects.requireNonNull(inClient, "client");
+    this.offline =
+      Objects.requireNonNull(inOffline, "offline");
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
+    this.cursor =
+      this.pages.cursor(
+        CAItemSearchParameters.class,
+        () -> new CAGSearchCursor<>(
+          this.client::execute,
+          CAICommandItemSearchBegin::new,
+          CAICommandItemSearchNext::new,
+          CAICommandItemSearchPrevious::new,
+          CAGItemSearchController::rangeOf
+        )
+      );
+    this.pager =
+      new CAGSearchPager<>(
+        this.pages,
+        this.cursor,
+        CAGItemSearchController::rangeOf
+      );
     this.itemsView =
-      FXCollections.observableArrayList();
-    this.itemsViewSorted =
-      new SortedList<>(this.itemsView);
+      new CAGLazyPagedList<>(ITEM_PAGES_HELD, CAItemSummary::id);
+    this.itemsViewRead =
+      FXCollections.unmodifiableObservableList(this.itemsView);
     this.itemPages =
       new SimpleObjectProperty<>(CAGPageRange.zero());
   }
 
   /**
-   * @param events The event service
-   * @param client The client
+   * @param events  The event service
+   * @param client  The client
+   * @param offline The offline cache
+   * @param pages   The search page cache
    *
    * @return An item search controller.
    */
 
   public static CAGItemSearchControllerType create(
     final CAGEventServiceType events,
-    final CAGClientServiceType client)
+    final CAGClientServiceType client,
+    final CAGOfflineCacheServiceType offline,
+    final CAGSearchPageCacheServiceType pages)
   {
-    final var controller = new CAGItemSearchController(client);
+    final var controller =
+      new CAGItemSearchController(client, offline, pages);
 
     controller.trackResource(
       client.status()
-        .subscribe((oldStatus, newStatus) -> controller.onClientStatusChanged())
+        .subscribe((oldStatus, newStatus) -> {
+          controller.onClientStatusChanged(oldStatus, newStatus);
+        })
     );
 
     final var subscriber =
@@ -86,62 +130,112 @@ public final class CAGItemSearchController
   {
     switch (event) {
       case final CAGEventItemDeleted e -> {
-        Platform.runLater(() -> {
-          this.itemsView.removeIf(i -> Objects.equals(i.id(), e.item()));
+        CAGFXThread.runLater(() -> {
+          this.pages.invalidate(CAItemSearchParameters.class);
+          this.itemsView.delete(e.item());
         });
       }
       case final CAGEventItemUpdated e -> {
-        Platform.runLater(() -> {
-          this.itemsView.replaceAll(summary -> {
-            if (Objects.equals(summary.id(), e.item().id())) {
-              return e.item().summary();
-            } else {
-              return summary;
-            }
-          });
+        CAGFXThread.runLater(() -> {
+          this.itemsView.replace(e.item().summary());
         });
       }
+      case final CAGEventLocationDeleted e -> {
+        // Nothing to do
+      }
       case final CAGEventLocationUpdated e -> {
         // Nothing to do
       }
     }
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus oldStatus,
+    final CAGClientStatus newStatus)
   {
-    this.itemsView.clear();
-    this.itemPages.set(CAGPageRange.zero());
+    if (newStatus == CAGClientStatus.CONNECTED
+        && oldStatus != CAGClientStatus.RECONNECTING) {
+      this.itemsRestore();
+      return;
+    }
+
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    /*
+     * The status is published on whichever thread changed it, but the
+     * list may only be touched on the FX thread.
+     */
+
+    CAGFXThread.runLater(() -> {
+      this.itemsReceived = false;
+      this.itemsView.discard();
+      this.itemPages.set(CAGPageRange.zero());
+    });
+  }
+
+  /**
+   * Display the items held in the offline cache, unless a search has
+   * already delivered results from the server.
+   */
+
+  private void itemsRestore()
+  {
+    this.offline.items().thenAccept(items -> {
+      if (items.isEmpty()) {
+        return;
+      }
+
+      CAGFXThread.runLater(() -> {
+        if (!this.itemsReceived) {
+          this.itemsView.resetStatic(items);
+        }
+      });
+    });
+  }
+
+  private static CAGPageRange rangeOf(
+    final CAIResponseItemSearch response)
+  {
+    final var data = response.data();
+    return new CAGPageRange((long) data.pageIndex(), (long) data.pageCount());
   }
 
   @Override
   public void itemSearchBegin(
     final CAItemSearchParameters parameters)
   {
-    this.client.execute(new CAICommandItemSearchBegin(parameters))
-      .thenAccept(response -> {
-        Platform.runLater(() -> {
-          final var data = response.data();
-          this.itemsView.setAll(data.items());
-          this.itemPages.set(
-            new CAGPageRange(
-              (long) data.pageIndex(),
-              (long) data.pageCount()
-            )
-          );
-        });
+    Objects.requireNonNull(parameters, "parameters");
+
+    this.pager.page(parameters, 1L).thenAccept(response -> {
+      CAGFXThread.runLaterCoalesced(this.itemPages, () -> {
+        final var data = response.data();
+        final var range = rangeOf(response);
+        this.itemsReceived = true;
+        this.offline.itemsSave(data.items());
+        this.itemPages.set(range);
+        this.itemsView.reset(
+          pageIndex -> this.itemPage(parameters, pageIndex),
+          range.pageCount(),
+          data.items()
+        );
       });
+    });
   }
 
-  @Override
-  public ObservableList<CAItemSummary> itemsView()
+  private CompletableFuture<List<CAItemSummary>> itemPage(
+    final CAItemSearchParameters parameters,
+    final long pageIndex)
   {
-    return FXCollections.unmodifiableObservableList(this.itemsView);
+    return this.pager.page(parameters, pageIndex)
+      .thenApply(response -> response.data().items());
   }
 
   @Override
-  public SortedList<CAItemSummary> itemsViewSorted()
+  public ObservableList<CAItemSummary> itemsView()
   {
-    return this.itemsViewSorted;
+    return this.itemsViewRead;
   }
 
   @Override
@@ -21,7 +21,6 @@ import com.io7m.cardant.model.CAItemSearchParameters;
 import com.io7m.cardant.model.CAItemSummary;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.SortedList;
 
 /**
  * The item search controller.
@@ -40,17 +39,16 @@ public interface CAGItemSearchControllerType
     CAItemSearchParameters parameters);
 
   /**
+   * The item search results. The list spans every page of the results, but
+   * pages are only loaded as elements are read; an element of a page that
+   * has not yet been loaded reads as {@code null}, and a change is
+   * announced when the page arrives.
+   *
    * @return The item search results
    */
 
   ObservableList<CAItemSummary> itemsView();
 
-  /**
-   * @return The item search results
-   */
-
-  SortedList<CAItemSummary> itemsViewSorted();
-
   /**
    * @return The item search result pages
    */
@@ -94,15 +94,11 @@ public final class CAGItemTableView
     this.details =
       Objects.requireNonNull(inDetails, "details");
 
-    this.search.itemsViewSorted()
-      .comparatorProperty()
-      .bind(this.mainItemTable.comparatorProperty());
-
     this.search.itemsView()
       .addListener(this::onItemsViewChanged);
 
     this.mainItemTable.setItems(
-      this.search.itemsViewSorted());
+      this.search.itemsView());
   }
 
   @Override
@@ -114,18 +110,32 @@ public final class CAGItemTableView
 
     this.mainItemTable.setPlaceholder(new Label(""));
 
-    this.colId.setSortable(true);
+    /*
+     * The table shows the entire result set, most of which is not loaded,
+     * so the rows cannot be sorted locally. Rows that have not yet been
+     * loaded have null values.
+     */
+
+    this.colId.setSortable(false);
     this.colId.setReorderable(false);
     this.colId.setCellValueFactory(
       param -> {
-        return new ReadOnlyStringWrapper(param.getValue().id().displayId());
+        final var item = param.getValue();
+        if (item == null) {
+          return new ReadOnlyStringWrapper("");
+        }
+        return new ReadOnlyStringWrapper(item.id().displayId());
       });
 
-    this.colName.setSortable(true);
+    this.colName.setSortable(false);
     this.colName.setReorderable(false);
     this.colName.setCellValueFactory(
       param -> {
-        return new ReadOnlyStringWrapper(param.getValue().name());
+        final var item = param.getValue();
+        if (item == null) {
+          return new ReadOnlyStringWrapper("");
+        }
+        return new ReadOnlyStringWrapper(item.name());
       });
 
     this.mainItemTable.getSelectionModel()
@@ -146,6 +156,10 @@ public final class CAGItemTableView
 
     if (selected.size() == 1) {
       final var selectedItem = selected.get(0);
+      if (selectedItem == null) {
+        this.details.itemSelectNothing();
+        return;
+      }
       this.itemRemove.setDisable(false);
       this.details.itemSelect(selectedItem.id());
       return;
@@ -157,14 +171,10 @@ public final class CAGItemTableView
   {
     final var size = c.getList().size();
     if (size > 0) {
-      final var range =
-        this.search.itemPages().getValue();
-
       this.resultsLabel.setText(
         this.strings.format(
-          CAGStringConstants.CARDANT_ITEMSEARCH_PAGEOF,
-          Long.valueOf(range.pageIndex()),
-          Long.valueOf(range.pageCount())
+          CAGStringConstants.CARDANT_ITEMSEARCH_COUNT,
+          Integer.valueOf(size)
         )
       );
     } else {
@@ -172,18 +182,6 @@ public final class CAGItemTableView
     }
   }
 
-  @FXML
-  private void onPagePreviousSelected()
-  {
-
-  }
-
-  @FXML
-  private void onPageNextSelected()
-  {
-
-  }
-
   @FXML
   private void onItemAddSelected()
     throws IOException
@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe, size-bounded, least-recently-used cache. The cache is
+ * bounded by the number of values and, optionally, by the total weight of
+ * the values as estimated by a weigher function.
+ *
+ * @param <K> The type of keys
+ * @param <V> The type of values
+ */
+
+public final class CAGLRUCache<K, V>
+{
+  private final LinkedHashMap<K, V> entries;
+  private final AttributeType<CAGCacheStatistics> statistics;
+  private final int capacity;
+  private final long maximumWeight;
+  private final ToLongFunction<V> weigher;
+  private long weight;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Create a cache bounded only by the number of values.
+   *
+   * @param attributes The attribute factory
+   * @param capacity   The maximum number of values
+   */
+
+  public CAGLRUCache(
+    final Attributes attributes,
+    final int capacity)
+  {
+    this(attributes, capacity, Long.MAX_VALUE, value -> 0L);
+  }
+
+  /**
+   * Create a cache bounded by the number and total weight of values.
+   *
+   * @param attributes      The attribute factory
+   * @param inCapacity      The maximum number of values
+   * @param inMaximumWeight The maximum total weight of values
+   * @param inWeigher       The function that estimates the weight of a value
+   */
+
+  public CAGLRUCache(
+    final Attributes attributes,
+    final int inCapacity,
+    final long inMaximumWeight,
+    final ToLongFunction<V> inWeigher)
+  {
+    Objects.requireNonNull(attributes, "attributes");
+
+    Preconditions.checkPreconditionV(
+      inCapacity >= 1,
+      "Capacity %d must be positive",
+      Integer.valueOf(inCapacity)
+    );
+    Preconditions.checkPreconditionV(
+      inMaximumWeight >= 1L,
+      "Maximum weight %d must be positive",
+      Long.valueOf(inMaximumWeight)
+    );
+
+    this.capacity =
+      inCapacity;
+    this.maximumWeight =
+      inMaximumWeight;
+    this.weigher =
+      Objects.requireNonNull(inWeigher, "weigher");
+    this.statistics =
+      attributes.withValue(CAGCacheStatistics.zero());
+    this.entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * @return The cache statistics
+   */
+
+  public AttributeReadableType<CAGCacheStatistics> statistics()
+  {
+    return this.statistics;
+  }
+
+  /**
+   * @param key The key
+   *
+   * @return The value associated with the key, if any
+   */
+
+  public Optional<V> get(
+    final K key)
+  {
+    final V value;
+    synchronized (this.entries) {
+      value = this.entries.get(key);
+      if (value != null) {
+        ++this.hits;
+      } else {
+        ++this.misses;
+      }
+      this.publishLocked();
+    }
+    return Optional.ofNullable(value);
+  }
+
+  /**
+   * Associate a value with a key. A value that is heavier than the maximum
+   * weight of the cache is not cached.
+   *
+   * @param key   The key
+   * @param value The value
+   */
+
+  public void put(
+    final K key,
+    final V value)
+  {
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(value, "value");
+
+    final var valueWeight = this.weigher.applyAsLong(value);
+
+    synchronized (this.entries) {
+      this.removeLocked(key);
+
+      if (valueWeight <= this.maximumWeight) {
+        this.entries.put(key, value);
+        this.weight += valueWeight;
+        this.evictLocked();
+      }
+      this.publishLocked();
+    }
+  }
+
+  private void evictLocked()
+  {
+    final var iterator = this.entries.values().iterator();
+    while (this.entries.size() > this.capacity
+           || this.weight > this.maximumWeight) {
+      final var eldest = iterator.next();
+      iterator.remove();
+      this.weight -= this.weigher.applyAsLong(eldest);
+      ++this.evictions;
+    }
+  }
+
+  private void removeLocked(
+    final K key)
+  {
+    final var existing = this.entries.remove(key);
+    if (existing != null) {
+      this.weight -= this.weigher.applyAsLong(existing);
+    }
+  }
+
+  /**
+   * Remove the value associated with a key.
+   *
+   * @param key The key
+   */
+
+  public void remove(
+    final K key)
+  {
+    synchronized (this.entries) {
+      this.removeLocked(key);
+      this.publishLocked();
+    }
+  }
+
+  /**
+   * Remove the value associated with a key, if the value matches the given
+   * predicate.
+   *
+   * @param key       The key
+   * @param predicate The predicate
+   *
+   * @return {@code true} if a value was removed
+   */
+
+  public boolean remove(
+    final K key,
+    final Predicate<V> predicate)
+  {
+    Objects.requireNonNull(predicate, "predicate");
+
+    synchronized (this.entries) {
+      final var existing = this.entries.get(key);
+      if (existing == null || !predicate.test(existing)) {
+        return false;
+      }
+      this.removeLocked(key);
+      this.publishLocked();
+    }
+    return true;
+  }
+
+  /**
+   * Remove the values associated with all keys that match the given
+   * predicate.
+   *
+   * @param predicate The predicate
+   */
+
+  public void removeIf(
+    final Predicate<K> predicate)
+  {
+    Objects.requireNonNull(predicate, "predicate");
+
+    synchronized (this.entries) {
+      final var iterator = this.entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final var entry = iterator.next();
+        if (predicate.test(entry.getKey())) {
+          iterator.remove();
+          this.weight -= this.weigher.applyAsLong(entry.getValue());
+        }
+      }
+      this.publishLocked();
+    }
+  }
+
+  /**
+   * Remove all values.
+   */
+
+  public void clear()
+  {
+    synchronized (this.entries) {
+      this.entries.clear();
+      this.weight = 0L;
+      this.publishLocked();
+    }
+  }
+
+  private void publishLocked()
+  {
+    /*
+     * Statistics are published while the lock is held, so that concurrent
+     * operations cannot publish their snapshots out of order and leave
+     * stale statistics on display.
+     */
+
+    this.statistics.set(new CAGCacheStatistics(
+      this.hits,
+      this.misses,
+      this.evictions,
+      this.entries.size(),
+      this.weight
+    ));
+  }
+}
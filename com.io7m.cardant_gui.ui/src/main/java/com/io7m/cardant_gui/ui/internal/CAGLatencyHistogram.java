@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets. Each power of two
+ * is divided into sixteen linear sub-buckets, so recorded values are
+ * accurate to within roughly six percent across the entire range of
+ * {@code long} nanoseconds.
+ */
+
+public final class CAGLatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+  private final LongAdder count;
+  private final LongAdder sum;
+  private final AtomicLong max;
+
+  /**
+   * A lock-free latency histogram.
+   */
+
+  public CAGLatencyHistogram()
+  {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.sum = new LongAdder();
+    this.max = new AtomicLong(0L);
+  }
+
+  static int bucketOf(
+    final long value)
+  {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    final var msb = 63 - Long.numberOfLeadingZeros(value);
+    final var shift = msb - SUB_BUCKET_BITS;
+    final var sub = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    return ((shift + 1) * SUB_BUCKETS) + sub;
+  }
+
+  static long bucketHighestValue(
+    final int bucket)
+  {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final var shift = (bucket / SUB_BUCKETS) - 1;
+    final var sub = bucket % SUB_BUCKETS;
+    final var lowest = ((long) (SUB_BUCKETS + sub)) << shift;
+    return lowest + ((1L << shift) - 1L);
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param duration The value
+   */
+
+  public void record(
+    final Duration duration)
+  {
+    this.recordNanos(duration.toNanos());
+  }
+
+  /**
+   * Record a value in nanoseconds. Negative values are treated as zero.
+   *
+   * @param nanos The value
+   */
+
+  public void recordNanos(
+    final long nanos)
+  {
+    final var value = Math.max(0L, nanos);
+    this.counts.incrementAndGet(bucketOf(value));
+    this.count.increment();
+    this.sum.add(value);
+    this.max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Take a snapshot of the histogram. Values recorded concurrently with
+   * the snapshot may or may not be included.
+   *
+   * @return A snapshot
+   */
+
+  public CAGLatencySnapshot snapshot()
+  {
+    final var buckets = new long[BUCKETS];
+    var total = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      buckets[index] = this.counts.get(index);
+      total += buckets[index];
+    }
+
+    if (total == 0L) {
+      return CAGLatencySnapshot.empty();
+    }
+
+    final var maxNow = this.max.get();
+    return new CAGLatencySnapshot(
+      total,
+      Duration.ofNanos(this.sum.sum() / Math.max(1L, this.count.sum())),
+      Duration.ofNanos(percentile(buckets, total, 0.50, maxNow)),
+      Duration.ofNanos(percentile(buckets, total, 0.99, maxNow)),
+      Duration.ofNanos(percentile(buckets, total, 0.999, maxNow)),
+      Duration.ofNanos(maxNow)
+    );
+  }
+
+  private static long percentile(
+    final long[] buckets,
+    final long total,
+    final double fraction,
+    final long maxNow)
+  {
+    final var rank = Math.max(1L, (long) Math.ceil(fraction * (double) total));
+
+    var seen = 0L;
+    for (int index = 0; index < buckets.length; ++index) {
+      seen += buckets[index];
+      if (seen >= rank) {
+        return Math.min(bucketHighestValue(index), maxNow);
+      }
+    }
+    return maxNow;
+  }
+}
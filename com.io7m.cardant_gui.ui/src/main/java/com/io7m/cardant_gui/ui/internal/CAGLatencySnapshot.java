@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A snapshot of a latency histogram.
+ *
+ * @param count The number of recorded values
+ * @param mean  The mean value
+ * @param p50   The 50th percentile
+ * @param p99   The 99th percentile
+ * @param p999  The 99.9th percentile
+ * @param max   The maximum value
+ */
+
+public record CAGLatencySnapshot(
+  long count,
+  Duration mean,
+  Duration p50,
+  Duration p99,
+  Duration p999,
+  Duration max)
+{
+  private static final CAGLatencySnapshot EMPTY =
+    new CAGLatencySnapshot(
+      0L,
+      Duration.ZERO,
+      Duration.ZERO,
+      Duration.ZERO,
+      Duration.ZERO,
+      Duration.ZERO
+    );
+
+  /**
+   * A snapshot of a latency histogram.
+   *
+   * @param count The number of recorded values
+   * @param mean  The mean value
+   * @param p50   The 50th percentile
+   * @param p99   The 99th percentile
+   * @param p999  The 99.9th percentile
+   * @param max   The maximum value
+   */
+
+  public CAGLatencySnapshot
+  {
+    Objects.requireNonNull(mean, "mean");
+    Objects.requireNonNull(p50, "p50");
+    Objects.requireNonNull(p99, "p99");
+    Objects.requireNonNull(p999, "p999");
+    Objects.requireNonNull(max, "max");
+  }
+
+  /**
+   * @return The snapshot of an empty histogram
+   */
+
+  public static CAGLatencySnapshot empty()
+  {
+    return EMPTY;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A "latest wins" request slot. Submitting a new request cancels the
+ * previous request, if it has not yet completed, and the response of a
+ * superseded request is never delivered.
+ *
+ * @param <T> The type of responses
+ */
+
+public final class CAGLatestRequest<T>
+{
+  private final Executor fxExecutor;
+  private final AtomicReference<CompletableFuture<T>> current;
+
+  /**
+   * A "latest wins" request slot.
+   */
+
+  public CAGLatestRequest()
+  {
+    this(CAGFXThread::runLater);
+  }
+
+  /**
+   * A "latest wins" request slot.
+   *
+   * @param inFXExecutor An executor that runs tasks on the FX thread
+   */
+
+  public CAGLatestRequest(
+    final Executor inFXExecutor)
+  {
+    this.fxExecutor =
+      Objects.requireNonNull(inFXExecutor, "fxExecutor");
+    this.current =
+      new AtomicReference<>();
+  }
+
+  /**
+   * Cancel the previous request (if any) and start a new one. The
+   * receiver is evaluated on the FX thread if, and only if, the new request
+   * is still the latest request when its response arrives.
+   *
+   * @param request  A function that starts the request
+   * @param receiver A receiver of the response
+   *
+   * @return The future representing the new request
+   */
+
+  public CompletableFuture<T> submit(
+    final Supplier<CompletableFuture<T>> request,
+    final Consumer<T> receiver)
+  {
+    Objects.requireNonNull(request, "request");
+    Objects.requireNonNull(receiver, "receiver");
+
+    this.cancel();
+
+    final var future = request.get();
+    this.current.set(future);
+
+    future.thenAccept(response -> {
+      if (!this.isLatest(future)) {
+        return;
+      }
+      this.fxExecutor.execute(() -> {
+        if (this.isLatest(future)) {
+          receiver.accept(response);
+        }
+      });
+    });
+    return future;
+  }
+
+  /**
+   * Cancel the current request, if any.
+   */
+
+  public void cancel()
+  {
+    final var previous = this.current.getAndSet(null);
+    if (previous != null) {
+      previous.cancel(false);
+    }
+  }
+
+  private boolean isLatest(
+    final CompletableFuture<T> future)
+  {
+    return this.current.get() == future;
+  }
+}
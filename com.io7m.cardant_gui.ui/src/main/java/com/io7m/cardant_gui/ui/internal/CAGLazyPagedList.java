@@ -0,0 +1,500 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.jaffirm.core.Preconditions;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * A read-only list over the entire result set of a paged search, of which
+ * only a bounded number of pages are held in memory. Reading an element of
+ * a page that is not held yields {@code null} and starts loading the page;
+ * a change is announced when the page arrives. When more than the maximum
+ * number of pages are held, the pages furthest from the most recently
+ * loaded page are discarded. A virtualized control such as a table only
+ * reads the elements that are visible, and so only the pages near the
+ * viewport are ever loaded.
+ *
+ * The list maintains an index from the key of each held element to its
+ * position, so that a single element can be replaced in constant time
+ * regardless of the size of the list.
+ *
+ * This list must only be accessed from the FX application thread, and
+ * raises an exception if it is accessed from any other thread.
+ *
+ * @param <T> The type of elements
+ */
+
+public final class CAGLazyPagedList<T> extends ObservableListBase<T>
+{
+  private final Executor fxExecutor;
+  private final BooleanSupplier onFXThread;
+  private final int maximumPages;
+  private final Function<? super T, ?> key;
+  private final Map<Long, ArrayList<T>> pages;
+  private final Map<Object, Integer> positions;
+  private final Set<Long> pagesLoading;
+  private LongFunction<CompletableFuture<List<T>>> loader;
+  private long pageCount;
+  private int pageSize;
+  private int size;
+  private long generation;
+
+  /**
+   * Create an empty list.
+   *
+   * @param inMaximumPages The maximum number of pages held
+   * @param inKey          A function that yields the key of an element
+   */
+
+  public CAGLazyPagedList(
+    final int inMaximumPages,
+    final Function<? super T, ?> inKey)
+  {
+    this(
+      CAGFXThread::runLater,
+      Platform::isFxApplicationThread,
+      inMaximumPages,
+      inKey
+    );
+  }
+
+  /**
+   * Create an empty list.
+   *
+   * @param inFXExecutor   An executor that runs tasks on the FX thread
+   * @param inOnFXThread   A function that returns {@code true} if the
+   *                       calling thread is the FX thread
+   * @param inMaximumPages The maximum number of pages held
+   * @param inKey          A function that yields the key of an element
+   */
+
+  public CAGLazyPagedList(
+    final Executor inFXExecutor,
+    final BooleanSupplier inOnFXThread,
+    final int inMaximumPages,
+    final Function<? super T, ?> inKey)
+  {
+    Preconditions.checkPreconditionV(
+      inMaximumPages >= 2,
+      "Maximum pages %d must be at least 2",
+      Integer.valueOf(inMaximumPages)
+    );
+
+    this.fxExecutor =
+      Objects.requireNonNull(inFXExecutor, "fxExecutor");
+    this.onFXThread =
+      Objects.requireNonNull(inOnFXThread, "onFXThread");
+    this.maximumPages =
+      inMaximumPages;
+    this.key =
+      Objects.requireNonNull(inKey, "key");
+    this.pages =
+      new HashMap<>();
+    this.positions =
+      new HashMap<>();
+    this.pagesLoading =
+      new HashSet<>();
+    this.loader =
+      CAGLazyPagedList::noPages;
+    this.pageSize =
+      1;
+  }
+
+  private void checkFXThread()
+  {
+    Preconditions.checkPreconditionV(
+      this.onFXThread.getAsBoolean(),
+      "List accessed from thread %s, not the FX thread",
+      Thread.currentThread().getName()
+    );
+  }
+
+  private static <T> CompletableFuture<List<T>> noPages(
+    final long pageIndex)
+  {
+    return CompletableFuture.completedFuture(List.of());
+  }
+
+  /**
+   * Replace the contents of the list with the results of a new search.
+   *
+   * @param newLoader    A function that loads a page (indexed from 1)
+   * @param newPageCount The number of pages
+   * @param firstPage    The first page
+   */
+
+  public void reset(
+    final LongFunction<CompletableFuture<List<T>>> newLoader,
+    final long newPageCount,
+    final List<T> firstPage)
+  {
+    Objects.requireNonNull(newLoader, "loader");
+    Objects.requireNonNull(firstPage, "firstPage");
+    this.checkFXThread();
+
+    /*
+     * Every page other than the last is full, so the first page gives the
+     * page size. Until the last page arrives, it is assumed to be full.
+     */
+
+    final var oldSize = this.size;
+    ++this.generation;
+    this.loader = newLoader;
+    this.pageCount = Math.max(1L, newPageCount);
+    this.pageSize = Math.max(1, firstPage.size());
+    this.pages.clear();
+    this.pagesLoading.clear();
+    this.positions.clear();
+    this.pages.put(Long.valueOf(1L), new ArrayList<>(firstPage));
+    this.indexPage(1L, firstPage);
+
+    if (this.pageCount == 1L) {
+      this.size = firstPage.size();
+    } else {
+      this.size = (int) Math.min(
+        (long) Integer.MAX_VALUE,
+        this.pageCount * (long) this.pageSize
+      );
+    }
+
+    this.beginChange();
+    if (oldSize > 0) {
+      this.nextRemove(0, Collections.nCopies(oldSize, null));
+    }
+    if (this.size > 0) {
+      this.nextAdd(0, this.size);
+    }
+    this.endChange();
+  }
+
+  /**
+   * Replace the contents of the list with a single page.
+   *
+   * @param items The items
+   */
+
+  public void resetStatic(
+    final List<T> items)
+  {
+    this.reset(CAGLazyPagedList::noPages, 1L, items);
+  }
+
+  /**
+   * Remove all elements.
+   */
+
+  public void discard()
+  {
+    this.resetStatic(List.of());
+  }
+
+  /**
+   * Discard all held pages except the first, so that they are loaded again
+   * when next read, and load the first page again. This is used when
+   * elements might have been removed from unknown positions, as a removal
+   * moves every subsequent element to an earlier page. The first page is
+   * kept on display until its replacement arrives.
+   */
+
+  public void invalidate()
+  {
+    this.checkFXThread();
+    ++this.generation;
+    this.pagesLoading.clear();
+    this.evictAfter(1L);
+    this.load(1L);
+  }
+
+  /**
+   * Remove the element with the given key. If the element is held, it is
+   * removed at once, the page that held it is loaded again to fill the
+   * gap that it leaves, and every later page is discarded, as each of
+   * their elements has moved one position earlier. If the element is not
+   * held, its position is unknown, and the list is invalidated instead.
+   *
+   * @param elementKey The key of the removed element
+   *
+   * @return {@code true} if a held element had the key
+   *
+   * @see #invalidate()
+   */
+
+  public boolean delete(
+    final Object elementKey)
+  {
+    Objects.requireNonNull(elementKey, "elementKey");
+    this.checkFXThread();
+
+    final var position = this.positions.get(elementKey);
+    if (position == null) {
+      this.invalidate();
+      return false;
+    }
+
+    final var index = position.intValue();
+    final var pageIndex = this.pageOf(index);
+    final var page = this.pages.get(Long.valueOf(pageIndex));
+
+    ++this.generation;
+    this.pagesLoading.clear();
+    this.evictAfter(pageIndex);
+
+    this.unindexPage(pageIndex, page);
+    final var removed = page.remove(index % this.pageSize);
+    this.indexPage(pageIndex, page);
+    --this.size;
+
+    this.beginChange();
+    this.nextRemove(index, removed);
+    this.endChange();
+
+    this.load(pageIndex);
+    return true;
+  }
+
+  private void evictAfter(
+    final long pageIndex)
+  {
+    final var indices = new ArrayList<>(this.pages.keySet());
+    for (final var heldIndex : indices) {
+      if (heldIndex.longValue() > pageIndex) {
+        this.evict(heldIndex.longValue());
+      }
+    }
+  }
+
+  /**
+   * Replace the held element that has the same key as the given element.
+   * Elements that are not held are not affected; they will be up to date
+   * when their page is next loaded.
+   *
+   * @param element The new element
+   *
+   * @return {@code true} if a held element had the same key
+   */
+
+  public boolean replace(
+    final T element)
+  {
+    Objects.requireNonNull(element, "element");
+    this.checkFXThread();
+
+    final var position = this.positions.get(this.key.apply(element));
+    if (position == null) {
+      return false;
+    }
+
+    final var index = position.intValue();
+    final var page = this.pages.get(Long.valueOf(this.pageOf(index)));
+    final var offset = index % this.pageSize;
+    final var existing = page.set(offset, element);
+    if (!Objects.equals(existing, element)) {
+      this.beginChange();
+      this.nextSet(index, existing);
+      this.endChange();
+    }
+    return true;
+  }
+
+  @Override
+  public T get(
+    final int index)
+  {
+    this.checkFXThread();
+    Objects.checkIndex(index, this.size);
+
+    final var pageIndex = this.pageOf(index);
+    final var offset = index % this.pageSize;
+    final var page = this.pages.get(Long.valueOf(pageIndex));
+    if (page == null) {
+      this.load(pageIndex);
+      return null;
+    }
+    if (offset >= page.size()) {
+      return null;
+    }
+    return page.get(offset);
+  }
+
+  @Override
+  public int size()
+  {
+    return this.size;
+  }
+
+  private long pageOf(
+    final int index)
+  {
+    return (long) (index / this.pageSize) + 1L;
+  }
+
+  private void indexPage(
+    final long pageIndex,
+    final List<T> page)
+  {
+    final var pageStart = this.pageStart(pageIndex);
+    for (int index = 0; index < page.size(); ++index) {
+      this.positions.put(
+        this.key.apply(page.get(index)),
+        Integer.valueOf(pageStart + index)
+      );
+    }
+  }
+
+  private void unindexPage(
+    final long pageIndex,
+    final List<T> page)
+  {
+    /*
+     * An element is only unindexed if it is still indexed at a position
+     * on this page; the same key might since have been indexed on a more
+     * recently loaded page.
+     */
+
+    final var pageStart = this.pageStart(pageIndex);
+    for (int index = 0; index < page.size(); ++index) {
+      this.positions.remove(
+        this.key.apply(page.get(index)),
+        Integer.valueOf(pageStart + index)
+      );
+    }
+  }
+
+  private int pageStart(
+    final long pageIndex)
+  {
+    return (int) ((pageIndex - 1L) * (long) this.pageSize);
+  }
+
+  private void load(
+    final long pageIndex)
+  {
+    if (!this.pagesLoading.add(Long.valueOf(pageIndex))) {
+      return;
+    }
+
+    /*
+     * The page might be delivered immediately, but the list cannot announce
+     * a change from within get(), so the page is always installed later.
+     */
+
+    final var generationThen = this.generation;
+    this.loader.apply(pageIndex).whenComplete((items, exception) -> {
+      this.fxExecutor.execute(() -> {
+        if (this.generation != generationThen) {
+          return;
+        }
+        this.pagesLoading.remove(Long.valueOf(pageIndex));
+        if (exception == null) {
+          this.install(pageIndex, items);
+        }
+      });
+    });
+  }
+
+  private void install(
+    final long pageIndex,
+    final List<T> items)
+  {
+    final var pageStart = this.pageStart(pageIndex);
+    final var page = new ArrayList<>(items);
+    final var previous = this.pages.put(Long.valueOf(pageIndex), page);
+    if (previous != null) {
+      this.unindexPage(pageIndex, previous);
+    }
+    this.indexPage(pageIndex, page);
+
+    final var oldSize = this.size;
+    final var newSize =
+      pageIndex == this.pageCount ? pageStart + page.size() : oldSize;
+    final var replacedEnd =
+      Math.min(
+        pageStart + Math.min(page.size(), this.pageSize),
+        Math.min(oldSize, newSize)
+      );
+
+    this.size = newSize;
+    this.beginChange();
+    if (replacedEnd > pageStart) {
+      this.nextReplace(
+        pageStart,
+        replacedEnd,
+        Collections.nCopies(replacedEnd - pageStart, null)
+      );
+    }
+    if (newSize < oldSize) {
+      this.nextRemove(newSize, Collections.nCopies(oldSize - newSize, null));
+    } else if (newSize > oldSize) {
+      this.nextAdd(oldSize, newSize);
+    }
+    this.endChange();
+
+    this.evictFarthestFrom(pageIndex);
+  }
+
+  private void evictFarthestFrom(
+    final long pageIndex)
+  {
+    while (this.pages.size() > this.maximumPages) {
+      var farthest = pageIndex;
+      for (final var held : this.pages.keySet()) {
+        final var heldIndex = held.longValue();
+        if (Math.abs(heldIndex - pageIndex) > Math.abs(farthest - pageIndex)) {
+          farthest = heldIndex;
+        }
+      }
+      this.evict(farthest);
+    }
+  }
+
+  private void evict(
+    final long pageIndex)
+  {
+    final var page = this.pages.remove(Long.valueOf(pageIndex));
+    if (page == null || page.isEmpty()) {
+      return;
+    }
+    this.unindexPage(pageIndex, page);
+
+    final var pageStart = this.pageStart(pageIndex);
+    final var pageEnd = Math.min(pageStart + page.size(), this.size);
+    if (pageEnd <= pageStart) {
+      return;
+    }
+
+    this.beginChange();
+    this.nextReplace(pageStart, pageEnd, page.subList(0, pageEnd - pageStart));
+    this.endChange();
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Functions to update observable lists in place. Replacing the contents of
+ * a list with {@link ObservableList#setAll(java.util.Collection)} announces
+ * that every element has been replaced, and so every listener (sorted
+ * views, table cells, selection models) must process every element. These
+ * functions instead compare elements by key, and announce only the
+ * elements that have been added, removed, or changed, so that listeners do
+ * work proportional to the number of changes.
+ */
+
+public final class CAGListDiff
+{
+  private CAGListDiff()
+  {
+
+  }
+
+  /**
+   * Update {@code target} so that it is equal to {@code source}. Elements
+   * with keys that no longer appear in {@code source} are removed, elements
+   * with new keys are inserted, and elements with existing keys are
+   * replaced if they are not equal to the new element. Elements that have
+   * changed position are removed and reinserted; the elements that keep
+   * their relative order are chosen to minimize the number of such moves.
+   * If the keys of {@code source} are not unique, the contents of
+   * {@code target} are simply replaced.
+   *
+   * @param target The list to be updated
+   * @param source The new contents of the list
+   * @param key    A function that extracts the key of an element
+   * @param <T>    The type of elements
+   * @param <K>    The type of keys
+   */
+
+  public static <T, K> void apply(
+    final ObservableList<T> target,
+    final List<? extends T> source,
+    final Function<? super T, ? extends K> key)
+  {
+    Objects.requireNonNull(target, "target");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(key, "key");
+
+    final var sourceIndices = new HashMap<K, Integer>(source.size());
+    for (int index = 0; index < source.size(); ++index) {
+      sourceIndices.put(key.apply(source.get(index)), Integer.valueOf(index));
+    }
+
+    if (sourceIndices.size() != source.size()) {
+      target.setAll(source);
+      return;
+    }
+
+    /*
+     * Determine the position in the source of each element of the target,
+     * or -1 if the element does not appear in the source. The elements
+     * that form the longest increasing run of positions can stay where
+     * they are; every other element is removed, and the elements that are
+     * still in the source are inserted again at their new positions.
+     */
+
+    final var positions = new int[target.size()];
+    for (int index = 0; index < positions.length; ++index) {
+      final var position = sourceIndices.get(key.apply(target.get(index)));
+      positions[index] = position == null ? -1 : position.intValue();
+    }
+
+    final var keep = longestIncreasing(positions);
+    removeUnkept(target, keep);
+
+    /*
+     * The remaining elements are in source order, so the source can be
+     * merged into the target by inserting each run of elements that falls
+     * between two remaining elements.
+     */
+
+    int index = 0;
+    while (index < source.size()) {
+      if (index < target.size()) {
+        final var existing = target.get(index);
+        final var existingPosition =
+          sourceIndices.get(key.apply(existing)).intValue();
+
+        if (existingPosition == index) {
+          final var replacement = source.get(index);
+          if (!Objects.equals(existing, replacement)) {
+            target.set(index, replacement);
+          }
+          ++index;
+          continue;
+        }
+
+        target.addAll(index, source.subList(index, existingPosition));
+        index = existingPosition;
+        continue;
+      }
+
+      target.addAll(index, source.subList(index, source.size()));
+      index = source.size();
+    }
+  }
+
+  private static <T> void removeUnkept(
+    final ObservableList<T> target,
+    final boolean[] keep)
+  {
+    /*
+     * Remove contiguous runs, from the end of the list so that the indices
+     * of the runs that have not yet been removed are unaffected.
+     */
+
+    int end = keep.length;
+    while (end > 0) {
+      if (keep[end - 1]) {
+        --end;
+        continue;
+      }
+      int start = end - 1;
+      while (start > 0 && !keep[start - 1]) {
+        --start;
+      }
+      target.remove(start, end);
+      end = start;
+    }
+  }
+
+  /**
+   * Find a longest strictly increasing subsequence of the non-negative
+   * values, in O(n log n) time.
+   *
+   * @param values The values
+   *
+   * @return An array indicating which values are in the subsequence
+   */
+
+  static boolean[] longestIncreasing(
+    final int[] values)
+  {
+    final var keep = new boolean[values.length];
+    final var tails = new int[values.length];
+    final var previous = new int[values.length];
+    int length = 0;
+
+    for (int index = 0; index < values.length; ++index) {
+      final var value = values[index];
+      if (value < 0) {
+        continue;
+      }
+
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        final var middle = (low + high) >>> 1;
+        if (values[tails[middle]] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+
+      previous[index] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = index;
+      if (low == length) {
+        ++length;
+      }
+    }
+
+    if (length > 0) {
+      int index = tails[length - 1];
+      while (index >= 0) {
+        keep[index] = true;
+        index = previous[index];
+      }
+    }
+    return keep;
+  }
+}
@@ -85,7 +85,10 @@ public final class CAGLocationAttachmentAddView
       services.requireService(CAGClientServiceType.class);
 
     this.fileSearchController =
-      CAGFileSearchController.create(this.client);
+      CAGFileSearchController.create(
+        this.client,
+        services.requireService(CAGSearchPageCacheServiceType.class)
+      );
     this.treeController =
       Objects.requireNonNull(inController, "controller");
     this.location =
@@ -24,7 +24,6 @@ import com.io7m.cardant.model.CALocationSummary;
 import com.io7m.cardant.model.CAMetadataType;
 import com.io7m.lanark.core.RDottedName;
 import com.io7m.repetoir.core.RPServiceDirectoryType;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.ListChangeListener;
@@ -42,7 +41,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -220,47 +218,42 @@ public final class CAGLocationDetailsView
   {
     LOG.debug("Loading thumbnail: {}", attachment.file().id());
 
-    Platform.runLater(() -> {
+    CAGFXThread.runLater(() -> {
       this.thumbnailLoading.setVisible(true);
       this.thumbnail.setVisible(false);
     });
 
-    try {
-      final var attachmentFile =
-        attachment.file();
-      final var fileID =
-        attachmentFile.id();
-      final var file =
-        Files.createTempFile("cardant-gui", ".jpg");
-      final var fileTmp =
-        Files.createTempFile("cardant-gui", ".jpg");
-      final var size =
-        attachmentFile.size();
-      final var hashAlgo =
-        attachmentFile.hashAlgorithm();
-      final var hashValue =
-        attachmentFile.hashValue();
-
-      this.client.imageGet(
-          fileID,
-          file,
-          fileTmp,
-          size,
-          hashAlgo,
-          hashValue,
-          (int) this.thumbnail.getFitWidth(),
-          (int) this.thumbnail.getFitHeight())
-        .thenAccept(image -> {
-          Platform.runLater(() -> {
-            this.thumbnailLoading.setVisible(false);
-            this.thumbnail.setImage(image);
-            this.thumbnail.setVisible(true);
-          });
+    final var attachmentFile =
+      attachment.file();
+    final var fileID =
+      attachmentFile.id();
+    final var size =
+      attachmentFile.size();
+    final var hashAlgo =
+      attachmentFile.hashAlgorithm();
+    final var hashValue =
+      attachmentFile.hashValue();
+
+    this.client.imageGet(
+        fileID,
+        size,
+        hashAlgo,
+        hashValue,
+        (int) this.thumbnail.getFitWidth(),
+        (int) this.thumbnail.getFitHeight())
+      .whenComplete((image, exception) -> {
+        if (exception != null) {
+          LOG.debug("Loading thumbnail: ", exception);
+          CAGFXThread.runLater(this::clearThumbnail);
+          return;
+        }
+
+        CAGFXThread.runLater(() -> {
+          this.thumbnailLoading.setVisible(false);
+          this.thumbnail.setImage(image);
+          this.thumbnail.setVisible(true);
         });
-    } catch (final IOException e) {
-      LOG.debug("Loading thumbnail: ", e);
-      Platform.runLater(this::clearThumbnail);
-    }
+      });
   }
 
   @FXML
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.cardant.model.CALocationSummary;
+import javafx.scene.control.TreeItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A tree of locations that is reconciled in place. Each new list of
+ * locations is compared against the live tree, and only the locations that
+ * were added, removed, renamed, or moved are touched; all other tree items
+ * are left in place, and so keep their expansion and selection state.
+ *
+ * The tree must only be accessed from the FX thread.
+ */
+
+public final class CAGLocationTree
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGLocationTree.class);
+
+  private final TreeItem<CALocationSummary> root;
+  private final HashMap<CALocationID, TreeItem<CALocationSummary>> items;
+
+  /**
+   * Create an empty tree.
+   *
+   * @param rootSummary The location shown at the root of the tree
+   */
+
+  public CAGLocationTree(
+    final CALocationSummary rootSummary)
+  {
+    this.root =
+      new TreeItem<>(Objects.requireNonNull(rootSummary, "rootSummary"));
+    this.items =
+      new HashMap<>();
+  }
+
+  /**
+   * @return The root of the tree
+   */
+
+  public TreeItem<CALocationSummary> root()
+  {
+    return this.root;
+  }
+
+  /**
+   * Bring the tree up to date with the given list of locations.
+   *
+   * @param summaries The complete list of locations
+   */
+
+  public void reconcile(
+    final Collection<CALocationSummary> summaries)
+  {
+    Objects.requireNonNull(summaries, "summaries");
+
+    final var timeThen = System.nanoTime();
+    final var summariesById =
+      new HashMap<CALocationID, CALocationSummary>(summaries.size());
+    for (final var location : summaries) {
+      summariesById.put(location.id(), location);
+    }
+
+    var removed = 0;
+    var added = 0;
+    var changed = 0;
+    var moved = 0;
+
+    final var iterator = this.items.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final var entry = iterator.next();
+      if (!summariesById.containsKey(entry.getKey())) {
+        detach(entry.getValue());
+        iterator.remove();
+        ++removed;
+      }
+    }
+
+    for (final var location : summaries) {
+      final var item = this.items.get(location.id());
+      if (item == null) {
+        this.items.put(location.id(), new TreeItem<>(location));
+        ++added;
+      } else if (!Objects.equals(item.getValue(), location)) {
+        item.setValue(location);
+        ++changed;
+      }
+    }
+
+    /*
+     * Items are attached to their new parents in one batch per parent, so
+     * that each child list is modified (and observed) at most once.
+     */
+
+    final var attachments =
+      new HashMap<TreeItem<CALocationSummary>, List<TreeItem<CALocationSummary>>>();
+
+    for (final var location : summaries) {
+      final var locationItem =
+        this.items.get(location.id());
+      final var parent =
+        location.parent();
+
+      final TreeItem<CALocationSummary> parentItem;
+      if (parent.isEmpty()) {
+        parentItem = this.root;
+      } else {
+        parentItem = this.items.get(parent.get());
+        if (parentItem == null) {
+          LOG.warn(
+            "Location {} provided a nonexistent parent {}",
+            location.id(),
+            parent.get());
+          detach(locationItem);
+          continue;
+        }
+      }
+
+      if (locationItem.getParent() != parentItem) {
+        if (locationItem.getParent() != null) {
+          ++moved;
+        }
+        detach(locationItem);
+        attachments.computeIfAbsent(parentItem, k -> new ArrayList<>())
+          .add(locationItem);
+      }
+    }
+
+    for (final var entry : attachments.entrySet()) {
+      entry.getKey().getChildren().addAll(entry.getValue());
+    }
+
+    LOG.debug(
+      "Location tree: {} added, {} removed, {} changed, {} moved ({} us)",
+      Integer.valueOf(added),
+      Integer.valueOf(removed),
+      Integer.valueOf(changed),
+      Integer.valueOf(moved),
+      Long.valueOf((System.nanoTime() - timeThen) / 1_000L)
+    );
+  }
+
+  /**
+   * Remove a location from the tree. The descendants of the location are
+   * removed along with it, and are forgotten; if any of them reappear in a
+   * later list, they are given new items.
+   *
+   * @param id The location
+   */
+
+  public void remove(
+    final CALocationID id)
+  {
+    final var item = this.items.remove(id);
+    if (item != null) {
+      detach(item);
+      this.forgetDescendants(item);
+    }
+  }
+
+  private void forgetDescendants(
+    final TreeItem<CALocationSummary> item)
+  {
+    final var pending = new ArrayDeque<>(item.getChildren());
+    while (!pending.isEmpty()) {
+      final var descendant = pending.poll();
+      this.items.remove(descendant.getValue().id());
+      pending.addAll(descendant.getChildren());
+    }
+  }
+
+  private static void detach(
+    final TreeItem<CALocationSummary> item)
+  {
+    final var parent = item.getParent();
+    if (parent != null) {
+      parent.getChildren().remove(item);
+    }
+  }
+}
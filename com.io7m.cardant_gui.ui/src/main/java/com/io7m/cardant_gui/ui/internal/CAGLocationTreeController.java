@@ -25,7 +25,7 @@ import com.io7m.cardant.protocol.inventory.CAICommandLocationDelete;
 import com.io7m.cardant.protocol.inventory.CAICommandLocationGet;
 import com.io7m.cardant.protocol.inventory.CAICommandLocationList;
 import com.io7m.cardant.protocol.inventory.CAICommandLocationPut;
-import javafx.application.Platform;
+import com.io7m.cardant.protocol.inventory.CAIResponseLocationGet;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -34,12 +34,16 @@ import javafx.scene.control.TreeItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+
 /**
  * A location tree controller.
  */
@@ -59,46 +63,100 @@ public final class CAGLocationTreeController
   private final ObservableList<CALocationSummary> locationsView;
   private final SimpleObjectProperty<CAGPageRange> locationPages;
   private final SimpleObjectProperty<TreeItem<CALocationSummary>> locationTree;
+  private final CAGLocationTree locationTreeItems;
   private final CAGClientServiceType client;
+  private final CAGEntityCacheServiceType cache;
+  private final CAGOfflineCacheServiceType offline;
   private final CAGLocationModelType locationSelected;
+  private final CAGLatestRequest<CAIResponseLocationGet> locationSelectRequest;
+  private volatile boolean locationsReceived;
 
   private CAGLocationTreeController(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGEntityCacheServiceType inCache,
+    final CAGOfflineCacheServiceType inOffline)
   {
     this.client =
       Objects.requireNonNull(inClient, "client");
+    this.cache =
+      Objects.requireNonNull(inCache, "cache");
+    this.offline =
+      Objects.requireNonNull(inOffline, "offline");
     this.locationSelected =
       CAGLocationModel.create();
     this.locationsView =
       FXCollections.observableArrayList();
     this.locationTree =
       new SimpleObjectProperty<>();
+    this.locationTreeItems =
+      new CAGLocationTree(ROOT_LOCATION_SUMMARY);
     this.locationPages =
       new SimpleObjectProperty<>(CAGPageRange.zero());
+    this.locationSelectRequest =
+      new CAGLatestRequest<>();
   }
 
   /**
-   * @param client The client
+   * @param client  The client
+   * @param cache   The entity cache
+   * @param offline The offline cache
    *
    * @return A location tree controller.
    */
 
   public static CAGLocationTreeControllerType create(
-    final CAGClientServiceType client)
+    final CAGClientServiceType client,
+    final CAGEntityCacheServiceType cache,
+    final CAGOfflineCacheServiceType offline)
   {
-    final var controller = new CAGLocationTreeController(client);
+    final var controller =
+      new CAGLocationTreeController(client, cache, offline);
     client.status().subscribe((oldStatus, newStatus) -> {
-      controller.onClientStatusChanged();
+      controller.onClientStatusChanged(oldStatus, newStatus);
     });
     return controller;
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus oldStatus,
+    final CAGClientStatus newStatus)
   {
+    if (newStatus == CAGClientStatus.CONNECTED
+        && oldStatus != CAGClientStatus.RECONNECTING) {
+      this.locationTreeRestore();
+      return;
+    }
+
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.locationsReceived = false;
     this.locationsView.clear();
     this.locationPages.set(CAGPageRange.zero());
   }
 
+  /**
+   * Display the locations held in the offline cache, unless the server
+   * has already delivered a fresher list.
+   */
+
+  private void locationTreeRestore()
+  {
+    this.offline.locations().thenAccept(locations -> {
+      if (locations.isEmpty()) {
+        return;
+      }
+
+      CAGFXThread.runLater(() -> {
+        if (!this.locationsReceived) {
+          LOG.debug("Restoring {} cached locations", locations.size());
+          this.locationTreeRebuild(locations);
+        }
+      });
+    });
+  }
+
   @Override
   public ObservableValue<TreeItem<CALocationSummary>> locationTree()
   {
@@ -112,56 +170,31 @@ public final class CAGLocationTreeController
       this.client.execute(new CAICommandLocationList());
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> {
-        final var data =
-          response.data();
-        final var summaries =
-          data.locations();
-
-        LOG.debug("Received {} locations", summaries.size());
-
-        final var treeItems =
-          new HashMap<CALocationID, TreeItem<CALocationSummary>>(summaries.size());
-        final var newRoot =
-          new TreeItem<>(ROOT_LOCATION_SUMMARY);
-
-        for (final var location : summaries.values()) {
-          final var item = new TreeItem<>(location);
-          treeItems.put(location.id(), item);
-        }
-
-        for (final var location : summaries.values()) {
-          final var locationItem =
-            treeItems.get(location.id());
-          final var parent =
-            location.parent();
-
-          if (parent.isEmpty()) {
-            newRoot.getChildren().add(locationItem);
-            continue;
-          }
-
-          final var parentId =
-            parent.get();
-          final var parentItem =
-            treeItems.get(parentId);
-
-          if (parentItem == null) {
-            LOG.warn(
-              "Location {} provided a nonexistent parent {}",
-              location.id(),
-              parentId);
-            continue;
-          }
-
-          parentItem.getChildren().add(locationItem);
-        }
-
-        this.locationTree.set(newRoot);
+      CAGFXThread.runLater(() -> {
+        this.locationTreeReceived(response.data().locations().values());
       });
     });
   }
 
+  private void locationTreeReceived(
+    final Collection<CALocationSummary> summaries)
+  {
+    LOG.debug("Received {} locations", summaries.size());
+
+    this.locationsReceived = true;
+    this.locationTreeRebuild(summaries);
+    this.offline.locationsSave(List.copyOf(summaries));
+  }
+
+  private void locationTreeRebuild(
+    final Collection<CALocationSummary> summaries)
+  {
+    this.locationTreeItems.reconcile(summaries);
+    if (this.locationTree.get() == null) {
+      this.locationTree.set(this.locationTreeItems.root());
+    }
+  }
+
   @Override
   public void locationRemove(
     final CALocationID location)
@@ -174,8 +207,8 @@ public final class CAGLocationTreeController
       this.client.execute(new CAICommandLocationDelete(location));
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> {
-        this.locationTreeDelete(this.locationTree.get(), location);
+      CAGFXThread.runLater(() -> {
+        this.locationTreeDelete(location);
       });
     });
   }
@@ -185,18 +218,25 @@ public final class CAGLocationTreeController
     final String name)
   {
     final var future =
-      this.client.execute(new CAICommandLocationPut(
-        new CALocation(
-          CALocationID.random(),
-          Optional.empty(),
-          name,
-          new TreeMap<>(),
-          new TreeMap<>(),
-          new TreeSet<>()
-        )
-      ));
-
-    future.thenAccept(response -> this.locationSearchBegin());
+      this.client.executePipeline(context -> {
+        context.execute(new CAICommandLocationPut(
+          new CALocation(
+            CALocationID.random(),
+            Optional.empty(),
+            name,
+            new TreeMap<>(),
+            new TreeMap<>(),
+            new TreeSet<>()
+          )
+        ));
+        return context.execute(new CAICommandLocationList());
+      });
+
+    future.thenAccept(response -> {
+      CAGFXThread.runLater(() -> {
+        this.locationTreeReceived(response.data().locations().values());
+      });
+    });
   }
 
   @Override
@@ -204,13 +244,12 @@ public final class CAGLocationTreeController
     final CALocationID location,
     final CALocationID newParent)
   {
-    final var future0 =
-      this.client.execute(new CAICommandLocationGet(location));
+    final var future =
+      this.client.executePipeline(context -> {
+        final var source =
+          context.execute(new CAICommandLocationGet(location)).data();
 
-    final var future1 =
-      future0.thenCompose(response -> {
-        final var source = response.data();
-        return this.client.execute(
+        context.execute(
           new CAICommandLocationPut(
             new CALocation(
               source.id(),
@@ -222,9 +261,14 @@ public final class CAGLocationTreeController
             )
           )
         );
+        return context.execute(new CAICommandLocationList());
       });
 
-    future1.thenAccept(response -> this.locationSearchBegin());
+    future.thenAccept(response -> {
+      CAGFXThread.runLater(() -> {
+        this.locationTreeReceived(response.data().locations().values());
+      });
+    });
   }
 
   @Override
@@ -235,19 +279,27 @@ public final class CAGLocationTreeController
       return;
     }
 
-    final var future =
-      this.client.execute(new CAICommandLocationGet(id));
+    /*
+     * As with items, the revalidation of a cached location yields to
+     * interactive commands.
+     */
 
-    future.thenAccept(response -> {
-      Platform.runLater(() -> {
-        this.locationSelected.update(response.data());
-      });
-    });
+    final var cached = this.cache.location(id);
+    cached.ifPresent(this.locationSelected::update);
+
+    final var priority =
+      cached.isPresent() ? BACKGROUND : INTERACTIVE;
+
+    this.locationSelectRequest.submit(
+      () -> this.client.execute(new CAICommandLocationGet(id), priority),
+      response -> this.locationSelected.update(response.data())
+    );
   }
 
   @Override
   public void locationSelectNothing()
   {
+    this.locationSelectRequest.cancel();
     this.locationSelected.clear();
   }
 
@@ -255,8 +307,14 @@ public final class CAGLocationTreeController
   public void locationAttachmentAdd(
     final CAICommandLocationAttachmentAdd command)
   {
-    this.client.execute(command);
-    this.locationSelect(command.location());
+    this.locationSelectRequest.cancel();
+
+    this.client.executePipeline(context -> {
+      context.execute(command);
+      return context.execute(new CAICommandLocationGet(command.location()));
+    }).thenAccept(response -> {
+      CAGFXThread.runLater(() -> this.locationSelected.update(response.data()));
+    });
   }
 
   @Override
@@ -265,21 +323,9 @@ public final class CAGLocationTreeController
     return this.locationSelected;
   }
 
-  private boolean locationTreeDelete(
-    final TreeItem<CALocationSummary> tree,
+  private void locationTreeDelete(
     final CALocationID id)
   {
-    if (Objects.equals(tree.getValue().id(), id)) {
-      tree.getParent()
-        .getChildren()
-        .remove(tree);
-      return true;
-    }
-    for (final var c : tree.getChildren()) {
-      if (this.locationTreeDelete(c, id)) {
-        return true;
-      }
-    }
-    return false;
+    this.locationTreeItems.remove(id);
   }
 }
@@ -19,7 +19,6 @@ package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.model.CALocationSummary;
 import com.io7m.repetoir.core.RPServiceDirectoryType;
-import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -103,7 +102,7 @@ public final class CAGLocationTreeView
 
     this.clients.status()
       .subscribe((oldStatus, newStatus) -> {
-        Platform.runLater(() -> {
+        CAGFXThread.runLater(() -> {
           this.onClientStatusChanged(oldStatus, newStatus);
         });
       });
@@ -149,11 +148,13 @@ public final class CAGLocationTreeView
     final CAGClientStatus newStatus)
   {
     switch (newStatus) {
-      case NOT_CONNECTED, CONNECTING -> {
+      case NOT_CONNECTED, CONNECTING, RECONNECTING -> {
         // Nothing
       }
       case CONNECTED -> {
-        this.controller.locationSearchBegin();
+        if (oldStatus != CAGClientStatus.RECONNECTING) {
+          this.controller.locationSearchBegin();
+        }
       }
     }
   }
@@ -17,13 +17,10 @@
 
 package com.io7m.cardant_gui.ui.internal;
 
-import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkDeleteType;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkListType;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkPutType;
-import com.io7m.darco.api.DDatabaseException;
 import com.io7m.repetoir.core.RPServiceDirectoryType;
-import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
@@ -45,6 +42,7 @@ import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_BOOKMARK_CREATEMAIN;
 import static com.io7m.cardant_gui.ui.internal.CAGStringConstants.CARDANT_LOGIN_BOOKMARK_CREATETITLE;
@@ -62,9 +60,11 @@ public final class CAGLoginView
 
   private final Stage stage;
   private final RPServiceDirectoryType mainServices;
-  private final CAGDatabaseType database;
+  private final CAGDatabaseResultCacheServiceType queries;
   private final CAGStringsType strings;
   private final CAGClientServiceType clientService;
+  private Duration loginTimeout;
+  private Duration commandTimeout;
 
   @FXML private Button bookmarkCreate;
   @FXML private Button bookmarkDelete;
@@ -98,12 +98,17 @@ public final class CAGLoginView
       Objects.requireNonNull(inStage, "stage");
     this.mainServices =
       Objects.requireNonNull(inMainServices, "mainServices");
-    this.database =
-      this.mainServices.requireService(CAGDatabaseType.class);
+    this.queries =
+      this.mainServices.requireService(CAGDatabaseResultCacheServiceType.class);
     this.strings =
       this.mainServices.requireService(CAGStringsType.class);
     this.clientService =
       this.mainServices.requireService(CAGClientServiceType.class);
+
+    this.loginTimeout =
+      Duration.ofSeconds(10L);
+    this.commandTimeout =
+      Duration.ofSeconds(30L);
   }
 
   @FXML
@@ -138,45 +143,33 @@ public final class CAGLoginView
     final var connect =
       this.validate().orElseThrow();
 
-    this.clientService.login(
-      connect.host(),
-      connect.port(),
-      connect.isHTTPs(),
-      connect.username(),
-      connect.password()
-    );
+    this.clientService.login(connect);
 
     this.stage.close();
   }
 
-  private void bookmarkDeleteNow(
+  private CompletableFuture<?> bookmarkDeleteNow(
     final String name)
   {
-    try {
-      LOG.debug("Delete bookmark {}", name);
+    LOG.debug("Delete bookmark {}", name);
 
-      try (var t = this.database.openTransaction()) {
-        t.query(CAGServerBookmarkDeleteType.class).execute(name);
-        t.commit();
-      }
-    } catch (final Exception e) {
-      LOG.error("Unable to save bookmarks: ", e);
-    }
+    return this.queries.execute(CAGServerBookmarkDeleteType.class, name)
+      .exceptionally(e -> {
+        LOG.error("Unable to save bookmarks: ", e);
+        return null;
+      });
   }
 
-  private void bookmarkSaveNow(
+  private CompletableFuture<?> bookmarkSaveNow(
     final CAGServerBookmark newBookmark)
   {
-    try {
-      LOG.debug("Save bookmark {}", newBookmark.name());
+    LOG.debug("Save bookmark {}", newBookmark.name());
 
-      try (var t = this.database.openTransaction()) {
-        t.query(CAGServerBookmarkPutType.class).execute(newBookmark);
-        t.commit();
-      }
-    } catch (final Exception e) {
-      LOG.error("Unable to save bookmarks: ", e);
-    }
+    return this.queries.execute(CAGServerBookmarkPutType.class, newBookmark)
+      .exceptionally(e -> {
+        LOG.error("Unable to save bookmarks: ", e);
+        return null;
+      });
   }
 
   @FXML
@@ -236,8 +229,8 @@ public final class CAGLoginView
           this.hostField.getCharacters().toString(),
           port,
           this.httpsBox.isSelected(),
-          Duration.ofSeconds(10L),
-          Duration.ofSeconds(10L),
+          this.loginTimeout,
+          this.commandTimeout,
           this.userField.getCharacters().toString(),
           this.passField.getCharacters().toString()
         ));
@@ -259,8 +252,8 @@ public final class CAGLoginView
       return;
     }
 
-    this.bookmarkDeleteNow(selected.name());
-    this.reloadBookmarks();
+    this.bookmarkDeleteNow(selected.name())
+      .thenRun(this::reloadBookmarks);
   }
 
   @FXML
@@ -283,8 +276,7 @@ public final class CAGLoginView
           newBookmark.commandTimeout(),
           newBookmark.username(),
           newBookmark.password()
-        ));
-        this.reloadBookmarks();
+        )).thenRun(this::reloadBookmarks);
       });
     });
   }
@@ -316,25 +308,31 @@ public final class CAGLoginView
           this.onSelectedBookmark(newValue)
       );
 
-    this.reloadBookmarks();
-    this.bookmarks.getSelectionModel()
-      .selectFirst();
+    this.reloadBookmarks()
+      .thenRun(() -> {
+        CAGFXThread.runLater(() -> {
+          this.bookmarks.getSelectionModel()
+            .selectFirst();
+        });
+      });
 
-    Platform.runLater(() -> {
+    CAGFXThread.runLater(() -> {
       this.hostField.requestFocus();
     });
   }
 
-  private void reloadBookmarks()
+  private CompletableFuture<?> reloadBookmarks()
   {
-    final var items = this.bookmarks.getItems();
-    items.clear();
-
-    try (var t = this.database.openTransaction()) {
-      items.addAll(t.query(CAGServerBookmarkListType.class).execute(UNIT));
-    } catch (final DDatabaseException e) {
-      LOG.error("Unable to load bookmarks: ", e);
-    }
+    return this.queries.execute(CAGServerBookmarkListType.class, UNIT)
+      .thenAccept(newBookmarks -> {
+        CAGFXThread.runLater(() -> {
+          this.bookmarks.getItems().setAll(newBookmarks);
+        });
+      })
+      .exceptionally(e -> {
+        LOG.error("Unable to load bookmarks: ", e);
+        return null;
+      });
   }
 
   private void onSelectedBookmark(
@@ -349,6 +347,8 @@ public final class CAGLoginView
     this.httpsBox.setSelected(bookmark.isHTTPs());
     this.userField.setText(bookmark.username());
     this.passField.setText(bookmark.password());
+    this.loginTimeout = bookmark.loginTimeout();
+    this.commandTimeout = bookmark.commandTimeout();
 
     this.validate();
   }
@@ -53,7 +53,11 @@ public final class CAGMainAuditView implements CAGViewType
     this.client =
       services.requireService(CAGClientServiceType.class);
     this.auditController =
-      CAGAuditController.create(this.client);
+      CAGAuditController.create(
+        this.client,
+        services.requireService(CAGAuditReplicaServiceType.class),
+        services.requireService(CAGSearchPageCacheServiceType.class)
+      );
   }
 
   @Override
@@ -54,7 +54,10 @@ public final class CAGMainFilesView implements CAGViewType
     this.client =
       services.requireService(CAGClientServiceType.class);
     this.fileSearchController =
-      CAGFileSearchController.create(this.client);
+      CAGFileSearchController.create(
+        this.client,
+        services.requireService(CAGSearchPageCacheServiceType.class)
+      );
   }
 
   @Override
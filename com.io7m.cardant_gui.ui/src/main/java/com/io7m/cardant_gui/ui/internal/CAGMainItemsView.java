@@ -60,11 +60,19 @@ public final class CAGMainItemsView
       services.requireService(CAGClientServiceType.class);
     final var events =
       services.requireService(CAGEventServiceType.class);
+    final var cache =
+      services.requireService(CAGEntityCacheServiceType.class);
+    final var offline =
+      services.requireService(CAGOfflineCacheServiceType.class);
+    final var pages =
+      services.requireService(CAGSearchPageCacheServiceType.class);
 
     this.itemDetailsController =
-      this.trackResource(CAGItemDetailsController.create(events, this.client));
+      this.trackResource(
+        CAGItemDetailsController.create(events, this.client, cache));
     this.itemSearchController =
-      this.trackResource(CAGItemSearchController.create(events, this.client));
+      this.trackResource(
+        CAGItemSearchController.create(events, this.client, offline, pages));
   }
 
   @Override
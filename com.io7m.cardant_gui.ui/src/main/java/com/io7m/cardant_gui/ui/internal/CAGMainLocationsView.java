@@ -53,7 +53,11 @@ public final class CAGMainLocationsView implements CAGViewType
     this.client =
       services.requireService(CAGClientServiceType.class);
     this.locationTreeController =
-      CAGLocationTreeController.create(this.client);
+      CAGLocationTreeController.create(
+        this.client,
+        services.requireService(CAGEntityCacheServiceType.class),
+        services.requireService(CAGOfflineCacheServiceType.class)
+      );
   }
 
   @Override
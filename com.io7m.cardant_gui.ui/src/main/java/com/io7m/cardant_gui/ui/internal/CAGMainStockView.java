@@ -29,7 +29,9 @@ import java.util.ResourceBundle;
  * The main stock view.
  */
 
-public final class CAGMainStockView implements CAGViewType
+public final class CAGMainStockView
+  extends CAGAbstractResourceHolder
+  implements CAGViewType
 {
   private final CAGClientServiceType client;
   private final CAGStockSearchControllerType stockSearchController;
@@ -53,7 +55,13 @@ public final class CAGMainStockView implements CAGViewType
     this.client =
       services.requireService(CAGClientServiceType.class);
     this.stockSearchController =
-      CAGStockSearchController.create(this.client);
+      this.trackResource(
+        CAGStockSearchController.create(
+          services.requireService(CAGEventServiceType.class),
+          this.client,
+          services.requireService(CAGSearchPageCacheServiceType.class)
+        )
+      );
   }
 
   @Override
@@ -55,7 +55,11 @@ public final class CAGMainTypePackagesView implements CAGViewType
     this.client =
       services.requireService(CAGClientServiceType.class);
     this.typePackagesController =
-      CAGTypePackagesController.create(this.client);
+      CAGTypePackagesController.create(
+        this.client,
+        services.requireService(CAGOfflineCacheServiceType.class),
+        services.requireService(CAGSearchPageCacheServiceType.class)
+      );
   }
 
   @Override
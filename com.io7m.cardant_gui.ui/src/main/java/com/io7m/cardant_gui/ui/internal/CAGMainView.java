@@ -91,7 +91,7 @@ public final class CAGMainView
     this.status.subscribe(this::onStatusEvent);
     this.clients.status()
       .subscribe((oldStatus, newStatus) -> {
-        Platform.runLater(() -> {
+        CAGFXThread.runLater(() -> {
           this.onClientStatusChanged(newStatus);
         });
       });
@@ -141,6 +141,7 @@ public final class CAGMainView
       switch (newStatus) {
         case NOT_CONNECTED -> false;
         case CONNECTING -> false;
+        case RECONNECTING -> true;
         case CONNECTED -> true;
       }
     );
@@ -149,6 +150,7 @@ public final class CAGMainView
       switch (newStatus) {
         case NOT_CONNECTED -> true;
         case CONNECTING -> true;
+        case RECONNECTING -> true;
         case CONNECTED -> false;
       }
     );
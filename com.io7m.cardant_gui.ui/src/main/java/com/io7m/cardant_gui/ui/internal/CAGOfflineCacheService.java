@@ -0,0 +1,360 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAItemSummary;
+import com.io7m.cardant.model.CALocationSummary;
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+import com.io7m.cardant.model.type_package.CATypePackageSummary;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemDeleteType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemsListType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemsPutType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationDeleteType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationsListType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationsPutType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedTypePackagesListType;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedTypePackagesPutType;
+import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseTransactionType;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageText;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageTextGetType;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageTextPutType;
+import com.io7m.darco.api.DDatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static com.io7m.darco.api.DDatabaseUnit.UNIT;
+
+/**
+ * An offline copy of inventory data held in the local database.
+ */
+
+public final class CAGOfflineCacheService
+  extends CAGAbstractResourceHolder
+  implements CAGOfflineCacheServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGOfflineCacheService.class);
+
+  private final CAGDatabaseExecutorServiceType executor;
+  private final Supplier<Optional<CAGServerBookmark>> sessionServer;
+
+  private CAGOfflineCacheService(
+    final CAGDatabaseExecutorServiceType inExecutor,
+    final Supplier<Optional<CAGServerBookmark>> inSessionServer)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.sessionServer =
+      Objects.requireNonNull(inSessionServer, "sessionServer");
+  }
+
+  /**
+   * Create an offline cache.
+   *
+   * @param executor The database executor
+   * @param events   The event service
+   * @param clients  The client service
+   *
+   * @return The cache service
+   */
+
+  public static CAGOfflineCacheService create(
+    final CAGDatabaseExecutorServiceType executor,
+    final CAGEventServiceType events,
+    final CAGClientServiceType clients)
+  {
+    Objects.requireNonNull(clients, "clients");
+    return create(executor, events, clients::sessionServer);
+  }
+
+  /**
+   * Create an offline cache.
+   *
+   * @param executor      The database executor
+   * @param events        The event service
+   * @param sessionServer A function that yields the server of the current
+   *                      session, if any
+   *
+   * @return The cache service
+   */
+
+  public static CAGOfflineCacheService create(
+    final CAGDatabaseExecutorServiceType executor,
+    final CAGEventServiceType events,
+    final Supplier<Optional<CAGServerBookmark>> sessionServer)
+  {
+    Objects.requireNonNull(events, "events");
+
+    final var service =
+      new CAGOfflineCacheService(executor, sessionServer);
+
+    final var subscriber =
+      service.trackResource(
+        CAGCloseableSubscriber.create(service::onEvent));
+
+    events.events().subscribe(subscriber);
+    return service;
+  }
+
+  /**
+   * Determine the key under which data received from the given server
+   * is cached. Bookmarks can be renamed, and logins need not use a named
+   * bookmark at all, so the key is derived from the server address and
+   * the user instead of the bookmark name.
+   *
+   * @param server The server
+   *
+   * @return The cache key
+   */
+
+  static String serverKey(
+    final CAGServerBookmark server)
+  {
+    return "%s://%s@%s:%d".formatted(
+      server.isHTTPs() ? "https" : "http",
+      server.username(),
+      server.host(),
+      Integer.valueOf(server.port())
+    );
+  }
+
+  private Optional<String> currentServerKey()
+  {
+    return this.sessionServer.get()
+      .map(CAGOfflineCacheService::serverKey);
+  }
+
+  private void onEvent(
+    final CAGEventType event)
+  {
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return;
+    }
+
+    final var server = serverOpt.get();
+    switch (event) {
+      case final CAGEventItemDeleted e -> {
+        this.write(t -> {
+          t.query(CAGCachedItemDeleteType.class)
+            .execute(new CAGCachedItemDeleteType.Parameters(server, e.item()));
+        });
+      }
+      case final CAGEventItemUpdated e -> {
+        this.write(t -> {
+          t.query(CAGCachedItemsPutType.class)
+            .execute(new CAGCachedItemsPutType.Parameters(
+              server,
+              List.of(e.item().summary())
+            ));
+        });
+      }
+      case final CAGEventLocationDeleted e -> {
+        this.write(t -> {
+          t.query(CAGCachedLocationDeleteType.class)
+            .execute(new CAGCachedLocationDeleteType.Parameters(
+              server,
+              e.location()
+            ));
+        });
+      }
+      case final CAGEventLocationUpdated e -> {
+        this.write(t -> {
+          t.query(CAGCachedLocationsPutType.class)
+            .execute(new CAGCachedLocationsPutType.Parameters(
+              server,
+              false,
+              List.of(e.location().summary())
+            ));
+        });
+      }
+    }
+  }
+
+  private interface WriteType
+  {
+    void execute(CAGDatabaseTransactionType transaction)
+      throws DDatabaseException;
+  }
+
+  /*
+   * Reads submitted to the database executor observe every write submitted
+   * before them, so a load that follows a save always observes the saved
+   * data.
+   */
+
+  private void write(
+    final WriteType operation)
+  {
+    this.executor.write(t -> {
+      operation.execute(t);
+      return UNIT;
+    }).exceptionally(e -> {
+      LOG.warn("Unable to update the offline cache: ", e);
+      return UNIT;
+    });
+  }
+
+  private <T> CompletableFuture<T> read(
+    final CAGDatabaseOperationType<T> operation,
+    final T orElse)
+  {
+    return this.executor.read(operation)
+      .exceptionally(e -> {
+        LOG.warn("Unable to read the offline cache: ", e);
+        return orElse;
+      });
+  }
+
+  @Override
+  public CompletableFuture<List<CAItemSummary>> items()
+  {
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    final var server = serverOpt.get();
+    return this.read(
+      t -> t.query(CAGCachedItemsListType.class).execute(server),
+      List.of()
+    );
+  }
+
+  @Override
+  public CompletableFuture<List<CALocationSummary>> locations()
+  {
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    final var server = serverOpt.get();
+    return this.read(
+      t -> t.query(CAGCachedLocationsListType.class).execute(server),
+      List.of()
+    );
+  }
+
+  @Override
+  public CompletableFuture<List<CATypePackageSummary>> typePackages()
+  {
+    final var serverOpt = this.currentServerKey();
+    if (serverOpt.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    final var server = serverOpt.get();
+    return this.read(
+      t -> t.query(CAGCachedTypePackagesListType.class).execute(server),
+      List.of()
+    );
+  }
+
+  @Override
+  public void itemsSave(
+    final List<CAItemSummary> items)
+  {
+    Objects.requireNonNull(items, "items");
+
+    this.currentServerKey().ifPresent(server -> {
+      this.write(t -> {
+        t.query(CAGCachedItemsPutType.class)
+          .execute(new CAGCachedItemsPutType.Parameters(server, items));
+      });
+    });
+  }
+
+  @Override
+  public void locationsSave(
+    final List<CALocationSummary> locations)
+  {
+    Objects.requireNonNull(locations, "locations");
+
+    this.currentServerKey().ifPresent(server -> {
+      this.write(t -> {
+        t.query(CAGCachedLocationsPutType.class)
+          .execute(new CAGCachedLocationsPutType.Parameters(
+            server,
+            true,
+            locations
+          ));
+      });
+    });
+  }
+
+  @Override
+  public void typePackagesSave(
+    final List<CATypePackageSummary> typePackages)
+  {
+    Objects.requireNonNull(typePackages, "typePackages");
+
+    this.currentServerKey().ifPresent(server -> {
+      this.write(t -> {
+        t.query(CAGCachedTypePackagesPutType.class)
+          .execute(new CAGCachedTypePackagesPutType.Parameters(
+            server,
+            typePackages
+          ));
+      });
+    });
+  }
+
+  @Override
+  public CompletableFuture<Optional<CAGTypePackageText>> typePackageText(
+    final CATypePackageIdentifier identifier)
+  {
+    Objects.requireNonNull(identifier, "identifier");
+
+    return this.read(
+      t -> t.query(CAGTypePackageTextGetType.class).execute(identifier),
+      Optional.empty()
+    );
+  }
+
+  @Override
+  public void typePackageTextSave(
+    final CAGTypePackageText text)
+  {
+    Objects.requireNonNull(text, "text");
+
+    this.write(t -> {
+      t.query(CAGTypePackageTextPutType.class).execute(text);
+    });
+  }
+
+  @Override
+  public String description()
+  {
+    return "Offline inventory cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGOfflineCacheService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAItemSummary;
+import com.io7m.cardant.model.CALocationSummary;
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+import com.io7m.cardant.model.type_package.CATypePackageSummary;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageText;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An offline copy of inventory data, held in the local database and keyed
+ * by the server from which the data was received. The copy allows views to
+ * display something immediately on login, before fresh data has arrived
+ * from the server.
+ */
+
+public interface CAGOfflineCacheServiceType extends RPServiceType
+{
+  /**
+   * @return The item summaries cached for the current server
+   */
+
+  CompletableFuture<List<CAItemSummary>> items();
+
+  /**
+   * @return The location summaries cached for the current server
+   */
+
+  CompletableFuture<List<CALocationSummary>> locations();
+
+  /**
+   * @return The type package summaries cached for the current server
+   */
+
+  CompletableFuture<List<CATypePackageSummary>> typePackages();
+
+  /**
+   * Add the given item summaries to those cached for the current server,
+   * updating any that are already cached. Search results are usually
+   * filtered and paged, and so are never taken to be the complete set of
+   * items; items are only removed from the cache when they are deleted.
+   *
+   * @param items The item summaries
+   */
+
+  void itemsSave(List<CAItemSummary> items);
+
+  /**
+   * Replace the location summaries cached for the current server.
+   *
+   * @param locations The location summaries
+   */
+
+  void locationsSave(List<CALocationSummary> locations);
+
+  /**
+   * Replace the type package summaries cached for the current server.
+   *
+   * @param typePackages The type package summaries
+   */
+
+  void typePackagesSave(List<CATypePackageSummary> typePackages);
+
+  /**
+   * Find the stored text of a type package. Type packages are immutable
+   * for a given identifier, so the text is shared by all servers and is
+   * never invalidated.
+   *
+   * @param identifier The type package identifier
+   *
+   * @return The text, if it has been stored
+   */
+
+  CompletableFuture<Optional<CAGTypePackageText>> typePackageText(
+    CATypePackageIdentifier identifier);
+
+  /**
+   * Store the text of a type package.
+   *
+   * @param text The text
+   */
+
+  void typePackageTextSave(CAGTypePackageText text);
+}
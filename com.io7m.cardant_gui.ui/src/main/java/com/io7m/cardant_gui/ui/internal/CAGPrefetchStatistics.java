@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+/**
+ * Statistics for page prefetching.
+ *
+ * @param issued The number of pages fetched ahead of being requested
+ * @param hits   The number of requested pages that had been prefetched
+ */
+
+public record CAGPrefetchStatistics(
+  long issued,
+  long hits)
+{
+  private static final CAGPrefetchStatistics ZERO =
+    new CAGPrefetchStatistics(0L, 0L);
+
+  /**
+   * @return The zero statistics
+   */
+
+  public static CAGPrefetchStatistics zero()
+  {
+    return ZERO;
+  }
+
+  /**
+   * @return The fraction of prefetched pages that were later requested
+   */
+
+  public double hitRatio()
+  {
+    if (this.issued == 0L) {
+      return 0.0;
+    }
+    return (double) this.hits / (double) this.issued;
+  }
+}
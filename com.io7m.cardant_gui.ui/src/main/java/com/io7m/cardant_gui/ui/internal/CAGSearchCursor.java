@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.protocol.inventory.CAICommandType;
+import com.io7m.cardant.protocol.inventory.CAIResponseType;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+
+/**
+ * A cursor over a search held on the server. The server holds a single
+ * search of each kind per session and only moves through it one page at a
+ * time, so the cursor remembers which page the server is on, and moves the
+ * server to a requested page with the fewest commands. Moves are
+ * serialized, so that a background prefetch cannot move the server away
+ * from a page while an interactive fetch is stepping towards it.
+ *
+ * Because moves are serialized, an interactive fetch would otherwise wait
+ * behind every prefetch queued before it. Instead, while an interactive
+ * fetch is waiting, background fetches are abandoned before their next
+ * step and fail with {@link CancellationException}. The server position
+ * remains known, as every completed step is recorded.
+ *
+ * @param <P> The type of search parameters
+ * @param <R> The type of responses
+ */
+
+public final class CAGSearchCursor<P, R extends CAIResponseType>
+  implements CAGSearchPager.FetcherType<P, R>
+{
+  private final ExecutorType<R> executor;
+  private final Function<P, CAICommandType<R>> begin;
+  private final Supplier<CAICommandType<R>> next;
+  private final Supplier<CAICommandType<R>> previous;
+  private final Function<R, CAGPageRange> rangeOf;
+  private CompletableFuture<?> moves;
+  private P serverParameters;
+  private long serverPageIndex;
+  private int interactiveWaiting;
+
+  /**
+   * A response received from the server while stepping towards a page.
+   *
+   * @param response The response
+   * @param <R>      The type of responses
+   */
+
+  private record Received<R>(R response)
+  {
+
+  }
+
+  /**
+   * A function that executes a command on the server.
+   *
+   * @param <R> The type of responses
+   */
+
+  @FunctionalInterface
+  public interface ExecutorType<R extends CAIResponseType>
+  {
+    /**
+     * Execute a command.
+     *
+     * @param command  The command
+     * @param priority The priority of the command
+     *
+     * @return The response
+     */
+
+    CompletableFuture<R> execute(
+      CAICommandType<R> command,
+      CAGClientCommandPriority priority);
+  }
+
+  /**
+   * Create a cursor.
+   *
+   * @param inExecute  A function that executes a command on the server
+   * @param inBegin    A function that produces a command to begin a search
+   * @param inNext     A function that produces a command to move to the next
+   *                   page
+   * @param inPrevious A function that produces a command to move to the
+   *                   previous page
+   * @param inRangeOf  A function that extracts the page range of a response
+   */
+
+  public CAGSearchCursor(
+    final ExecutorType<R> inExecute,
+    final Function<P, CAICommandType<R>> inBegin,
+    final Supplier<CAICommandType<R>> inNext,
+    final Supplier<CAICommandType<R>> inPrevious,
+    final Function<R, CAGPageRange> inRangeOf)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecute, "executor");
+    this.begin =
+      Objects.requireNonNull(inBegin, "begin");
+    this.next =
+      Objects.requireNonNull(inNext, "next");
+    this.previous =
+      Objects.requireNonNull(inPrevious, "previous");
+    this.rangeOf =
+      Objects.requireNonNull(inRangeOf, "rangeOf");
+    this.moves =
+      CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Forget the position of the server, so that the next fetch begins a new
+   * search. This must be called when the session changes.
+   */
+
+  public synchronized void reset()
+  {
+    this.serverParameters = null;
+    this.serverPageIndex = 0L;
+  }
+
+  @Override
+  public synchronized CompletableFuture<R> fetch(
+    final P parameters,
+    final long pageIndex,
+    final CAGClientCommandPriority priority)
+  {
+    final var interactive = priority != BACKGROUND;
+    if (interactive) {
+      ++this.interactiveWaiting;
+    }
+
+    final var future =
+      this.moves.handle((ignored0, ignored1) -> null)
+        .thenCompose(ignored -> {
+          if (interactive) {
+            synchronized (this) {
+              --this.interactiveWaiting;
+            }
+          }
+          return this.step(parameters, pageIndex, priority, null);
+        });
+
+    this.moves = future;
+    return future;
+  }
+
+  private CompletableFuture<R> step(
+    final P parameters,
+    final long pageIndex,
+    final CAGClientCommandPriority priority,
+    final Received<R> received)
+  {
+    final CAICommandType<R> command;
+    synchronized (this) {
+      if (!Objects.equals(this.serverParameters, parameters)) {
+        command = this.begin.apply(parameters);
+      } else if (this.serverPageIndex < pageIndex) {
+        command = this.next.get();
+      } else if (this.serverPageIndex > pageIndex) {
+        command = this.previous.get();
+      } else if (received != null) {
+        return CompletableFuture.completedFuture(received.response());
+      } else if (pageIndex > 1L) {
+        /*
+         * The server is already on the page, but there is no command that
+         * repeats the current page, so step away and back again.
+         */
+        command = this.previous.get();
+      } else {
+        command = this.begin.apply(parameters);
+      }
+
+      if (priority == BACKGROUND && this.interactiveWaiting > 0) {
+        return CompletableFuture.failedFuture(
+          new CancellationException(
+            "Background fetch abandoned for an interactive fetch.")
+        );
+      }
+    }
+
+    return this.executor.execute(command, priority)
+      .whenComplete((response, exception) -> {
+        if (exception != null) {
+          this.reset();
+        }
+      })
+      .thenCompose(response -> {
+        final var range = this.rangeOf.apply(response);
+        final long indexThen;
+        synchronized (this) {
+          indexThen = this.serverPageIndex;
+          this.serverParameters = parameters;
+          this.serverPageIndex = range.pageIndex();
+        }
+
+        /*
+         * The server clamps page indices, so a step that does not move
+         * the server means that the requested page does not exist, and the
+         * nearest page is returned instead.
+         */
+
+        if (received != null && range.pageIndex() == indexThen) {
+          return CompletableFuture.completedFuture(response);
+        }
+        return this.step(
+          parameters,
+          pageIndex,
+          priority,
+          new Received<>(response)
+        );
+      });
+  }
+}
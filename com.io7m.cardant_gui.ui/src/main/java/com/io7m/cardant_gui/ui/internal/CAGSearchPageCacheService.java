@@ -0,0 +1,367 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.model.CAItemSearchParameters;
+import com.io7m.cardant.model.CAStockSearchParameters;
+import com.io7m.cardant.protocol.inventory.CAIResponseType;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.jattribute.core.AttributeType;
+import com.io7m.jattribute.core.Attributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A cache of pages of search results.
+ */
+
+public final class CAGSearchPageCacheService
+  extends CAGAbstractResourceHolder
+  implements CAGSearchPageCacheServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGSearchPageCacheService.class);
+
+  private final CAGLRUCache<PageKey, Page> pages;
+  private final ConcurrentHashMap<Class<?>, CAGSearchCursor<?, ?>> cursors;
+  private final AttributeType<CAGPrefetchStatistics> prefetchStatistics;
+  private final long timeToLiveNanos;
+  private final LongSupplier timeSource;
+  private long prefetchesIssued;
+  private long prefetchHits;
+
+  private record PageKey(
+    Object parameters,
+    long pageIndex)
+  {
+
+  }
+
+  private record Page(
+    CompletableFuture<?> future,
+    long timeCreated,
+    boolean prefetched)
+  {
+
+  }
+
+  private CAGSearchPageCacheService(
+    final int capacity,
+    final Duration timeToLive,
+    final LongSupplier inTimeSource)
+  {
+    final var attributes =
+      Attributes.create(throwable -> LOG.error("Exception: ", throwable));
+
+    this.pages =
+      new CAGLRUCache<>(attributes, capacity);
+    this.cursors =
+      new ConcurrentHashMap<>();
+    this.prefetchStatistics =
+      attributes.withValue(CAGPrefetchStatistics.zero());
+    this.timeToLiveNanos =
+      timeToLive.toNanos();
+    this.timeSource =
+      Objects.requireNonNull(inTimeSource, "timeSource");
+  }
+
+  /**
+   * Create a search page cache.
+   *
+   * @param events     The event service
+   * @param clients    The client service
+   * @param capacity   The maximum number of cached pages
+   * @param timeToLive The time after which a cached page expires
+   *
+   * @return The cache service
+   */
+
+  public static CAGSearchPageCacheServiceType create(
+    final CAGEventServiceType events,
+    final CAGClientServiceType clients,
+    final int capacity,
+    final Duration timeToLive)
+  {
+    Objects.requireNonNull(clients, "clients");
+
+    return create(
+      events,
+      clients.status(),
+      capacity,
+      timeToLive,
+      System::nanoTime
+    );
+  }
+
+  /**
+   * Create a search page cache.
+   *
+   * @param events     The event service
+   * @param status     The client status
+   * @param capacity   The maximum number of cached pages
+   * @param timeToLive The time after which a cached page expires
+   * @param timeSource The source of monotonic time in nanoseconds, such as
+   *                   {@link System#nanoTime()}
+   *
+   * @return The cache service
+   */
+
+  public static CAGSearchPageCacheService create(
+    final CAGEventServiceType events,
+    final AttributeReadableType<CAGClientStatus> status,
+    final int capacity,
+    final Duration timeToLive,
+    final LongSupplier timeSource)
+  {
+    Objects.requireNonNull(events, "events");
+    Objects.requireNonNull(status, "status");
+    Objects.requireNonNull(timeToLive, "timeToLive");
+
+    final var service =
+      new CAGSearchPageCacheService(capacity, timeToLive, timeSource);
+
+    service.trackResource(
+      status.subscribe((oldStatus, newStatus) -> {
+        service.onClientStatusChanged(newStatus);
+      })
+    );
+
+    final var subscriber =
+      service.trackResource(
+        CAGCloseableSubscriber.create(service::onEvent));
+
+    events.events().subscribe(subscriber);
+    return service;
+  }
+
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
+  {
+    /*
+     * A recovered session is a new session on the server, so the server
+     * no longer holds any searches even though the pages remain valid.
+     */
+
+    if (newStatus == CAGClientStatus.CONNECTED || newStatus.discardsData()) {
+      for (final var cursor : this.cursors.values()) {
+        cursor.reset();
+      }
+    }
+
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.pages.clear();
+  }
+
+  private void onEvent(
+    final CAGEventType event)
+  {
+    /*
+     * Item search pages show items, and stock search pages show both the
+     * items and the locations that hold them. Item searches cannot match
+     * on locations, so a change to a location leaves the item search
+     * pages alone. Update events are also published whenever an item or
+     * location is merely read, and those leave the pages alone.
+     */
+
+    switch (event) {
+      case final CAGEventItemDeleted e -> {
+        this.invalidateItems();
+      }
+      case final CAGEventItemUpdated e -> {
+        if (e.modified()) {
+          this.invalidateItems();
+        }
+      }
+      case final CAGEventLocationDeleted e -> {
+        this.invalidateLocations();
+      }
+      case final CAGEventLocationUpdated e -> {
+        if (e.modified()) {
+          this.invalidateLocations();
+        }
+      }
+    }
+  }
+
+  private void invalidateItems()
+  {
+    this.pages.removeIf(key -> {
+      return key.parameters() instanceof CAItemSearchParameters
+             || key.parameters() instanceof CAStockSearchParameters;
+    });
+  }
+
+  private void invalidateLocations()
+  {
+    this.invalidate(CAStockSearchParameters.class);
+  }
+
+  @Override
+  public <P, R> CompletableFuture<R> page(
+    final P parameters,
+    final long pageIndex,
+    final Supplier<CompletableFuture<R>> fetch)
+  {
+    return this.lookup(parameters, pageIndex, fetch, false);
+  }
+
+  @Override
+  public <P, R> CompletableFuture<R> prefetch(
+    final P parameters,
+    final long pageIndex,
+    final Supplier<CompletableFuture<R>> fetch)
+  {
+    return this.lookup(parameters, pageIndex, fetch, true);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P, R> CompletableFuture<R> lookup(
+    final P parameters,
+    final long pageIndex,
+    final Supplier<CompletableFuture<R>> fetch,
+    final boolean prefetch)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(fetch, "fetch");
+
+    /*
+     * The key includes the parameters, and the parameters are only ever
+     * used with one kind of search, so a cached future always has the
+     * type requested here.
+     */
+
+    final var key = new PageKey(parameters, pageIndex);
+    final CompletableFuture<R> future;
+    final CAGPrefetchStatistics statistics;
+    synchronized (this.pages) {
+      final var timeNow = this.timeSource.getAsLong();
+      final var existing = this.pages.get(key);
+      if (existing.isPresent()) {
+        final var page = existing.get();
+        if (timeNow - page.timeCreated() < this.timeToLiveNanos) {
+          if (!prefetch && page.prefetched()) {
+            return this.prefetchHit(key, page);
+          }
+          return (CompletableFuture<R>) page.future();
+        }
+      }
+
+      future = fetch.get();
+      this.pages.put(key, new Page(future, timeNow, prefetch));
+      if (prefetch) {
+        ++this.prefetchesIssued;
+      }
+      statistics = this.prefetchSnapshot();
+    }
+
+    this.prefetchStatistics.set(statistics);
+    /*
+     * A failed page is removed only if it is still the cached page; the
+     * page may since have been invalidated and fetched again.
+     */
+
+    future.whenComplete((result, exception) -> {
+      if (exception != null) {
+        this.pages.remove(key, page -> page.future() == future);
+      }
+    });
+    return future;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <R> CompletableFuture<R> prefetchHit(
+    final PageKey key,
+    final Page page)
+  {
+    /*
+     * The page is counted as a hit only the first time it is requested,
+     * after which it is an ordinary cached page.
+     */
+
+    ++this.prefetchHits;
+    this.pages.put(key, new Page(page.future(), page.timeCreated(), false));
+    this.prefetchStatistics.set(this.prefetchSnapshot());
+    return (CompletableFuture<R>) page.future();
+  }
+
+  private CAGPrefetchStatistics prefetchSnapshot()
+  {
+    return new CAGPrefetchStatistics(this.prefetchesIssued, this.prefetchHits);
+  }
+
+  @Override
+  public void invalidate(
+    final Class<?> parametersType)
+  {
+    Objects.requireNonNull(parametersType, "parametersType");
+    this.pages.removeIf(key -> parametersType.isInstance(key.parameters()));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <P, R extends CAIResponseType> CAGSearchCursor<P, R> cursor(
+    final Class<P> parametersType,
+    final Supplier<CAGSearchCursor<P, R>> create)
+  {
+    Objects.requireNonNull(parametersType, "parametersType");
+    Objects.requireNonNull(create, "create");
+
+    /*
+     * The parameters are only ever used with one kind of search, so a
+     * cursor always has the type requested here.
+     */
+
+    return (CAGSearchCursor<P, R>)
+      this.cursors.computeIfAbsent(parametersType, k -> create.get());
+  }
+
+  @Override
+  public AttributeReadableType<CAGCacheStatistics> statistics()
+  {
+    return this.pages.statistics();
+  }
+
+  @Override
+  public AttributeReadableType<CAGPrefetchStatistics> prefetchStatistics()
+  {
+    return this.prefetchStatistics;
+  }
+
+  @Override
+  public String description()
+  {
+    return "Search page cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGSearchPageCacheService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
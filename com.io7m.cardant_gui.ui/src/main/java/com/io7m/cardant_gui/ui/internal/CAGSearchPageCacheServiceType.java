@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.cardant.protocol.inventory.CAIResponseType;
+import com.io7m.jattribute.core.AttributeReadableType;
+import com.io7m.repetoir.core.RPServiceType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A cache of pages of search results, keyed by the search parameters and
+ * the page index. Pages expire after a fixed time, and pages that might
+ * contain entities that have changed are discarded when the change is
+ * announced.
+ */
+
+public interface CAGSearchPageCacheServiceType extends RPServiceType
+{
+  /**
+   * Find the page for the given search parameters and page index, fetching
+   * the page if it is not cached or has expired. If an identical fetch is
+   * already in progress, the future for that fetch is returned instead of
+   * starting another search on the server.
+   *
+   * @param parameters The search parameters
+   * @param pageIndex  The page index (indexed from 1)
+   * @param fetch      A function that fetches the page
+   * @param <P>        The type of search parameters
+   * @param <R>        The type of pages
+   *
+   * @return The page
+   */
+
+  <P, R> CompletableFuture<R> page(
+    P parameters,
+    long pageIndex,
+    Supplier<CompletableFuture<R>> fetch);
+
+  /**
+   * Fetch the page for the given search parameters and page index ahead
+   * of it being requested, unless the page is already cached. A page
+   * fetched in this way counts as a prefetch hit the first time that it
+   * is requested with {@link #page(Object, long, Supplier)}.
+   *
+   * @param parameters The search parameters
+   * @param pageIndex  The page index (indexed from 1)
+   * @param fetch      A function that fetches the page
+   * @param <P>        The type of search parameters
+   * @param <R>        The type of pages
+   *
+   * @return The page
+   */
+
+  <P, R> CompletableFuture<R> prefetch(
+    P parameters,
+    long pageIndex,
+    Supplier<CompletableFuture<R>> fetch);
+
+  /**
+   * Discard all pages of searches that have parameters of the given type.
+   *
+   * @param parametersType The type of search parameters
+   */
+
+  void invalidate(
+    Class<?> parametersType);
+
+  /**
+   * Find the cursor for searches that have parameters of the given type,
+   * creating it if necessary. The server holds a single search of each
+   * kind per session, so every controller that searches for a given kind
+   * of entity must move the server through the same cursor. The cursors
+   * are reset whenever the session changes.
+   *
+   * @param parametersType The type of search parameters
+   * @param create         A function that creates the cursor
+   * @param <P>            The type of search parameters
+   * @param <R>            The type of responses
+   *
+   * @return The cursor
+   */
+
+  <P, R extends CAIResponseType> CAGSearchCursor<P, R> cursor(
+    Class<P> parametersType,
+    Supplier<CAGSearchCursor<P, R>> create);
+
+  /**
+   * @return The page cache statistics
+   */
+
+  AttributeReadableType<CAGCacheStatistics> statistics();
+
+  /**
+   * @return The prefetch statistics
+   */
+
+  AttributeReadableType<CAGPrefetchStatistics> prefetchStatistics();
+}
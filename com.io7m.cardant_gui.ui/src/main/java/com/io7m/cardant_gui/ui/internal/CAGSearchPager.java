@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.BACKGROUND;
+import static com.io7m.cardant_gui.ui.internal.CAGClientCommandPriority.INTERACTIVE;
+
+/**
+ * A pager over the results of a search. Pages are retrieved through the
+ * search page cache and, when a page arrives, the pages either side of it
+ * are fetched at background priority so that moving to an adjacent page
+ * does not wait for the server. A prefetch that has not finished when the
+ * user moves elsewhere may be abandoned by the fetcher, in which case the
+ * page is simply fetched again when it is next wanted.
+ *
+ * @param <P> The type of search parameters
+ * @param <R> The type of pages
+ */
+
+final class CAGSearchPager<P, R>
+{
+  private final CAGSearchPageCacheServiceType pages;
+  private final FetcherType<P, R> fetcher;
+  private final Function<R, CAGPageRange> rangeOf;
+  private volatile P latest;
+
+  /**
+   * A function that fetches a page of search results.
+   *
+   * @param <P> The type of search parameters
+   * @param <R> The type of pages
+   */
+
+  @FunctionalInterface
+  interface FetcherType<P, R>
+  {
+    /**
+     * Fetch a page.
+     *
+     * @param parameters The search parameters
+     * @param pageIndex  The page index (indexed from 1)
+     * @param priority   The priority of the fetch
+     *
+     * @return The page
+     */
+
+    CompletableFuture<R> fetch(
+      P parameters,
+      long pageIndex,
+      CAGClientCommandPriority priority);
+  }
+
+  CAGSearchPager(
+    final CAGSearchPageCacheServiceType inPages,
+    final FetcherType<P, R> inFetcher,
+    final Function<R, CAGPageRange> inRangeOf)
+  {
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
+    this.fetcher =
+      Objects.requireNonNull(inFetcher, "fetcher");
+    this.rangeOf =
+      Objects.requireNonNull(inRangeOf, "rangeOf");
+  }
+
+  /**
+   * Retrieve a page, and start prefetching the pages either side of it.
+   *
+   * @param parameters The search parameters
+   * @param pageIndex  The page index (indexed from 1)
+   *
+   * @return The page
+   */
+
+  CompletableFuture<R> page(
+    final P parameters,
+    final long pageIndex)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    this.latest = parameters;
+
+    final CompletableFuture<R> future =
+      this.pages.page(
+        parameters,
+        pageIndex,
+        () -> this.fetcher.fetch(parameters, pageIndex, INTERACTIVE)
+      );
+
+    future.thenAccept(page -> {
+      final var range = this.rangeOf.apply(page);
+      if (range.hasNext()) {
+        this.prefetch(parameters, range.pageIndex() + 1L);
+      }
+      if (range.hasPrevious()) {
+        this.prefetch(parameters, range.pageIndex() - 1L);
+      }
+    });
+    return future;
+  }
+
+  private void prefetch(
+    final P parameters,
+    final long pageIndex)
+  {
+    /*
+     * There is no value in prefetching pages of a search that has been
+     * replaced by another, and fetching them might move the server away
+     * from the newer search.
+     */
+
+    if (!Objects.equals(this.latest, parameters)) {
+      return;
+    }
+
+    this.pages.prefetch(
+      parameters,
+      pageIndex,
+      () -> this.fetcher.fetch(parameters, pageIndex, BACKGROUND)
+    );
+  }
+}
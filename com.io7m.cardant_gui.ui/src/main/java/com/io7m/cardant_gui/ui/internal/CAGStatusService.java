@@ -18,7 +18,6 @@
 package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.repetoir.core.RPServiceType;
-import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -134,7 +133,7 @@ public final class CAGStatusService implements RPServiceType
     public void onNext(
       final CAGStatusEvent item)
     {
-      Platform.runLater(() -> this.consumer.accept(item));
+      CAGFXThread.runLaterCoalesced(this, () -> this.consumer.accept(item));
     }
 
     @Override
@@ -17,11 +17,18 @@
 
 package com.io7m.cardant_gui.ui.internal;
 
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.cardant.model.CAStockOccurrenceSerial;
+import com.io7m.cardant.model.CAStockOccurrenceSet;
 import com.io7m.cardant.model.CAStockOccurrenceType;
 import com.io7m.cardant.model.CAStockSearchParameters;
 import com.io7m.cardant.protocol.inventory.CAICommandStockSearchBegin;
-import javafx.application.Platform;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchNext;
+import com.io7m.cardant.protocol.inventory.CAICommandStockSearchPrevious;
+import com.io7m.cardant.protocol.inventory.CAIResponseStockSearch;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
@@ -29,13 +36,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A stock search controller.
  */
 
 public final class CAGStockSearchController
+  extends CAGAbstractResourceHolder
   implements CAGStockSearchControllerType
 {
   private static final Logger LOG =
@@ -45,13 +55,40 @@ public final class CAGStockSearchController
   private final SortedList<CAStockOccurrenceType> stockSorted;
   private final ObservableList<CAStockOccurrenceType> stock;
   private final SimpleObjectProperty<CAGPageRange> stockPages;
+  private final HashSet<CAItemID> stockItems;
+  private final HashSet<CALocationID> stockLocations;
   private final CAGClientServiceType client;
+  private final CAGSearchPageCacheServiceType pages;
+  private final CAGSearchCursor<CAStockSearchParameters, CAIResponseStockSearch> cursor;
+  private final CAGSearchPager<CAStockSearchParameters, CAIResponseStockSearch> pager;
+  private CAStockSearchParameters searchParameters;
+  private boolean stockRefreshPending;
 
   private CAGStockSearchController(
-    final CAGClientServiceType inClient)
+    final CAGClientServiceType inClient,
+    final CAGSearchPageCacheServiceType inPages)
   {
     this.client =
       Objects.requireNonNull(inClient, "client");
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
+    this.cursor =
+      this.pages.cursor(
+        CAStockSearchParameters.class,
+        () -> new CAGSearchCursor<>(
+          this.client::execute,
+          CAICommandStockSearchBegin::new,
+          CAICommandStockSearchNext::new,
+          CAICommandStockSearchPrevious::new,
+          CAGStockSearchController::rangeOf
+        )
+      );
+    this.pager =
+      new CAGSearchPager<>(
+        this.pages,
+        this.cursor,
+        CAGStockSearchController::rangeOf
+      );
 
     this.stock =
       FXCollections.observableArrayList();
@@ -62,27 +99,107 @@ public final class CAGStockSearchController
 
     this.stockPages =
       new SimpleObjectProperty<>(CAGPageRange.zero());
+    this.stockItems =
+      new HashSet<>();
+    this.stockLocations =
+      new HashSet<>();
   }
 
   /**
+   * @param events The event service
    * @param client The client
+   * @param pages  The search page cache
    *
    * @return A stock search controller.
    */
 
   public static CAGStockSearchControllerType create(
-    final CAGClientServiceType client)
+    final CAGEventServiceType events,
+    final CAGClientServiceType client,
+    final CAGSearchPageCacheServiceType pages)
   {
-    final var controller = new CAGStockSearchController(client);
-    client.status().subscribe((oldStatus, newStatus) -> {
-      controller.onClientStatusChanged();
-    });
+    final var controller = new CAGStockSearchController(client, pages);
+
+    controller.trackResource(
+      client.status()
+        .subscribe((oldStatus, newStatus) -> {
+          controller.onClientStatusChanged(newStatus);
+        })
+    );
+
+    final var subscriber =
+      controller.trackResource(
+        CAGCloseableSubscriber.create(controller::onEvent));
+
+    events.events().subscribe(subscriber);
     return controller;
   }
 
-  private void onClientStatusChanged()
+  private void onEvent(
+    final CAGEventType event)
   {
+    /*
+     * The displayed stock is indexed by item and location, so an event
+     * about an item or location that does not appear in the displayed
+     * stock is dismissed without examining the stock itself. Update
+     * events are also published when an item or location is merely read,
+     * and those change nothing.
+     */
+
+    CAGFXThread.runLater(() -> {
+      final var affected = switch (event) {
+        case final CAGEventItemDeleted e -> {
+          yield this.stockItems.contains(e.item());
+        }
+        case final CAGEventItemUpdated e -> {
+          yield e.modified() && this.stockItems.contains(e.item().id());
+        }
+        case final CAGEventLocationDeleted e -> {
+          yield this.stockLocations.contains(e.location());
+        }
+        case final CAGEventLocationUpdated e -> {
+          yield e.modified()
+                && this.stockLocations.contains(e.location().id());
+        }
+      };
+
+      if (affected) {
+        this.stockRefresh();
+      }
+    });
+  }
+
+  /**
+   * Fetch the displayed page again. A burst of events results in a single
+   * fetch, as the fetch is deferred until the events that have already
+   * been queued for the FX thread have been processed.
+   */
+
+  private void stockRefresh()
+  {
+    if (this.stockRefreshPending) {
+      return;
+    }
+
+    this.stockRefreshPending = true;
+    CAGFXThread.runLater(() -> {
+      this.stockRefreshPending = false;
+      this.pages.invalidate(CAStockSearchParameters.class);
+      this.stockSearchPage(this.stockPages.get().pageIndex());
+    });
+  }
+
+  private void onClientStatusChanged(
+    final CAGClientStatus newStatus)
+  {
+    if (!newStatus.discardsData()) {
+      return;
+    }
+
+    this.searchParameters = null;
     this.stock.clear();
+    this.stockItems.clear();
+    this.stockLocations.clear();
     this.stockPages.set(CAGPageRange.zero());
   }
 
@@ -98,32 +215,104 @@ public final class CAGStockSearchController
     return this.stockSorted;
   }
 
+  @Override
+  public ObservableValue<CAGPageRange> stockPages()
+  {
+    return this.stockPages;
+  }
+
+  /**
+   * A stock occurrence is identified by its location, its item, and (for
+   * serial numbered stock) its serial number.
+   */
+
+  private record StockKey(
+    CALocationID location,
+    CAItemID item,
+    Optional<String> serial)
+  {
+
+  }
+
+  private static StockKey stockKey(
+    final CAStockOccurrenceType occurrence)
+  {
+    return new StockKey(
+      occurrence.location().id(),
+      occurrence.item().id(),
+      switch (occurrence) {
+        case final CAStockOccurrenceSerial serial -> {
+          yield Optional.of(serial.serial().value());
+        }
+        case final CAStockOccurrenceSet set -> {
+          yield Optional.empty();
+        }
+      }
+    );
+  }
+
+  private void stockIndex()
+  {
+    this.stockItems.clear();
+    this.stockLocations.clear();
+    for (final var occurrence : this.stock) {
+      this.stockItems.add(occurrence.item().id());
+      this.stockLocations.add(occurrence.location().id());
+    }
+  }
+
+  private static CAGPageRange rangeOf(
+    final CAIResponseStockSearch response)
+  {
+    final var data = response.data();
+    return new CAGPageRange((long) data.pageIndex(), (long) data.pageCount());
+  }
+
   @Override
   public void stockSearchBegin(
-    final CAStockSearchParameters searchParameters)
+    final CAStockSearchParameters parameters)
   {
-    final var future =
-      this.client.execute(
-        new CAICommandStockSearchBegin(searchParameters)
-      );
+    this.searchParameters =
+      Objects.requireNonNull(parameters, "parameters");
 
-    future.thenAccept(response -> {
-      Platform.runLater(() -> {
-        final var data =
-          response.data();
+    this.stockSearchPage(1L);
+  }
 
+  @Override
+  public void stockSearchPage(
+    final long pageIndex)
+  {
+    final var parameters = this.searchParameters;
+    if (parameters == null) {
+      return;
+    }
+
+    this.pager.page(parameters, pageIndex).thenAccept(response -> {
+      CAGFXThread.runLaterCoalesced(this.stockPages, () -> {
         final var newItemPage =
-          new ArrayList<>(data.items());
+          new ArrayList<>(response.data().items());
 
         LOG.debug("Received {} stock", newItemPage.size());
-        this.stockPages.set(
-          new CAGPageRange(
-            (long) data.pageIndex(),
-            (long) data.pageCount()
-          )
+        this.stockPages.set(rangeOf(response));
+        CAGListDiff.apply(
+          this.stock,
+          newItemPage,
+          CAGStockSearchController::stockKey
         );
-        this.stock.setAll(newItemPage);
+        this.stockIndex();
       });
     });
   }
+
+  @Override
+  public void stockSearchNext()
+  {
+    this.stockSearchPage(this.stockPages.get().pageIndex() + 1L);
+  }
+
+  @Override
+  public void stockSearchPrevious()
+  {
+    this.stockSearchPage(this.stockPages.get().pageIndex() - 1L);
+  }
 }
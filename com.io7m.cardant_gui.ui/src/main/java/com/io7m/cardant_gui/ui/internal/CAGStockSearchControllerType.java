@@ -19,6 +19,7 @@ package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.model.CAStockOccurrenceType;
 import com.io7m.cardant.model.CAStockSearchParameters;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
 
@@ -27,6 +28,7 @@ import javafx.collections.transformation.SortedList;
  */
 
 public interface CAGStockSearchControllerType
+  extends AutoCloseable
 {
   /**
    * @return The stock for the current search query
@@ -40,6 +42,12 @@ public interface CAGStockSearchControllerType
 
   SortedList<CAStockOccurrenceType> stockViewSorted();
 
+  /**
+   * @return The stock search result pages
+   */
+
+  ObservableValue<CAGPageRange> stockPages();
+
   /**
    * Start searching for stock.
    *
@@ -48,4 +56,25 @@ public interface CAGStockSearchControllerType
 
   void stockSearchBegin(
     CAStockSearchParameters searchParameters);
+
+  /**
+   * Show the given page of the current search.
+   *
+   * @param pageIndex The page index (indexed from 1)
+   */
+
+  void stockSearchPage(
+    long pageIndex);
+
+  /**
+   * Show the next page of the current search.
+   */
+
+  void stockSearchNext();
+
+  /**
+   * Show the previous page of the current search.
+   */
+
+  void stockSearchPrevious();
 }
@@ -67,6 +67,9 @@ public final class CAGStockSearchView
   private final CAGClientServiceType client;
   private final CAGItemSelectDialogs itemSelectDialogs;
   private final CAGEventServiceType events;
+  private final CAGEntityCacheServiceType cache;
+  private final CAGOfflineCacheServiceType offline;
+  private final CAGSearchPageCacheServiceType pages;
 
   @FXML private ChoiceBox<CAGLocationMatchKind> locationMatch;
   @FXML private TextField locationField;
@@ -102,6 +105,12 @@ public final class CAGStockSearchView
       services.requireService(CAGItemSelectDialogs.class);
     this.events =
       services.requireService(CAGEventServiceType.class);
+    this.cache =
+      services.requireService(CAGEntityCacheServiceType.class);
+    this.offline =
+      services.requireService(CAGOfflineCacheServiceType.class);
+    this.pages =
+      services.requireService(CAGSearchPageCacheServiceType.class);
   }
 
   /**
@@ -118,11 +127,16 @@ public final class CAGStockSearchView
 
     this.searchController =
       this.trackResource(
-        CAGItemSearchController.create(this.events, this.client)
+        CAGItemSearchController.create(
+          this.events,
+          this.client,
+          this.offline,
+          this.pages
+        )
       );
     this.detailsController =
       this.trackResource(
-        CAGItemDetailsController.create(this.events, this.client)
+        CAGItemDetailsController.create(this.events, this.client, this.cache)
       );
   }
 
@@ -222,7 +236,7 @@ public final class CAGStockSearchView
     throws IOException
   {
     final var locationController =
-      CAGLocationTreeController.create(this.client);
+      CAGLocationTreeController.create(this.client, this.cache, this.offline);
 
     this.locationSelectDialogs.openDialogAndWait(locationController);
 
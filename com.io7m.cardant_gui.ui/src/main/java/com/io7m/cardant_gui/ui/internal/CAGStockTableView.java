@@ -51,6 +51,8 @@ public final class CAGStockTableView
   @FXML private TableColumn<CAStockOccurrenceType, CAStockOccurrenceType> colSerial;
   @FXML private TableColumn<CAStockOccurrenceType, CAStockOccurrenceType> colCount;
   @FXML private Label resultsLabel;
+  @FXML private Button pageNext;
+  @FXML private Button pagePrevious;
   @FXML private Button itemAdd;
   @FXML private Button itemRemove;
   @FXML private Button itemMove;
@@ -143,19 +145,38 @@ public final class CAGStockTableView
   private void onStocksViewChanged(
     final Observable observable)
   {
-
+    final var size = this.controller.stockView().size();
+    if (size > 0) {
+      final var range =
+        this.controller.stockPages().getValue();
+
+      this.resultsLabel.setText(
+        this.strings.format(
+          CAGStringConstants.CARDANT_STOCKSEARCH_PAGEOF,
+          Long.valueOf(range.pageIndex()),
+          Long.valueOf(range.pageCount())
+        )
+      );
+
+      this.pagePrevious
+        .setDisable(!range.hasPrevious());
+      this.pageNext
+        .setDisable(!range.hasNext());
+    } else {
+      this.resultsLabel.setText("");
+    }
   }
 
   @FXML
   private void onPagePreviousSelected()
   {
-
+    this.controller.stockSearchPrevious();
   }
 
   @FXML
   private void onPageNextSelected()
   {
-
+    this.controller.stockSearchNext();
   }
 
   @FXML
@@ -0,0 +1,416 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A span exporter that appends spans to a local file in the OTLP-JSON
+ * format. Each exported batch is written as a single
+ * {@code ExportTraceServiceRequest} object on its own line, as per the
+ * OpenTelemetry file exporter specification, so the file can be fed
+ * directly to any OTLP-JSON consumer without a collector.
+ *
+ * Values are encoded as per the Protobuf JSON mapping used by OTLP-JSON:
+ * 64-bit integers are written as strings, and so are non-finite doubles
+ * ({@code "NaN"}, {@code "Infinity"}, and {@code "-Infinity"}), as JSON
+ * has no representation for them.
+ */
+
+public final class CAGTelemetryFileExporter implements SpanExporter
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGTelemetryFileExporter.class);
+
+  private final BufferedWriter writer;
+  private boolean closed;
+
+  private CAGTelemetryFileExporter(
+    final BufferedWriter inWriter)
+  {
+    this.writer = Objects.requireNonNull(inWriter, "writer");
+  }
+
+  /**
+   * Open an exporter, appending to the given file.
+   *
+   * @param file The file
+   *
+   * @return An exporter
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CAGTelemetryFileExporter open(
+    final Path file)
+    throws IOException
+  {
+    final var parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    return new CAGTelemetryFileExporter(
+      Files.newBufferedWriter(file, StandardCharsets.UTF_8, CREATE, WRITE, APPEND)
+    );
+  }
+
+  @Override
+  public synchronized CompletableResultCode export(
+    final Collection<SpanData> spans)
+  {
+    if (this.closed) {
+      return CompletableResultCode.ofFailure();
+    }
+
+    try {
+      this.writer.write(serialize(spans));
+      this.writer.newLine();
+      return CompletableResultCode.ofSuccess();
+    } catch (final IOException e) {
+      LOG.debug("Export: ", e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public synchronized CompletableResultCode flush()
+  {
+    if (this.closed) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    try {
+      this.writer.flush();
+      return CompletableResultCode.ofSuccess();
+    } catch (final IOException e) {
+      LOG.debug("Flush: ", e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public synchronized CompletableResultCode shutdown()
+  {
+    if (this.closed) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    this.closed = true;
+    try {
+      this.writer.close();
+      return CompletableResultCode.ofSuccess();
+    } catch (final IOException e) {
+      LOG.debug("Shutdown: ", e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  static String serialize(
+    final Collection<SpanData> spans)
+  {
+    final var byResource =
+      new LinkedHashMap<Resource, Map<InstrumentationScopeInfo, List<SpanData>>>();
+
+    for (final var span : spans) {
+      byResource.computeIfAbsent(
+          span.getResource(), k -> new LinkedHashMap<>())
+        .computeIfAbsent(
+          span.getInstrumentationScopeInfo(), k -> new ArrayList<>())
+        .add(span);
+    }
+
+    final var out = new StringBuilder(256 * spans.size());
+    out.append("{\"resourceSpans\":[");
+
+    var firstResource = true;
+    for (final var resourceEntry : byResource.entrySet()) {
+      if (!firstResource) {
+        out.append(',');
+      }
+      firstResource = false;
+
+      out.append("{\"resource\":{\"attributes\":");
+      writeAttributes(out, resourceEntry.getKey().getAttributes());
+      out.append("},\"scopeSpans\":[");
+
+      var firstScope = true;
+      for (final var scopeEntry : resourceEntry.getValue().entrySet()) {
+        if (!firstScope) {
+          out.append(',');
+        }
+        firstScope = false;
+
+        final var scope = scopeEntry.getKey();
+        out.append("{\"scope\":{\"name\":");
+        writeString(out, scope.getName());
+        if (scope.getVersion() != null) {
+          out.append(",\"version\":");
+          writeString(out, scope.getVersion());
+        }
+        out.append("},\"spans\":[");
+
+        var firstSpan = true;
+        for (final var span : scopeEntry.getValue()) {
+          if (!firstSpan) {
+            out.append(',');
+          }
+          firstSpan = false;
+          writeSpan(out, span);
+        }
+        out.append("]}");
+      }
+      out.append("]}");
+    }
+
+    out.append("]}");
+    return out.toString();
+  }
+
+  private static void writeSpan(
+    final StringBuilder out,
+    final SpanData span)
+  {
+    out.append("{\"traceId\":");
+    writeString(out, span.getTraceId());
+    out.append(",\"spanId\":");
+    writeString(out, span.getSpanId());
+
+    final var parent = span.getParentSpanId();
+    if (SpanId.isValid(parent)) {
+      out.append(",\"parentSpanId\":");
+      writeString(out, parent);
+    }
+
+    out.append(",\"name\":");
+    writeString(out, span.getName());
+
+    /*
+     * The OTLP span kinds are the Java span kinds offset by one, as zero
+     * is reserved for "unspecified".
+     */
+
+    out.append(",\"kind\":");
+    out.append(span.getKind().ordinal() + 1);
+    out.append(",\"startTimeUnixNano\":\"");
+    out.append(Long.toUnsignedString(span.getStartEpochNanos()));
+    out.append("\",\"endTimeUnixNano\":\"");
+    out.append(Long.toUnsignedString(span.getEndEpochNanos()));
+    out.append("\",\"attributes\":");
+    writeAttributes(out, span.getAttributes());
+
+    out.append(",\"events\":[");
+    var firstEvent = true;
+    for (final EventData event : span.getEvents()) {
+      if (!firstEvent) {
+        out.append(',');
+      }
+      firstEvent = false;
+
+      out.append("{\"timeUnixNano\":\"");
+      out.append(Long.toUnsignedString(event.getEpochNanos()));
+      out.append("\",\"name\":");
+      writeString(out, event.getName());
+      out.append(",\"attributes\":");
+      writeAttributes(out, event.getAttributes());
+      out.append('}');
+    }
+    out.append(']');
+
+    out.append(",\"links\":[");
+    var firstLink = true;
+    for (final LinkData link : span.getLinks()) {
+      if (!firstLink) {
+        out.append(',');
+      }
+      firstLink = false;
+
+      final var context = link.getSpanContext();
+      out.append("{\"traceId\":");
+      writeString(out, context.getTraceId());
+      out.append(",\"spanId\":");
+      writeString(out, context.getSpanId());
+      out.append(",\"attributes\":");
+      writeAttributes(out, link.getAttributes());
+      out.append('}');
+    }
+    out.append(']');
+
+    final var status = span.getStatus();
+    out.append(",\"status\":{\"code\":");
+    out.append(
+      switch (status.getStatusCode()) {
+        case UNSET -> 0;
+        case OK -> 1;
+        case ERROR -> 2;
+      }
+    );
+    if (!status.getDescription().isEmpty()) {
+      out.append(",\"message\":");
+      writeString(out, status.getDescription());
+    }
+    out.append("}}");
+  }
+
+  private static void writeAttributes(
+    final StringBuilder out,
+    final Attributes attributes)
+  {
+    out.append('[');
+    var first = true;
+    for (final var entry : attributes.asMap().entrySet()) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+
+      out.append("{\"key\":");
+      writeString(out, entry.getKey().getKey());
+      out.append(",\"value\":");
+      writeValue(out, entry.getKey(), entry.getValue());
+      out.append('}');
+    }
+    out.append(']');
+  }
+
+  private static void writeValue(
+    final StringBuilder out,
+    final AttributeKey<?> key,
+    final Object value)
+  {
+    switch (key.getType()) {
+      case STRING -> {
+        out.append("{\"stringValue\":");
+        writeString(out, (String) value);
+        out.append('}');
+      }
+      case BOOLEAN -> {
+        out.append("{\"boolValue\":").append(value).append('}');
+      }
+      case LONG -> {
+        out.append("{\"intValue\":\"").append(value).append("\"}");
+      }
+      case DOUBLE -> {
+        writeDouble(out, (Double) value);
+      }
+      case STRING_ARRAY, BOOLEAN_ARRAY, LONG_ARRAY, DOUBLE_ARRAY -> {
+        out.append("{\"arrayValue\":{\"values\":[");
+        var first = true;
+        for (final var element : (List<?>) value) {
+          if (!first) {
+            out.append(',');
+          }
+          first = false;
+
+          switch (element) {
+            case final String s -> {
+              out.append("{\"stringValue\":");
+              writeString(out, s);
+              out.append('}');
+            }
+            case final Boolean b -> {
+              out.append("{\"boolValue\":").append(b).append('}');
+            }
+            case final Long x -> {
+              out.append("{\"intValue\":\"").append(x).append("\"}");
+            }
+            case final Double x -> {
+              writeDouble(out, x);
+            }
+            default -> {
+              out.append("{\"stringValue\":");
+              writeString(out, String.valueOf(element));
+              out.append('}');
+            }
+          }
+        }
+        out.append("]}}");
+      }
+    }
+  }
+
+  private static void writeDouble(
+    final StringBuilder out,
+    final Double value)
+  {
+    final var x = value.doubleValue();
+    out.append("{\"doubleValue\":");
+    if (Double.isNaN(x)) {
+      out.append("\"NaN\"");
+    } else if (x == Double.POSITIVE_INFINITY) {
+      out.append("\"Infinity\"");
+    } else if (x == Double.NEGATIVE_INFINITY) {
+      out.append("\"-Infinity\"");
+    } else {
+      out.append(x);
+    }
+    out.append('}');
+  }
+
+  private static void writeString(
+    final StringBuilder out,
+    final String text)
+  {
+    out.append('"');
+    for (int index = 0; index < text.length(); ++index) {
+      final var c = text.charAt(index);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            out.append("\\u%04x".formatted(Integer.valueOf(c)));
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+    out.append('"');
+  }
+}
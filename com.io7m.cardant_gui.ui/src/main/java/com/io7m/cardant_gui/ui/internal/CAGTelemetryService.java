@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.darco.api.DDatabaseTelemetry;
+import com.io7m.darco.api.DDatabaseTelemetryNoOp;
+import com.io7m.darco.api.DDatabaseTelemetryType;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The telemetry service. If a trace file is configured, spans are exported
+ * to that file as OTLP-JSON; otherwise, telemetry is disabled entirely.
+ */
+
+public final class CAGTelemetryService
+  implements CAGTelemetryServiceType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGTelemetryService.class);
+
+  private static final String INSTRUMENTATION_NAME =
+    "com.io7m.cardant_gui";
+
+  private final Optional<OpenTelemetrySdk> sdk;
+  private final Tracer tracer;
+  private final DDatabaseTelemetryType databaseTelemetry;
+
+  private CAGTelemetryService(
+    final Optional<OpenTelemetrySdk> inSdk,
+    final Tracer inTracer,
+    final DDatabaseTelemetryType inDatabaseTelemetry)
+  {
+    this.sdk =
+      Objects.requireNonNull(inSdk, "sdk");
+    this.tracer =
+      Objects.requireNonNull(inTracer, "tracer");
+    this.databaseTelemetry =
+      Objects.requireNonNull(inDatabaseTelemetry, "databaseTelemetry");
+  }
+
+  /**
+   * @return A telemetry service that records nothing
+   */
+
+  public static CAGTelemetryServiceType createNoOp()
+  {
+    return new CAGTelemetryService(
+      Optional.empty(),
+      OpenTelemetry.noop().getTracer(INSTRUMENTATION_NAME),
+      DDatabaseTelemetryNoOp.get()
+    );
+  }
+
+  /**
+   * Create a telemetry service that writes OTLP-JSON spans to the given
+   * file. The tracer is also registered globally so that context-free
+   * code (such as the FX thread handoff) can create spans.
+   *
+   * @param file The output file
+   *
+   * @return A telemetry service
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CAGTelemetryServiceType createFile(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    LOG.info("Writing traces to {}", file);
+
+    final var resource =
+      Resource.getDefault()
+        .merge(Resource.create(
+          Attributes.of(
+            AttributeKey.stringKey("service.name"),
+            INSTRUMENTATION_NAME
+          )
+        ));
+
+    final var tracerProvider =
+      SdkTracerProvider.builder()
+        .setResource(resource)
+        .addSpanProcessor(
+          BatchSpanProcessor.builder(CAGTelemetryFileExporter.open(file))
+            .build()
+        )
+        .build();
+
+    final var sdk =
+      OpenTelemetrySdk.builder()
+        .setTracerProvider(tracerProvider)
+        .buildAndRegisterGlobal();
+
+    final var tracer =
+      sdk.getTracer(INSTRUMENTATION_NAME);
+
+    return new CAGTelemetryService(
+      Optional.of(sdk),
+      tracer,
+      new DDatabaseTelemetry(
+        true,
+        sdk.getMeter(INSTRUMENTATION_NAME),
+        tracer
+      )
+    );
+  }
+
+  @Override
+  public Tracer tracer()
+  {
+    return this.tracer;
+  }
+
+  @Override
+  public DDatabaseTelemetryType databaseTelemetry()
+  {
+    return this.databaseTelemetry;
+  }
+
+  @Override
+  public void close()
+  {
+    this.sdk.ifPresent(s -> {
+      s.getSdkTracerProvider()
+        .shutdown()
+        .join(10L, TimeUnit.SECONDS);
+    });
+  }
+
+  @Override
+  public String description()
+  {
+    return "Telemetry service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[CAGTelemetryService 0x%s]"
+      .formatted(Integer.toUnsignedString(this.hashCode(), 16));
+  }
+}
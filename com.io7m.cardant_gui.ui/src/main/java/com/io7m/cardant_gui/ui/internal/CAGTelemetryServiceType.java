@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal;
+
+import com.io7m.darco.api.DDatabaseTelemetryType;
+import com.io7m.repetoir.core.RPServiceType;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * The telemetry service.
+ */
+
+public interface CAGTelemetryServiceType
+  extends RPServiceType, AutoCloseable
+{
+  /**
+   * @return The tracer used for application spans
+   */
+
+  Tracer tracer();
+
+  /**
+   * @return The telemetry used for database transactions
+   */
+
+  DDatabaseTelemetryType databaseTelemetry();
+
+  /**
+   * Flush any buffered spans and shut down telemetry.
+   */
+
+  @Override
+  void close();
+}
@@ -23,7 +23,7 @@ import com.io7m.cardant.model.type_package.CATypePackageSummary;
 import com.io7m.cardant.protocol.inventory.CAICommandTypePackageGetText;
 import com.io7m.cardant.protocol.inventory.CAICommandTypePackageInstall;
 import com.io7m.cardant.protocol.inventory.CAICommandTypePackageSearchBegin;
-import javafx.application.Platform;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageText;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
@@ -47,6 +47,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -61,17 +62,27 @@ public final class CAGTypePackagesController
     LoggerFactory.getLogger(CAGTypePackagesController.class);
 
   private final CAGClientServiceType clientService;
+  private final CAGOfflineCacheServiceType offline;
+  private final CAGSearchPageCacheServiceType pages;
   private final ObservableList<CATypePackageSummary> typePackages;
   private final SimpleObjectProperty<CAGPageRange> typePackagePages;
   private final SimpleStringProperty typePackageTextSelected;
   private final SortedList<CATypePackageSummary> typePackagesSorted;
   private final SimpleObjectProperty<CATypePackageIdentifier> typePackageSelected;
+  private volatile boolean typePackagesReceived;
+  private volatile CATypePackageSearchParameters typePackagesSearch;
 
   private CAGTypePackagesController(
-    final CAGClientServiceType inClientService)
+    final CAGClientServiceType inClientService,
+    final CAGOfflineCacheServiceType inOffline,
+    final CAGSearchPageCacheServiceType inPages)
   {
     this.clientService =
       Objects.requireNonNull(inClientService, "clientService");
+    this.offline =
+      Objects.requireNonNull(inOffline, "offline");
+    this.pages =
+      Objects.requireNonNull(inPages, "pages");
 
     this.typePackagePages =
       new SimpleObjectProperty<>(CAGPageRange.zero());
@@ -90,70 +101,148 @@ public final class CAGTypePackagesController
    * Create a controller.
    *
    * @param clients The client service
+   * @param offline The offline cache
+   * @param pages   The search page cache
    *
    * @return A controller
    */
 
   public static CAGTypePackagesControllerType create(
-    final CAGClientServiceType clients)
+    final CAGClientServiceType clients,
+    final CAGOfflineCacheServiceType offline,
+    final CAGSearchPageCacheServiceType pages)
   {
-    final var controller = new CAGTypePackagesController(clients);
+    final var controller =
+      new CAGTypePackagesController(clients, offline, pages);
     clients.status().subscribe((oldStatus, newStatus) -> {
-      controller.onClientStatusChanged();
+      controller.onClientStatusChanged(oldStatus, newStatus);
     });
     return controller;
   }
 
-  private void onClientStatusChanged()
+  private void onClientStatusChanged(
+    final CAGClientStatus oldStatus,
+    final CAGClientStatus newStatus)
   {
+    if (newStatus == CAGClientStatus.CONNECTED
+        && oldStatus != CAGClientStatus.RECONNECTING) {
+      this.typePackagesRestore();
+      return;
+    }
 
+    if (newStatus.discardsData()) {
+      this.typePackagesReceived = false;
+    }
+  }
+
+  /**
+   * Display the type packages held in the offline cache, unless a search
+   * has already delivered results from the server.
+   */
+
+  private void typePackagesRestore()
+  {
+    this.offline.typePackages().thenAccept(typePackages -> {
+      if (typePackages.isEmpty()) {
+        return;
+      }
+
+      CAGFXThread.runLater(() -> {
+        if (!this.typePackagesReceived) {
+          CAGListDiff.apply(
+            this.typePackages,
+            typePackages,
+            CATypePackageSummary::identifier
+          );
+        }
+      });
+    });
   }
 
   @Override
   public void typePackageGet(
     final CATypePackageIdentifier id)
+  {
+    /*
+     * Type packages are immutable for a given identifier, so a stored copy
+     * of the text is always current.
+     */
+
+    this.offline.typePackageText(id).thenAccept(stored -> {
+      if (stored.isPresent()) {
+        this.typePackageShow(id, stored.get().textFormatted());
+        return;
+      }
+
+      this.typePackageFetch(id);
+    });
+  }
+
+  private void typePackageFetch(
+    final CATypePackageIdentifier id)
   {
     final var future =
-      this.clientService.execute(new CAICommandTypePackageGetText(id));
+      this.clientService.execute(
+        new CAICommandTypePackageGetText(id),
+        CAGClientCommandPriority.BACKGROUND
+      );
 
     future.thenAccept(response -> {
-      final String formatted = formatXML(response.data());
+      final var text = response.data();
 
-      Platform.runLater(() -> {
-        this.typePackageSelected.set(id);
-        this.typePackageTextSelected.set(formatted);
-      });
+      try {
+        final var formatted = formatXML(text);
+        this.offline.typePackageTextSave(
+          new CAGTypePackageText(id, text, formatted)
+        );
+        this.typePackageShow(id, formatted);
+      } catch (final TransformerException e) {
+        this.typePackageShow(id, stackTraceOf(e));
+      }
+    });
+  }
+
+  private void typePackageShow(
+    final CATypePackageIdentifier id,
+    final String formatted)
+  {
+    CAGFXThread.runLaterCoalesced(this.typePackageSelected, () -> {
+      this.typePackageSelected.set(id);
+      this.typePackageTextSelected.set(formatted);
     });
   }
 
   private static String formatXML(
     final String data)
+    throws TransformerException
   {
-    try {
-      final Transformer transformer =
-        TransformerFactory.newInstance()
-          .newTransformer();
-
-      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-      transformer.setOutputProperty(
-        "{http://xml.apache.org/xslt}indent-amount",
-        "2");
-      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-
-      final StreamResult result =
-        new StreamResult(new StringWriter());
-      final StreamSource source =
-        new StreamSource(new ByteArrayInputStream(data.getBytes(UTF_8)));
-
-      transformer.transform(source, result);
-      return result.getWriter().toString();
-    } catch (final TransformerException e) {
-      final var sw = new StringWriter();
-      final var pw = new PrintWriter(sw);
-      e.printStackTrace(pw);
-      pw.flush();
-      return sw.toString();
-    }
+    final Transformer transformer =
+      TransformerFactory.newInstance()
+        .newTransformer();
+
+    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    transformer.setOutputProperty(
+      "{http://xml.apache.org/xslt}indent-amount",
+      "2");
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+    final StreamResult result =
+      new StreamResult(new StringWriter());
+    final StreamSource source =
+      new StreamSource(new ByteArrayInputStream(data.getBytes(UTF_8)));
+
+    transformer.transform(source, result);
+    return result.getWriter().toString();
+  }
+
+  private static String stackTraceOf(
+    final Exception e)
+  {
+    final var sw = new StringWriter();
+    final var pw = new PrintWriter(sw);
+    e.printStackTrace(pw);
+    pw.flush();
+    return sw.toString();
   }
 
   @Override
@@ -172,13 +261,19 @@ public final class CAGTypePackagesController
   public void typePackageSearchBegin(
     final CATypePackageSearchParameters searchParameters)
   {
+    this.typePackagesSearch = searchParameters;
+
     final var future =
-      this.clientService.execute(
-        new CAICommandTypePackageSearchBegin(searchParameters)
+      this.pages.page(
+        searchParameters,
+        1L,
+        () -> this.clientService.execute(
+          new CAICommandTypePackageSearchBegin(searchParameters)
+        )
       );
 
     future.thenAccept(response -> {
-      Platform.runLater(() -> {
+      CAGFXThread.runLaterCoalesced(this.typePackagePages, () -> {
         final var data = response.data();
 
         final var newItemPage =
@@ -191,7 +286,13 @@ public final class CAGTypePackagesController
             (long) data.pageCount()
           )
         );
-        this.typePackages.setAll(newItemPage);
+        this.typePackagesReceived = true;
+        CAGListDiff.apply(
+          this.typePackages,
+          newItemPage,
+          CATypePackageSummary::identifier
+        );
+        this.offline.typePackagesSave(newItemPage);
       });
     });
   }
@@ -218,13 +319,29 @@ public final class CAGTypePackagesController
   public void typePackageInstall(
     final Path file)
   {
+    final CompletableFuture<?> future;
     try {
-      this.clientService.execute(
+      future = this.clientService.execute(
         new CAICommandTypePackageInstall(Files.readString(file, UTF_8))
       );
     } catch (final IOException e) {
       LOG.error("typePackageInstall: ", e);
+      return;
     }
+
+    /*
+     * Reads may overtake writes, so the search is repeated only once the
+     * installation has completed, and cached pages that predate it are
+     * discarded first.
+     */
+
+    future.thenRun(() -> {
+      this.pages.invalidate(CATypePackageSearchParameters.class);
+      final var search = this.typePackagesSearch;
+      if (search != null) {
+        this.typePackageSearchBegin(search);
+      }
+    });
   }
 
   @Override
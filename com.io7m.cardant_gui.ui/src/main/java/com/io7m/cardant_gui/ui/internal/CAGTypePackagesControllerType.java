@@ -60,7 +60,8 @@ public interface CAGTypePackagesControllerType
   ObservableValue<CAGPageRange> typePackagesPages();
 
   /**
-   * Install a type package from the given file.
+   * Install a type package from the given file. Once the package is
+   * installed, the most recent type package search is repeated.
    *
    * @param file The file
    */
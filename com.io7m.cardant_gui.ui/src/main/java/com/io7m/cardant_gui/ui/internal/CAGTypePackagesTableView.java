@@ -18,9 +18,7 @@
 package com.io7m.cardant_gui.ui.internal;
 
 import com.io7m.cardant.model.type_package.CATypePackageSummary;
-import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseType;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAddType;
-import com.io7m.darco.api.DDatabaseException;
 import com.io7m.jwheatsheaf.api.JWFileChooserAction;
 import com.io7m.jwheatsheaf.api.JWFileChooserConfiguration;
 import com.io7m.lanark.core.RDottedName;
@@ -49,7 +47,7 @@ public final class CAGTypePackagesTableView
   private CAGTypePackagesControllerType controller;
   private final CAGStringsType strings;
   private final CAGFileChoosersType choosers;
-  private final CAGDatabaseType database;
+  private final CAGDatabaseResultCacheServiceType queries;
 
   @FXML private TableView<CATypePackageSummary> typePackageTable;
   @FXML
@@ -77,8 +75,8 @@ public final class CAGTypePackagesTableView
       services.requireService(CAGStringsType.class);
     this.choosers =
       services.requireService(CAGFileChoosersType.class);
-    this.database =
-      services.requireService(CAGDatabaseType.class);
+    this.queries =
+      services.requireService(CAGDatabaseResultCacheServiceType.class);
   }
 
   /**
@@ -179,12 +177,12 @@ public final class CAGTypePackagesTableView
   private void addRecentFile(
     final Path file)
   {
-    try (var t = this.database.openTransaction()) {
-      t.query(CAGRecentFileAddType.class).execute(file);
-      t.commit();
-    } catch (final DDatabaseException e) {
-      // Nothing can be done.
-    }
+    /*
+     * Recording a recent file is not worth a transaction of its own, and
+     * nothing can be done if it fails.
+     */
+
+    this.queries.executeDeferred(CAGRecentFileAddType.class, file);
   }
 
   @FXML
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CAAuditEvent;
+
+import java.util.List;
+
+/**
+ * A page of audit events from the local audit log replica.
+ *
+ * @param items     The audit events
+ * @param pageIndex The page index (indexed from 1)
+ * @param pageCount The page count
+ */
+
+public record CAGAuditEventPage(
+  List<CAAuditEvent> items,
+  long pageIndex,
+  long pageCount)
+{
+  /**
+   * A page of audit events from the local audit log replica.
+   *
+   * @param items     The audit events
+   * @param pageIndex The page index (indexed from 1)
+   * @param pageCount The page count
+   */
+
+  public CAGAuditEventPage
+  {
+    items = List.copyOf(items);
+  }
+
+  /**
+   * @return An empty page
+   */
+
+  public static CAGAuditEventPage empty()
+  {
+    return new CAGAuditEventPage(List.of(), 1L, 1L);
+  }
+}
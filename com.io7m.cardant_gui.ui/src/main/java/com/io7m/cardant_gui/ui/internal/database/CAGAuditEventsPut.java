@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.darco.api.DDatabaseUnit;
+import org.jooq.DSLContext;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.AUDIT_EVENTS;
+import static com.io7m.cardant_gui.ui.internal.database.Tables.AUDIT_EVENT_DATA;
+
+/**
+ * Save audit events to the local audit log replica.
+ */
+
+public final class CAGAuditEventsPut
+  extends CAGDatabaseQueryAbstract<CAGAuditEventsPutType.Parameters, DDatabaseUnit>
+  implements CAGAuditEventsPutType
+{
+  CAGAuditEventsPut(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGAuditEventsPutType.Parameters, DDatabaseUnit, CAGAuditEventsPutType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGAuditEventsPutType.class,
+      CAGAuditEventsPut::new
+    );
+  }
+
+  @Override
+  protected DDatabaseUnit onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGAuditEventsPutType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+    final var server =
+      parameters.server();
+
+    /*
+     * Audit events are immutable, so an event that is already present
+     * never needs to be updated. Its data is not touched either, so that
+     * a differing copy of the event cannot add keys to it.
+     */
+
+    for (final var event : parameters.events()) {
+      final var id = Long.valueOf(event.id());
+      final var inserted =
+        context.insertInto(AUDIT_EVENTS)
+          .set(AUDIT_EVENTS.AE_SERVER, server)
+          .set(AUDIT_EVENTS.AE_ID, id)
+          .set(AUDIT_EVENTS.AE_TIME,
+               Long.valueOf(CAGDatabaseTime.toMicros(event.time())))
+          .set(AUDIT_EVENTS.AE_OWNER, event.owner().id().toString())
+          .set(AUDIT_EVENTS.AE_TYPE, event.type())
+          .onConflictDoNothing()
+          .execute();
+
+      if (inserted == 0) {
+        continue;
+      }
+
+      for (final var entry : event.data().entrySet()) {
+        context.insertInto(AUDIT_EVENT_DATA)
+          .set(AUDIT_EVENT_DATA.AED_SERVER, server)
+          .set(AUDIT_EVENT_DATA.AED_ID, id)
+          .set(AUDIT_EVENT_DATA.AED_KEY, entry.getKey())
+          .set(AUDIT_EVENT_DATA.AED_VALUE, entry.getValue())
+          .onConflictDoNothing()
+          .execute();
+      }
+    }
+
+    return DDatabaseUnit.UNIT;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CAAuditEvent;
+import com.io7m.cardant.model.CAUserID;
+import com.io7m.cardant.model.comparisons.CAComparisonExactType;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.AUDIT_EVENTS;
+import static com.io7m.cardant_gui.ui.internal.database.Tables.AUDIT_EVENT_DATA;
+
+/**
+ * Search the local audit log replica.
+ */
+
+public final class CAGAuditEventsSearch
+  extends CAGDatabaseQueryAbstract<CAGAuditEventsSearchType.Parameters, CAGAuditEventPage>
+  implements CAGAuditEventsSearchType
+{
+  CAGAuditEventsSearch(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGAuditEventsSearchType.Parameters, CAGAuditEventPage, CAGAuditEventsSearchType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGAuditEventsSearchType.class,
+      CAGAuditEventsSearch::new
+    );
+  }
+
+  @Override
+  protected CAGAuditEventPage onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGAuditEventsSearchType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+    final var server =
+      parameters.server();
+    final var condition =
+      searchCondition(parameters);
+
+    final var pageSize =
+      Math.max(1L, parameters.search().pageSize());
+    final var count =
+      (long) context.fetchCount(AUDIT_EVENTS, condition);
+    final var pageCount =
+      Math.max(1L, (count + pageSize - 1L) / pageSize);
+    final var pageIndex =
+      Math.clamp(parameters.pageIndex(), 1L, pageCount);
+
+    final var records =
+      context.select(
+          AUDIT_EVENTS.AE_ID,
+          AUDIT_EVENTS.AE_TIME,
+          AUDIT_EVENTS.AE_OWNER,
+          AUDIT_EVENTS.AE_TYPE
+        ).from(AUDIT_EVENTS)
+        .where(condition)
+        .orderBy(AUDIT_EVENTS.AE_TIME.asc(), AUDIT_EVENTS.AE_ID.asc())
+        .limit(Long.valueOf(pageSize))
+        .offset(Long.valueOf((pageIndex - 1L) * pageSize))
+        .fetch();
+
+    final var ids =
+      records.map(r -> r.get(AUDIT_EVENTS.AE_ID));
+    final var data =
+      new HashMap<Long, Map<String, String>>(ids.size());
+
+    context.select(
+        AUDIT_EVENT_DATA.AED_ID,
+        AUDIT_EVENT_DATA.AED_KEY,
+        AUDIT_EVENT_DATA.AED_VALUE
+      ).from(AUDIT_EVENT_DATA)
+      .where(
+        AUDIT_EVENT_DATA.AED_SERVER.eq(server)
+          .and(AUDIT_EVENT_DATA.AED_ID.in(ids))
+      ).fetch()
+      .forEach(r -> {
+        data.computeIfAbsent(r.get(AUDIT_EVENT_DATA.AED_ID), k -> new HashMap<>())
+          .put(
+            r.get(AUDIT_EVENT_DATA.AED_KEY),
+            r.get(AUDIT_EVENT_DATA.AED_VALUE)
+          );
+      });
+
+    final var events =
+      records.map(r -> {
+        final var id = r.get(AUDIT_EVENTS.AE_ID);
+        return new CAAuditEvent(
+          id.longValue(),
+          CAGDatabaseTime.fromMicros(r.get(AUDIT_EVENTS.AE_TIME).longValue()),
+          CAUserID.of(r.get(AUDIT_EVENTS.AE_OWNER)),
+          r.get(AUDIT_EVENTS.AE_TYPE),
+          data.getOrDefault(id, Map.of())
+        );
+      });
+
+    return new CAGAuditEventPage(events, pageIndex, pageCount);
+  }
+
+  private static Condition searchCondition(
+    final CAGAuditEventsSearchType.Parameters parameters)
+  {
+    final var search =
+      parameters.search();
+    final var timeRange =
+      search.timeRange();
+
+    var condition =
+      AUDIT_EVENTS.AE_SERVER.eq(parameters.server())
+        .and(AUDIT_EVENTS.AE_TIME.between(
+          Long.valueOf(CAGDatabaseTime.toMicros(timeRange.lower())),
+          Long.valueOf(CAGDatabaseTime.toMicros(timeRange.upper()))
+        ));
+
+    final var ownerOpt = search.owner();
+    if (ownerOpt.isPresent()) {
+      condition = condition.and(
+        AUDIT_EVENTS.AE_OWNER.eq(ownerOpt.get().id().toString())
+      );
+    }
+
+    return switch (search.type()) {
+      case final CAComparisonExactType.Anything<String> c -> {
+        yield condition;
+      }
+      case final CAComparisonExactType.IsEqualTo<String> c -> {
+        yield condition.and(AUDIT_EVENTS.AE_TYPE.eq(c.value()));
+      }
+      case final CAComparisonExactType.IsNotEqualTo<String> c -> {
+        yield condition.and(AUDIT_EVENTS.AE_TYPE.ne(c.value()));
+      }
+    };
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.AUDIT_EVENTS;
+
+/**
+ * Find the time of the most recent audit event in the local audit log replica.
+ */
+
+public final class CAGAuditEventsWatermark
+  extends CAGDatabaseQueryAbstract<String, Optional<OffsetDateTime>>
+  implements CAGAuditEventsWatermarkType
+{
+  CAGAuditEventsWatermark(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    String, Optional<OffsetDateTime>, CAGAuditEventsWatermarkType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGAuditEventsWatermarkType.class,
+      CAGAuditEventsWatermark::new
+    );
+  }
+
+  @Override
+  protected Optional<OffsetDateTime> onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final String server)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    return Optional.ofNullable(
+      context.select(DSL.max(AUDIT_EVENTS.AE_TIME))
+        .from(AUDIT_EVENTS)
+        .where(AUDIT_EVENTS.AE_SERVER.eq(server))
+        .fetchOne(0, Long.class)
+    ).map(micros -> CAGDatabaseTime.fromMicros(micros.longValue()));
+  }
+}
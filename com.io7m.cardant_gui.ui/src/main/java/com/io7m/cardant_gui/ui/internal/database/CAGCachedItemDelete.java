@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.darco.api.DDatabaseUnit;
+import org.jooq.DSLContext;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_ITEMS;
+
+/**
+ * Remove an item from the offline cache.
+ */
+
+public final class CAGCachedItemDelete
+  extends CAGDatabaseQueryAbstract<CAGCachedItemDeleteType.Parameters, DDatabaseUnit>
+  implements CAGCachedItemDeleteType
+{
+  CAGCachedItemDelete(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGCachedItemDeleteType.Parameters, DDatabaseUnit, CAGCachedItemDeleteType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedItemDeleteType.class,
+      CAGCachedItemDelete::new
+    );
+  }
+
+  @Override
+  protected DDatabaseUnit onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGCachedItemDeleteType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    context.deleteFrom(CACHED_ITEMS)
+      .where(
+        CACHED_ITEMS.CI_SERVER.eq(parameters.server())
+          .and(CACHED_ITEMS.CI_ID.eq(parameters.item().id().toString()))
+      ).execute();
+
+    return DDatabaseUnit.UNIT;
+  }
+}
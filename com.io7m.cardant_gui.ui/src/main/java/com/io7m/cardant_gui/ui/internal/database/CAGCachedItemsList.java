@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CAItemID;
+import com.io7m.cardant.model.CAItemSummary;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_ITEMS;
+
+/**
+ * List the item summaries in the offline cache for a server.
+ */
+
+public final class CAGCachedItemsList
+  extends CAGDatabaseQueryAbstract<String, List<CAItemSummary>>
+  implements CAGCachedItemsListType
+{
+  CAGCachedItemsList(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    String, List<CAItemSummary>, CAGCachedItemsListType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedItemsListType.class,
+      CAGCachedItemsList::new
+    );
+  }
+
+  @Override
+  protected List<CAItemSummary> onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final String server)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    final var records =
+      context.select(CACHED_ITEMS.CI_ID, CACHED_ITEMS.CI_NAME)
+        .from(CACHED_ITEMS)
+        .where(CACHED_ITEMS.CI_SERVER.eq(server))
+        .fetch();
+
+    final var results = new ArrayList<CAItemSummary>(records.size());
+    for (final var record : records) {
+      results.add(
+        new CAItemSummary(
+          new CAItemID(UUID.fromString(record.get(CACHED_ITEMS.CI_ID))),
+          record.get(CACHED_ITEMS.CI_NAME)
+        )
+      );
+    }
+    return List.copyOf(results);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.darco.api.DDatabaseUnit;
+import org.jooq.DSLContext;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_ITEMS;
+
+/**
+ * Save item summaries to the offline cache.
+ */
+
+public final class CAGCachedItemsPut
+  extends CAGDatabaseQueryAbstract<CAGCachedItemsPutType.Parameters, DDatabaseUnit>
+  implements CAGCachedItemsPutType
+{
+  CAGCachedItemsPut(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGCachedItemsPutType.Parameters, DDatabaseUnit, CAGCachedItemsPutType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedItemsPutType.class,
+      CAGCachedItemsPut::new
+    );
+  }
+
+  @Override
+  protected DDatabaseUnit onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGCachedItemsPutType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    for (final var item : parameters.items()) {
+      final var id = item.id().id().toString();
+      context.insertInto(CACHED_ITEMS)
+        .set(CACHED_ITEMS.CI_SERVER, parameters.server())
+        .set(CACHED_ITEMS.CI_ID, id)
+        .set(CACHED_ITEMS.CI_NAME, item.name())
+        .onConflict(CACHED_ITEMS.CI_SERVER, CACHED_ITEMS.CI_ID)
+        .doUpdate()
+        .set(CACHED_ITEMS.CI_NAME, item.name())
+        .execute();
+    }
+
+    return DDatabaseUnit.UNIT;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CAItemSummary;
+import com.io7m.darco.api.DDatabaseUnit;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Save item summaries to the offline cache. Items that are already cached
+ * for the server are updated, and all other cached items are kept.
+ */
+
+public interface CAGCachedItemsPutType
+  extends CAGDatabaseQueryType<CAGCachedItemsPutType.Parameters, DDatabaseUnit>
+{
+  /**
+   * The query parameters.
+   *
+   * @param server The server key
+   * @param items  The items
+   */
+
+  record Parameters(
+    String server,
+    List<CAItemSummary> items)
+  {
+    /**
+     * The query parameters.
+     *
+     * @param server The server key
+     * @param items  The items
+     */
+
+    public Parameters
+    {
+      Objects.requireNonNull(server, "server");
+      items = List.copyOf(items);
+    }
+  }
+}
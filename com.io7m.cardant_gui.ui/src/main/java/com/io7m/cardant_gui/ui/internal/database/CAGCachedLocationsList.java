@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CALocationID;
+import com.io7m.cardant.model.CALocationSummary;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_LOCATIONS;
+
+/**
+ * List the location summaries in the offline cache for a server.
+ */
+
+public final class CAGCachedLocationsList
+  extends CAGDatabaseQueryAbstract<String, List<CALocationSummary>>
+  implements CAGCachedLocationsListType
+{
+  CAGCachedLocationsList(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    String, List<CALocationSummary>, CAGCachedLocationsListType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedLocationsListType.class,
+      CAGCachedLocationsList::new
+    );
+  }
+
+  @Override
+  protected List<CALocationSummary> onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final String server)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    final var records =
+      context.select(
+          CACHED_LOCATIONS.CL_ID,
+          CACHED_LOCATIONS.CL_PARENT,
+          CACHED_LOCATIONS.CL_NAME
+        ).from(CACHED_LOCATIONS)
+        .where(CACHED_LOCATIONS.CL_SERVER.eq(server))
+        .fetch();
+
+    final var results = new ArrayList<CALocationSummary>(records.size());
+    for (final var record : records) {
+      results.add(
+        new CALocationSummary(
+          CALocationID.of(record.get(CACHED_LOCATIONS.CL_ID)),
+          Optional.ofNullable(record.get(CACHED_LOCATIONS.CL_PARENT))
+            .map(CALocationID::of),
+          record.get(CACHED_LOCATIONS.CL_NAME)
+        )
+      );
+    }
+    return List.copyOf(results);
+  }
+}
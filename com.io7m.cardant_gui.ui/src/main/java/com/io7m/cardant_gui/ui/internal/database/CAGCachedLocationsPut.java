@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.darco.api.DDatabaseUnit;
+import org.jooq.DSLContext;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_LOCATIONS;
+
+/**
+ * Save location summaries to the offline cache.
+ */
+
+public final class CAGCachedLocationsPut
+  extends CAGDatabaseQueryAbstract<CAGCachedLocationsPutType.Parameters, DDatabaseUnit>
+  implements CAGCachedLocationsPutType
+{
+  CAGCachedLocationsPut(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGCachedLocationsPutType.Parameters, DDatabaseUnit, CAGCachedLocationsPutType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedLocationsPutType.class,
+      CAGCachedLocationsPut::new
+    );
+  }
+
+  @Override
+  protected DDatabaseUnit onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGCachedLocationsPutType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    if (parameters.replace()) {
+      context.deleteFrom(CACHED_LOCATIONS)
+        .where(CACHED_LOCATIONS.CL_SERVER.eq(parameters.server()))
+        .execute();
+    }
+
+    for (final var location : parameters.locations()) {
+      final var id =
+        location.id().id().toString();
+      final var parent =
+        location.parent()
+          .map(p -> p.id().toString())
+          .orElse(null);
+
+      context.insertInto(CACHED_LOCATIONS)
+        .set(CACHED_LOCATIONS.CL_SERVER, parameters.server())
+        .set(CACHED_LOCATIONS.CL_ID, id)
+        .set(CACHED_LOCATIONS.CL_PARENT, parent)
+        .set(CACHED_LOCATIONS.CL_NAME, location.name())
+        .onConflict(CACHED_LOCATIONS.CL_SERVER, CACHED_LOCATIONS.CL_ID)
+        .doUpdate()
+        .set(CACHED_LOCATIONS.CL_PARENT, parent)
+        .set(CACHED_LOCATIONS.CL_NAME, location.name())
+        .execute();
+    }
+
+    return DDatabaseUnit.UNIT;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.CALocationSummary;
+import com.io7m.darco.api.DDatabaseUnit;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Save location summaries to the offline cache.
+ */
+
+public interface CAGCachedLocationsPutType
+  extends CAGDatabaseQueryType<CAGCachedLocationsPutType.Parameters, DDatabaseUnit>
+{
+  /**
+   * The query parameters.
+   *
+   * @param server    The server key
+   * @param replace   {@code true} if all other locations cached for the server should be removed
+   * @param locations The locations
+   */
+
+  record Parameters(
+    String server,
+    boolean replace,
+    List<CALocationSummary> locations)
+  {
+    /**
+     * The query parameters.
+     *
+     * @param server    The server key
+     * @param replace   {@code true} if all other locations cached for the server should be removed
+     * @param locations The locations
+     */
+
+    public Parameters
+    {
+      Objects.requireNonNull(server, "server");
+      locations = List.copyOf(locations);
+    }
+  }
+}
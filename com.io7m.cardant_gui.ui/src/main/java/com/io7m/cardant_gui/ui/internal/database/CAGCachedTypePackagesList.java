@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+import com.io7m.cardant.model.type_package.CATypePackageSummary;
+import com.io7m.lanark.core.RDottedName;
+import com.io7m.verona.core.VersionParser;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_TYPE_PACKAGES;
+
+/**
+ * List the type package summaries in the offline cache for a server.
+ */
+
+public final class CAGCachedTypePackagesList
+  extends CAGDatabaseQueryAbstract<String, List<CATypePackageSummary>>
+  implements CAGCachedTypePackagesListType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CAGCachedTypePackagesList.class);
+
+  CAGCachedTypePackagesList(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    String, List<CATypePackageSummary>, CAGCachedTypePackagesListType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedTypePackagesListType.class,
+      CAGCachedTypePackagesList::new
+    );
+  }
+
+  @Override
+  protected List<CATypePackageSummary> onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final String server)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    final var records =
+      context.select(
+          CACHED_TYPE_PACKAGES.CTP_NAME,
+          CACHED_TYPE_PACKAGES.CTP_VERSION,
+          CACHED_TYPE_PACKAGES.CTP_DESCRIPTION
+        ).from(CACHED_TYPE_PACKAGES)
+        .where(CACHED_TYPE_PACKAGES.CTP_SERVER.eq(server))
+        .fetch();
+
+    final var results = new ArrayList<CATypePackageSummary>(records.size());
+    for (final var record : records) {
+      final var name =
+        record.get(CACHED_TYPE_PACKAGES.CTP_NAME);
+      final var version =
+        record.get(CACHED_TYPE_PACKAGES.CTP_VERSION);
+
+      try {
+        results.add(
+          new CATypePackageSummary(
+            new CATypePackageIdentifier(
+              new RDottedName(name),
+              VersionParser.parse(version)
+            ),
+            record.get(CACHED_TYPE_PACKAGES.CTP_DESCRIPTION)
+          )
+        );
+      } catch (final Exception e) {
+        LOG.debug("Unparseable cached type package {} {}: ", name, version, e);
+      }
+    }
+    return List.copyOf(results);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.darco.api.DDatabaseUnit;
+import org.jooq.DSLContext;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.CACHED_TYPE_PACKAGES;
+
+/**
+ * Replace the type package summaries in the offline cache for a server.
+ */
+
+public final class CAGCachedTypePackagesPut
+  extends CAGDatabaseQueryAbstract<CAGCachedTypePackagesPutType.Parameters, DDatabaseUnit>
+  implements CAGCachedTypePackagesPutType
+{
+  CAGCachedTypePackagesPut(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CAGCachedTypePackagesPutType.Parameters, DDatabaseUnit, CAGCachedTypePackagesPutType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGCachedTypePackagesPutType.class,
+      CAGCachedTypePackagesPut::new
+    );
+  }
+
+  @Override
+  protected DDatabaseUnit onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CAGCachedTypePackagesPutType.Parameters parameters)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    context.deleteFrom(CACHED_TYPE_PACKAGES)
+      .where(CACHED_TYPE_PACKAGES.CTP_SERVER.eq(parameters.server()))
+      .execute();
+
+    for (final var typePackage : parameters.typePackages()) {
+      final var identifier = typePackage.identifier();
+      context.insertInto(CACHED_TYPE_PACKAGES)
+        .set(CACHED_TYPE_PACKAGES.CTP_SERVER, parameters.server())
+        .set(CACHED_TYPE_PACKAGES.CTP_NAME, identifier.name().value())
+        .set(CACHED_TYPE_PACKAGES.CTP_VERSION, identifier.version().toString())
+        .set(CACHED_TYPE_PACKAGES.CTP_DESCRIPTION, typePackage.description())
+        .onConflictDoNothing()
+        .execute();
+    }
+
+    return DDatabaseUnit.UNIT;
+  }
+}
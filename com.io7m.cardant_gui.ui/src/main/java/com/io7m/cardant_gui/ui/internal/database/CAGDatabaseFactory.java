@@ -97,10 +97,32 @@ public final class CAGDatabaseFactory
     final SQLiteConfig config)
   {
     config.setApplicationId(0x43414755);
+
+    /*
+     * Write-ahead logging allows the reader threads of the database
+     * executor to read while the writer thread writes, and a synchronous
+     * mode of NORMAL avoids an fsync on every commit (the database remains
+     * consistent, but the most recent commits may be lost on power loss,
+     * which is acceptable for a local cache). The busy timeout covers the
+     * brief periods during which a reader and a checkpoint contend.
+     */
+
+    config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+    config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+    config.setBusyTimeout(5_000);
   }
 
   @Override
   protected List<CAGDatabaseQueryProviderType<?, ?, ?>> onRequireDatabaseQueryProviders()
+  {
+    return queryProviders();
+  }
+
+  /**
+   * @return The available query providers
+   */
+
+  public static List<CAGDatabaseQueryProviderType<?, ?, ?>> queryProviders()
   {
     return ServiceLoader.load(CAGDatabaseQueryProviderType.class)
       .stream()
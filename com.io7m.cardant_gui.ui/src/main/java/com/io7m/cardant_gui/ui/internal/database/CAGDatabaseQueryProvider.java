@@ -20,17 +20,22 @@ package com.io7m.cardant_gui.ui.internal.database;
 import com.io7m.darco.api.DDatabaseQueryProviderAbstract;
 import com.io7m.darco.api.DDatabaseQueryType;
 
+import java.util.Objects;
 import java.util.function.Function;
 
 final class CAGDatabaseQueryProvider<P, R, Q extends CAGDatabaseQueryType<P, R>>
   extends DDatabaseQueryProviderAbstract<CAGDatabaseTransactionType, P, R, Q>
   implements CAGDatabaseQueryProviderType<P, R, Q>
 {
+  private final CAGDatabaseQueryTags tags;
+
   private CAGDatabaseQueryProvider(
     final Class<? extends Q> inQueryClass,
-    final Function<CAGDatabaseTransactionType, DDatabaseQueryType<P, R>> inConstructor)
+    final Function<CAGDatabaseTransactionType, DDatabaseQueryType<P, R>> inConstructor,
+    final CAGDatabaseQueryTags inTags)
   {
     super(inQueryClass, inConstructor);
+    this.tags = Objects.requireNonNull(inTags, "tags");
   }
 
   static <P, R, Q extends CAGDatabaseQueryType<P, R>>
@@ -39,6 +44,22 @@ final class CAGDatabaseQueryProvider<P, R, Q extends CAGDatabaseQueryType<P, R>>
     final Class<? extends Q> inQueryClass,
     final Function<CAGDatabaseTransactionType, DDatabaseQueryType<P, R>> inConstructor)
   {
-    return new CAGDatabaseQueryProvider<>(inQueryClass, inConstructor);
+    return provide(inQueryClass, inConstructor, CAGDatabaseQueryTags.none());
+  }
+
+  static <P, R, Q extends CAGDatabaseQueryType<P, R>>
+  CAGDatabaseQueryProviderType<P, R, Q>
+  provide(
+    final Class<? extends Q> inQueryClass,
+    final Function<CAGDatabaseTransactionType, DDatabaseQueryType<P, R>> inConstructor,
+    final CAGDatabaseQueryTags inTags)
+  {
+    return new CAGDatabaseQueryProvider<>(inQueryClass, inConstructor, inTags);
+  }
+
+  @Override
+  public CAGDatabaseQueryTags tags()
+  {
+    return this.tags;
   }
 }
@@ -30,5 +30,9 @@ import com.io7m.darco.api.DDatabaseQueryProviderType;
 public interface CAGDatabaseQueryProviderType<P, R, Q extends CAGDatabaseQueryType<P, R>>
   extends DDatabaseQueryProviderType<CAGDatabaseTransactionType, P, R, Q>
 {
+  /**
+   * @return The tables that the query reads and writes
+   */
 
+  CAGDatabaseQueryTags tags();
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The tables that a query reads and writes. The results of a query that
+ * only reads tables may be cached until a query that writes one of those
+ * tables is executed.
+ *
+ * @param reads  The tables read by the query
+ * @param writes The tables written by the query
+ */
+
+public record CAGDatabaseQueryTags(
+  Set<String> reads,
+  Set<String> writes)
+{
+  private static final CAGDatabaseQueryTags NONE =
+    new CAGDatabaseQueryTags(Set.of(), Set.of());
+
+  /**
+   * The tables that a query reads and writes.
+   *
+   * @param reads  The tables read by the query
+   * @param writes The tables written by the query
+   */
+
+  public CAGDatabaseQueryTags
+  {
+    reads = Set.copyOf(reads);
+    writes = Set.copyOf(writes);
+  }
+
+  /**
+   * @return The tags of a query that declares nothing
+   */
+
+  public static CAGDatabaseQueryTags none()
+  {
+    return NONE;
+  }
+
+  /**
+   * @param tables The tables
+   *
+   * @return The tags of a query that only reads the given tables
+   */
+
+  public static CAGDatabaseQueryTags reading(
+    final String... tables)
+  {
+    return new CAGDatabaseQueryTags(Set.of(tables), Set.of());
+  }
+
+  /**
+   * @param tables The tables
+   *
+   * @return The tags of a query that writes the given tables
+   */
+
+  public static CAGDatabaseQueryTags writing(
+    final String... tables)
+  {
+    return new CAGDatabaseQueryTags(Set.of(), Set.of(tables));
+  }
+
+  /**
+   * @return {@code true} if the results of the query may be cached
+   */
+
+  public boolean isCacheable()
+  {
+    return !this.reads.isEmpty() && this.writes.isEmpty();
+  }
+
+  /**
+   * @param other The tags of another query
+   *
+   * @return {@code true} if the other query writes a table read by this one
+   */
+
+  public boolean isInvalidatedBy(
+    final CAGDatabaseQueryTags other)
+  {
+    Objects.requireNonNull(other, "other");
+
+    for (final var table : other.writes) {
+      if (this.reads.contains(table)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
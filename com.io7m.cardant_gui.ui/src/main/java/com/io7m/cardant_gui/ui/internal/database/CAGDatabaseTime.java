@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Functions to store times as integer columns. Times are stored as
+ * microseconds since the epoch in UTC, so that columns compare (and can be
+ * indexed) in time order.
+ */
+
+final class CAGDatabaseTime
+{
+  private CAGDatabaseTime()
+  {
+
+  }
+
+  /**
+   * @param time The time
+   *
+   * @return The time as microseconds since the epoch
+   */
+
+  static long toMicros(
+    final OffsetDateTime time)
+  {
+    return ChronoUnit.MICROS.between(Instant.EPOCH, time.toInstant());
+  }
+
+  /**
+   * @param micros The time as microseconds since the epoch
+   *
+   * @return The time in UTC
+   */
+
+  static OffsetDateTime fromMicros(
+    final long micros)
+  {
+    return Instant.EPOCH.plus(micros, ChronoUnit.MICROS)
+      .atOffset(ZoneOffset.UTC);
+  }
+}
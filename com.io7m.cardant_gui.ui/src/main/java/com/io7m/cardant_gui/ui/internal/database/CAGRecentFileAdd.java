@@ -49,7 +49,8 @@ public final class CAGRecentFileAdd
   {
     return CAGDatabaseQueryProvider.provide(
       CAGRecentFileAddType.class,
-      CAGRecentFileAdd::new
+      CAGRecentFileAdd::new,
+      CAGDatabaseQueryTags.writing(RECENT_FILES.getName())
     );
   }
 
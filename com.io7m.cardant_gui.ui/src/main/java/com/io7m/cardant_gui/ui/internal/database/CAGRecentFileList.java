@@ -51,7 +51,8 @@ public final class CAGRecentFileList
   {
     return CAGDatabaseQueryProvider.provide(
       CAGRecentFileListType.class,
-      CAGRecentFileList::new
+      CAGRecentFileList::new,
+      CAGDatabaseQueryTags.reading(RECENT_FILES.getName())
     );
   }
 
@@ -46,7 +46,8 @@ public final class CAGServerBookmarkDelete
   {
     return CAGDatabaseQueryProvider.provide(
       CAGServerBookmarkDeleteType.class,
-      CAGServerBookmarkDelete::new
+      CAGServerBookmarkDelete::new,
+      CAGDatabaseQueryTags.writing(SERVER_BOOKMARKS.getName())
     );
   }
 
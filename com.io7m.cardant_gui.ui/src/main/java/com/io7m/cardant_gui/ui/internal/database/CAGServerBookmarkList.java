@@ -51,7 +51,8 @@ public final class CAGServerBookmarkList
   {
     return CAGDatabaseQueryProvider.provide(
       CAGServerBookmarkListType.class,
-      CAGServerBookmarkList::new
+      CAGServerBookmarkList::new,
+      CAGDatabaseQueryTags.reading(SERVER_BOOKMARKS.getName())
     );
   }
 
@@ -47,7 +47,8 @@ public final class CAGServerBookmarkPut
   {
     return CAGDatabaseQueryProvider.provide(
       CAGServerBookmarkPutType.class,
-      CAGServerBookmarkPut::new
+      CAGServerBookmarkPut::new,
+      CAGDatabaseQueryTags.writing(SERVER_BOOKMARKS.getName())
     );
   }
 
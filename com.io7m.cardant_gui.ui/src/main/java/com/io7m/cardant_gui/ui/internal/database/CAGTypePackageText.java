@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+
+import java.util.Objects;
+
+/**
+ * The text of a type package.
+ *
+ * @param identifier    The type package identifier
+ * @param text          The text as received from the server
+ * @param textFormatted The text formatted for display
+ */
+
+public record CAGTypePackageText(
+  CATypePackageIdentifier identifier,
+  String text,
+  String textFormatted)
+{
+  /**
+   * The text of a type package.
+   *
+   * @param identifier    The type package identifier
+   * @param text          The text as received from the server
+   * @param textFormatted The text formatted for display
+   */
+
+  public CAGTypePackageText
+  {
+    Objects.requireNonNull(identifier, "identifier");
+    Objects.requireNonNull(text, "text");
+    Objects.requireNonNull(textFormatted, "textFormatted");
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.cardant_gui.ui.internal.database;
+
+import com.io7m.cardant.model.type_package.CATypePackageIdentifier;
+import org.jooq.DSLContext;
+
+import java.util.Optional;
+
+import static com.io7m.cardant_gui.ui.internal.database.Tables.TYPE_PACKAGE_TEXTS;
+
+/**
+ * Retrieve the text of a type package.
+ */
+
+public final class CAGTypePackageTextGet
+  extends CAGDatabaseQueryAbstract<CATypePackageIdentifier, Optional<CAGTypePackageText>>
+  implements CAGTypePackageTextGetType
+{
+  CAGTypePackageTextGet(
+    final CAGDatabaseTransactionType t)
+  {
+    super(t);
+  }
+
+  /**
+   * @return The query provider
+   */
+
+  public static CAGDatabaseQueryProviderType<
+    CATypePackageIdentifier, Optional<CAGTypePackageText>, CAGTypePackageTextGetType>
+  provider()
+  {
+    return CAGDatabaseQueryProvider.provide(
+      CAGTypePackageTextGetType.class,
+      CAGTypePackageTextGet::new
+    );
+  }
+
+  @Override
+  protected Optional<CAGTypePackageText> onExecute(
+    final CAGDatabaseTransactionType transaction,
+    final CATypePackageIdentifier identifier)
+  {
+    final var context =
+      transaction.get(DSLContext.class);
+
+    return context.select(
+        TYPE_PACKAGE_TEXTS.TPT_TEXT,
+        TYPE_PACKAGE_TEXTS.TPT_TEXT_FORMATTED
+      ).from(TYPE_PACKAGE_TEXTS)
+      .where(
+        TYPE_PACKAGE_TEXTS.TPT_NAME.eq(identifier.name().value())
+          .and(TYPE_PACKAGE_TEXTS.TPT_VERSION.eq(
+            identifier.version().toString()))
+      ).fetchOptional()
+      .map(record -> new CAGTypePackageText(
+        identifier,
+        record.get(TYPE_PACKAGE_TEXTS.TPT_TEXT),
+        record.get(TYPE_PACKAGE_TEXTS.TPT_TEXT_FORMATTED)
+      ));
+  }
+}
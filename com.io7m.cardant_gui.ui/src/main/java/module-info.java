@@ -14,12 +14,25 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsPut;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsSearch;
+import com.io7m.cardant_gui.ui.internal.database.CAGAuditEventsWatermark;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemDelete;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemsList;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedItemsPut;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationDelete;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationsList;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedLocationsPut;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedTypePackagesList;
+import com.io7m.cardant_gui.ui.internal.database.CAGCachedTypePackagesPut;
 import com.io7m.cardant_gui.ui.internal.database.CAGDatabaseQueryProviderType;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileAdd;
 import com.io7m.cardant_gui.ui.internal.database.CAGRecentFileList;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkDelete;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkList;
 import com.io7m.cardant_gui.ui.internal.database.CAGServerBookmarkPut;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageTextGet;
+import com.io7m.cardant_gui.ui.internal.database.CAGTypePackageTextPut;
 
 /**
  * Cardant GUI (UI)
@@ -52,6 +65,9 @@ open module com.io7m.cardant_gui.ui
   requires com.io7m.trasco.vanilla;
   requires io.opentelemetry.api;
   requires io.opentelemetry.context;
+  requires io.opentelemetry.sdk;
+  requires io.opentelemetry.sdk.common;
+  requires io.opentelemetry.sdk.trace;
   requires java.sql;
   requires javafx.controls;
   requires javafx.fxml;
@@ -63,11 +79,24 @@ open module com.io7m.cardant_gui.ui
   uses CAGDatabaseQueryProviderType;
 
   provides CAGDatabaseQueryProviderType with
+    CAGAuditEventsPut,
+    CAGAuditEventsSearch,
+    CAGAuditEventsWatermark,
+    CAGCachedItemDelete,
+    CAGCachedItemsList,
+    CAGCachedItemsPut,
+    CAGCachedLocationDelete,
+    CAGCachedLocationsList,
+    CAGCachedLocationsPut,
+    CAGCachedTypePackagesList,
+    CAGCachedTypePackagesPut,
     CAGRecentFileAdd,
     CAGRecentFileList,
     CAGServerBookmarkDelete,
     CAGServerBookmarkList,
-    CAGServerBookmarkPut
+    CAGServerBookmarkPut,
+    CAGTypePackageTextGet,
+    CAGTypePackageTextPut
     ;
 
   exports com.io7m.cardant_gui.ui;